@@ -0,0 +1,76 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.HistoryQueryBenchmark             *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.StubSparqlEndpoint;
+import be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.SyntheticResults;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.semanticwebthing.domain.Observation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end history query: Consumer.getHistoricalObservations of a window
+ * covering the whole series of the stub endpoint, with every cache
+ * disabled. Windows longer than a day are queried in concurrent slices
+ * unless sliced is false.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class HistoryQueryBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public long rows;
+
+    @Param({"false", "true"})
+    public boolean sliced;
+
+    private StubSparqlEndpoint endpoint;
+    private Consumer consumer;
+
+    @Setup
+    public void setup() throws IOException {
+        this.endpoint = new StubSparqlEndpoint(this.rows, 0);
+        LdesSettings settings = this.endpoint.createSettings();
+        // Slicing is off by default, the stub endpoint answers a slice without traversing
+        settings.setQuerySliceWidth(this.sliced ? Duration.ofDays(1) : Duration.ZERO);
+        this.consumer = new Consumer(null, "benchmark", "annotations", settings);
+        this.consumer.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.endpoint.close();
+    }
+
+    @Benchmark
+    public List<Observation> getHistoricalObservations() {
+        return this.consumer.getHistoricalObservations(SyntheticResults.START, SyntheticResults.getTimestamp(this.rows),
+                null, "average", false);
+    }
+}
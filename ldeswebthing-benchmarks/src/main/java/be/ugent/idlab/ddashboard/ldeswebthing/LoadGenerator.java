@@ -0,0 +1,291 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.LoadGenerator                     *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.Rdf4jSparqlEndpoint;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Closed-loop load generator for the history API: a number of threads send
+ * a mix of Consumer.getHistoricalObservations and getHistoricalEvents
+ * requests, each thread waiting for its response (and an optional think
+ * time) before the next one. The Consumer queries an Rdf4jSparqlEndpoint
+ * seeded with a series per thing, ending now, so the requests hit the live
+ * edge like the dashboard does.
+ * <p>
+ * Options are given as --name=value:
+ * <ul>
+ * <li>things: number of things (sources) of the series (default 4)</li>
+ * <li>days: length of the series (default 7)</li>
+ * <li>step: seconds between two observations (default 60)</li>
+ * <li>events: number of updateable events, each updated twice (default 1000)</li>
+ * <li>threads: number of concurrent clients (default 8)</li>
+ * <li>warmup, duration: seconds of warmup and measurement (default 10 and 30)</li>
+ * <li>think: milliseconds between a response and the next request (default 0)</li>
+ * <li>mix: weights of the request kinds latest, hour, day, week and events
+ * (default latest:40,hour:30,day:15,week:5,events:10)</li>
+ * <li>caches: false to disable every cache of the Consumer (default true)</li>
+ * </ul>
+ * Latency percentiles, throughput and errors are printed per request kind.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class LoadGenerator {
+
+    private static final String DEFAULT_MIX = "latest:40,hour:30,day:15,week:5,events:10";
+    private static final long HOUR = 3_600_000L;
+
+    private final Map<String, String> options;
+    private final List<String> kinds = new ArrayList<>();
+    private final List<Integer> weights = new ArrayList<>();
+    private int totalWeight = 0;
+
+    private LoadGenerator(Map<String, String> options) {
+        this.options = options;
+        for (String entry : this.getOption("mix", DEFAULT_MIX).split(",")) {
+            String[] parts = entry.split(":");
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight > 0) {
+                this.kinds.add(parts[0].trim());
+                this.weights.add(weight);
+                this.totalWeight += weight;
+            }
+        }
+        if (this.totalWeight == 0) {
+            throw new IllegalArgumentException("Empty request mix");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        new LoadGenerator(options).run();
+        System.exit(0);
+    }
+
+    private String getOption(String name, String defaultValue) {
+        return this.options.getOrDefault(name, defaultValue);
+    }
+
+    private long getOption(String name, long defaultValue) {
+        return Long.parseLong(this.getOption(name, Long.toString(defaultValue)));
+    }
+
+    private void run() throws IOException, InterruptedException {
+        int things = (int) this.getOption("things", 4);
+        long step = this.getOption("step", 60) * 1000;
+        long days = this.getOption("days", 7);
+        int events = (int) this.getOption("events", 1000);
+        int threads = (int) this.getOption("threads", 8);
+        long think = this.getOption("think", 0);
+        Duration warmup = Duration.ofSeconds(this.getOption("warmup", 10));
+        Duration duration = Duration.ofSeconds(this.getOption("duration", 30));
+
+        try (Rdf4jSparqlEndpoint endpoint = new Rdf4jSparqlEndpoint(Math.max(4, threads))) {
+            long now = System.currentTimeMillis();
+            long count = days * 24 * HOUR / step;
+            long from = now - count * step;
+            long seeding = System.nanoTime();
+            for (int thing = 0; thing < things; thing++) {
+                endpoint.seedObservations("thing-" + thing, from, count, step);
+            }
+            if (events > 0) {
+                endpoint.seedEvents("annotations", from, events, 2, Math.max(1, count * step / events));
+            }
+            System.out.printf(Locale.ROOT, "Seeded %d statements in %d ms, endpoint %s%n", endpoint.getStatements(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - seeding), endpoint.getUrl());
+
+            LdesSettings settings = endpoint.createSettings();
+            if (!Boolean.parseBoolean(this.getOption("caches", "true"))) {
+                settings.setObservationCacheSize(0)
+                        .setLatestValueRefresh(Duration.ZERO)
+                        .setRollupMinuteRetention(Duration.ZERO)
+                        .setQueryCoalescing(false)
+                        .setUpdateableIndexRefresh(Duration.ZERO);
+            }
+            Consumer consumer = new Consumer(null, "loadtest", "annotations", settings);
+            consumer.start();
+
+            System.out.printf(Locale.ROOT, "Warming up for %d s with %d threads%n", warmup.getSeconds(), threads);
+            this.runPhase(consumer, things, threads, think, warmup);
+            System.out.printf(Locale.ROOT, "Measuring for %d s%n", duration.getSeconds());
+            long requests = endpoint.getRequests();
+            Map<String, Recorder> recorders = this.runPhase(consumer, things, threads, think, duration);
+            LoadGenerator.print(recorders, duration, endpoint.getRequests() - requests);
+        }
+    }
+
+    /**
+     * Send requests from a number of threads until the duration has passed.
+     *
+     * @return Recorders per request kind, merged over the threads
+     */
+    private Map<String, Recorder> runPhase(Consumer consumer, int things, int threads, long think, Duration duration)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Map<String, Recorder>> perThread = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; i++) {
+            Map<String, Recorder> recorders = new HashMap<>();
+            perThread.add(recorders);
+            Random random = new Random(i);
+            Thread thread = new Thread(() -> {
+                try {
+                    while (System.nanoTime() < deadline) {
+                        String kind = this.nextKind(random);
+                        Recorder recorder = recorders.computeIfAbsent(kind, k -> new Recorder());
+                        long start = System.nanoTime();
+                        try {
+                            this.send(consumer, kind, "thing-" + random.nextInt(Math.max(1, things)), random);
+                            recorder.record(System.nanoTime() - start);
+                        } catch (RuntimeException e) {
+                            recorder.error();
+                        }
+                        if (think > 0) {
+                            Thread.sleep(think);
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            }, "load-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        done.await();
+        Map<String, Recorder> merged = new HashMap<>();
+        for (Map<String, Recorder> recorders : perThread) {
+            for (Map.Entry<String, Recorder> entry : recorders.entrySet()) {
+                merged.computeIfAbsent(entry.getKey(), k -> new Recorder()).add(entry.getValue());
+            }
+        }
+        return merged;
+    }
+
+    private String nextKind(Random random) {
+        int pick = random.nextInt(this.totalWeight);
+        for (int i = 0; i < this.kinds.size(); i++) {
+            pick -= this.weights.get(i);
+            if (pick < 0) {
+                return this.kinds.get(i);
+            }
+        }
+        return this.kinds.get(this.kinds.size() - 1);
+    }
+
+    private void send(Consumer consumer, String kind, String thingId, Random random) {
+        // Windows end just before now, like a dashboard refreshing its panels
+        long end = System.currentTimeMillis() - random.nextInt(5_000);
+        switch (kind) {
+            case "latest":
+                consumer.getHistoricalObservations(null, null, thingId, "average", false);
+                break;
+            case "hour":
+                consumer.getHistoricalObservations(end - HOUR, end, thingId, "average", true);
+                break;
+            case "day":
+                consumer.getHistoricalObservations(end - 24 * HOUR, end, thingId, "average", true);
+                break;
+            case "week":
+                consumer.getHistoricalObservations(end - 7 * 24 * HOUR, end, thingId, "average", true);
+                break;
+            case "events":
+                consumer.getHistoricalEvents(end - 7 * 24 * HOUR, end);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown request kind " + kind);
+        }
+    }
+
+    private static void print(Map<String, Recorder> recorders, Duration duration, long endpointRequests) {
+        double seconds = duration.toMillis() / 1000.0;
+        System.out.printf(Locale.ROOT, "%-8s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "kind", "count", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        Recorder total = new Recorder();
+        List<String> kinds = new ArrayList<>(recorders.keySet());
+        kinds.sort(null);
+        for (String kind : kinds) {
+            LoadGenerator.printLine(kind, recorders.get(kind), seconds);
+            total.add(recorders.get(kind));
+        }
+        LoadGenerator.printLine("total", total, seconds);
+        System.out.printf(Locale.ROOT, "Endpoint requests: %d (%.1f/s)%n", endpointRequests, endpointRequests / seconds);
+    }
+
+    private static void printLine(String kind, Recorder recorder, double seconds) {
+        long[] latencies = recorder.sorted();
+        System.out.printf(Locale.ROOT, "%-8s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                kind, latencies.length, recorder.errors, latencies.length / seconds,
+                LoadGenerator.percentile(latencies, 0.5), LoadGenerator.percentile(latencies, 0.9),
+                LoadGenerator.percentile(latencies, 0.99), LoadGenerator.percentile(latencies, 0.999),
+                LoadGenerator.percentile(latencies, 1.0));
+    }
+
+    /**
+     * @return Latency in ms at the quantile (nearest rank), 0 if none
+     */
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank))] / 1_000_000.0;
+    }
+
+    /**
+     * Latencies (ns) of one request kind, in a growable array as each thread
+     * owns its recorder while measuring.
+     */
+    private static class Recorder {
+
+        private long[] latencies = new long[1024];
+        private int count = 0;
+        private long errors = 0;
+
+        private void record(long nanos) {
+            if (this.count == this.latencies.length) {
+                this.latencies = Arrays.copyOf(this.latencies, this.count * 2);
+            }
+            this.latencies[this.count++] = nanos;
+        }
+
+        private void error() {
+            this.errors++;
+        }
+
+        private void add(Recorder other) {
+            for (int i = 0; i < other.count; i++) {
+                this.record(other.latencies[i]);
+            }
+            this.errors += other.errors;
+        }
+
+        private long[] sorted() {
+            long[] sorted = Arrays.copyOf(this.latencies, this.count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+}
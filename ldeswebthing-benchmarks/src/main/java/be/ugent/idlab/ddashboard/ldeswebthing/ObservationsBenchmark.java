@@ -0,0 +1,59 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ObservationsBenchmark             *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.SyntheticResults;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.EventSeries;
+import be.ugent.idlab.ddashboard.semanticwebthing.domain.Observation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer.createObservations, the conversion of a loaded EventSeries into
+ * the Observations returned to the Semantic Web Thing. In the same package
+ * as Consumer, which is not public.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ObservationsBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    private EventSeries series;
+
+    @Setup
+    public void setup() {
+        this.series = new EventSeries(this.rows);
+        for (int i = 0; i < this.rows; i++) {
+            this.series.accept(SyntheticResults.getTimestamp(i), SyntheticResults.getValue(i));
+        }
+    }
+
+    @Benchmark
+    public List<Observation> createObservations() {
+        return Consumer.createObservations(this.series);
+    }
+}
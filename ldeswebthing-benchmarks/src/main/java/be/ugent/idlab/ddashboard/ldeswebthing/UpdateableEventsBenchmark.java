@@ -0,0 +1,78 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.UpdateableEventsBenchmark         *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.StubSparqlEndpoint;
+import be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.SyntheticResults;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.semanticwebthing.domain.Observation;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consumer.getHistoricalEvents over the full history of updateable events
+ * (4 versions per event id on average): resolving the id, update and
+ * deleted tags of every member on every request, or reading the current
+ * state index, which loads the members at the live edge on every request
+ * (UPDATEABLE_INDEX_REFRESH of 1 ms). The full scan builds JSON events,
+ * so it stops at 1M rows.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class UpdateableEventsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public long rows;
+
+    @Param({"false", "true"})
+    public boolean indexed;
+
+    private StubSparqlEndpoint endpoint;
+    private Consumer consumer;
+
+    @Setup
+    public void setup() throws IOException {
+        this.endpoint = new StubSparqlEndpoint(this.rows, Math.max(1, this.rows / 4));
+        LdesSettings settings = this.endpoint.createSettings();
+        if (this.indexed) {
+            settings.setUpdateableIndexRefresh(Duration.ofMillis(1)).setUpdateableIndexResync(Duration.ZERO);
+        }
+        this.consumer = new Consumer(null, "benchmark", "annotations", settings);
+        this.consumer.start();
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.endpoint.close();
+    }
+
+    @Benchmark
+    public List<Observation> getHistoricalEvents() {
+        return this.consumer.getHistoricalEvents(SyntheticResults.START, SyntheticResults.getTimestamp(this.rows));
+    }
+}
@@ -0,0 +1,177 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.CompressionBenchmark   *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.benchmarks;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.XsdDateTime;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * CPU cost against bytes of gzip on the payloads of the Web Thing: the
+ * history responses it serves (an array of observations, as Spring writes
+ * them) and the SPARQL results it receives (JSON and CSV). compress and
+ * decompress time the two ends at a compression level (Tomcat compresses
+ * at the default level 6). The sizes before and after compression, and the
+ * time to send either over a slow link, are printed at the setup.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class CompressionBenchmark {
+
+    // Slow site link the transfer times are printed for, in bits per second
+    private static final long LINK_SPEED = 10_000_000L;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Param({"history", "json", "csv"})
+    public String payload;
+
+    @Param({"10000", "100000", "1000000"})
+    public long rows;
+
+    @Param({"1", "6", "9"})
+    public int level;
+
+    private byte[] plain;
+    private byte[] compressed;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+
+    @Setup
+    public void setup() throws IOException {
+        this.plain = this.render();
+        ByteArrayOutputStream output = new ByteArrayOutputStream(this.plain.length / 4);
+        this.compress(output);
+        this.compressed = output.toByteArray();
+        System.out.printf(Locale.ROOT, "%n%s of %d rows: %d bytes, gzip level %d %d bytes (%.1fx), at %d Mbit/s %.0f ms against %.0f ms%n",
+                this.payload, this.rows, this.plain.length, this.level, this.compressed.length,
+                (double) this.plain.length / this.compressed.length, LINK_SPEED / 1_000_000,
+                CompressionBenchmark.getTransferMillis(this.plain.length), CompressionBenchmark.getTransferMillis(this.compressed.length));
+    }
+
+    @Benchmark
+    public long compress() throws IOException {
+        CountingStream sink = new CountingStream();
+        this.compress(sink);
+        return sink.bytes;
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        long bytes = 0;
+        try (InputStream input = new GZIPInputStream(new ByteArrayInputStream(this.compressed), BUFFER_SIZE)) {
+            int count;
+            while ((count = input.read(this.buffer)) > 0) {
+                bytes += count;
+            }
+        }
+        return bytes;
+    }
+
+    private void compress(OutputStream output) throws IOException {
+        try (GZIPOutputStream gzip = new LevelGZIPOutputStream(output, this.level)) {
+            gzip.write(this.plain);
+        }
+    }
+
+    private byte[] render() throws IOException {
+        switch (this.payload) {
+            case "history":
+                return CompressionBenchmark.renderHistory(this.rows);
+            case "json":
+                return CompressionBenchmark.renderResults(SparqlResultsFormat.JSON, this.rows);
+            case "csv":
+                return CompressionBenchmark.renderResults(SparqlResultsFormat.CSV, this.rows);
+            default:
+                throw new IllegalArgumentException("Unknown payload " + this.payload);
+        }
+    }
+
+    /**
+     * A history response: observations with an ISO-8601 timestamp and a
+     * value, like Spring (Jackson) serializes a List of Observations.
+     */
+    private static byte[] renderHistory(long rows) {
+        StringBuilder builder = new StringBuilder((int) Math.min(Integer.MAX_VALUE - 16, rows * 56));
+        builder.append('[');
+        for (long row = 0; row < rows; row++) {
+            if (row > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"timestamp\":\"");
+            XsdDateTime.appendTo(builder, SyntheticResults.getTimestamp(row), TimestampPrecision.SECONDS);
+            builder.append("\",\"value\":").append(SyntheticResults.getValue(row)).append('}');
+        }
+        builder.append(']');
+        return builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] renderResults(SparqlResultsFormat format, long rows) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        SyntheticResults.write(output, format, 0, rows, false, 0);
+        return output.toByteArray();
+    }
+
+    private static double getTransferMillis(long bytes) {
+        return bytes * 8 * 1000.0 / LINK_SPEED;
+    }
+
+    /**
+     * GZIPOutputStream at a given compression level.
+     */
+    private static class LevelGZIPOutputStream extends GZIPOutputStream {
+
+        private LevelGZIPOutputStream(OutputStream output, int level) throws IOException {
+            super(output, BUFFER_SIZE);
+            this.def.setLevel(level);
+        }
+    }
+
+    /**
+     * Discards the bytes written, counting them.
+     */
+    private static class CountingStream extends OutputStream {
+
+        private long bytes = 0;
+
+        @Override
+        public void write(int b) {
+            this.bytes++;
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            this.bytes += length;
+        }
+    }
+}
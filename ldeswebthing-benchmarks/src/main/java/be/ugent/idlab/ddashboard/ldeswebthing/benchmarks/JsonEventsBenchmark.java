@@ -0,0 +1,81 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.JsonEventsBenchmark    *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.benchmarks;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesConsumer;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LdesConsumer.getEvents into a list of JSON events, the path of the
+ * updateable events when the index is disabled. Stops at 1M rows: 10M JSON
+ * events do not fit in a reasonable heap.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class JsonEventsBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public long rows;
+
+    /**
+     * Also request the tags of the events.
+     */
+    @Param({"false", "true"})
+    public boolean tags;
+
+    private StubSparqlEndpoint endpoint;
+    private LdesConsumer consumer;
+    private Set<EventField> fields;
+
+    @Setup
+    public void setup() throws IOException, LDESException {
+        this.endpoint = new StubSparqlEndpoint(this.rows, Math.max(1, this.rows / 4));
+        this.consumer = new LdesConsumer(null, null, null, this.endpoint.createSettings());
+        this.fields = this.tags ? EnumSet.of(EventField.TIMESTAMP, EventField.VALUE, EventField.TAGS)
+                : EnumSet.of(EventField.TIMESTAMP, EventField.VALUE);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.consumer.close();
+        this.endpoint.close();
+    }
+
+    @Benchmark
+    public List<JSONObject> getEvents() throws LDESException {
+        return this.consumer.getEvents(Collections.singleton("benchmark"), Collections.singleton("average"),
+                SyntheticResults.START, SyntheticResults.getTimestamp(this.rows), this.fields, null,
+                null, null, null, null, null, null);
+    }
+}
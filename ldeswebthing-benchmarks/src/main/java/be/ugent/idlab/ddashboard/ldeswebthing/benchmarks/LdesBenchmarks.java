@@ -0,0 +1,34 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.LdesBenchmarks         *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.benchmarks;
+
+import org.openjdk.jmh.Main;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmarks jar: the JMH command line, with allocation
+ * profiling (the gc profiler) on unless other profilers are given.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public final class LdesBenchmarks {
+
+    private LdesBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListWithParams()
+                || options.shouldListProfilers() || options.shouldListResultFormats() || !options.getProfilers().isEmpty()) {
+            Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+    }
+}
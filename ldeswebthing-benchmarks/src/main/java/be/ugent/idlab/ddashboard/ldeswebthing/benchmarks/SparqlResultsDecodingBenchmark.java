@@ -0,0 +1,125 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.SparqlResultsDecodingBenchmark *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.benchmarks;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesConsumer;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlCsvResultsReader;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlJsonResultsReader;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlResultsReader;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlTsvResultsReader;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.XsdDateTime;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of SPARQL results into events, per results format: the streaming
+ * reader on its own (from memory), and LdesConsumer.getEvents into a sink,
+ * which adds the query, the HTTP exchange with the stub endpoint (in the
+ * negotiated format, gzip compressed if compression is true) and the
+ * cursor. The size of the results is printed at the setup, for the bytes on
+ * the wire per format.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class SparqlResultsDecodingBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public long rows;
+
+    @Param({"JSON", "TSV", "CSV"})
+    public SparqlResultsFormat format;
+
+    /**
+     * The stub endpoint compresses its responses, getEvents decompresses them.
+     */
+    @Param({"false", "true"})
+    public boolean compression;
+
+    private StubSparqlEndpoint endpoint;
+    private LdesConsumer consumer;
+
+    @Setup
+    public void setup() throws IOException, LDESException {
+        this.endpoint = new StubSparqlEndpoint(this.rows, 0).setCompression(this.compression);
+        this.consumer = new LdesConsumer(null, null, null, this.endpoint.createSettings().setSparqlResultsFormat(this.format));
+        try (InputStream stream = SyntheticResults.repeat(this.format, this.rows, 0)) {
+            long bytes = stream.transferTo(OutputStream.nullOutputStream());
+            System.out.printf(Locale.ROOT, "%n%s results of %d rows: %d bytes (%.1f per row)%n", this.format, this.rows, bytes, (double) bytes / this.rows);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.consumer.close();
+        this.endpoint.close();
+    }
+
+    @Benchmark
+    public long reader(Blackhole blackhole) throws LDESException {
+        long count = 0;
+        try (SparqlResultsReader reader = this.open(SyntheticResults.repeat(this.format, this.rows, 0))) {
+            while (reader.next()) {
+                blackhole.consume(XsdDateTime.parse(reader.get(EventField.TIMESTAMP.label), TimestampPrecision.MILLISECONDS));
+                blackhole.consume(Double.parseDouble(reader.get(EventField.VALUE.label)));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private SparqlResultsReader open(InputStream stream) throws LDESException {
+        switch (this.format) {
+            case TSV:
+                return new SparqlTsvResultsReader(stream);
+            case CSV:
+                return new SparqlCsvResultsReader(stream);
+            default:
+                return new SparqlJsonResultsReader(stream);
+        }
+    }
+
+    @Benchmark
+    public int getEvents(Blackhole blackhole) throws LDESException {
+        EventSink sink = (timestamp, value) -> {
+            blackhole.consume(timestamp);
+            blackhole.consume(value);
+            return true;
+        };
+        return this.consumer.getEvents(Collections.singleton("benchmark"), Collections.singleton("average"),
+                SyntheticResults.START, SyntheticResults.getTimestamp(this.rows), null, TimestampPrecision.MILLISECONDS,
+                null, null, null, null, null, null, sink);
+    }
+}
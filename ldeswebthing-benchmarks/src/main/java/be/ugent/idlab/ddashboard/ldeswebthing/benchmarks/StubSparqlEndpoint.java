@@ -0,0 +1,229 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.StubSparqlEndpoint     *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.benchmarks;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.XsdDateTime;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Local stand-in for the SPARQL endpoint of the aggregator, answering the
+ * events queries of LdesConsumer with a window of the synthetic series.
+ * Only the parts of the query that shape the result are interpreted: the
+ * timestamp bounds, the ordering, LIMIT/OFFSET and whether tags are
+ * projected. Responses are streamed, whatever their size, in the first
+ * results format of the Accept header that is JSON, TSV or CSV, and gzip
+ * compressed when enabled and accepted.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class StubSparqlEndpoint implements AutoCloseable {
+
+    private static final Pattern FROM = Pattern.compile("\\?timestamp >= \"([^\"]+)\"");
+    private static final Pattern TO = Pattern.compile("\\?timestamp < \"([^\"]+)\"");
+    private static final Pattern LIMIT = Pattern.compile("LIMIT (\\d+)");
+    private static final Pattern OFFSET = Pattern.compile("OFFSET (\\d+)");
+    private static final Pattern DESCENDING = Pattern.compile("ORDER BY\\s+DESC\\(\\?timestamp\\)");
+
+    private final long rows;
+    private final long ids;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong rowsSent = new AtomicLong();
+    private volatile boolean compression = false;
+
+    /**
+     * Start an endpoint on a free local port.
+     *
+     * @param rows Number of rows of the series
+     * @param ids Number of distinct updateable events, 0 to never send tags
+     * @throws IOException
+     */
+    public StubSparqlEndpoint(long rows, long ids) throws IOException {
+        this.rows = rows;
+        this.ids = ids;
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 64);
+        this.executor = Executors.newFixedThreadPool(16, runnable -> {
+            Thread thread = new Thread(runnable, "stub-sparql");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/sparql", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * @return URL of the endpoint, for LdesSettings.setSparqlEndpoint
+     */
+    public String getUrl() {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/sparql";
+    }
+
+    /**
+     * Settings querying this endpoint, with the tags predicate set and every
+     * cache disabled, so each request reaches the endpoint.
+     *
+     * @return LdesSettings
+     */
+    public LdesSettings createSettings() {
+        return new LdesSettings()
+                .setSparqlEndpoint(this.getUrl())
+                .setTagsPredicate("https://example.org/tags")
+                .setObservationCacheSize(0)
+                .setLatestValueRefresh(Duration.ZERO)
+                .setRollupMinuteRetention(Duration.ZERO)
+                .setQueryCoalescing(false)
+                .setUpdateableIndexRefresh(Duration.ZERO);
+    }
+
+    /**
+     * Compress the responses (gzip) of requests accepting it, off by default.
+     *
+     * @param compression Compress the responses
+     * @return This endpoint
+     */
+    public StubSparqlEndpoint setCompression(boolean compression) {
+        this.compression = compression;
+        return this;
+    }
+
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    public long getRowsSent() {
+        return this.rowsSent.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.requests.incrementAndGet();
+        try {
+            String query = StubSparqlEndpoint.readQuery(exchange);
+            if (query == null) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            long first = 0;
+            long last = this.rows;
+            Matcher matcher = FROM.matcher(query);
+            if (matcher.find()) {
+                first = Math.min(this.rows, SyntheticResults.getRow(XsdDateTime.parseMillis(matcher.group(1))));
+            }
+            matcher = TO.matcher(query);
+            if (matcher.find()) {
+                last = Math.max(first, Math.min(this.rows, SyntheticResults.getRow(XsdDateTime.parseMillis(matcher.group(1)))));
+            }
+            boolean descending = DESCENDING.matcher(query).find();
+            matcher = OFFSET.matcher(query);
+            long offset = matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+            matcher = LIMIT.matcher(query);
+            long limit = matcher.find() ? Long.parseLong(matcher.group(1)) : Long.MAX_VALUE;
+            // Page of the window, in the requested order
+            long count = Math.max(0, Math.min(limit, last - first - offset));
+            long pageFirst = descending ? last - offset - count : first + offset;
+            boolean tags = this.ids > 0 && query.contains("?tags");
+            SparqlResultsFormat format = StubSparqlEndpoint.negotiate(exchange);
+
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = this.compression && acceptEncoding != null && acceptEncoding.contains("gzip");
+
+            exchange.getResponseHeaders().set("Content-Type", format.mediaType);
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream output = gzip ? new GZIPOutputStream(exchange.getResponseBody(), 64 * 1024) : exchange.getResponseBody()) {
+                SyntheticResults.write(output, format, pageFirst, pageFirst + count, descending, tags ? this.ids : 0);
+            }
+            this.rowsSent.addAndGet(count);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Read the query of a SPARQL protocol request: the query parameter of a
+     * GET, the body of a POST, or its query parameter if form encoded.
+     *
+     * @param exchange Request
+     * @return Query, null if none
+     * @throws IOException
+     */
+    private static String readQuery(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            String body;
+            try (InputStream input = exchange.getRequestBody()) {
+                body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+                return StubSparqlEndpoint.getParameter(body, "query");
+            }
+            return body;
+        }
+        return StubSparqlEndpoint.getParameter(exchange.getRequestURI().getRawQuery(), "query");
+    }
+
+    /**
+     * Pick the results format of a request: the first media type of the
+     * Accept header that is a SparqlResultsFormat (quality values are not
+     * weighed, LdesConsumer lists its preference first).
+     *
+     * @param exchange Request
+     * @return SparqlResultsFormat, JSON if none matches
+     */
+    private static SparqlResultsFormat negotiate(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept != null) {
+            for (String mediaType : accept.split(",")) {
+                SparqlResultsFormat format = SparqlResultsFormat.fromContentType(mediaType);
+                // fromContentType falls back to JSON, only take JSON if it was asked for
+                if (format != SparqlResultsFormat.JSON || mediaType.trim().startsWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return SparqlResultsFormat.JSON;
+    }
+
+    private static String getParameter(String parameters, String name) {
+        if (parameters == null) {
+            return null;
+        }
+        for (String parameter : parameters.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                return URLDecoder.decode(parameter.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+    }
+}
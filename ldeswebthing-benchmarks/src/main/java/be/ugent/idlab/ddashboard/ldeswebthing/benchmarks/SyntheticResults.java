@@ -0,0 +1,268 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.SyntheticResults       *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.benchmarks;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlTemplate;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.XsdDateTime;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Synthetic series in the SPARQL results of the events query, in any of the
+ * SparqlResultsFormats: one observation per second from START, with a
+ * slowly varying value. Row i
+ * is a member of the updateable event "e" + (i % ids), its update counter
+ * is i / ids and every tenth event is deleted in its third update.
+ * <p>
+ * Rows are a function of their index, so any window, page or order of the
+ * series can be rendered without keeping it in memory.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public final class SyntheticResults {
+
+    /**
+     * Timestamp of the first row, 2023-01-01T00:00:00Z.
+     */
+    public static final long START = 1_672_531_200_000L;
+    /**
+     * Milliseconds between two rows.
+     */
+    public static final long STEP = 1_000;
+
+    // Rows rendered per write
+    private static final int BLOCK = 4096;
+    private static final String XSD_DOUBLE = "http://www.w3.org/2001/XMLSchema#double";
+
+    private SyntheticResults() {
+    }
+
+    /**
+     * @param row Row index
+     * @return UTC millisecond timestamp of the row
+     */
+    public static long getTimestamp(long row) {
+        return START + row * STEP;
+    }
+
+    /**
+     * @param row Row index
+     * @return Value of the row
+     */
+    public static double getValue(long row) {
+        return 20 + 5 * Math.sin(row / 600.0) + (row % 7) * 0.125;
+    }
+
+    /**
+     * @param timestamp UTC millisecond timestamp
+     * @return Index of the first row at or after the timestamp
+     */
+    public static long getRow(long timestamp) {
+        return Math.max(0, Math.floorDiv(timestamp - START + STEP - 1, STEP));
+    }
+
+    /**
+     * @param row Row index
+     * @param ids Number of distinct updateable events
+     * @return Tags of the row, separated by commas (the GROUP_CONCAT of the events query)
+     */
+    public static String getTags(long row, long ids) {
+        long id = row % ids;
+        long update = row / ids;
+        String tags = "id=e" + id + ",update=" + update;
+        return (update == 2 && id % 10 == 0) ? tags + ",deleted=true" : tags;
+    }
+
+    /**
+     * Write a window of the series as SPARQL results.
+     *
+     * @param output Receives the results, not closed
+     * @param format Results format
+     * @param firstRow First row (inclusive)
+     * @param lastRow Last row (exclusive)
+     * @param descending Write the rows from last to first
+     * @param ids Number of distinct updateable events, 0 to leave out the tags
+     * @throws IOException
+     */
+    public static void write(OutputStream output, SparqlResultsFormat format, long firstRow, long lastRow, boolean descending, long ids) throws IOException {
+        StringBuilder block = new StringBuilder(BLOCK * 256);
+        SyntheticResults.appendHeader(block, format, ids > 0);
+        long count = Math.max(0, lastRow - firstRow);
+        for (long i = 0; i < count; i++) {
+            long row = descending ? lastRow - 1 - i : firstRow + i;
+            SyntheticResults.appendRow(block, format, row, ids, i > 0);
+            if (block.length() >= BLOCK * 200) {
+                output.write(block.toString().getBytes(StandardCharsets.UTF_8));
+                block.setLength(0);
+            }
+        }
+        block.append(SyntheticResults.getEnd(format));
+        output.write(block.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Results of a given number of rows, without rendering all of them: a
+     * block of rows is rendered once and repeated, so the timestamps repeat
+     * every block. For decoding benchmarks at sizes that don't fit in a byte
+     * array.
+     *
+     * @param format Results format
+     * @param rows Number of rows
+     * @param ids Number of distinct updateable events, 0 to leave out the tags
+     * @return SPARQL results
+     */
+    public static InputStream repeat(SparqlResultsFormat format, long rows, long ids) {
+        StringBuilder header = new StringBuilder();
+        SyntheticResults.appendHeader(header, format, ids > 0);
+        // In JSON every row is preceded by a comma, which is skipped for the first row of the result
+        StringBuilder block = new StringBuilder(BLOCK * 256);
+        int[] rowEnds = new int[BLOCK];
+        for (int i = 0; i < BLOCK; i++) {
+            SyntheticResults.appendRow(block, format, i, ids, true);
+            rowEnds[i] = block.length();
+        }
+        return new RepeatingStream(header.toString().getBytes(StandardCharsets.US_ASCII),
+                block.toString().getBytes(StandardCharsets.US_ASCII), rowEnds, rows,
+                (format == SparqlResultsFormat.JSON) ? 1 : 0, SyntheticResults.getEnd(format).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void appendHeader(StringBuilder builder, SparqlResultsFormat format, boolean tags) {
+        switch (format) {
+            case TSV:
+                builder.append(tags ? "?timestamp\t?value\t?tags\n" : "?timestamp\t?value\n");
+                break;
+            case CSV:
+                builder.append(tags ? "timestamp,value,tags\r\n" : "timestamp,value\r\n");
+                break;
+            default:
+                builder.append("{\"head\":{\"vars\":[\"timestamp\",\"value\"");
+                if (tags) {
+                    builder.append(",\"tags\"");
+                }
+                builder.append("]},\"results\":{\"bindings\":[");
+        }
+    }
+
+    private static void appendRow(StringBuilder builder, SparqlResultsFormat format, long row, long ids, boolean comma) {
+        switch (format) {
+            case TSV:
+                // Literals in full, with their datatype, like Comunica writes them
+                builder.append('"');
+                XsdDateTime.appendTo(builder, SyntheticResults.getTimestamp(row), TimestampPrecision.MILLISECONDS);
+                builder.append("\"^^<").append(SparqlTemplate.XSD_DATE_TIME).append(">\t\"")
+                        .append(SyntheticResults.getValue(row)).append("\"^^<").append(XSD_DOUBLE).append('>');
+                if (ids > 0) {
+                    builder.append("\t\"").append(SyntheticResults.getTags(row, ids)).append('"');
+                }
+                builder.append('\n');
+                break;
+            case CSV:
+                XsdDateTime.appendTo(builder, SyntheticResults.getTimestamp(row), TimestampPrecision.MILLISECONDS);
+                builder.append(',').append(SyntheticResults.getValue(row));
+                if (ids > 0) {
+                    // The tags contain commas
+                    builder.append(",\"").append(SyntheticResults.getTags(row, ids)).append('"');
+                }
+                builder.append("\r\n");
+                break;
+            default:
+                if (comma) {
+                    builder.append(',');
+                }
+                builder.append("{\"timestamp\":{\"type\":\"literal\",\"datatype\":\"").append(SparqlTemplate.XSD_DATE_TIME).append("\",\"value\":\"");
+                XsdDateTime.appendTo(builder, SyntheticResults.getTimestamp(row), TimestampPrecision.MILLISECONDS);
+                builder.append("\"},\"value\":{\"type\":\"literal\",\"datatype\":\"").append(XSD_DOUBLE).append("\",\"value\":\"")
+                        .append(SyntheticResults.getValue(row)).append("\"}");
+                if (ids > 0) {
+                    builder.append(",\"tags\":{\"type\":\"literal\",\"value\":\"").append(SyntheticResults.getTags(row, ids)).append("\"}");
+                }
+                builder.append('}');
+        }
+    }
+
+    private static String getEnd(SparqlResultsFormat format) {
+        return (format == SparqlResultsFormat.JSON) ? "]}}" : "";
+    }
+
+    /**
+     * The header, the rows of the repeated block until the number of rows is
+     * reached, and the end of the results.
+     */
+    private static class RepeatingStream extends InputStream {
+
+        private final byte[] block;
+        // Offset in the block after every row (the block is ASCII)
+        private final int[] rowEnds;
+        // Bytes of the block skipped for the first row
+        private final int firstSkip;
+        private final byte[] end;
+        private long remaining;
+        private boolean first = true;
+        private boolean ended = false;
+
+        private byte[] current;
+        private int position;
+        private int limit;
+
+        private RepeatingStream(byte[] header, byte[] block, int[] rowEnds, long rows, int firstSkip, byte[] end) {
+            this.block = block;
+            this.rowEnds = rowEnds;
+            this.firstSkip = firstSkip;
+            this.end = end;
+            this.remaining = rows;
+            this.current = header;
+            this.position = 0;
+            this.limit = header.length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return (this.read(one, 0, 1) < 0) ? -1 : (one[0] & 0xff);
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (this.position == this.limit) {
+                if (!this.nextSegment()) {
+                    return -1;
+                }
+            }
+            int count = Math.min(length, this.limit - this.position);
+            System.arraycopy(this.current, this.position, buffer, offset, count);
+            this.position += count;
+            return count;
+        }
+
+        private boolean nextSegment() {
+            if (this.remaining > 0) {
+                int rows = (int) Math.min(this.remaining, this.rowEnds.length);
+                this.current = this.block;
+                this.position = this.first ? this.firstSkip : 0;
+                this.limit = this.rowEnds[rows - 1];
+                this.remaining -= rows;
+                this.first = false;
+                return true;
+            }
+            if (!this.ended) {
+                this.current = this.end;
+                this.position = 0;
+                this.limit = this.end.length;
+                this.ended = true;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.benchmarks.XsdDateTimeBenchmark   *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.benchmarks;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.XsdDateTime;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * xsd:dateTime codec against java.time, for the timestamps of SPARQL
+ * bindings (parse) and query bounds (format). The lexical values cycle
+ * through a table of realistic timestamps, so the branch predictor can not
+ * learn a single value.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XsdDateTimeBenchmark {
+
+    private static final int VALUES = 4096;
+
+    /**
+     * Fraction digits of the lexical values: 3 as written by the aggregator,
+     * 6 or 9 as written by other producers.
+     */
+    @Param({"3", "6", "9"})
+    public int fractionDigits;
+
+    private String[] lexical;
+    private long[] millis;
+    private int index = 0;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        this.lexical = new String[VALUES];
+        this.millis = new long[VALUES];
+        long start = Instant.parse("2023-03-06T12:54:01.915Z").toEpochMilli();
+        for (int i = 0; i < VALUES; i++) {
+            long nanos = (start + random.nextInt(365 * 86_400) * 1000L) * 1_000_000L + random.nextInt(1_000_000_000);
+            Instant instant = Instant.ofEpochSecond(nanos / 1_000_000_000L, nanos % 1_000_000_000L);
+            String text = instant.toString();
+            // Instant.toString uses 0, 3, 6 or 9 digits, cut to the digits of the run
+            int dot = text.indexOf('.');
+            String seconds = (dot < 0) ? text.substring(0, text.length() - 1) : text.substring(0, dot);
+            String fraction = (dot < 0) ? "" : text.substring(dot + 1, text.length() - 1);
+            fraction = (fraction + "000000000").substring(0, this.fractionDigits);
+            this.lexical[i] = seconds + "." + fraction + "Z";
+            this.millis[i] = instant.toEpochMilli();
+        }
+    }
+
+    private int next() {
+        this.index = (this.index + 1) & (VALUES - 1);
+        return this.index;
+    }
+
+    @Benchmark
+    public long parseInstant() {
+        return Instant.parse(this.lexical[this.next()]).toEpochMilli();
+    }
+
+    @Benchmark
+    public long parseMillis() {
+        return XsdDateTime.parse(this.lexical[this.next()], TimestampPrecision.MILLISECONDS);
+    }
+
+    @Benchmark
+    public long parseMicros() {
+        return XsdDateTime.parse(this.lexical[this.next()], TimestampPrecision.MICROSECONDS);
+    }
+
+    @Benchmark
+    public String formatInstant() {
+        return Instant.ofEpochMilli(this.millis[this.next()]).toString();
+    }
+
+    @Benchmark
+    public String formatMillis() {
+        return XsdDateTime.format(this.millis[this.next()], TimestampPrecision.MILLISECONDS);
+    }
+}
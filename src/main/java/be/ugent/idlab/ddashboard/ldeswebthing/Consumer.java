@@ -3,19 +3,41 @@
  ****************************************************************************/
 package be.ugent.idlab.ddashboard.ldeswebthing;
 
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventCursor;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesConsumer;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesMetrics;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlQueryBuilder;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.StreamListener;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.XsdDateTime;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.DownsampleMode;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.Downsampler;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.EventSeries;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.LatestValueCache;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.ObservationRangeCache;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.ObservationReplica;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.RollupStore;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.SingleFlight;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.UpdateableEventIndex;
 import be.ugent.idlab.ddashboard.semanticwebthing.domain.*;
 import be.ugent.idlab.ddashboard.semanticwebthing.spring.RealtimeProviderInterface;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import java.net.URI;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
@@ -41,8 +63,22 @@ class Consumer implements HistoricalProviderInterface,
     private String datasetId;
     // Metric reference for LDES where all events are stored as url encoded
     private String eventId;
+    // Transport (and query) settings for the LDES consumer
+    private LdesSettings ldesSettings;
     // LDES in SOLID consumer and producer
     private LdesConsumer consumer = null;
+    // Cache of observation windows, null if disabled
+    private ObservationRangeCache observationCache = null;
+    // On-disk replica of the observation windows, below the cache, null if disabled
+    private ObservationReplica observationReplica = null;
+    // Cache of the latest observations, null if disabled
+    private LatestValueCache latestValueCache = null;
+    // Minute, hour and day rollups for coarse windows, null if disabled
+    private RollupStore rollupStore = null;
+    // Shares the load of identical concurrent observation requests, null if disabled
+    private SingleFlight<String, EventSeries> queryCoalescer = null;
+    // Current state of the updateable events, null if disabled
+    private UpdateableEventIndex updateableIndex = null;
 
     // Roots needed
     private Thing thingRoot = ThingRegistry.getInstance().getThing();
@@ -54,9 +90,43 @@ class Consumer implements HistoricalProviderInterface,
 
     // Constructor
     public Consumer(String ldesInSolidEndpoint, String datasetId, String eventId) {
+        this(ldesInSolidEndpoint, datasetId, eventId, new LdesSettings());
+    }
+
+    public Consumer(String ldesInSolidEndpoint, String datasetId, String eventId, LdesSettings ldesSettings) {
         this.ldesInSolidEndpoint = ldesInSolidEndpoint;
         this.datasetId = datasetId;
         this.eventId = eventId;
+        this.ldesSettings = ldesSettings;
+        if (ldesSettings.getObservationCacheSize() > 0) {
+            this.observationCache = new ObservationRangeCache(ldesSettings.getObservationCacheSize(),
+                    ldesSettings.getObservationCacheRetention().toMillis(), ldesSettings.getObservationCacheLiveEdge().toMillis());
+        }
+        if (ldesSettings.getReplicaDirectory() != null) {
+            try {
+                this.observationReplica = new ObservationReplica(Paths.get(ldesSettings.getReplicaDirectory()),
+                        ldesSettings.getReplicaRetention().toMillis(), ldesSettings.getObservationCacheLiveEdge().toMillis());
+            } catch (LDESException e) {
+                LOGGER.log(Level.WARNING, "Observation replica disabled", e);
+            }
+        }
+        if (!ldesSettings.getLatestValueRefresh().isZero()) {
+            // Only requested keys are refreshed, they are requested once the LDES consumer is created at start
+            this.latestValueCache = new LatestValueCache(ldesSettings.getLatestValueRefresh().toMillis(),
+                    runnable -> this.consumer.getBlockingExecutor().execute(runnable));
+        }
+        if (ldesSettings.isQueryCoalescing()) {
+            this.queryCoalescer = new SingleFlight<>();
+        }
+        // The rollups only serve downsampled windows
+        if (ldesSettings.isDownsampling() && !ldesSettings.getRollupMinuteRetention().isZero()) {
+            this.rollupStore = new RollupStore(ldesSettings.getRollupMinuteRetention().toMillis(),
+                    ldesSettings.getRollupHourRetention().toMillis(), ldesSettings.getObservationCacheLiveEdge().toMillis());
+        }
+        if (!ldesSettings.getUpdateableIndexRefresh().isZero()) {
+            this.updateableIndex = new UpdateableEventIndex(ldesSettings.getUpdateableIndexRefresh().toMillis(),
+                    ldesSettings.getUpdateableIndexResync().toMillis(), ldesSettings.getObservationCacheLiveEdge().toMillis());
+        }
     }
 
     /*
@@ -69,10 +139,16 @@ class Consumer implements HistoricalProviderInterface,
 
         LOGGER.info("Initializing LDES consumer");
         this.initializeLDESCommunication();
+        this.bindMetrics();
 
         LOGGER.info("Discovering all Web Things");
         this.populateThings();
 
+        if (this.ldesSettings.getStreamEndpoint() != null) {
+            LOGGER.info("Opening realtime stream");
+            this.startRealtime();
+        }
+
         LOGGER.info("Starting Web Thing completed");
     }
 
@@ -81,7 +157,7 @@ class Consumer implements HistoricalProviderInterface,
      */
     private void initializeLDESCommunication() {
         try {
-            this.consumer = new LdesConsumer(this.ldesInSolidEndpoint, this.authId, this.authSecret);
+            this.consumer = new LdesConsumer(this.ldesInSolidEndpoint, this.authId, this.authSecret, this.ldesSettings);
         } catch (LDESException e) {
             LOGGER.warning("Error creating LDES consumer!");
             LOGGER.warning(e.toString());
@@ -89,6 +165,33 @@ class Consumer implements HistoricalProviderInterface,
         }
     }
 
+    /**
+     * Expose the hit ratios of the enabled caches next to the metrics of the LDES consumer.
+     */
+    private void bindMetrics() {
+        LdesMetrics metrics = this.consumer.getMetrics();
+        if (this.observationCache != null) {
+            metrics.bindCache("observations", this.observationCache, ObservationRangeCache::getHits, ObservationRangeCache::getMisses);
+        }
+        if (this.observationReplica != null) {
+            metrics.bindCache("replica", this.observationReplica, ObservationReplica::getHits, ObservationReplica::getMisses);
+        }
+        if (this.latestValueCache != null) {
+            metrics.bindCache("latest", this.latestValueCache, LatestValueCache::getHits, LatestValueCache::getMisses);
+            // Grows when the background refreshes fall behind or keep failing
+            metrics.bindGauge("ldes.latest.staleness.max", "Time since the stalest cached latest value was loaded or notified", "seconds",
+                    this.latestValueCache, cache -> cache.getMaxStaleness() / 1000.0);
+        }
+        if (this.rollupStore != null) {
+            metrics.bindCache("rollups", this.rollupStore, RollupStore::getHits, RollupStore::getMisses);
+        }
+        if (this.queryCoalescer != null) {
+            // A coalesced request is answered by the load of another one
+            metrics.bindCache("coalescing", this.queryCoalescer, coalescer -> coalescer.getRequests() - coalescer.getLoads(), SingleFlight::getLoads);
+            metrics.bindGauge("ldes.coalescing.active", "Coalesced loads in flight", null, this.queryCoalescer, SingleFlight::getInFlight);
+        }
+    }
+
     /**
      * Populate the webthing with all known things and properties in the LDES.
      * Create thing with given id and optional propertyIds and put in root.
@@ -105,23 +208,110 @@ class Consumer implements HistoricalProviderInterface,
         }
         LOGGER.info(String.format("Populating %s things", thingsMetrics.size()));
         for (Map.Entry<String, List<String>> thingMetrics : thingsMetrics.entrySet()) {
-            // Do use unencoded for name though
             String thingLDESId = thingMetrics.getKey();
             List<String> propertyLDESIds = thingMetrics.getValue();
 
-            String thingId = SemanticModel.urlEncode(thingLDESId);
-            Thing thing = this.thingRoot.getThing(thingId);
-            if (thing == null) {
-                thing = new Thing(thingId, thingLDESId, null);
-                this.thingRoot.addThing(thing);
-            }
+            this.getOrCreateThing(thingLDESId);
             if (propertyLDESIds != null) {
                 for (String propertyLDESId : propertyLDESIds) {
-                    String propertyId = SemanticModel.urlEncode(propertyLDESId);
-                    if (thing.getProperty(propertyId) == null) {
-                        thing.addProperty(new Property(propertyId, propertyLDESId, null, this.getDashboardMetric(propertyLDESId)));
+                    this.getOrCreateProperty(thingLDESId, propertyLDESId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the thing with the given LDES id, creating it in root if it doesn't exist.
+     * @param thingLDESId unencoded
+     * @return Thing
+     */
+    private synchronized Thing getOrCreateThing(String thingLDESId) {
+        // Do use unencoded for name though
+        String thingId = SemanticModel.urlEncode(thingLDESId);
+        Thing thing = this.thingRoot.getThing(thingId);
+        if (thing == null) {
+            thing = new Thing(thingId, thingLDESId, null);
+            this.thingRoot.addThing(thing);
+        }
+        return thing;
+    }
+
+    /**
+     * Get the property of a thing, creating both if they don't exist.
+     * @param thingLDESId unencoded
+     * @param propertyLDESId unencoded
+     * @return Property
+     */
+    private synchronized Property getOrCreateProperty(String thingLDESId, String propertyLDESId) {
+        Thing thing = this.getOrCreateThing(thingLDESId);
+        String propertyId = SemanticModel.urlEncode(propertyLDESId);
+        Property property = thing.getProperty(propertyId);
+        if (property == null) {
+            property = new Property(propertyId, propertyLDESId, null, this.getDashboardMetric(propertyLDESId));
+            thing.addProperty(property);
+        }
+        return property;
+    }
+
+    /**
+     * Subscribe to the realtime stream of the aggregator, keeping the latest
+     * value cache and the rollups current as new observations arrive.
+     */
+    private void startRealtime() {
+        try {
+            if (this.rollupStore != null) {
+                this.rollupStore.resetStream();
+            }
+            this.consumer.openStream(this.datasetId, URI.create(this.ldesSettings.getStreamEndpoint()), new StreamListener() {
+                @Override
+                public void onEvent(String metric, String source, long timestamp, double value) {
+                    Consumer.this.onRealtimeEvent(metric, source, timestamp, value);
+                }
+
+                @Override
+                public void onError(Throwable error) {
+                    // Events may have been missed, the rollups no longer trust the stream for the current minute
+                    if (Consumer.this.rollupStore != null) {
+                        Consumer.this.rollupStore.resetStream();
                     }
                 }
+            });
+        } catch (LDESException | IllegalArgumentException e) {
+            LOGGER.warning("Error opening realtime stream!");
+            LOGGER.warning(e.toString());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Dispatch an event of the realtime stream. The Web Thing server reads
+     * the latest value through getHistoricalEvents, so an event goes into the
+     * latest value cache and the rollups, and a thing or property seen for
+     * the first time is added. Nothing is pushed to the Web Thing clients:
+     * only historical providers are registered (see Main), so the dashboards
+     * still poll and the stream only makes their polls cheap. An event without
+     * a source belongs to no thing: it only updates the dataset-level entries
+     * of its metric (the ones requests without a thing are served from).
+     * @param metric unencoded
+     * @param source unencoded, may be null
+     * @param timestamp
+     * @param value
+     */
+    private void onRealtimeEvent(String metric, String source, long timestamp, double value) {
+        String propertyId = SemanticModel.urlEncode(metric);
+        if (source != null) {
+            this.getOrCreateProperty(source, metric);
+        }
+        if (this.latestValueCache != null) {
+            this.latestValueCache.update("observation|null|" + propertyId, timestamp, value);
+            if (source != null) {
+                this.latestValueCache.update("observation|" + SemanticModel.urlEncode(source) + "|" + propertyId, timestamp, value);
+            }
+        }
+        if (this.rollupStore != null) {
+            this.rollupStore.add("null|" + propertyId, timestamp, value);
+            if (source != null) {
+                this.rollupStore.add(SemanticModel.urlEncode(source) + "|" + propertyId, timestamp, value);
             }
         }
     }
@@ -145,14 +335,86 @@ class Consumer implements HistoricalProviderInterface,
      */
     @Override
     public List<Observation> getHistoricalEvents(Long begin, Long end) {
+        return this.consumer.getMetrics().timeRequest("events", (begin != null || end != null) ? "range" : "latest",
+                () -> this.loadHistoricalEvents(begin, end));
+    }
+
+    /**
+     * Get the historical events, see getHistoricalEvents.
+     * @param begin may be null
+     * @param end may be null
+     * @return List<Observation>
+     */
+    private List<Observation> loadHistoricalEvents(Long begin, Long end) {
+        if (this.updateableIndex != null) {
+            return this.getIndexedEvents(begin, end);
+        }
         if (begin != null || end != null) {
             return this.getUpdateableObservations(null, this.eventId, begin, end, null, null, null);
         }
+        else if (this.latestValueCache != null) {
+            return this.getLatestObservation("event||" + this.eventId,
+                    sink -> this.streamPrevious(null, this.eventId, true, sink));
+        }
         else {
             return this.getPreviousUpdateableObservations(null, this.eventId, null, 1);
         }
     }
 
+    /**
+     * Get updateable events from the current-state index, which is brought up
+     * to date with the new LDES members first.
+     * If both begin and end are null will get last event.
+     * @param begin may be null
+     * @param end may be null
+     * @return List<Observation>
+     */
+    private List<Observation> getIndexedEvents(Long begin, Long end) {
+        EventSeries series = new EventSeries();
+        UpdateableEventIndex.Loader loader = (from, sink) -> this.streamUpdateableMembers(this.eventId, from, sink);
+        try {
+            if (begin != null || end != null) {
+                this.updateableIndex.query(begin, end, loader, series);
+            }
+            else {
+                this.updateableIndex.previous(null, 1, loader, series);
+            }
+        } catch (LDESException e) {
+            LOGGER.warning("Error getting Semantic Web Thing Events!");
+            LOGGER.warning(e.toString());
+            throw new RuntimeException(e);
+        }
+        return Consumer.createObservations(series);
+    }
+
+    /**
+     * Stream the LDES members of an updateable property with their tags.
+     * @param propertyId
+     * @param fromTimestamp may be null
+     * @param sink Receives the members
+     * @throws LDESException
+     */
+    private void streamUpdateableMembers(String propertyId, Long fromTimestamp, UpdateableEventIndex.MemberSink sink) throws LDESException {
+        Set<String> datasets = new HashSet<>();
+        datasets.add(this.datasetId);
+        Set<String> metrics = new HashSet<>();
+        metrics.add(SemanticModel.urlDecode(propertyId));
+
+        Set<EventField> fields = new HashSet<>();
+        fields.add(EventField.TIMESTAMP);
+        fields.add(EventField.VALUE);
+        fields.add(EventField.TAGS);
+
+        EventQuery query = new EventQuery(datasets, metrics, fromTimestamp, null, fields, TimestampPrecision.MILLISECONDS, null, null, null, null, null, null);
+        try (EventCursor cursor = this.consumer.openEvents(query)) {
+            while (cursor.next()) {
+                String tags = cursor.get(EventField.TAGS);
+                sink.accept(cursor.getTimestamp(), cursor.getValue(),
+                        (tags == null || tags.isEmpty()) ? null : Arrays.asList(tags.split(SparqlQueryBuilder.TAGS_SEPARATOR)));
+            }
+        }
+    }
+
     /**
      * Getting all observations for a given thingID between begin and end (Long
      * UNIX timestamp).
@@ -166,22 +428,128 @@ class Consumer implements HistoricalProviderInterface,
      */
     @Override
     public List<Observation> getHistoricalObservations(Long begin, Long end, String thingId, String propertyId, Boolean fillWindow) {
+        return this.consumer.getMetrics().timeRequest("observations", (begin != null || end != null) ? "range" : "latest",
+                () -> this.loadHistoricalObservations(begin, end, thingId, propertyId, fillWindow));
+    }
+
+    /**
+     * Get the observations of a thing and property, see getHistoricalObservations.
+     * @param begin      Unix timestamp, may be null
+     * @param end        Unix timestamp, may be null
+     * @param thingId    may be null
+     * @param propertyId
+     * @param fillWindow may be null
+     * @return List<Observation>
+     */
+    private List<Observation> loadHistoricalObservations(Long begin, Long end, String thingId, String propertyId, Boolean fillWindow) {
         if (begin != null || end != null) {
+            // The observation before the window is looked up while the window is loaded, it's only used if the window is not filled
+            CompletableFuture<EventSeries> previous = (fillWindow != null && fillWindow && begin != null)
+                    ? this.getPreviousObservationsAsync(thingId, propertyId, begin, 1) : null;
             // Get from  LDES
-            List<Observation> observations = this.getObservations(thingId, propertyId, begin, end, null, null, null);
+            List<Observation> observations;
+            try {
+                observations = this.getObservations(thingId, propertyId, begin, end, null, null, null);
+            } catch (RuntimeException e) {
+                if (previous != null) {
+                    previous.cancel(true);
+                }
+                throw e;
+            }
             // Check if window filled
-            if (fillWindow != null && fillWindow && begin != null) {
+            if (previous != null) {
                 if (observations.isEmpty() || !observations.get(0).getTimestamp().equals(Instant.ofEpochMilli(begin))) {
-                    observations.addAll(0, this.getPreviousObservations(thingId, propertyId, begin, 1));
+                    observations.addAll(0, Consumer.createObservations(Consumer.join(previous)));
+                }
+                else {
+                    previous.cancel(true);
                 }
             }
             return observations;
         }
+        else if (this.latestValueCache != null) {
+            return this.getLatestObservation("observation|" + thingId + "|" + propertyId,
+                    sink -> this.streamPrevious(thingId, propertyId, false, sink));
+        }
         else {
             return this.getPreviousObservations(thingId, propertyId, null, 1);
         }
     }
 
+    /**
+     * Get the latest observation from the latest value cache.
+     * @param key Cache key
+     * @param loader Loads the latest observation from the LDES
+     * @return List<Observation> with the latest observation, empty if none
+     */
+    private List<Observation> getLatestObservation(String key, LatestValueCache.Loader loader) {
+        try {
+            LatestValueCache.LatestValue latest = this.latestValueCache.get(key, loader);
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Latest value of {0} is {1} ms old", new Object[] {key, latest.getStaleness()});
+            }
+            List<Observation> observations = new ArrayList<>(1);
+            if (latest.isPresent()) {
+                observations.add(new Observation(Instant.ofEpochMilli(latest.getTimestamp()), latest.getValue()));
+            }
+            return observations;
+        } catch (LDESException e) {
+            LOGGER.warning("Error getting Semantic Web Thing Events!");
+            LOGGER.warning(e.toString());
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Stream the latest (updateable, not deleted) observation.
+     * @param thingId may be null
+     * @param propertyId
+     * @param updateable Skip "deleted" events
+     * @param sink Receives the latest observation, if any
+     * @throws LDESException
+     */
+    private void streamPrevious(String thingId, String propertyId, boolean updateable, EventSink sink) throws LDESException {
+        Set<String> metrics = new HashSet<>();
+        metrics.add(SemanticModel.urlDecode(propertyId));
+
+        Set<EventField> fields = new HashSet<>();
+        fields.add(EventField.TIMESTAMP);
+        fields.add(EventField.VALUE);
+
+        LinkedHashSet<EventField> orderByFields = new LinkedHashSet<>();
+        orderByFields.add(EventField.TIMESTAMP);
+
+        JSONObject filter = updateable ? Consumer.createNotDeletedFilter(thingId) : Consumer.createSourceFilter(thingId);
+        this.streamSWTEvents(metrics, null, null, fields, TimestampPrecision.MILLISECONDS, orderByFields, EventOrdering.DESCENDING, filter, 1, sink);
+    }
+
+    /**
+     * Filter on the source of events.
+     * @param thingId may be null
+     * @return Filter expression, null if thingId is null
+     */
+    private static JSONObject createSourceFilter(String thingId) {
+        if (thingId == null) {
+            return null;
+        }
+        return new JSONObject().put("source", new JSONObject().put("_eq", SemanticModel.urlDecode(thingId)));
+    }
+
+    /**
+     * Filter on not deleted events (and the source of events).
+     * @param thingId may be null
+     * @return Filter expression
+     */
+    private static JSONObject createNotDeletedFilter(String thingId) {
+        JSONObject filter = new JSONObject().put("_and", 
+            new JSONArray().put(new JSONObject().put("_not", 
+            new JSONObject().put("_withTag", "deleted=true"))));
+        if (thingId != null) {
+            filter.getJSONArray("_and").put(Consumer.createSourceFilter(thingId));
+        }
+        return filter;
+    }
+
 
     /**
      * Get previous updateable observations, if timestamp is null will get latest observations.
@@ -197,12 +565,7 @@ class Consumer implements HistoricalProviderInterface,
         metrics.add(SemanticModel.urlDecode(propertyId));
 
         // Filter on not deleted
-        JSONObject filter = new JSONObject().put("_and", 
-            new JSONArray().put(new JSONObject().put("_not", 
-            new JSONObject().put("_withTag", "deleted=true"))));
-        if (thingId != null) {
-            filter.getJSONArray("_and").put(new JSONObject().put("source", new JSONObject().put("_eq", SemanticModel.urlDecode(thingId))));
-        }
+        JSONObject filter = Consumer.createNotDeletedFilter(thingId);
 
         Set<EventField> fields = new HashSet<>();
         fields.add(EventField.TIMESTAMP);
@@ -230,10 +593,7 @@ class Consumer implements HistoricalProviderInterface,
         Set<String> metrics = new HashSet<>();
         metrics.add(SemanticModel.urlDecode(propertyId));
 
-        JSONObject filter = null;
-        if (thingId != null) {
-            filter = new JSONObject().put("source", new JSONObject().put("_eq", SemanticModel.urlDecode(thingId)));
-        }
+        JSONObject filter = Consumer.createSourceFilter(thingId);
         
         // Set the fields needed by default
         Set<EventField> fields = new HashSet<>();
@@ -333,6 +693,49 @@ class Consumer implements HistoricalProviderInterface,
         return this.getObservations(thingId, propertyId, null, timestamp, orderByFields, orderByOrdering, limit);
     }
 
+    /**
+     * Get the previous observations from LDES without blocking a thread while
+     * waiting for it, so it can run next to another request.
+     * @param thingId may be null
+     * @param propertyId
+     * @param timestamp Get observations before this timestamp
+     * @param limit
+     * @return Future EventSeries, latest observation first
+     */
+    private CompletableFuture<EventSeries> getPreviousObservationsAsync(String thingId, String propertyId, Long timestamp, int limit) {
+        Set<String> datasets = new HashSet<>();
+        datasets.add(this.datasetId);
+        Set<String> metrics = new HashSet<>();
+        metrics.add(SemanticModel.urlDecode(propertyId));
+        Set<EventField> fields = new HashSet<>();
+        fields.add(EventField.TIMESTAMP);
+        fields.add(EventField.VALUE);
+        LinkedHashSet<EventField> orderByFields = new LinkedHashSet<>();
+        orderByFields.add(EventField.TIMESTAMP);
+        EventQuery query = new EventQuery(datasets, metrics, null, timestamp, fields, TimestampPrecision.MILLISECONDS, orderByFields, EventOrdering.DESCENDING,
+                Consumer.createSourceFilter(thingId), limit, null, null);
+        EventSeries series = new EventSeries(limit);
+        return this.consumer.getEventsAsync(query, series).thenApply(count -> series);
+    }
+
+    /**
+     * Wait for an asynchronous request.
+     * @param future
+     * @return The result
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            LOGGER.warning("Error getting Semantic Web Thing Events!");
+            LOGGER.warning(e.getCause().toString());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     /**
      * Get Observations from LDES.
      * @param thingId may be null, unencoded
@@ -345,20 +748,153 @@ class Consumer implements HistoricalProviderInterface,
      * @return List<Observation>
      */
     private List<Observation> getObservations(String thingId, String propertyId, Long fromTimestamp, Long toTimestamp, LinkedHashSet<EventField> orderByFields, EventOrdering orderByOrdering, Integer limit) {
+        if (this.queryCoalescer == null) {
+            return Consumer.createObservations(this.loadObservations(thingId, propertyId, fromTimestamp, toTimestamp, orderByFields, orderByOrdering, limit));
+        }
+        // Identical concurrent requests share one load, every caller gets its own Observations
+        String key = String.join("|", String.valueOf(thingId), propertyId, String.valueOf(fromTimestamp), String.valueOf(toTimestamp),
+                (orderByFields == null || orderByFields.isEmpty()) ? EventField.TIMESTAMP.toString() : orderByFields.toString(),
+                (orderByOrdering == null) ? EventOrdering.ASCENDING.toString() : orderByOrdering.toString(), String.valueOf(limit));
+        EventSeries series = this.queryCoalescer.run(key,
+                () -> this.loadObservations(thingId, propertyId, fromTimestamp, toTimestamp, orderByFields, orderByOrdering, limit));
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Query coalescing: {0} requests, {1} loads, ratio {2}", new Object[] {this.queryCoalescer.getRequests(),
+                    this.queryCoalescer.getLoads(), this.queryCoalescer.getCoalescingRatio()});
+        }
+        return Consumer.createObservations(series);
+    }
+
+    /**
+     * Load Observations from LDES (or the caches).
+     * @param thingId may be null, unencoded
+     * @param propertyId unencoded
+     * @param fromTimestamp may be null
+     * @param toTimestamp may be null
+     * @param orderByFields may be null
+     * @param orderByOrdering may be null
+     * @param limit may be null
+     * @return EventSeries in milliseconds (the unit of the caches and rollups), not to be modified
+     */
+    private EventSeries loadObservations(String thingId, String propertyId, Long fromTimestamp, Long toTimestamp, LinkedHashSet<EventField> orderByFields, EventOrdering orderByOrdering, Integer limit) {
         Set<String> metrics = new HashSet<>();
         metrics.add(SemanticModel.urlDecode(propertyId));
 
-        JSONObject filter = null;
-        if (thingId != null) {
-            filter = new JSONObject().put("source", new JSONObject().put("_eq", SemanticModel.urlDecode(thingId)));
-        }
+        JSONObject filter = Consumer.createSourceFilter(thingId);
         
         // Set the fields needed by default
         Set<EventField> fields = new HashSet<>();
         fields.add(EventField.TIMESTAMP);
         fields.add(EventField.VALUE);
 
-        return Consumer.createObservations(this.getSWTEvents(metrics, fromTimestamp, toTimestamp, fields, TimestampPrecision.MILLISECONDS, orderByFields, orderByOrdering, filter, limit, null, null));
+        // Complete windows in default order are served from the cache, and downsampled if configured
+        boolean defaultOrder = (orderByFields == null || orderByFields.equals(Collections.singleton(EventField.TIMESTAMP)))
+                && orderByOrdering != EventOrdering.DESCENDING;
+        boolean window = fromTimestamp != null && toTimestamp != null && limit == null && defaultOrder;
+        if (window && (this.observationCache != null || this.observationReplica != null || this.ldesSettings.isDownsampling())) {
+            final JSONObject windowFilter = filter;
+            ObservationRangeCache.Loader ldesLoader = (from, to, loaded) -> this.streamSWTEvents(metrics, from, to, fields, TimestampPrecision.MILLISECONDS, null, null, windowFilter, null, loaded);
+            // What the replica covers is read from disk, only the rest comes from the LDES
+            ObservationRangeCache.Loader loader = (this.observationReplica == null) ? ldesLoader
+                    : (from, to, loaded) -> this.observationReplica.get(thingId, propertyId, from, to, ldesLoader, loaded);
+            DownsampleMode mode = this.ldesSettings.getDownsampleMode();
+            long bucketWidth = Downsampler.getBucketWidth(mode, fromTimestamp, toTimestamp,
+                    this.ldesSettings.getDownsamplePoints(), this.ldesSettings.getDownsampleBucketWidth().toMillis());
+            // Coarse windows are answered from the rollups, raw observations only for what they don't cover yet
+            if (this.rollupStore != null && this.ldesSettings.isDownsampling() && mode != DownsampleMode.LTTB && bucketWidth >= RollupStore.MINUTE) {
+                EventSeries series = new EventSeries();
+                ObservationRangeCache.Loader rawLoader = (this.observationCache == null) ? loader
+                        : (from, to, loaded) -> this.observationCache.get(thingId, propertyId, from, to, loader, loaded);
+                try {
+                    this.rollupStore.query(thingId + "|" + propertyId, fromTimestamp, toTimestamp, bucketWidth, mode, rawLoader, series);
+                } catch (LDESException e) {
+                    LOGGER.warning("Error getting Semantic Web Thing Events!");
+                    LOGGER.warning(e.toString());
+                    throw new RuntimeException(e);
+                }
+                return series;
+            }
+
+            EventSeries series = new EventSeries();
+            // The downsampler sits between the events and the series, so the full window is never kept
+            Downsampler downsampler = this.ldesSettings.isDownsampling()
+                    ? Downsampler.create(mode, fromTimestamp, toTimestamp, this.ldesSettings.getDownsamplePoints(), bucketWidth, series)
+                    : null;
+            EventSink sink = (downsampler != null) ? downsampler : series;
+            try {
+                if (this.observationCache != null) {
+                    this.observationCache.get(thingId, propertyId, fromTimestamp, toTimestamp, loader, sink);
+                }
+                else {
+                    loader.load(fromTimestamp, toTimestamp, sink);
+                }
+            } catch (LDESException e) {
+                LOGGER.warning("Error getting Semantic Web Thing Events!");
+                LOGGER.warning(e.toString());
+                throw new RuntimeException(e);
+            }
+            if (downsampler != null) {
+                downsampler.finish();
+            }
+            return series;
+        }
+
+        return this.getSWTEventSeries(metrics, fromTimestamp, toTimestamp, fields, TimestampPrecision.MILLISECONDS, orderByFields, orderByOrdering, filter, limit);
+    }
+
+    /**
+     * Get all historical events, streamed from the LDES into an EventSeries without intermediate JSON events.
+     * @param metrics Set of metric IDs or wildcards (e.G. "*::number"), null defaults to all metrics
+     * @param fromTimestamp Limit output to events after (and including) this UTC millisecond timestamp, null defaults to no limit
+     * @param toTimestamp Limit output to events before (and excluding) this UTC millisecond timestamp, null defaults to no limit
+     * @param fields Set of fields to return in the result set, null defaults to [metric, source, value]
+     * @param precision Defines the timestamp precision for the returned results, null defaults to milliseconds
+     * @param orderByFields Linked set specifying the ordering of the output, null defaults to timestamp
+     * @param orderByOrdering Specifies the ordering of the output, null defaults to ascending
+     * @param filter Limit output to events matching the specified filter expression, null defaults to no filtering
+     * @param limit Limit output to a maximum number of events, can be null
+     * @return EventSeries in the unit of the precision
+     */
+    private EventSeries getSWTEventSeries(Set<String> metrics, Long fromTimestamp, Long toTimestamp, Set<EventField> fields, TimestampPrecision precision,
+            LinkedHashSet<EventField> orderByFields, EventOrdering orderByOrdering, JSONObject filter, Integer limit) {
+
+        Set<String> datasets = new HashSet<>();
+        datasets.add(this.datasetId);
+        EventSeries series = new EventSeries(limit != null ? Math.min(limit, 4096) : 64, precision);
+        EventQuery query = new EventQuery(datasets, metrics, fromTimestamp, toTimestamp, fields, precision, orderByFields, orderByOrdering, filter, limit, null, null);
+        // Pull events one by one into primitive columns, pages are fetched lazily
+        try (EventCursor cursor = this.consumer.openEvents(query)) {
+            cursor.drainTo(series, series.getPrecision());
+        } catch (LDESException e) {
+            LOGGER.warning("Error getting Semantic Web Thing Events!");
+            LOGGER.warning(e.toString());
+            throw new RuntimeException(e);
+        }
+        return series;
+    }
+
+    /**
+     * Stream all historical events into a sink.
+     * @param metrics Set of metric IDs or wildcards (e.G. "*::number"), null defaults to all metrics
+     * @param fromTimestamp Limit output to events after (and including) this UTC millisecond timestamp, null defaults to no limit
+     * @param toTimestamp Limit output to events before (and excluding) this UTC millisecond timestamp, null defaults to no limit
+     * @param fields Set of fields to return in the result set, null defaults to [metric, source, value]
+     * @param precision Defines the timestamp precision for the returned results, null defaults to milliseconds
+     * @param orderByFields Linked set specifying the ordering of the output, null defaults to timestamp
+     * @param orderByOrdering Specifies the ordering of the output, null defaults to ascending
+     * @param filter Limit output to events matching the specified filter expression, null defaults to no filtering
+     * @param limit Limit output to a maximum number of events, can be null
+     * @param sink Receives the events
+     * @throws LDESException
+     */
+    private void streamSWTEvents(Set<String> metrics, Long fromTimestamp, Long toTimestamp, Set<EventField> fields, TimestampPrecision precision,
+            LinkedHashSet<EventField> orderByFields, EventOrdering orderByOrdering, JSONObject filter, Integer limit, EventSink sink) throws LDESException {
+
+        Set<String> datasets = new HashSet<>();
+        datasets.add(this.datasetId);
+        EventQuery query = new EventQuery(datasets, metrics, fromTimestamp, toTimestamp, fields, precision, orderByFields, orderByOrdering, filter, limit, null, null);
+        try (EventCursor cursor = this.consumer.openEvents(query)) {
+            cursor.drainTo(sink);
+        }
     }
 
     /**
@@ -397,7 +933,8 @@ class Consumer implements HistoricalProviderInterface,
      */
     private static Observation createObservation(JSONObject ldesEvent) {
         // 2023-03-06T12:54:01.915Z
-        Instant timestamp = Instant.parse(ldesEvent.getJSONObject("timestamp").getString("value"));
+        String lexical = ldesEvent.getJSONObject("timestamp").getString("value");
+        Instant timestamp = XsdDateTime.toInstant(XsdDateTime.parse(lexical, TimestampPrecision.MICROSECONDS), TimestampPrecision.MICROSECONDS);
         return new Observation(timestamp, ldesEvent.get("value"));
     }
 
@@ -414,6 +951,21 @@ class Consumer implements HistoricalProviderInterface,
         return observations;
     }
 
+    /**
+     * Create Observations from an EventSeries, keeping its order and the precision of its timestamps.
+     * Observations are only created here, at the Semantic Web Thing boundary.
+     * @param series
+     * @return List<Observation>
+     */
+    static List<Observation> createObservations(EventSeries series) {
+        List<Observation> observations = new ArrayList<>(series.size());
+        TimestampPrecision precision = series.getPrecision();
+        for (int i = 0; i < series.size(); i++) {
+            observations.add(new Observation(XsdDateTime.toInstant(series.getTimestamp(i), precision), series.getValue(i)));
+        }
+        return observations;
+    }
+
     @Override
     public List<Observation> getHistoricalActions(Long begin, Long end) {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
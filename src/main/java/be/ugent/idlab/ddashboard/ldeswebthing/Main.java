@@ -3,6 +3,10 @@
  ****************************************************************************/
 package be.ugent.idlab.ddashboard.ldeswebthing;
 
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.DownsampleMode;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventBackendType;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat;
 import be.ugent.idlab.ddashboard.semanticwebthing.domain.Event;
 import be.ugent.idlab.ddashboard.semanticwebthing.domain.EventRegistry;
 import be.ugent.idlab.ddashboard.semanticwebthing.domain.HistoricalProviderInterface;
@@ -18,6 +22,8 @@ import org.eclipse.rdf4j.rio.RDFFormat;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -43,6 +49,13 @@ public class Main {
     private static final String SEMANTIC_DATA = "semantic-data.ttl";
 
     public static void main(String[] args) {
+        // Expose the metrics for Prometheus on /actuator/prometheus, unless configured otherwise
+        Main.setSpringDefault("management.endpoints.web.exposure.include", "health,prometheus");
+        // Compress the responses of the Web Things (history arrays can be several MB) from 2 KB on, unless configured otherwise
+        Main.setSpringDefault("server.compression.enabled", "true");
+        Main.setSpringDefault("server.compression.min-response-size", "2KB");
+        Main.setSpringDefault("server.compression.mime-types", "application/json,application/ld+json,application/td+json,text/turtle,text/plain,text/csv");
+
         WebThingServer server = new WebThingServer();
         server.start();
 
@@ -96,8 +109,52 @@ public class Main {
         Event rootEvent = new Event(UUID.randomUUID().toString());
         EventRegistry.getInstance().setEvent(rootEvent);
 
+        // Configuring the shared LDES transport, the generated queries and the caches
+        LdesSettings ldesSettings = new LdesSettings()
+                .setConnectTimeout(Duration.ofMillis(Long.parseLong(getEnvOrProperties("HTTP_CONNECT_TIMEOUT", appProps, "5000"))))
+                .setRequestTimeout(Duration.ofMillis(Long.parseLong(getEnvOrProperties("HTTP_REQUEST_TIMEOUT", appProps, "60000"))))
+                .setHttpThreads(Integer.parseInt(getEnvOrProperties("HTTP_THREADS", appProps, "4")))
+                .setHttpVersion(HttpClient.Version.valueOf(getEnvOrProperties("HTTP_VERSION", appProps, "HTTP_2")))
+                .setHttpCompression(Boolean.parseBoolean(getEnvOrProperties("HTTP_COMPRESSION", appProps, "true")))
+                .setVirtualThreads(Boolean.parseBoolean(getEnvOrProperties("VIRTUAL_THREADS", appProps, "true")))
+                .setBlockingThreads(Integer.parseInt(getEnvOrProperties("BLOCKING_THREADS", appProps, "16")))
+                .setHttpCacheDirectory(getEnvOrProperties("HTTP_CACHE_DIRECTORY", appProps, ""))
+                .setHttpCacheSize(Long.parseLong(getEnvOrProperties("HTTP_CACHE_SIZE", appProps, "268435456")))
+                .setEventBackend(EventBackendType.valueOf(getEnvOrProperties("EVENT_BACKEND", appProps, "SPARQL")))
+                .setFragmentSiblingBounds(Boolean.parseBoolean(getEnvOrProperties("LDES_SIBLING_BOUNDS", appProps, "true")))
+                .setStoreDirectory(getEnvOrProperties("STORE_DIRECTORY", appProps, ""))
+                .setStoreSyncInterval(Duration.ofMillis(Long.parseLong(getEnvOrProperties("STORE_SYNC_INTERVAL", appProps, "5000"))))
+                .setSparqlEndpoint(getEnvOrProperties("SPARQL_ENDPOINT", appProps, "http://localhost:8081/sparql"))
+                .setSparqlPost(Boolean.parseBoolean(getEnvOrProperties("SPARQL_POST", appProps, "true")))
+                .setSparqlResultsFormat(SparqlResultsFormat.valueOf(getEnvOrProperties("SPARQL_RESULTS_FORMAT", appProps, "CSV").toUpperCase()))
+                .setTimestampPredicate(getEnvOrProperties("SPARQL_TIMESTAMP_PREDICATE", appProps, "https://saref.etsi.org/core/hasTimestamp"))
+                .setValuePredicate(getEnvOrProperties("SPARQL_VALUE_PREDICATE", appProps, "https://saref.etsi.org/core/hasValue"))
+                .setPageSize(Integer.parseInt(getEnvOrProperties("SPARQL_PAGE_SIZE", appProps, "0")))
+                .setQuerySliceWidth(Duration.ofMillis(Long.parseLong(getEnvOrProperties("SPARQL_SLICE_WIDTH", appProps, "0"))))
+                .setQueryParallelism(Integer.parseInt(getEnvOrProperties("SPARQL_PARALLELISM", appProps, "4")))
+                .setSourcePredicate(getEnvOrProperties("SPARQL_SOURCE_PREDICATE", appProps, ""))
+                .setTagsPredicate(getEnvOrProperties("SPARQL_TAGS_PREDICATE", appProps, ""))
+                .setObservationCacheSize(Long.parseLong(getEnvOrProperties("OBSERVATION_CACHE_SIZE", appProps, "1000000")))
+                .setObservationCacheRetention(Duration.ofMillis(Long.parseLong(getEnvOrProperties("OBSERVATION_CACHE_RETENTION", appProps, "604800000"))))
+                .setObservationCacheLiveEdge(Duration.ofMillis(Long.parseLong(getEnvOrProperties("OBSERVATION_CACHE_LIVE_EDGE", appProps, "30000"))))
+                .setReplicaDirectory(getEnvOrProperties("REPLICA_DIRECTORY", appProps, ""))
+                .setReplicaRetention(Duration.ofMillis(Long.parseLong(getEnvOrProperties("REPLICA_RETENTION", appProps, "0"))))
+                .setQueryCoalescing(Boolean.parseBoolean(getEnvOrProperties("QUERY_COALESCING", appProps, "true")))
+                .setLatestValueRefresh(Duration.ofMillis(Long.parseLong(getEnvOrProperties("LATEST_VALUE_REFRESH", appProps, "10000"))))
+                .setUpdateableIndexRefresh(Duration.ofMillis(Long.parseLong(getEnvOrProperties("UPDATEABLE_INDEX_REFRESH", appProps, "5000"))))
+                .setUpdateableIndexResync(Duration.ofMillis(Long.parseLong(getEnvOrProperties("UPDATEABLE_INDEX_RESYNC", appProps, "3600000"))))
+                .setStreamEndpoint(getEnvOrProperties("STREAM_ENDPOINT", appProps, ""))
+                .setStreamReconnectTime(Duration.ofMillis(Long.parseLong(getEnvOrProperties("STREAM_RECONNECT_TIME", appProps, "1000"))))
+                .setStreamMaxReconnectTime(Duration.ofMillis(Long.parseLong(getEnvOrProperties("STREAM_MAX_RECONNECT_TIME", appProps, "30000"))))
+                .setDownsampleMode(DownsampleMode.valueOf(getEnvOrProperties("DOWNSAMPLE_MODE", appProps, "MINMAX").toUpperCase()))
+                .setDownsamplePoints(Integer.parseInt(getEnvOrProperties("DOWNSAMPLE_POINTS", appProps, "0")))
+                .setDownsampleBucketWidth(Duration.ofMillis(Long.parseLong(getEnvOrProperties("DOWNSAMPLE_BUCKET_WIDTH", appProps, "0"))))
+                .setRollupMinuteRetention(Duration.ofMillis(Long.parseLong(getEnvOrProperties("ROLLUP_MINUTE_RETENTION", appProps, "172800000"))))
+                .setRollupHourRetention(Duration.ofMillis(Long.parseLong(getEnvOrProperties("ROLLUP_HOUR_RETENTION", appProps, "7776000000"))))
+                .setMetrics(Boolean.parseBoolean(getEnvOrProperties("METRICS_ENABLED", appProps, "true")));
+
         // Initialise the LDES Consumer.
-        Consumer consumer = new Consumer(ldesEndpoint, datasetId, eventId);
+        Consumer consumer = new Consumer(ldesEndpoint, datasetId, eventId, ldesSettings);
 
         // We're for this use case only working with Historical Event
         // No Push-support for the latest event. No Actions.
@@ -130,6 +187,19 @@ public class Main {
         }
     }
 
+    /**
+     * Set a Spring property, unless it is set as system property or (in its
+     * relaxed form) as environment variable already.
+     * @param key Spring property
+     * @param value Default value
+     */
+    private static void setSpringDefault(String key, String value) {
+        String variable = key.toUpperCase().replace('.', '_').replace("-", "");
+        if (System.getProperty(key) == null && System.getenv(variable) == null) {
+            System.setProperty(key, value);
+        }
+    }
+
     /**
      * Place config from git into config path
      * @param gitUri Uri wit credentials if private
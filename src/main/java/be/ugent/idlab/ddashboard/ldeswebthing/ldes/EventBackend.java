@@ -0,0 +1,58 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventBackend                 *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+
+/**
+ * Answers historical events requests for LdesConsumer, e.g. through a SPARQL
+ * (link traversal) endpoint or by reading the LDES fragments directly.
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public interface EventBackend extends AutoCloseable {
+
+    /**
+     * Open a lazy cursor over the events matching a request.
+     * 
+     * @param query The events request
+     * @return EventCursor, to be closed by the caller
+     * @throws LDESException
+     */
+    EventCursor openEvents(EventQuery query) throws LDESException;
+
+    /**
+     * Push the events matching a request into a sink without blocking the
+     * caller. By default the cursor is read on the given executor, backends
+     * with a non-blocking transport override this.
+     * 
+     * @param query The events request
+     * @param sink Receives the events, may stop early
+     * @param executor Executor for blocking work
+     * @return Future number of events passed to the sink
+     */
+    default CompletableFuture<Integer> getEventsAsync(EventQuery query, EventSink sink, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try (EventCursor cursor = this.openEvents(query)) {
+                return cursor.drainTo(sink);
+            } catch (LDESException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * Release the resources of this backend, the shared transport is not closed.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,96 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventCursor                  *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+/**
+ * Pull-based, lazy view on the result of a historical events request.
+ * Pages are only fetched when next() runs out of events, and the cursor stops
+ * (and releases the underlying stream) as soon as the limit is reached.
+ * Always close the cursor when not fully consumed.
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public interface EventCursor extends AutoCloseable {
+
+    /**
+     * Advance to the next event.
+     * 
+     * @return False when there are no more events
+     * @throws LDESException
+     */
+    boolean next() throws LDESException;
+
+    /**
+     * @return UTC timestamp of the current event (in milliseconds), truncated to the precision of the query
+     */
+    long getTimestamp();
+
+    /**
+     * @param precision Unit of the result, null for milliseconds
+     * @return UTC timestamp of the current event in the unit of the precision
+     */
+    default long getTimestamp(TimestampPrecision precision) {
+        return XsdDateTime.convert(this.getTimestamp(), TimestampPrecision.MILLISECONDS, precision);
+    }
+
+    /**
+     * @return Value of the current event
+     */
+    double getValue();
+
+    /**
+     * Get a raw field of the current event, only available if it was requested.
+     * 
+     * @param field Event field
+     * @return Lexical value, null if not available
+     */
+    String get(EventField field);
+
+    @Override
+    void close() throws LDESException;
+
+    /**
+     * Push the remaining events into a sink.
+     * 
+     * @param sink Receives the events, may stop early
+     * @return Number of events passed to the sink
+     * @throws LDESException
+     */
+    default int drainTo(EventSink sink) throws LDESException {
+        int count = 0;
+        while (this.next()) {
+            count++;
+            if (!sink.accept(this.getTimestamp(), this.getValue())) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Push the remaining events into a sink, with timestamps in the unit of
+     * a precision, e.g. into an EventSeries of that precision.
+     * 
+     * @param sink Receives the events, may stop early
+     * @param precision Unit of the timestamps passed to the sink, null for milliseconds
+     * @return Number of events passed to the sink
+     * @throws LDESException
+     */
+    default int drainTo(EventSink sink, TimestampPrecision precision) throws LDESException {
+        int count = 0;
+        while (this.next()) {
+            count++;
+            if (!sink.accept(this.getTimestamp(precision), this.getValue())) {
+                break;
+            }
+        }
+        return count;
+    }
+}
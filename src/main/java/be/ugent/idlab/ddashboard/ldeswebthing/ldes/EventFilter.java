@@ -0,0 +1,219 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventFilter                  *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Filter expression evaluated in-process, for backends that read the events
+ * themselves. Supports the same expressions as the SPARQL translation: _and,
+ * _or, _not, _withTag and _eq/_neq/_gt/_gte/_lt/_lte on timestamp, value and
+ * source. Parts that can't be evaluated (e.g. on source without a source
+ * predicate) are left out, as with the SPARQL translation: a _not or _or of
+ * which any part is left out is left out as a whole.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@FunctionalInterface
+interface EventFilter {
+
+    Logger LOGGER = Logger.getLogger(EventFilter.class.getName());
+
+    /**
+     * @param timestamp UTC millisecond timestamp
+     * @param value Value
+     * @param source Source, may be null
+     * @param tags "key=value" tags, may be empty
+     * @return True if the event matches
+     */
+    boolean test(long timestamp, double value, String source, Collection<String> tags);
+
+    /**
+     * Compile a filter expression.
+     *
+     * @param filter Filter expression, may be null
+     * @param sources Sources are available
+     * @param tags Tags are available
+     * @return EventFilter, null if nothing to filter
+     */
+    static EventFilter compile(JSONObject filter, boolean sources, boolean tags) {
+        if (filter == null) {
+            return null;
+        }
+        return EventFilter.compile(filter, sources, tags, new boolean[] {true});
+    }
+
+    /**
+     * @param filter Filter expression
+     * @param sources Sources are available
+     * @param tags Tags are available
+     * @param exact Set to false if a part of the expression is left out
+     * @return EventFilter, null if nothing to filter
+     */
+    private static EventFilter compile(JSONObject filter, boolean sources, boolean tags, boolean[] exact) {
+        List<EventFilter> filters = new ArrayList<>();
+        for (String key : filter.keySet()) {
+            EventFilter compiled;
+            switch (key) {
+                case "_and":
+                case "_or":
+                    compiled = EventFilter.compileJunction(filter.getJSONArray(key), "_and".equals(key), sources, tags, exact);
+                    break;
+                case "_not":
+                    // Negating a widened filter narrows the result, only an exact filter can be negated
+                    boolean[] negatedExact = {true};
+                    EventFilter negated = EventFilter.compile(filter.getJSONObject(key), sources, tags, negatedExact);
+                    compiled = (negated != null && negatedExact[0]) ? (t, v, s, g) -> !negated.test(t, v, s, g) : null;
+                    break;
+                case "_withTag":
+                    String tag = filter.getString(key);
+                    if (!tags) {
+                        LOGGER.log(Level.FINE, "No tags predicate configured, _withTag {0} ignored", tag);
+                        compiled = null;
+                    }
+                    else {
+                        compiled = (t, v, s, g) -> g.contains(tag);
+                    }
+                    break;
+                default:
+                    compiled = EventFilter.compileField(key, filter.getJSONObject(key), sources, exact);
+                    break;
+            }
+            if (compiled != null) {
+                filters.add(compiled);
+            }
+            else {
+                exact[0] = false;
+            }
+        }
+        return EventFilter.all(filters);
+    }
+
+    private static EventFilter compileJunction(JSONArray members, boolean and, boolean sources, boolean tags, boolean[] exact) {
+        List<EventFilter> filters = new ArrayList<>();
+        for (int i = 0; i < members.length(); i++) {
+            boolean[] memberExact = {true};
+            EventFilter compiled = EventFilter.compile(members.getJSONObject(i), sources, tags, memberExact);
+            if (!and && (compiled == null || !memberExact[0])) {
+                // Matches more than the member, so the _or can't be evaluated
+                return null;
+            }
+            if (compiled != null) {
+                filters.add(compiled);
+            }
+            exact[0] &= memberExact[0];
+        }
+        if (and) {
+            return EventFilter.all(filters);
+        }
+        return filters.isEmpty() ? null : (t, v, s, g) -> {
+            for (EventFilter filter : filters) {
+                if (filter.test(t, v, s, g)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    private static EventFilter compileField(String label, JSONObject comparison, boolean sources, boolean[] exact) {
+        EventField field = null;
+        for (EventField candidate : EventField.values()) {
+            if (candidate.label.equals(label)) {
+                field = candidate;
+            }
+        }
+        if (field == null || !(field == EventField.TIMESTAMP || field == EventField.VALUE || (field == EventField.SOURCE && sources))) {
+            LOGGER.log(Level.FINE, "Can not filter on {0}, ignored", label);
+            return null;
+        }
+        List<EventFilter> filters = new ArrayList<>();
+        for (String operator : comparison.keySet()) {
+            Object operand = comparison.get(operator);
+            EventFilter compiled;
+            switch (field) {
+                case TIMESTAMP:
+                    long timestampOperand = ((Number) operand).longValue();
+                    compiled = EventFilter.compare(operator, (t, v, s, g) -> Long.compare(t, timestampOperand));
+                    break;
+                case VALUE:
+                    double valueOperand = ((Number) operand).doubleValue();
+                    compiled = EventFilter.compare(operator, (t, v, s, g) -> Double.compare(v, valueOperand));
+                    break;
+                default:
+                    String sourceOperand = operand.toString();
+                    compiled = EventFilter.compare(operator, (t, v, s, g) -> (s != null) ? s.compareTo(sourceOperand) : null);
+                    break;
+            }
+            if (compiled == null) {
+                LOGGER.log(Level.FINE, "Unsupported filter operator {0}, ignored", operator);
+                exact[0] = false;
+            }
+            else {
+                filters.add(compiled);
+            }
+        }
+        return EventFilter.all(filters);
+    }
+
+    /**
+     * @param operator Comparison operator
+     * @param comparator Compares the event to the operand, null if not comparable
+     * @return EventFilter, null if the operator is not supported
+     */
+    private static EventFilter compare(String operator, Comparator comparator) {
+        switch (operator) {
+            case "_eq":
+                return (t, v, s, g) -> { Integer c = comparator.compare(t, v, s, g); return c != null && c == 0; };
+            case "_neq":
+                return (t, v, s, g) -> { Integer c = comparator.compare(t, v, s, g); return c != null && c != 0; };
+            case "_gt":
+                return (t, v, s, g) -> { Integer c = comparator.compare(t, v, s, g); return c != null && c > 0; };
+            case "_gte":
+                return (t, v, s, g) -> { Integer c = comparator.compare(t, v, s, g); return c != null && c >= 0; };
+            case "_lt":
+                return (t, v, s, g) -> { Integer c = comparator.compare(t, v, s, g); return c != null && c < 0; };
+            case "_lte":
+                return (t, v, s, g) -> { Integer c = comparator.compare(t, v, s, g); return c != null && c <= 0; };
+            default:
+                return null;
+        }
+    }
+
+    private static EventFilter all(List<EventFilter> filters) {
+        if (filters.isEmpty()) {
+            return null;
+        }
+        if (filters.size() == 1) {
+            return filters.get(0);
+        }
+        return (t, v, s, g) -> {
+            for (EventFilter filter : filters) {
+                if (!filter.test(t, v, s, g)) {
+                    return false;
+                }
+            }
+            return true;
+        };
+    }
+
+    /**
+     * Compares a field of an event to an operand.
+     */
+    @FunctionalInterface
+    interface Comparator {
+        Integer compare(long timestamp, double value, String source, Collection<String> tags);
+    }
+}
@@ -0,0 +1,25 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink                    *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+/**
+ * Receives LDES events one by one as primitive (timestamp, value) pairs, so no
+ * intermediate objects need to be built per event.
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@FunctionalInterface
+public interface EventSink {
+
+    /**
+     * Accept an event.
+     * 
+     * @param timestamp UTC timestamp of the event (in milliseconds, unless drained with another precision)
+     * @param value Numeric value of the event
+     * @return False to stop receiving events (the remainder of the result is discarded)
+     */
+    boolean accept(long timestamp, double value);
+}
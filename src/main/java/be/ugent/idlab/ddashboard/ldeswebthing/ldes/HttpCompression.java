@@ -0,0 +1,149 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.HttpCompression              *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Content-Encoding of the shared transport: the HttpClient neither asks for
+ * nor decodes compressed responses by itself. Requests ask for gzip and
+ * deflate, response bodies are decoded as a stream where they are read, so
+ * a large SPARQL result is never held compressed and decompressed at once.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+final class HttpCompression {
+
+    /**
+     * Accept-Encoding header of the requests.
+     */
+    static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private HttpCompression() {
+    }
+
+    /**
+     * Decode a response body as it is read.
+     *
+     * @param headers Response headers
+     * @param body Response body as received, closed together with the result
+     * @return Decoded body
+     * @throws IOException If the encoding is not supported or the body is not encoded like it says
+     */
+    static InputStream decode(HttpHeaders headers, InputStream body) throws IOException {
+        String encoding = HttpCompression.getEncoding(headers);
+        if (encoding == null) {
+            return body;
+        }
+        try {
+            switch (encoding) {
+                case "gzip":
+                case "x-gzip":
+                    return new GZIPInputStream(body, BUFFER_SIZE);
+                case "deflate":
+                    return HttpCompression.inflate(body);
+                default:
+                    throw new IOException("Unsupported Content-Encoding " + encoding);
+            }
+        } catch (IOException | RuntimeException e) {
+            body.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Decode a complete response body.
+     *
+     * @param headers Response headers
+     * @param body Response body as received
+     * @return Decoded body, the same array if it is not encoded
+     * @throws IOException If the encoding is not supported or the body is not encoded like it says
+     */
+    static byte[] decode(HttpHeaders headers, byte[] body) throws IOException {
+        if (HttpCompression.getEncoding(headers) == null) {
+            return body;
+        }
+        try (InputStream stream = HttpCompression.decode(headers, new ByteArrayInputStream(body))) {
+            return stream.readAllBytes();
+        }
+    }
+
+    /**
+     * Body handler of a decoded string body, in the charset of the
+     * Content-Type (UTF-8 if none).
+     *
+     * @return BodyHandler
+     */
+    static HttpResponse.BodyHandler<String> ofString() {
+        return info -> HttpResponse.BodySubscribers.mapping(HttpResponse.BodySubscribers.ofByteArray(), body -> {
+            try {
+                return new String(HttpCompression.decode(info.headers(), body), HttpCompression.getCharset(info.headers()));
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not decode response body", e);
+            }
+        });
+    }
+
+    /**
+     * @param headers Response headers
+     * @return Content-Encoding in lower case, null if the body is not encoded
+     */
+    private static String getEncoding(HttpHeaders headers) {
+        String encoding = headers.firstValue("Content-Encoding").map(value -> value.trim().toLowerCase(Locale.ROOT)).orElse("");
+        return (encoding.isEmpty() || encoding.equals("identity")) ? null : encoding;
+    }
+
+    private static Charset getCharset(HttpHeaders headers) {
+        String contentType = headers.firstValue("Content-Type").orElse("");
+        for (String parameter : contentType.split(";")) {
+            String[] pair = parameter.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                try {
+                    return Charset.forName(pair[1].trim().replace("\"", ""));
+                } catch (IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+    /**
+     * Deflate is zlib wrapped according to the spec, but some servers send
+     * the raw deflate stream: the zlib header tells them apart.
+     */
+    private static InputStream inflate(InputStream body) throws IOException {
+        PushbackInputStream stream = new PushbackInputStream(body, 2);
+        byte[] header = stream.readNBytes(2);
+        stream.unread(header);
+        boolean zlib = header.length == 2 && (header[0] & 0x0f) == 8
+                && (((header[0] & 0xff) << 8) | (header[1] & 0xff)) % 31 == 0;
+        return new InflaterInputStream(stream, new Inflater(!zlib), BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                // The inflater is not the default one, so it is not ended by the stream
+                try {
+                    super.close();
+                } finally {
+                    this.inf.end();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,500 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.HttpDocumentCache            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Disk-backed HTTP cache for LDES documents (GET only). Honours Cache-Control
+ * (no-store, no-cache, max-age) and revalidates stale documents with
+ * If-None-Match / If-Modified-Since, so an unchanged fragment costs a 304
+ * instead of a download. A server's immutable directive only means no
+ * revalidation while fresh (RFC 8246), which holds for every fresh document
+ * here. Documents that can't change any more (closed fragments, LDES
+ * members) can be marked immutable and are then served without contacting
+ * the pod at all.
+ * <p>
+ * Every document is kept as a .body and a .meta file named after the hash of
+ * its URI, the cache is loaded again on start. The least recently used
+ * documents are removed when the total size exceeds the maximum. Without a
+ * directory documents are fetched without caching.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class HttpDocumentCache {
+
+    private static final Logger LOGGER = Logger.getLogger(HttpDocumentCache.class.getName());
+
+    private static final String BODY = ".body";
+    private static final String META = ".meta";
+
+    private final Path directory;
+    private final long maxBytes;
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    // Ask for compressed documents
+    private final boolean compression;
+
+    // Entries by URI, in access order for LRU eviction
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong revalidations = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong receivedBytes = new AtomicLong();
+
+    /**
+     * @param directory Cache directory, created if needed, null disables caching
+     * @param maxBytes Maximum total size of the cached bodies
+     * @param httpClient Shared transport
+     * @param requestTimeout Timeout of a single request
+     * @param compression Ask for compressed documents, they are cached decompressed
+     * @throws LDESException If the directory can't be used
+     */
+    public HttpDocumentCache(Path directory, long maxBytes, HttpClient httpClient, Duration requestTimeout, boolean compression) throws LDESException {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.httpClient = httpClient;
+        this.requestTimeout = requestTimeout;
+        this.compression = compression;
+        if (directory != null) {
+            try {
+                Files.createDirectories(directory);
+            } catch (IOException e) {
+                throw new LDESException("Could not create HTTP cache directory " + directory, e);
+            }
+            this.load();
+        }
+    }
+
+    /**
+     * A fetched (or cached) document.
+     */
+    public static class Document {
+
+        private final URI uri;
+        private final String contentType;
+        private final byte[] body;
+
+        private Document(URI uri, String contentType, byte[] body) {
+            this.uri = uri;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        /**
+         * @return Final URI of the document (after redirects), base for relative IRIs
+         */
+        public URI getUri() {
+            return this.uri;
+        }
+
+        /**
+         * @return Media type without parameters, null if unknown
+         */
+        public String getContentType() {
+            return this.contentType;
+        }
+
+        public byte[] getBody() {
+            return this.body;
+        }
+    }
+
+    /**
+     * Get a document, from the cache when fresh, revalidated when stale.
+     *
+     * @param uri Document URI
+     * @param accept Accept header
+     * @return Future document, fails with an LDESException
+     */
+    public CompletableFuture<Document> get(URI uri, String accept) {
+        return this.get(uri, accept, this.directory != null ? this.getEntry(uri.toString()) : null);
+    }
+
+    /**
+     * @param entry Cached entry, null to fetch without validators
+     */
+    private CompletableFuture<Document> get(URI uri, String accept, Entry entry) {
+        String key = uri.toString();
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri)
+                .timeout(this.requestTimeout)
+                .header("Accept", accept);
+        if (this.compression) {
+            request.header("Accept-Encoding", HttpCompression.ACCEPT_ENCODING);
+        }
+        if (entry != null) {
+            if (entry.isFresh()) {
+                Document document = this.read(entry);
+                if (document != null) {
+                    this.hits.incrementAndGet();
+                    return CompletableFuture.completedFuture(document);
+                }
+            }
+            else {
+                if (entry.etag != null) {
+                    request.header("If-None-Match", entry.etag);
+                }
+                if (entry.lastModified != null) {
+                    request.header("If-Modified-Since", entry.lastModified);
+                }
+            }
+        }
+        return this.httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()).thenCompose(response -> {
+            if (response.statusCode() == 304 && entry != null) {
+                Document document = this.read(entry);
+                if (document == null) {
+                    // The body was evicted (or is unreadable) meanwhile, get it again
+                    return this.get(uri, accept, null);
+                }
+                this.revalidations.incrementAndGet();
+                entry.refresh(response.headers());
+                this.writeMeta(entry);
+                return CompletableFuture.completedFuture(document);
+            }
+            if (response.statusCode() / 100 != 2) {
+                throw new CompletionException(new LDESException(String.format("Could not get %s: (%s)", uri, response.statusCode())));
+            }
+            this.misses.incrementAndGet();
+            this.receivedBytes.addAndGet(response.body().length);
+            byte[] body;
+            try {
+                body = HttpCompression.decode(response.headers(), response.body());
+            } catch (IOException e) {
+                throw new CompletionException(new LDESException("Could not decompress " + uri, e));
+            }
+            String contentType = response.headers().firstValue("Content-Type").map(type -> type.split(";")[0].trim()).orElse(null);
+            Document document = new Document(response.uri(), contentType, body);
+            if (this.directory != null) {
+                this.store(key, document, response.headers());
+            }
+            return CompletableFuture.completedFuture(document);
+        });
+    }
+
+    /**
+     * Mark a cached document as immutable, it is served without revalidation from now on.
+     *
+     * @param uri Document URI
+     */
+    public void markImmutable(URI uri) {
+        if (this.directory == null) {
+            return;
+        }
+        Entry entry;
+        synchronized (this) {
+            entry = this.entries.get(uri.toString());
+        }
+        if (entry != null && !entry.immutable) {
+            entry.immutable = true;
+            this.writeMeta(entry);
+        }
+    }
+
+    /**
+     * @return Documents served from the cache without a request
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return Stale documents confirmed unchanged by the server (304)
+     */
+    public long getRevalidations() {
+        return this.revalidations.get();
+    }
+
+    /**
+     * @return Documents downloaded
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * @return Total size of the documents downloaded
+     */
+    public long getReceivedBytes() {
+        return this.receivedBytes.get();
+    }
+
+    /**
+     * @return Total size of the cached bodies
+     */
+    public synchronized long getSize() {
+        return this.totalBytes;
+    }
+
+    private synchronized Entry getEntry(String key) {
+        return this.entries.get(key);
+    }
+
+    private Document read(Entry entry) {
+        try {
+            byte[] body = Files.readAllBytes(this.directory.resolve(entry.file + BODY));
+            return new Document(URI.create(entry.finalUri), entry.contentType, body);
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Cached document {0} unreadable, dropped", entry.uri);
+            this.remove(entry);
+            return null;
+        }
+    }
+
+    private void store(String key, Document document, HttpHeaders headers) {
+        Entry entry = new Entry(key, HttpDocumentCache.fileName(key));
+        entry.finalUri = document.getUri().toString();
+        entry.contentType = document.getContentType();
+        entry.size = document.getBody().length;
+        entry.refresh(headers);
+        if (entry.noStore || entry.size > this.maxBytes) {
+            return;
+        }
+        try {
+            this.writeAtomically(this.directory.resolve(entry.file + BODY), document.getBody());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not cache {0}: {1}", new Object[] {key, e.toString()});
+            return;
+        }
+        this.writeMeta(entry);
+        synchronized (this) {
+            Entry previous = this.entries.put(key, entry);
+            if (previous != null) {
+                this.totalBytes -= previous.size;
+            }
+            this.totalBytes += entry.size;
+            this.evict();
+        }
+    }
+
+    /**
+     * Remove least recently used documents until the total size fits.
+     */
+    private synchronized void evict() {
+        Iterator<Entry> iterator = this.entries.values().iterator();
+        while (this.totalBytes > this.maxBytes && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            iterator.remove();
+            this.totalBytes -= entry.size;
+            this.deleteFiles(entry);
+        }
+    }
+
+    private void remove(Entry entry) {
+        synchronized (this) {
+            if (this.entries.remove(entry.uri, entry)) {
+                this.totalBytes -= entry.size;
+            }
+        }
+        this.deleteFiles(entry);
+    }
+
+    private void deleteFiles(Entry entry) {
+        try {
+            Files.deleteIfExists(this.directory.resolve(entry.file + META));
+            Files.deleteIfExists(this.directory.resolve(entry.file + BODY));
+        } catch (IOException e) {
+            LOGGER.log(Level.FINE, "Could not delete cached {0}", entry.uri);
+        }
+    }
+
+    private void writeMeta(Entry entry) {
+        Properties meta = new Properties();
+        meta.setProperty("uri", entry.uri);
+        meta.setProperty("finalUri", entry.finalUri);
+        if (entry.contentType != null) {
+            meta.setProperty("contentType", entry.contentType);
+        }
+        if (entry.etag != null) {
+            meta.setProperty("etag", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            meta.setProperty("lastModified", entry.lastModified);
+        }
+        meta.setProperty("storedAt", Long.toString(entry.storedAt));
+        meta.setProperty("maxAge", Long.toString(entry.maxAge));
+        meta.setProperty("immutable", Boolean.toString(entry.immutable));
+        meta.setProperty("size", Long.toString(entry.size));
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            meta.store(bytes, null);
+            this.writeAtomically(this.directory.resolve(entry.file + META), bytes.toByteArray());
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not write cache metadata of {0}: {1}", new Object[] {entry.uri, e.toString()});
+        }
+    }
+
+    private void writeAtomically(Path target, byte[] content) throws IOException {
+        Path temporary = Files.createTempFile(this.directory, "tmp", null);
+        try {
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                out.write(content);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Warm start: load the entries left by a previous run, oldest first.
+     */
+    private void load() {
+        List<Entry> loaded = new ArrayList<>();
+        try (DirectoryStream<Path> metas = Files.newDirectoryStream(this.directory, "*" + META)) {
+            for (Path metaFile : metas) {
+                String file = metaFile.getFileName().toString();
+                file = file.substring(0, file.length() - META.length());
+                Properties meta = new Properties();
+                try (InputStream in = Files.newInputStream(metaFile)) {
+                    meta.load(in);
+                    Entry entry = new Entry(meta.getProperty("uri"), file);
+                    entry.finalUri = meta.getProperty("finalUri", entry.uri);
+                    entry.contentType = meta.getProperty("contentType");
+                    entry.etag = meta.getProperty("etag");
+                    entry.lastModified = meta.getProperty("lastModified");
+                    entry.storedAt = Long.parseLong(meta.getProperty("storedAt"));
+                    entry.maxAge = Long.parseLong(meta.getProperty("maxAge"));
+                    entry.immutable = Boolean.parseBoolean(meta.getProperty("immutable"));
+                    entry.size = Files.size(this.directory.resolve(file + BODY));
+                    if (entry.uri == null || !file.equals(HttpDocumentCache.fileName(entry.uri))) {
+                        throw new IOException("Inconsistent cache entry");
+                    }
+                    loaded.add(entry);
+                } catch (IOException | RuntimeException e) {
+                    LOGGER.log(Level.FINE, "Invalid cache entry {0} dropped", file);
+                    Files.deleteIfExists(metaFile);
+                    Files.deleteIfExists(this.directory.resolve(file + BODY));
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not load HTTP cache {0}: {1}", new Object[] {this.directory, e.toString()});
+        }
+        loaded.sort(Comparator.comparingLong(entry -> entry.storedAt));
+        synchronized (this) {
+            for (Entry entry : loaded) {
+                this.entries.put(entry.uri, entry);
+                this.totalBytes += entry.size;
+            }
+            this.evict();
+        }
+        LOGGER.log(Level.INFO, "HTTP cache {0}: {1} documents, {2} bytes", new Object[] {this.directory, this.entries.size(), this.totalBytes});
+    }
+
+    /**
+     * @param uri Document URI
+     * @return File name (without extension) for the URI
+     */
+    private static String fileName(String uri) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(uri.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Cache metadata of one document.
+     */
+    private static class Entry {
+
+        private final String uri;
+        private final String file;
+        private String finalUri;
+        private String contentType;
+        private volatile String etag;
+        private volatile String lastModified;
+        private volatile long storedAt;
+        // Freshness lifetime in ms, 0 means revalidate every time
+        private volatile long maxAge;
+        // Marked immutable (markImmutable), fresh forever
+        private volatile boolean immutable = false;
+        private volatile boolean noStore = false;
+        private long size;
+
+        private Entry(String uri, String file) {
+            this.uri = uri;
+            this.file = file;
+        }
+
+        private boolean isFresh() {
+            return this.immutable || System.currentTimeMillis() - this.storedAt < this.maxAge;
+        }
+
+        /**
+         * Take the validators and freshness of a (200 or 304) response.
+         *
+         * @param headers Response headers
+         */
+        private void refresh(HttpHeaders headers) {
+            this.storedAt = System.currentTimeMillis();
+            headers.firstValue("ETag").ifPresent(etag -> this.etag = etag);
+            headers.firstValue("Last-Modified").ifPresent(lastModified -> this.lastModified = lastModified);
+            this.maxAge = 0;
+            for (String cacheControl : headers.allValues("Cache-Control")) {
+                for (String directive : cacheControl.toLowerCase(Locale.ROOT).split(",")) {
+                    directive = directive.trim();
+                    if (directive.equals("no-store")) {
+                        this.noStore = true;
+                    }
+                    else if (directive.startsWith("max-age=")) {
+                        try {
+                            this.maxAge = Long.parseLong(directive.substring("max-age=".length()).replace("\"", "")) * 1000;
+                        } catch (NumberFormatException e) {
+                            this.maxAge = 0;
+                        }
+                    }
+                }
+            }
+            for (String cacheControl : headers.allValues("Cache-Control")) {
+                if (cacheControl.toLowerCase(Locale.ROOT).contains("no-cache")) {
+                    this.maxAge = 0;
+                }
+            }
+        }
+    }
+}
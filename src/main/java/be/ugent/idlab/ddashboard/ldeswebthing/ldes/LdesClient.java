@@ -8,16 +8,26 @@ import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
 import org.json.JSONObject;
 import org.json.JSONArray;
 
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+
+import io.micrometer.core.instrument.Metrics;
 
 /**
  * Component that contains all the logic to access the LDES in SOLID (e.g. Authentication).
@@ -27,7 +37,7 @@ import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
  * @date 2023-03-30
  * @version 0.1.0
  */
-public class LdesClient {
+public class LdesClient implements AutoCloseable {
 
     private final Logger LOGGER = Logger.getLogger(LdesConsumer.class.getName());
 
@@ -40,6 +50,16 @@ public class LdesClient {
     // How many items may be got from graphql
     protected static final long ITEM_LIMIT = 50000;
 
+    // LDES in SOLID root (LDES_ENDPOINT), null if not known
+    protected final String rootUrl;
+    protected final LdesSettings settings;
+    // One long-lived transport shared by all requests (connection pool, executor, TLS sessions)
+    protected final HttpClient httpClient;
+    private final ExecutorService httpExecutor;
+    // Gets LDES documents over the shared transport, cached on disk when configured
+    protected final HttpDocumentCache documentCache;
+    // Instrumentation of the read path, see METRICS_ENABLED
+    protected final LdesMetrics metrics;
 
     /**
      * Initialize client.
@@ -51,11 +71,106 @@ public class LdesClient {
      * @throws LDESException
      */
     public LdesClient(String rootUrl, String clientId, String clientSecrect) throws LDESException {      
+        this(rootUrl, clientId, clientSecrect, new LdesSettings());
+    }
+
+    /**
+     * Initialize client with the given transport settings.
+     * Currently, authentication from this Semantic Web Thing to a SolidPod is NOT supported.
+     * 
+     * @param rootUrl Root Obelisk API url e.g. 'https://example.com/api/v3'
+     * @param clientId Obelisk client ID
+     * @param clientSecrect Obelisk client secret
+     * @param settings Client settings, null defaults to the default settings
+     * @throws LDESException
+     */
+    public LdesClient(String rootUrl, String clientId, String clientSecrect, LdesSettings settings) throws LDESException {
         // Currently, authentication from this Semantic Web Thing to a SolidPod is not supported.
+        this.rootUrl = rootUrl;
+        this.settings = (settings != null) ? settings : new LdesSettings();
+        this.httpExecutor = Executors.newFixedThreadPool(this.settings.getHttpThreads(), new HttpThreadFactory());
+        this.httpClient = HttpClient.newBuilder()
+                .version(this.settings.getHttpVersion())
+                .connectTimeout(this.settings.getConnectTimeout())
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .executor(this.httpExecutor)
+                .build();
+        this.documentCache = new HttpDocumentCache(
+                (this.settings.getHttpCacheDirectory() != null) ? Paths.get(this.settings.getHttpCacheDirectory()) : null,
+                this.settings.getHttpCacheSize(), this.httpClient, this.settings.getRequestTimeout(), this.settings.isHttpCompression());
+        this.metrics = new LdesMetrics(this.settings.isMetrics() ? Metrics.globalRegistry : null,
+                this.settings.getEventBackend().name().toLowerCase(Locale.ROOT));
+        this.metrics.bindCounter("ldes.documents.received", "LDES documents downloaded", "bytes",
+                this.documentCache, HttpDocumentCache::getReceivedBytes);
+        if (this.settings.getHttpCacheDirectory() != null) {
+            this.metrics.bindCache("documents", this.documentCache,
+                    cache -> cache.getHits() + cache.getRevalidations(), HttpDocumentCache::getMisses);
+        }
     }
     
     public LdesClient() throws LDESException {
-        // Currently, authentication from this Semantic Web Thing to a SolidPod is not supported.
+        this(null, null, null, new LdesSettings());
+    }
+
+    /**
+     * Create a request builder for the shared transport, with the configured
+     * request timeout, asking for a compressed response when enabled. The
+     * body of the response has to be decoded with HttpCompression.
+     * 
+     * @param uri Request URI
+     * @return HttpRequest.Builder
+     */
+    protected HttpRequest.Builder newRequest(URI uri) {
+        HttpRequest.Builder request = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(this.settings.getRequestTimeout());
+        if (this.settings.isHttpCompression()) {
+            request.header("Accept-Encoding", HttpCompression.ACCEPT_ENCODING);
+        }
+        return request;
+    }
+
+    /**
+     * Get an LDES document (GET), through the disk cache when configured.
+     * 
+     * @param uri Document URI
+     * @param accept Accept header
+     * @return Future document
+     */
+    public CompletableFuture<HttpDocumentCache.Document> getDocument(URI uri, String accept) {
+        return this.documentCache.get(uri, accept);
+    }
+
+    /**
+     * @return Instrumentation of the read path
+     */
+    public LdesMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * Release the threads of the shared transport, pooled connections are closed when idle.
+     */
+    @Override
+    public void close() {
+        this.httpExecutor.shutdown();
+    }
+
+    /**
+     * Daemon threads for the http executor, so an open client never keeps the JVM alive.
+     */
+    private static class HttpThreadFactory implements ThreadFactory {
+
+        private static final AtomicInteger POOL_COUNT = new AtomicInteger();
+        private final int pool = POOL_COUNT.incrementAndGet();
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, String.format("ldes-http-%s-%s", this.pool, this.count.incrementAndGet()));
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 
     /**
@@ -171,8 +286,7 @@ public class LdesClient {
 
         URI uri = URI.create(url + paramString).normalize();
 
-        HttpRequest.Builder request = HttpRequest.newBuilder()
-                .uri(uri)
+        HttpRequest.Builder request = this.newRequest(uri)
                 .header("Authorization", "Bearer " + this.token)
                 .header("Content-Type", "application/json");
 
@@ -185,8 +299,7 @@ public class LdesClient {
 
         HttpResponse<String> response;
         try {
-            HttpClient client = HttpClient.newBuilder().build();
-            response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            response = this.httpClient.send(request.build(), HttpCompression.ofString());
         }
         catch(Exception exception) {
             throw new LDESException(exception);
@@ -3,11 +3,16 @@
  ****************************************************************************/
 package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
 
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventBackendType;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat;
 import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
 
+import java.lang.reflect.Method;
 import java.net.URI;
 import java.net.http.HttpResponse;
 import java.util.ArrayList;
@@ -16,19 +21,26 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import com.launchdarkly.eventsource.EventHandler;
 import com.launchdarkly.eventsource.EventSource;
+import okhttp3.Headers;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
@@ -51,15 +63,117 @@ public class LdesConsumer extends LdesClient {
     // Stream id, source and handler
     private Map<String, EventSource> streamSources = new HashMap<>();
     private Map<String, EventHandler> streamHandlers = new HashMap<>();
+    // Stream id, id of the last event received, to resume a reopened stream
+    private Map<String, String> streamLastEventIds = new HashMap<>();
+
+    // Translates events requests into SPARQL
+    private final SparqlQueryBuilder queryBuilder;
+    // Answers the events requests
+    private final EventBackend backend;
+    // Runs blocking work for the async API
+    private final ExecutorService blockingExecutor;
 
     public LdesConsumer(String rootUrl, String clientId, String clientSecrect) throws LDESException {
         super(rootUrl, clientId, clientSecrect);
+        this.queryBuilder = LdesConsumer.createQueryBuilder(this.settings);
+        this.backend = this.createBackend();
+        this.blockingExecutor = LdesConsumer.createBlockingExecutor(this.settings);
+    }
+
+    public LdesConsumer(String rootUrl, String clientId, String clientSecrect, LdesSettings settings) throws LDESException {
+        super(rootUrl, clientId, clientSecrect, settings);
+        this.queryBuilder = LdesConsumer.createQueryBuilder(this.settings);
+        this.backend = this.createBackend();
+        this.blockingExecutor = LdesConsumer.createBlockingExecutor(this.settings);
+    }
+
+    /**
+     * Create the events backend selected in the settings.
+     *
+     * @return EventBackend
+     * @throws LDESException If the LDES or STORE backend is selected without a valid root url, or the store can't be opened
+     */
+    private EventBackend createBackend() throws LDESException {
+        EventBackendType type = this.settings.getEventBackend();
+        if (type == EventBackendType.LDES || type == EventBackendType.STORE) {
+            if (this.rootUrl == null) {
+                throw new LDESException("The " + type + " event backend needs the LDES endpoint");
+            }
+            LdesFragmentBackend fragments;
+            try {
+                fragments = new LdesFragmentBackend(URI.create(this.rootUrl), this.documentCache, this.settings);
+            } catch (IllegalArgumentException ex) {
+                throw new LDESException("Invalid LDES endpoint: " + this.rootUrl, ex);
+            }
+            if (type == EventBackendType.LDES) {
+                return fragments;
+            }
+            LdesStoreBackend store = new LdesStoreBackend(fragments, this.queryBuilder, this.settings);
+            this.metrics.bindCounter("ldes.store.synced", "LDES members written to the local event store", "members",
+                    store, LdesStoreBackend::getMembersSynced);
+            return store;
+        }
+        return new SparqlEventBackend(this);
+    }
+
+    /**
+     * Create the executor for blocking work: a virtual thread per task when
+     * the runtime has them (Java 21+, looked up reflectively as this builds
+     * for older releases), a bounded pool of daemon platform threads
+     * otherwise. Tasks beyond BLOCKING_THREADS wait in the queue, none of
+     * them waits for another one, so the queue can't deadlock.
+     *
+     * @param settings Settings, VIRTUAL_THREADS and BLOCKING_THREADS
+     * @return ExecutorService
+     */
+    private static ExecutorService createBlockingExecutor(LdesSettings settings) {
+        if (settings.isVirtualThreads()) {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (ExecutorService) factory.invoke(null);
+            } catch (ReflectiveOperationException ex) {
+                Logger.getLogger(LdesConsumer.class.getName()).log(Level.FINE, "No virtual threads available, using platform threads");
+            }
+        }
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(settings.getBlockingThreads(), settings.getBlockingThreads(),
+                60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "ldes-blocking-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        // Idle threads go away like in a cached pool
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     /**
-     * Get all historical events, keep getting pages until all events got.If
- limit is set will only get until limit reached, this should only be once
- unless very large value.
+     * Create the query builder, this validates the query shape in the settings.
+     *
+     * @param settings Settings
+     * @return SparqlQueryBuilder
+     * @throws LDESException If the settings hold an invalid query shape
+     */
+    private static SparqlQueryBuilder createQueryBuilder(LdesSettings settings) throws LDESException {
+        try {
+            return new SparqlQueryBuilder(settings);
+        } catch (IllegalArgumentException ex) {
+            throw new LDESException("Invalid SPARQL query configuration", ex);
+        }
+    }
+
+    /**
+     * @return The settings of this consumer
+     */
+    public LdesSettings getSettings() {
+        return this.settings;
+    }
+
+    /**
+     * Get all historical events, keep getting pages until all events got. If
+     * limit is set will only get until limit reached, this should only be once
+     * unless very large value. See openEvents for a lazy alternative that does
+     * not materialise the result.
      *
      * @param datasets Set of dataset IDs
      * @param metrics Set of metric IDs or wildcards (e.G. "*::number"), null
@@ -94,47 +208,94 @@ public class LdesConsumer extends LdesClient {
             throws LDESException {
 
         List<JSONObject> eventsList = new ArrayList<>();
-        JSONArray eventsArray = new JSONArray();
-        String cursor = null;
-        boolean finished = false;
-        while (!finished) {
-            // Get response and add events to list
-            JSONObject response = this.getEvents(datasets, metrics, fromTimestamp, toTimestamp, fields, precision, orderByFields, orderByOrdering, filter, limit, limitByFields, limitByLimit, cursor);
-
-            JSONObject observationObject = null;
-            // System.out.println(response);
-            JSONObject resultsJSONObject = response.getJSONObject("results");
-            JSONArray bindingsJSONArray = resultsJSONObject.getJSONArray("bindings");
-            // System.out.println(bindingsJSONArray);
-            if (!bindingsJSONArray.isEmpty()) {
-                for (int i = 0; i < bindingsJSONArray.length(); i++) {
-                    observationObject = new JSONObject();
-                    JSONObject bindingJSONObject = bindingsJSONArray.getJSONObject(i);
-                    System.out.println(bindingJSONObject);
-                    observationObject.put("timestamp", bindingJSONObject.getJSONObject("timestamp"));
-                    observationObject.put("value", bindingJSONObject.getJSONObject("value").getFloat("value"));
-
-                    //System.out.println(observationObject);
-                    eventsArray.put(observationObject);
-
-                    for (Object event_ : eventsArray) {
-                        eventsList.add((JSONObject) event_);
+        EventQuery query = new EventQuery(datasets, metrics, fromTimestamp, toTimestamp, fields, precision, orderByFields, orderByOrdering, filter, limit, limitByFields, limitByLimit);
+        try (EventCursor cursor = this.openEvents(query)) {
+            while (cursor.next()) {
+                JSONObject observationObject = new JSONObject();
+                observationObject.put("timestamp", new JSONObject()
+                        .put("type", "literal")
+                        .put("value", XsdDateTime.format(cursor.getTimestamp(precision), precision))
+                        .put("datatype", SparqlTemplate.XSD_DATE_TIME));
+                observationObject.put("value", cursor.getValue());
+                String tags = cursor.get(EventField.TAGS);
+                if (tags != null) {
+                    JSONArray tagsArray = new JSONArray();
+                    for (String tag : tags.split(SparqlQueryBuilder.TAGS_SEPARATOR)) {
+                        if (!tag.isEmpty()) {
+                            tagsArray.put(tag);
+                        }
                     }
-                    // Check if cursor
-                    cursor = response.optString("cursor", null);
-                    // All events got when there is no (more) cursor
-                    // OR more or equal events got than limit
+                    observationObject.put("tags", tagsArray);
                 }
-            }
-            finished = cursor == null || (limit != null && eventsList.size() >= limit);
-            // Because limit is actually page size for large limits the amount of events got may be greater than limit?
-            if (limit != null && eventsList.size() > limit) {
-                eventsList = eventsList.subList(0, limit);
+                eventsList.add(observationObject);
             }
         }
         return eventsList;
     }
 
+    /**
+     * Open a lazy cursor over historical events. Pages are only fetched when
+     * the cursor needs them and fetching stops once the limit is reached, so
+     * memory use does not depend on the size of the result.
+     *
+     * @param query The events request, see getEvents for the arguments
+     * @return EventCursor, to be closed by the caller
+     * @throws be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException
+     */
+    public EventCursor openEvents(EventQuery query) throws LDESException {
+        return this.metrics.meter(query, this.backend.openEvents(query));
+    }
+
+    /**
+     * Stream historical events into a sink without blocking the caller. The
+     * SPARQL backend does not hold a thread while waiting for the response
+     * headers, but reads the body with blocking reads on the blocking
+     * executor as it streams in; other backends read their cursor on the
+     * blocking executor (virtual threads when the runtime supports them, see
+     * VIRTUAL_THREADS, BLOCKING_THREADS otherwise).
+     * Cancelling the future stops the delivery of events and the fetching of
+     * further pages, the SPARQL backend also closes the response being read,
+     * which aborts the exchange and frees its thread.
+     *
+     * @param query The events request, see getEvents for the arguments
+     * @param sink Receives the events in result order, may stop early, called from a worker thread
+     * @return Future number of events passed to the sink
+     */
+    public CompletableFuture<Integer> getEventsAsync(EventQuery query, EventSink sink) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        EventSink guarded = (timestamp, value) -> !result.isDone() && sink.accept(timestamp, value);
+        long startedAt = this.metrics.startQuery();
+        CompletableFuture<Integer> events;
+        try {
+            events = this.backend.getEventsAsync(query, guarded, this.blockingExecutor);
+        } catch (RuntimeException ex) {
+            events = CompletableFuture.failedFuture(ex);
+        }
+        CompletableFuture<Integer> running = events;
+        result.whenComplete((count, error) -> {
+            if (result.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+        events.whenComplete((count, error) -> {
+            this.metrics.endQuery(query, startedAt, (count != null) ? count : 0, error == null);
+            if (error != null) {
+                result.completeExceptionally((error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error);
+            }
+            else {
+                result.complete(count);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return Executor for the remaining blocking work, virtual threads when supported and enabled
+     */
+    public Executor getBlockingExecutor() {
+        return this.blockingExecutor;
+    }
+
     /**
      * Get historical events.
      *
@@ -164,10 +325,10 @@ public class LdesConsumer extends LdesClient {
      * fields to a specified maximum number, can be null, only applies if
      * limitByFields not null
      * @param cursor Specifies the next cursor, used when paging through large
-     * result sets, can be null
-     * 
-     * CAVEAT: It needs to be defined/taken care of how static these
-     * SPARQL queries used to trigger Comunica are. !!
+     * result sets, can be null. The response holds the cursor of the next page
+     * (if any) when SPARQL paging is enabled in the settings. This raw
+     * response is always queried from the SPARQL endpoint, whatever the
+     * event backend.
      * 
      * @return Obelisk response
      * @throws be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException
@@ -176,85 +337,303 @@ public class LdesConsumer extends LdesClient {
             LinkedHashSet<EventField> orderByFields, EventOrdering orderByOrdering, JSONObject filter, Integer limit, Set<EventField> limitByFields, Integer limitByLimit,
             String cursor) throws LDESException {
 
-        JSONObject jsonObject = null;
-        String toTimestampString = null;
-        String fromTimestampString = null;
+        EventQuery query = new EventQuery(datasets, metrics, fromTimestamp, toTimestamp, fields, precision, orderByFields, orderByOrdering, filter, limit, limitByFields, limitByLimit);
+        // The SPARQL endpoint has no cursors, the cursor is the OFFSET of the page
+        long offset = 0;
+        if (cursor != null) {
+            try {
+                offset = Long.parseLong(cursor);
+            } catch (NumberFormatException ex) {
+                throw new LDESException("Invalid cursor: " + cursor);
+            }
+        }
+        Integer pageLimit = limit;
+        if (this.settings.getPageSize() > 0) {
+            pageLimit = (limit != null) ? Math.min(limit, this.settings.getPageSize()) : this.settings.getPageSize();
+        }
 
-        if (toTimestamp != null) {
-            ZonedDateTime toZonedDateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(toTimestamp),
-                    ZoneId.systemDefault());
-            Instant toDateTime = Instant.ofEpochMilli(toTimestamp);
-            //toTimestampString = "\"" + toZonedDateTime.format(DateTimeFormatter.ISO_DATE_TIME) + "\"^^xsd:dateTime";
-            toTimestampString = "\"" + toDateTime.toString() + "\"^^<http://www.w3.org/2001/XMLSchema#dateTime>";
+        HttpResponse<String> response;
+        try {
+            String plainQuery = this.queryBuilder.build(query, offset, pageLimit);
+            // Parsed into a JSON tree, so JSON is the only acceptable format
+            response = this.sendEventsQuery(plainQuery, SparqlResultsFormat.JSON.getAccept(), HttpCompression.ofString());
+            //System.out.println(response);
+        } catch (IOException ex) {
+            throw new LDESException("Could not query SPARQL endpoint", ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new LDESException("Interrupted while querying SPARQL endpoint", ex);
+        }
+        if (response.statusCode()/100 != 2) {
+            throw new LDESException(String.format("Could not query SPARQL endpoint: (%s)", response.statusCode()));
         }
+        JSONObject jsonObject = new JSONObject(response.body());
+        //System.out.println(jsonObject);
 
-        if (fromTimestamp != null) {
-            ZonedDateTime fromZonedDateTime = ZonedDateTime.ofInstant(Instant.ofEpochMilli(fromTimestamp),
-                    ZoneId.systemDefault());
-            Instant fromDateTime = Instant.ofEpochMilli(fromTimestamp);
-            //fromTimestampString = "\"" + fromZonedDateTime.format(DateTimeFormatter.ISO_DATE_TIME) + "\"^^<http://www.w3.org/2001/XMLSchema#dateTime>)";
-            fromTimestampString = "\"" + fromDateTime.toString() + "\"^^<http://www.w3.org/2001/XMLSchema#dateTime>";
+        // A full page might be followed by another one
+        int rows = jsonObject.getJSONObject("results").getJSONArray("bindings").length();
+        if (pageLimit != null && rows == pageLimit && this.settings.getPageSize() > 0) {
+            jsonObject.put("cursor", String.valueOf(offset + rows));
         }
+        return jsonObject;
+    }
 
+    /**
+     * Stream historical events into a sink, straight from the events backend
+     * (e.g. the SPARQL results stream), no JSON trees are built.
+     *
+     * @param datasets Set of dataset IDs
+     * @param metrics Set of metric IDs or wildcards (e.G. "*::number"), null
+     * defaults to all metrics
+     * @param fromTimestamp Limit output to events after (and including) this
+     * UTC millisecond timestamp, null defaults to no limit
+     * @param toTimestamp Limit output to events before (and excluding) this UTC
+     * millisecond timestamp, null defaults to no limit
+     * @param fields Set of fields to return in the result set, null defaults to
+     * [metric, source, value]
+     * @param precision Defines the timestamp precision for the returned
+     * results, null defaults to milliseconds
+     * @param orderByFields Linked set specifying the ordering of the output,
+     * null defaults to timestamp
+     * @param orderByOrdering Specifies the ordering of the output, null
+     * defaults to ascending
+     * @param filter Limit output to events matching the specified filter
+     * expression, null defaults to no filtering
+     * @param limit Limit output to a maximum number of events, can be null,
+     * will be unlimited
+     * @param limitByFields Limit the combination of a specific set of Index
+     * fields to a specified maximum number, can be null, only applies if
+     * limitByLimit not null
+     * @param limitByLimit Limit the combination of a specific set of Index
+     * fields to a specified maximum number, can be null, only applies if
+     * limitByFields not null
+     * @param sink Receives the events in result order, may stop the stream early
+     * @return Number of events passed to the sink
+     * @throws be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException
+     */
+    public int getEvents(Set<String> datasets, Set<String> metrics, Long fromTimestamp, Long toTimestamp, Set<EventField> fields, TimestampPrecision precision,
+            LinkedHashSet<EventField> orderByFields, EventOrdering orderByOrdering, JSONObject filter, Integer limit, Set<EventField> limitByFields, Integer limitByLimit,
+            EventSink sink) throws LDESException {
+
+        EventQuery query = new EventQuery(datasets, metrics, fromTimestamp, toTimestamp, fields, precision, orderByFields, orderByOrdering, filter, limit, limitByFields, limitByLimit);
+        try (EventCursor cursor = this.openEvents(query)) {
+            return cursor.drainTo(sink);
+        }
+    }
+
+    /**
+     * Query the SPARQL endpoint for a page of events and open a streaming
+     * reader on the response.
+     *
+     * @param query The events request
+     * @param offset Number of rows read in previous pages
+     * @param pageLimit Maximum number of rows in the page, null for no limit
+     * @return SparqlResultsReader, to be closed by the caller
+     * @throws be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException
+     */
+    SparqlResultsReader openPage(EventQuery query, long offset, Integer pageLimit) throws LDESException {
+        long sentAt = this.metrics.startPage();
+        HttpResponse<InputStream> response;
         try {
-            HttpClient client = HttpClient.newHttpClient();
-
-            String query = null;
-            if (fromTimestamp == null) {
-                if (toTimestamp == null) {
-                    String plainQuery = "SELECT ?aggregation ?timestamp ?value WHERE "
-                            + "{?aggregation <https://saref.etsi.org/core/hasTimestamp> ?timestamp . "
-                            + "?aggregation <https://saref.etsi.org/core/hasValue> ?value } "
-                            + "ORDER BY DESC(?timestamp) "
-                            + "LIMIT 1";
-                    //System.out.println(plainQuery);
-                    query = URLEncoder.encode(plainQuery, StandardCharsets.UTF_8.toString());
-                } else {
-                    String plainQuery = "SELECT ?aggregation ?timestamp ?value WHERE "
-                            + "{?aggregation <https://saref.etsi.org/core/hasTimestamp> ?timestamp . "
-                            + "?aggregation <https://saref.etsi.org/core/hasValue> ?value ."
-                            + "FILTER (?timestamp < " + toTimestampString + ") } "
-                            + "ORDER BY DESC(?timestamp) ";
-                    //System.out.println(plainQuery);
-                    query = URLEncoder.encode(plainQuery, StandardCharsets.UTF_8.toString());
-                }
-            } else {
-                if (toTimestamp == null) {
-                    String plainQuery = "SELECT ?aggregation ?timestamp ?value WHERE "
-                            + "{?aggregation <https://saref.etsi.org/core/hasTimestamp> ?timestamp . "
-                            + "?aggregation <https://saref.etsi.org/core/hasValue> ?value ."
-                            + "FILTER (?timestamp > " + fromTimestampString + ") } "
-                            + "ORDER BY DESC(?timestamp) ";
-                    //System.out.println(plainQuery);
-                    query = URLEncoder.encode(plainQuery, StandardCharsets.UTF_8.toString());
-                } else {
-                    String plainQuery = "SELECT ?aggregation ?timestamp ?value WHERE "
-                            + "{?aggregation <https://saref.etsi.org/core/hasTimestamp> ?timestamp . "
-                            + "?aggregation <https://saref.etsi.org/core/hasValue> ?value ."
-                            + "FILTER (?timestamp > " + fromTimestampString + " && "
-                            + "?timestamp < " + toTimestampString + ") } "
-                            + "ORDER BY DESC(?timestamp) ";
-                    //System.out.println(plainQuery);
-                    query = URLEncoder.encode(plainQuery, StandardCharsets.UTF_8.toString());
+            response = this.sendEventsQuery(this.queryBuilder.build(query, offset, pageLimit),
+                    this.settings.getSparqlResultsFormat().getAccept(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException ex) {
+            this.metrics.abortPage();
+            throw new LDESException("Could not query SPARQL endpoint", ex);
+        } catch (InterruptedException ex) {
+            this.metrics.abortPage();
+            Thread.currentThread().interrupt();
+            throw new LDESException("Interrupted while querying SPARQL endpoint", ex);
+        } catch (RuntimeException ex) {
+            this.metrics.abortPage();
+            throw ex;
+        }
+        if (response.statusCode()/100 != 2) {
+            this.metrics.abortPage();
+            try {
+                response.body().close();
+            } catch (IOException ex) {
+                LOGGER.log(Level.FINE, "Could not close error response", ex);
+            }
+            throw new LDESException(String.format("Could not query SPARQL endpoint: (%s)", response.statusCode()));
+        }
+        return this.metrics.readPage(query, sentAt, response.body(), LdesConsumer.getReaderFactory(response));
+    }
 
-                }
+    /**
+     * Query the SPARQL endpoint for a page of events without blocking while
+     * waiting for the response headers. The body is streamed like with
+     * openPage, with blocking reads, so the reader is opened (and is to be
+     * read) on the given executor, never on a thread of the transport.
+     *
+     * @param query The events request
+     * @param offset Number of rows read in previous pages
+     * @param pageLimit Maximum number of rows in the page, null for no limit
+     * @param executor Opens the reader once the response headers are received
+     * @param bodyListener Receives the response body before the reader is opened,
+     * closing it (from any thread) aborts the exchange and ends a blocked read
+     * @return Future SparqlResultsReader over the page, to be closed by the caller
+     */
+    CompletableFuture<SparqlResultsReader> openPageAsync(EventQuery query, long offset, Integer pageLimit, Executor executor,
+            java.util.function.Consumer<InputStream> bodyListener) {
+        HttpRequest request;
+        try {
+            request = this.createEventsRequest(this.queryBuilder.build(query, offset, pageLimit), this.settings.getSparqlResultsFormat().getAccept());
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(new LDESException("Could not build SPARQL query", ex));
+        }
+        long sentAt = this.metrics.startPage();
+        return this.httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream())
+                .handleAsync((response, error) -> {
+                    if (error != null) {
+                        this.metrics.abortPage();
+                        throw new CompletionException(new LDESException("Could not query SPARQL endpoint", error));
+                    }
+                    if (response.statusCode()/100 != 2) {
+                        this.metrics.abortPage();
+                        try {
+                            response.body().close();
+                        } catch (IOException ex) {
+                            LOGGER.log(Level.FINE, "Could not close error response", ex);
+                        }
+                        throw new CompletionException(new LDESException(String.format("Could not query SPARQL endpoint: (%s)", response.statusCode())));
+                    }
+                    bodyListener.accept(response.body());
+                    try {
+                        return this.metrics.readPage(query, sentAt, response.body(), LdesConsumer.getReaderFactory(response));
+                    } catch (LDESException ex) {
+                        throw new CompletionException(ex);
+                    }
+                }, executor);
+    }
+
+    /**
+     * Pick the reader for the results format the endpoint answered with,
+     * which is not necessarily the one preferred in the Accept header. A
+     * compressed body is decompressed while it is read, the metrics count
+     * the bytes as received.
+     *
+     * @param response Response to a SPARQL query
+     * @return ReaderFactory, SPARQL JSON if the response has no known Content-Type
+     */
+    private static LdesMetrics.ReaderFactory getReaderFactory(HttpResponse<?> response) {
+        LdesMetrics.ReaderFactory factory;
+        switch (SparqlResultsFormat.fromContentType(response.headers().firstValue("Content-Type").orElse(null))) {
+            case TSV:
+                factory = SparqlTsvResultsReader::new;
+                break;
+            case CSV:
+                factory = SparqlCsvResultsReader::new;
+                break;
+            default:
+                factory = SparqlJsonResultsReader::new;
+        }
+        return stream -> {
+            InputStream decoded;
+            try {
+                decoded = HttpCompression.decode(response.headers(), stream);
+            } catch (IOException ex) {
+                throw new LDESException("Could not decompress SPARQL results", ex);
             }
+            return factory.open(decoded);
+        };
+    }
+
+    /**
+     * Send a SPARQL query to the SPARQL (Comunica) endpoint over the shared transport.
+     *
+     * @param plainQuery SPARQL query
+     * @param accept Accept header, the acceptable results formats
+     * @param bodyHandler How to handle the response body
+     * @return HttpResponse
+     * @throws IOException
+     * @throws InterruptedException
+     */
+    private <T> HttpResponse<T> sendEventsQuery(String plainQuery, String accept, HttpResponse.BodyHandler<T> bodyHandler) throws IOException, InterruptedException {
+        return this.httpClient.send(this.createEventsRequest(plainQuery, accept), bodyHandler);
+    }
 
-            //System.out.println(query);
-            // Should probably be configurable, in case the Comunica Endpoint is 
-            // hosted on a separate server!!
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create("http://localhost:8081/sparql?query=" + query))
+    /**
+     * Create the request for a SPARQL query.
+     *
+     * @param plainQuery SPARQL query
+     * @param accept Accept header, the acceptable results formats
+     * @return HttpRequest
+     */
+    private HttpRequest createEventsRequest(String plainQuery, String accept) {
+        //System.out.println(plainQuery);
+        if (this.settings.isSparqlPost()) {
+            // No url length limits and nothing to encode
+            return this.newRequest(URI.create(this.settings.getSparqlEndpoint()))
+                    .header("Accept", accept)
+                    .header("Content-Type", "application/sparql-query")
+                    .POST(HttpRequest.BodyPublishers.ofString(plainQuery, StandardCharsets.UTF_8))
                     .build();
+        }
+        String query = URLEncoder.encode(plainQuery, StandardCharsets.UTF_8);
+        return this.newRequest(URI.create(this.settings.getSparqlEndpoint() + "?query=" + query))
+                .header("Accept", accept)
+                .build();
+    }
 
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            //System.out.println(response);
-            jsonObject = new JSONObject(response.body());
-            //System.out.println(jsonObject);
+    /**
+     * Open a realtime stream (server-sent events) of the aggregator result
+     * stream. The stream reconnects by itself, resuming after the last event
+     * received (Last-Event-ID), also when a closed stream is opened again.
+     *
+     * @param streamId Id of the stream, opening an open stream replaces it
+     * @param streamUrl Url of the result stream
+     * @param listener Receives the events
+     * @throws LDESException
+     */
+    public synchronized void openStream(String streamId, URI streamUrl, StreamListener listener) throws LDESException {
+        this.closeStream(streamId);
+        LdesStreamHandler handler = new LdesStreamHandler(streamId, listener, this.streamLastEventIds.get(streamId));
+        EventSource.Builder builder = new EventSource.Builder(handler, streamUrl)
+                .name(streamId)
+                .headers(Headers.of("Accept", "text/event-stream"))
+                .reconnectTime(this.settings.getStreamReconnectTime())
+                .maxReconnectTime(this.settings.getStreamMaxReconnectTime());
+        if (handler.getLastEventId() != null) {
+            builder.lastEventId(handler.getLastEventId());
+        }
+        EventSource source;
+        try {
+            source = builder.build();
+            source.start();
+        } catch (RuntimeException e) {
+            throw new LDESException("Could not open stream " + streamId + " to " + streamUrl, e);
+        }
+        this.streamSources.put(streamId, source);
+        this.streamHandlers.put(streamId, handler);
+    }
+
+    /**
+     * Close a realtime stream, remembering where it was to resume later.
+     *
+     * @param streamId Id of the stream, nothing happens if not open
+     */
+    public synchronized void closeStream(String streamId) {
+        EventSource source = this.streamSources.remove(streamId);
+        EventHandler handler = this.streamHandlers.remove(streamId);
+        if (source != null) {
+            source.close();
+        }
+        if (handler instanceof LdesStreamHandler && ((LdesStreamHandler) handler).getLastEventId() != null) {
+            this.streamLastEventIds.put(streamId, ((LdesStreamHandler) handler).getLastEventId());
+        }
+    }
 
-        } catch (IOException | InterruptedException ex) {
-            Logger.getLogger(LdesConsumer.class.getName()).log(Level.SEVERE, null, ex);
+    /**
+     * Close all realtime streams, the events backend and the shared transport.
+     */
+    @Override
+    public synchronized void close() {
+        for (String streamId : new ArrayList<>(this.streamSources.keySet())) {
+            this.closeStream(streamId);
         }
-        return jsonObject;
+        this.backend.close();
+        this.blockingExecutor.shutdown();
+        super.close();
     }
 }
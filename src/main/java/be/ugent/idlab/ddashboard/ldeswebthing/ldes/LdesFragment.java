@@ -0,0 +1,269 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesFragment                 *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.eclipse.rdf4j.model.BNode;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFParseException;
+import org.eclipse.rdf4j.rio.RDFParser;
+import org.eclipse.rdf4j.rio.Rio;
+import org.eclipse.rdf4j.rio.helpers.AbstractRDFHandler;
+
+/**
+ * One LDES document (a fragment, or a member resource of a fragment): the
+ * events in it, its tree:relations to other fragments and the resources it
+ * contains (ldp:contains, for LDES in SOLID containers). Only the triples
+ * needed for those are kept while parsing.
+ * <p>
+ * TREE specification: https://treecg.github.io/specification/
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class LdesFragment {
+
+    static final String TREE = "https://w3id.org/tree#";
+    static final String LDP_CONTAINS = "http://www.w3.org/ns/ldp#contains";
+    private static final String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+
+    private final URI uri;
+    private final List<Relation> relations;
+    private final Set<String> contains;
+    private final Set<String> views;
+    private final List<Member> members;
+
+    private LdesFragment(URI uri, List<Relation> relations, Set<String> contains, Set<String> views, List<Member> members) {
+        this.uri = uri;
+        this.relations = relations;
+        this.contains = contains;
+        this.views = views;
+        this.members = members;
+    }
+
+    /**
+     * Parse a document.
+     *
+     * @param stream Document, not closed
+     * @param uri Document URI, base for relative IRIs
+     * @param format RDF format
+     * @param settings Data shape of the events
+     * @return LdesFragment
+     * @throws LDESException If the document can't be parsed
+     */
+    static LdesFragment parse(InputStream stream, URI uri, RDFFormat format, LdesSettings settings) throws LDESException {
+        Collector collector = new Collector(settings);
+        RDFParser parser = Rio.createParser(format);
+        parser.setRDFHandler(collector);
+        try {
+            parser.parse(stream, uri.toString());
+        } catch (IOException | RDFParseException | RDFHandlerException e) {
+            throw new LDESException("Could not parse LDES fragment " + uri, e);
+        }
+        return collector.build(uri);
+    }
+
+    URI getUri() {
+        return this.uri;
+    }
+
+    List<Relation> getRelations() {
+        return this.relations;
+    }
+
+    /**
+     * @return Resources contained in this document (ldp:contains)
+     */
+    Set<String> getContains() {
+        return this.contains;
+    }
+
+    /**
+     * @return Root nodes of the views of the event streams in this document (tree:view)
+     */
+    Set<String> getViews() {
+        return this.views;
+    }
+
+    List<Member> getMembers() {
+        return this.members;
+    }
+
+    /**
+     * tree:relation to another fragment.
+     */
+    static class Relation {
+
+        // Local name of the relation type, e.g. GreaterThanOrEqualToRelation, null for a plain tree:Relation
+        final String type;
+        final String node;
+        // Last predicate of the path, null if none
+        final String path;
+        // Lexical value, null if none
+        final String value;
+
+        Relation(String type, String node, String path, String value) {
+            this.type = type;
+            this.node = node;
+            this.path = path;
+            this.value = value;
+        }
+    }
+
+    /**
+     * Event (member) with a timestamp and numeric value.
+     */
+    static class Member {
+
+        // Subject IRI, or _: prefixed blank node id
+        final String id;
+        // UTC microseconds as published, and truncated to milliseconds
+        final long micros;
+        final long timestamp;
+        final double value;
+        final String source;
+        final List<String> tags;
+
+        Member(String id, long micros, double value, String source, List<String> tags) {
+            this.id = id;
+            this.micros = micros;
+            this.timestamp = Math.floorDiv(micros, 1000);
+            this.value = value;
+            this.source = source;
+            this.tags = tags;
+        }
+    }
+
+    /**
+     * Keeps the triples describing members, relations and containment.
+     */
+    private static class Collector extends AbstractRDFHandler {
+
+        private final String timestampPredicate;
+        private final String valuePredicate;
+        private final String sourcePredicate;
+        private final String tagsPredicate;
+
+        private final Map<String, String[]> members = new HashMap<>();
+        private final Map<String, List<String>> tags = new HashMap<>();
+        private final Set<String> relationIds = new LinkedHashSet<>();
+        // Relation and path list properties by subject, keyed by predicate
+        private final Map<String, Map<String, String>> properties = new HashMap<>();
+        private final Set<String> contains = new LinkedHashSet<>();
+        private final Set<String> views = new LinkedHashSet<>();
+
+        Collector(LdesSettings settings) {
+            this.timestampPredicate = settings.getTimestampPredicate();
+            this.valuePredicate = settings.getValuePredicate();
+            this.sourcePredicate = settings.getSourcePredicate();
+            this.tagsPredicate = settings.getTagsPredicate();
+        }
+
+        @Override
+        public void handleStatement(Statement statement) {
+            String predicate = statement.getPredicate().stringValue();
+            String subject = Collector.id(statement.getSubject());
+            Value object = statement.getObject();
+            if (predicate.equals(this.timestampPredicate)) {
+                this.members.computeIfAbsent(subject, s -> new String[3])[0] = object.stringValue();
+            }
+            else if (predicate.equals(this.valuePredicate)) {
+                this.members.computeIfAbsent(subject, s -> new String[3])[1] = object.stringValue();
+            }
+            else if (predicate.equals(this.sourcePredicate)) {
+                this.members.computeIfAbsent(subject, s -> new String[3])[2] = object.stringValue();
+            }
+            else if (predicate.equals(this.tagsPredicate)) {
+                this.tags.computeIfAbsent(subject, s -> new ArrayList<>()).add(object.stringValue());
+            }
+            else if (predicate.equals(TREE + "relation")) {
+                this.relationIds.add(Collector.id(object));
+            }
+            else if (predicate.equals(LDP_CONTAINS)) {
+                this.contains.add(object.stringValue());
+            }
+            else if (predicate.equals(TREE + "view")) {
+                this.views.add(object.stringValue());
+            }
+            else if (predicate.equals(TREE + "node") || predicate.equals(TREE + "path") || predicate.equals(TREE + "value")
+                    || predicate.equals(RDF + "first") || predicate.equals(RDF + "rest")
+                    || (predicate.equals(RDF + "type") && object.stringValue().startsWith(TREE))) {
+                this.properties.computeIfAbsent(subject, s -> new HashMap<>()).put(predicate, Collector.id(object));
+            }
+        }
+
+        /**
+         * @return Blank nodes prefixed with _: so they never clash with IRIs
+         */
+        private static String id(Value value) {
+            return (value instanceof BNode) ? "_:" + ((BNode) value).getID() : value.stringValue();
+        }
+
+        private LdesFragment build(URI uri) throws LDESException {
+            List<Relation> relations = new ArrayList<>();
+            for (String relationId : this.relationIds) {
+                Map<String, String> relation = this.properties.getOrDefault(relationId, Collections.emptyMap());
+                String node = relation.get(TREE + "node");
+                if (node == null) {
+                    continue;
+                }
+                String type = relation.get(RDF + "type");
+                relations.add(new Relation(type != null ? type.substring(TREE.length()) : null, node,
+                        this.lastPathPredicate(relation.get(TREE + "path")), relation.get(TREE + "value")));
+            }
+            List<Member> members = new ArrayList<>(this.members.size());
+            for (Map.Entry<String, String[]> member : this.members.entrySet()) {
+                String[] fields = member.getValue();
+                if (fields[0] == null || fields[1] == null) {
+                    continue;
+                }
+                try {
+                    // 2023-03-06T12:54:01.915Z
+                    members.add(new Member(member.getKey(), XsdDateTime.parse(fields[0], TimestampPrecision.MICROSECONDS), Double.parseDouble(fields[1]), fields[2],
+                            this.tags.getOrDefault(member.getKey(), Collections.emptyList())));
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    throw new LDESException("Invalid event " + member.getKey() + " in " + uri, e);
+                }
+            }
+            return new LdesFragment(uri, relations, this.contains, this.views, members);
+        }
+
+        /**
+         * @param path Path IRI or (blank node of) an rdf:List sequence path
+         * @return Last predicate of the path
+         */
+        private String lastPathPredicate(String path) {
+            String last = null;
+            String current = path;
+            // Bounded, to survive a cyclic list
+            for (int i = 0; current != null && current.startsWith("_:") && i < 32; i++) {
+                Map<String, String> list = this.properties.getOrDefault(current, Collections.emptyMap());
+                if (list.containsKey(RDF + "first")) {
+                    last = list.get(RDF + "first");
+                }
+                current = list.get(RDF + "rest");
+            }
+            return (path != null && !path.startsWith("_:")) ? path : last;
+        }
+    }
+}
@@ -0,0 +1,571 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesFragmentBackend          *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.Rio;
+
+/**
+ * Reads events straight from the LDES, without a SPARQL endpoint. Starting
+ * from the root (LDES_ENDPOINT) it follows the tree:relations, and skips the
+ * fragments whose relations on the timestamp path (tree:GreaterThanRelation,
+ * GreaterThanOrEqualToRelation, LessThanRelation, LessThanOrEqualToRelation,
+ * EqualToRelation) put them outside of the requested time window. Fragments
+ * are read lazily in timestamp order: a member is passed on as soon as no
+ * unread fragment can hold an earlier one, so only the members of fragments
+ * that overlap are held in memory, and a request with a limit (e.g. the
+ * latest event) stops as soon as it has its events. A member found in more
+ * than one fragment is passed on once. Member timestamps are kept in
+ * microseconds, so a query with microsecond precision gets them as published.
+ * <p>
+ * LDES in SOLID fragments are containers: the events are in the resources
+ * they contain (ldp:contains), which are read concurrently. In LDES in SOLID
+ * a node only has tree:GreaterThanOrEqualToRelations, every fragment ending
+ * where the next one starts; with LDES_SIBLING_BOUNDS enabled these implied
+ * upper bounds are used for pruning as well.
+ * <p>
+ * Member documents never change and are cached as immutable. A fragment is
+ * only marked immutable if explicit relations bound it to before the live
+ * edge, otherwise its Cache-Control max-age applies: implied bounds only
+ * serve pruning, as members may still be added to a fragment that seems
+ * closed.
+ * <p>
+ * The root may be an http(s) or a file URI, a directory is read from the
+ * index.ttl in it, so a local copy of the fragments can be used for testing.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class LdesFragmentBackend implements EventBackend {
+
+    private static final Logger LOGGER = Logger.getLogger(LdesFragmentBackend.class.getName());
+
+    // Only the formats a parser is shipped for
+    private static final String ACCEPT = "text/turtle, application/n-triples;q=0.9";
+    private static final String DIRECTORY_INDEX = "index.ttl";
+    // Fragments read together when several are needed before the next member
+    private static final int FETCH_BATCH = 8;
+
+    private final URI root;
+    private final HttpDocumentCache documents;
+    private final LdesSettings settings;
+    // Documents read, for monitoring the effect of pruning
+    private final AtomicLong documentsRead = new AtomicLong();
+
+    /**
+     * @param root Root of the LDES (event stream, view or root fragment)
+     * @param documents Gets (and caches) the http documents, may be null for file URIs only
+     * @param settings Data shape of the events
+     */
+    public LdesFragmentBackend(URI root, HttpDocumentCache documents, LdesSettings settings) {
+        this.root = root;
+        this.documents = documents;
+        this.settings = settings;
+    }
+
+    /**
+     * @return Total number of documents (fragments and their resources) read
+     */
+    public long getDocumentsRead() {
+        return this.documentsRead.get();
+    }
+
+    /**
+     * Open a cursor over the matching events, the fragments are traversed
+     * while it is read. Only timestamp ordering is supported, other ordering
+     * fields are ignored.
+     *
+     * @param query The events request
+     * @return EventCursor
+     * @throws LDESException
+     */
+    @Override
+    public EventCursor openEvents(EventQuery query) throws LDESException {
+        Bounds window = new Bounds(
+                (query.getFromTimestamp() != null) ? query.getFromTimestamp() : Long.MIN_VALUE,
+                (query.getToTimestamp() != null) ? query.getToTimestamp() - 1 : Long.MAX_VALUE);
+        EventFilter filter = EventFilter.compile(query.getFilter(), this.settings.getSourcePredicate() != null, this.settings.getTagsPredicate() != null);
+        Traversal traversal = new Traversal(window, filter, query.getOrderByOrdering() == EventOrdering.DESCENDING);
+        return new MemberCursor(traversal, query.getLimit(), query.getPrecision());
+    }
+
+    /**
+     * Read all members from a timestamp on, in timestamp order, e.g. to
+     * replicate the LDES. The fragments are read as the members are.
+     *
+     * @param fromTimestamp UTC millisecond timestamp (inclusive), null for all members
+     * @return Traversal over the members, to be closed by the caller
+     */
+    Traversal readMembers(Long fromTimestamp) {
+        return new Traversal(new Bounds((fromTimestamp != null) ? fromTimestamp : Long.MIN_VALUE, Long.MAX_VALUE), null, false);
+    }
+
+    /**
+     * Lazy traversal of the fragments that may hold members in a window,
+     * passing on the matching members in timestamp order. Fragments are read
+     * best first (earliest start when ascending, latest end when descending)
+     * and their members are buffered until no unread fragment can hold one
+     * that comes before them.
+     */
+    final class Traversal implements AutoCloseable {
+
+        private final Bounds window;
+        private final EventFilter filter;
+        private final boolean descending;
+        private final PriorityQueue<Pending> queue;
+        private final Set<String> visited = new HashSet<>();
+        private final PriorityQueue<LdesFragment.Member> buffer;
+        // Fragments with explicit bounds before this are closed
+        private final long closedBefore;
+        // Ids of the members passed on with the last timestamp (microseconds), a copy in another fragment has the same timestamp
+        private final Set<String> passedIds = new HashSet<>();
+        private long lastTimestamp;
+        private final long readBefore;
+        private int fragments = 0;
+        private int members = 0;
+        private boolean done = false;
+
+        private Traversal(Bounds window, EventFilter filter, boolean descending) {
+            this.window = window;
+            this.filter = filter;
+            this.descending = descending;
+            Comparator<LdesFragment.Member> order = Comparator.comparingLong(member -> member.micros);
+            this.buffer = new PriorityQueue<>(descending ? order.reversed() : order);
+            this.queue = new PriorityQueue<>(descending
+                    ? Comparator.comparingLong((Pending pending) -> pending.bounds.max).reversed()
+                    : Comparator.comparingLong((Pending pending) -> pending.bounds.min));
+            Bounds unbounded = new Bounds(Long.MIN_VALUE, Long.MAX_VALUE);
+            this.queue.add(new Pending(LdesFragmentBackend.this.root, unbounded, unbounded));
+            this.visited.add(LdesFragmentBackend.this.root.toString());
+            this.closedBefore = System.currentTimeMillis() - LdesFragmentBackend.this.settings.getObservationCacheLiveEdge().toMillis();
+            this.readBefore = LdesFragmentBackend.this.documentsRead.get();
+        }
+
+        /**
+         * @return The next member, null when done
+         * @throws LDESException
+         */
+        LdesFragment.Member next() throws LDESException {
+            while (!this.done) {
+                LdesFragment.Member member = this.buffer.peek();
+                if (member != null && (this.queue.isEmpty() || !this.mayPrecede(this.queue.peek(), member))) {
+                    this.buffer.poll();
+                    if (member.micros != this.lastTimestamp || this.members == 0) {
+                        this.passedIds.clear();
+                        this.lastTimestamp = member.micros;
+                    }
+                    // Blank node ids are local to their document, only IRIs identify a member
+                    if (!member.id.startsWith("_:") && !this.passedIds.add(member.id)) {
+                        continue;
+                    }
+                    this.members++;
+                    return member;
+                }
+                if (this.queue.isEmpty()) {
+                    this.close();
+                    return null;
+                }
+                this.read(member);
+            }
+            return null;
+        }
+
+        /**
+         * @return True if the fragment may hold a member that comes before (or with) the given one
+         */
+        private boolean mayPrecede(Pending pending, LdesFragment.Member member) {
+            return this.descending ? pending.bounds.max >= member.timestamp : pending.bounds.min <= member.timestamp;
+        }
+
+        /**
+         * Read the best fragment, together with the next ones that are needed
+         * before the best buffered member can be passed on.
+         *
+         * @param best Best buffered member, null if none
+         * @throws LDESException
+         */
+        private void read(LdesFragment.Member best) throws LDESException {
+            List<Pending> batch = new ArrayList<>();
+            do {
+                batch.add(this.queue.poll());
+            } while (best != null && batch.size() < FETCH_BATCH && !this.queue.isEmpty() && this.mayPrecede(this.queue.peek(), best));
+            List<LdesFragment> documents = LdesFragmentBackend.this.fetchAll(batch.stream().map(pending -> pending.uri).collect(Collectors.toList()));
+            for (int i = 0; i < batch.size(); i++) {
+                LdesFragment fragment = documents.get(i);
+                Pending pending = batch.get(i);
+                this.fragments++;
+                // Contained resources that are no fragments themselves hold the events
+                List<URI> resources = new ArrayList<>();
+                Set<String> nodes = new HashSet<>(fragment.getViews());
+                for (LdesFragment.Relation relation : fragment.getRelations()) {
+                    nodes.add(relation.node);
+                }
+                for (String contained : fragment.getContains()) {
+                    if (!nodes.contains(contained) && !contained.endsWith("/") && !contained.equals(fragment.getUri().toString())) {
+                        resources.add(URI.create(contained));
+                    }
+                }
+                this.collect(fragment);
+                List<LdesFragment> resourceDocuments = LdesFragmentBackend.this.fetchAll(resources);
+                for (int j = 0; j < resources.size(); j++) {
+                    this.collect(resourceDocuments.get(j));
+                    // LDES members never change
+                    LdesFragmentBackend.this.markImmutable(resources.get(j));
+                }
+                if (pending.explicitBounds.max < this.closedBefore) {
+                    // Closed fragment according to its relations, no new members will be added
+                    LdesFragmentBackend.this.markImmutable(pending.uri);
+                }
+                LdesFragmentBackend.this.enqueue(fragment, pending, this.window, this.queue, this.visited);
+            }
+        }
+
+        /**
+         * Buffer the members of a document that match the window and filter.
+         */
+        private void collect(LdesFragment document) {
+            for (LdesFragment.Member member : document.getMembers()) {
+                if (member.timestamp >= this.window.min && member.timestamp <= this.window.max
+                        && (this.filter == null || this.filter.test(member.timestamp, member.value, member.source, member.tags))) {
+                    this.buffer.add(member);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            if (this.done) {
+                return;
+            }
+            this.done = true;
+            this.queue.clear();
+            this.buffer.clear();
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "LDES traversal of {0}: {1} fragments, {2} documents read, {3} events",
+                        new Object[] {LdesFragmentBackend.this.root, this.fragments,
+                            LdesFragmentBackend.this.documentsRead.get() - this.readBefore, this.members});
+            }
+        }
+    }
+
+    private void markImmutable(URI uri) {
+        if (this.documents != null && !"file".equals(uri.getScheme())) {
+            this.documents.markImmutable(uri);
+        }
+    }
+
+    /**
+     * Queue the fragments related to a fragment that may hold events in the window.
+     *
+     * @param fragment Fragment
+     * @param pending The fragment as it was queued, with its bounds
+     * @param window Requested window
+     * @param queue Fragments to read
+     * @param visited Fragments already queued
+     */
+    private void enqueue(LdesFragment fragment, Pending pending, Bounds window, PriorityQueue<Pending> queue, Set<String> visited) {
+        // All relations to a node hold for its members, intersect them
+        Map<String, Bounds> nodes = new HashMap<>();
+        Map<String, Integer> relationCounts = new HashMap<>();
+        int lowerBounds = 0;
+        boolean onlyLowerBounds = true;
+        for (LdesFragment.Relation relation : fragment.getRelations()) {
+            Bounds relationBounds = this.getBounds(relation);
+            nodes.merge(relation.node, relationBounds, Bounds::intersect);
+            relationCounts.merge(relation.node, 1, Integer::sum);
+            if ("GreaterThanOrEqualToRelation".equals(relation.type) && relationBounds.min != Long.MIN_VALUE) {
+                lowerBounds++;
+            }
+            else {
+                onlyLowerBounds = false;
+            }
+        }
+        Map<String, Bounds> explicitNodes = new HashMap<>(nodes);
+        if (this.settings.isFragmentSiblingBounds() && onlyLowerBounds && lowerBounds > 1) {
+            // LDES in SOLID: a fragment ends where the next one starts
+            List<String> order = new ArrayList<>(nodes.keySet());
+            order.sort(Comparator.comparingLong(node -> nodes.get(node).min));
+            for (int i = 0; i + 1 < order.size(); i++) {
+                String node = order.get(i);
+                long nextMin = nodes.get(order.get(i + 1)).min;
+                if (relationCounts.get(node) == 1 && nextMin > nodes.get(node).min) {
+                    nodes.put(node, nodes.get(node).intersect(new Bounds(Long.MIN_VALUE, nextMin - 1)));
+                }
+            }
+        }
+        for (Map.Entry<String, Bounds> node : nodes.entrySet()) {
+            Bounds nodeBounds = node.getValue().intersect(pending.bounds);
+            if (nodeBounds.intersect(window).isEmpty()) {
+                LOGGER.log(Level.FINEST, "Fragment {0} pruned", node.getKey());
+                continue;
+            }
+            if (visited.add(node.getKey())) {
+                queue.add(new Pending(URI.create(node.getKey()), nodeBounds, explicitNodes.get(node.getKey()).intersect(pending.explicitBounds)));
+            }
+        }
+        for (String view : fragment.getViews()) {
+            if (visited.add(view)) {
+                queue.add(new Pending(URI.create(view), pending.bounds, pending.explicitBounds));
+            }
+        }
+    }
+
+    /**
+     * @param relation tree:relation
+     * @return Timestamps the members of the related node are within
+     */
+    private Bounds getBounds(LdesFragment.Relation relation) {
+        Bounds bounds = new Bounds(Long.MIN_VALUE, Long.MAX_VALUE);
+        if (relation.type == null || relation.value == null || !this.settings.getTimestampPredicate().equals(relation.path)) {
+            return bounds;
+        }
+        long micros;
+        try {
+            micros = XsdDateTime.parse(relation.value, TimestampPrecision.MICROSECONDS);
+        } catch (DateTimeParseException e) {
+            LOGGER.log(Level.FINE, "Relation to {0} has no dateTime value, not used for pruning", relation.node);
+            return bounds;
+        }
+        // Events have millisecond timestamps, round towards keeping a fragment
+        long millis = Math.floorDiv(micros, 1000);
+        boolean exact = Math.floorMod(micros, 1000) == 0;
+        switch (relation.type) {
+            case "GreaterThanRelation":
+                return new Bounds(exact ? millis + 1 : millis, Long.MAX_VALUE);
+            case "GreaterThanOrEqualToRelation":
+                return new Bounds(millis, Long.MAX_VALUE);
+            case "LessThanRelation":
+                return new Bounds(Long.MIN_VALUE, exact ? millis - 1 : millis);
+            case "LessThanOrEqualToRelation":
+                return new Bounds(Long.MIN_VALUE, millis);
+            case "EqualToRelation":
+                return new Bounds(millis, millis);
+            default:
+                return bounds;
+        }
+    }
+
+    /**
+     * Read documents concurrently.
+     *
+     * @param uris Documents
+     * @return Documents in the same order
+     * @throws LDESException
+     */
+    private List<LdesFragment> fetchAll(Collection<URI> uris) throws LDESException {
+        List<CompletableFuture<LdesFragment>> futures = new ArrayList<>(uris.size());
+        for (URI uri : uris) {
+            futures.add(this.fetch(uri));
+        }
+        List<LdesFragment> documents = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<LdesFragment> future : futures) {
+                documents.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof LDESException) {
+                throw (LDESException) e.getCause();
+            }
+            throw new LDESException("Could not read LDES fragment", e.getCause());
+        }
+        return documents;
+    }
+
+    /**
+     * Read a document.
+     *
+     * @param uri http(s) or file URI
+     * @return Future document
+     */
+    private CompletableFuture<LdesFragment> fetch(URI uri) {
+        this.documentsRead.incrementAndGet();
+        if ("file".equals(uri.getScheme())) {
+            try {
+                return CompletableFuture.completedFuture(this.readFile(uri));
+            } catch (LDESException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        if (this.documents == null) {
+            return CompletableFuture.failedFuture(new LDESException("No http transport to read " + uri));
+        }
+        return this.documents.get(uri, ACCEPT).thenApply(document -> {
+            RDFFormat format = (document.getContentType() != null)
+                    ? Rio.getParserFormatForMIMEType(document.getContentType()).orElse(RDFFormat.TURTLE)
+                    : RDFFormat.TURTLE;
+            try {
+                // Relative IRIs resolve against the final URI, after redirects
+                return LdesFragment.parse(new ByteArrayInputStream(document.getBody()), document.getUri(), format, this.settings);
+            } catch (LDESException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private LdesFragment readFile(URI uri) throws LDESException {
+        Path path = Paths.get(uri);
+        URI base = uri;
+        if (Files.isDirectory(path)) {
+            path = path.resolve(DIRECTORY_INDEX);
+            if (!base.toString().endsWith("/")) {
+                base = URI.create(base + "/");
+            }
+        }
+        RDFFormat format = Rio.getParserFormatForFileName(path.getFileName().toString()).orElse(RDFFormat.TURTLE);
+        try (InputStream stream = Files.newInputStream(path)) {
+            return LdesFragment.parse(stream, base, format, this.settings);
+        } catch (IOException e) {
+            throw new LDESException("Could not read LDES fragment " + uri, e);
+        }
+    }
+
+    /**
+     * Inclusive range of millisecond timestamps.
+     */
+    private static class Bounds {
+
+        private final long min;
+        private final long max;
+
+        private Bounds(long min, long max) {
+            this.min = min;
+            this.max = max;
+        }
+
+        private Bounds intersect(Bounds other) {
+            return new Bounds(Math.max(this.min, other.min), Math.min(this.max, other.max));
+        }
+
+        private boolean isEmpty() {
+            return this.min > this.max;
+        }
+    }
+
+    /**
+     * Fragment to read.
+     */
+    private static class Pending {
+
+        private final URI uri;
+        // Used for pruning, may include implied bounds
+        private final Bounds bounds;
+        // Stated by the relations leading to the fragment
+        private final Bounds explicitBounds;
+
+        private Pending(URI uri, Bounds bounds, Bounds explicitBounds) {
+            this.uri = uri;
+            this.bounds = bounds;
+            this.explicitBounds = explicitBounds;
+        }
+    }
+
+    /**
+     * Cursor over the members of a traversal, up to the limit.
+     */
+    private static class MemberCursor implements EventCursor {
+
+        private final Traversal traversal;
+        private final Integer limit;
+        private final TimestampPrecision precision;
+        private LdesFragment.Member member = null;
+        private int count = 0;
+
+        private MemberCursor(Traversal traversal, Integer limit, TimestampPrecision precision) {
+            this.traversal = traversal;
+            this.limit = limit;
+            this.precision = (precision != null) ? precision : TimestampPrecision.MILLISECONDS;
+        }
+
+        @Override
+        public boolean next() throws LDESException {
+            if (this.limit != null && this.count >= this.limit) {
+                // Limit reached, no further fragments are read
+                this.close();
+                return false;
+            }
+            this.member = this.traversal.next();
+            if (this.member == null) {
+                return false;
+            }
+            this.count++;
+            return true;
+        }
+
+        @Override
+        public long getTimestamp() {
+            long timestamp = this.member.timestamp;
+            if (this.precision == TimestampPrecision.SECONDS) {
+                return Math.floorDiv(timestamp, 1000) * 1000;
+            }
+            return timestamp;
+        }
+
+        @Override
+        public long getTimestamp(TimestampPrecision precision) {
+            // Truncated to the precision of the query first, like the other cursors
+            long timestamp = XsdDateTime.convert(this.member.micros, TimestampPrecision.MICROSECONDS, this.precision);
+            return XsdDateTime.convert(timestamp, this.precision, precision);
+        }
+
+        @Override
+        public double getValue() {
+            return this.member.value;
+        }
+
+        @Override
+        public String get(EventField field) {
+            switch (field) {
+                case TIMESTAMP:
+                    return XsdDateTime.format(this.getTimestamp(this.precision), this.precision);
+                case VALUE:
+                    return Double.toString(this.member.value);
+                case SOURCE:
+                    return this.member.source;
+                case TAGS:
+                    return this.member.tags.isEmpty() ? null : String.join(SparqlQueryBuilder.TAGS_SEPARATOR, this.member.tags);
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public void close() {
+            this.member = null;
+            this.traversal.close();
+        }
+    }
+}
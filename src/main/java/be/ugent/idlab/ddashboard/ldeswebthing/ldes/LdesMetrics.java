@@ -0,0 +1,394 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesMetrics                  *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer instrumentation of the LDES read path, scraped through the
+ * Actuator prometheus endpoint (see METRICS_ENABLED):
+ * <ul>
+ * <li>ldes.requests: latency of the history requests of the Web Things</li>
+ * <li>ldes.events.query, ldes.events.rows: latency and rows of every events
+ * query, by query shape and backend</li>
+ * <li>ldes.sparql.pages, ldes.sparql.wait, ldes.sparql.parse,
+ * ldes.sparql.received: pages per SPARQL query, and per page the time spent
+ * waiting for the endpoint, the time spent parsing and the bytes received</li>
+ * <li>ldes.events.active, ldes.sparql.active: queries and pages in flight</li>
+ * <li>ldes.cache.gets: hits and misses of the caches, by cache</li>
+ * <li>ldes.latest.staleness.max: age of the stalest latest value cached</li>
+ * </ul>
+ * Meters are registered once per name and tags, so a registry should be
+ * shared by one consumer only. Without registry nothing is measured and
+ * cursors and readers are not wrapped.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class LdesMetrics {
+
+    public static final String SUCCESS = "success";
+    public static final String ERROR = "error";
+
+    /**
+     * Opens a results reader on a response body.
+     */
+    @FunctionalInterface
+    public interface ReaderFactory {
+        SparqlResultsReader open(InputStream stream) throws LDESException;
+    }
+
+    private final MeterRegistry registry;
+    private final String backend;
+
+    private final AtomicInteger activeQueries = new AtomicInteger();
+    private final AtomicInteger activePages = new AtomicInteger();
+    // Meters by query shape
+    private final Map<String, ShapeMeters> shapes = new ConcurrentHashMap<>();
+    // Request timers by request, window and outcome
+    private final Map<String, Timer> requests = new ConcurrentHashMap<>();
+
+    /**
+     * @param registry Registry the meters are added to, null disables the metrics
+     * @param backend Name of the events backend, tags the events queries
+     */
+    public LdesMetrics(MeterRegistry registry, String backend) {
+        this.registry = registry;
+        this.backend = backend;
+        if (registry != null) {
+            Gauge.builder("ldes.events.active", this.activeQueries, AtomicInteger::get)
+                    .description("Events queries in flight")
+                    .register(registry);
+            Gauge.builder("ldes.sparql.active", this.activePages, AtomicInteger::get)
+                    .description("SPARQL pages requested and not completely read")
+                    .register(registry);
+        }
+    }
+
+    /**
+     * @return True if measurements are recorded
+     */
+    public boolean isEnabled() {
+        return this.registry != null;
+    }
+
+    /**
+     * @return Registry of the meters, null if disabled
+     */
+    public MeterRegistry getRegistry() {
+        return this.registry;
+    }
+
+    /**
+     * Low cardinality name of the shape of a query: its bounds, followed by
+     * the options that change the query (descending order, limit, filter,
+     * tags), e.g. "window" or "before-desc-limit-filter".
+     *
+     * @param query Events request
+     * @return Shape
+     */
+    public static String getShape(EventQuery query) {
+        StringBuilder shape = new StringBuilder(32);
+        if (query.getFromTimestamp() != null) {
+            shape.append((query.getToTimestamp() != null) ? "window" : "from");
+        }
+        else {
+            shape.append((query.getToTimestamp() != null) ? "before" : "all");
+        }
+        if (query.getOrderByOrdering() == EventOrdering.DESCENDING) {
+            shape.append("-desc");
+        }
+        if (query.getLimit() != null) {
+            shape.append("-limit");
+        }
+        if (query.getFilter() != null) {
+            shape.append("-filter");
+        }
+        if (query.getFields() != null && query.getFields().contains(EventField.TAGS)) {
+            shape.append("-tags");
+        }
+        return shape.toString();
+    }
+
+    /**
+     * Time a history request of a Web Thing.
+     *
+     * @param request Kind of request, e.g. observations or events
+     * @param window Kind of window, e.g. range or latest
+     * @param supplier Answers the request
+     * @return The answer
+     */
+    public <T> T timeRequest(String request, String window, Supplier<T> supplier) {
+        if (this.registry == null) {
+            return supplier.get();
+        }
+        long startedAt = System.nanoTime();
+        String outcome = ERROR;
+        try {
+            T result = supplier.get();
+            outcome = SUCCESS;
+            return result;
+        } finally {
+            String key = request + "|" + window + "|" + outcome;
+            final String tagged = outcome;
+            this.requests.computeIfAbsent(key, k -> Timer.builder("ldes.requests")
+                    .description("History requests of the Web Things, including the caches")
+                    .tags("request", request, "window", window, "outcome", tagged)
+                    .publishPercentileHistogram()
+                    .register(this.registry))
+                    .record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Measure an events query from opening to closing the cursor.
+     *
+     * @param query Events request
+     * @param cursor Cursor over its events
+     * @return Measuring cursor, the cursor itself if disabled
+     */
+    EventCursor meter(EventQuery query, EventCursor cursor) {
+        if (this.registry == null) {
+            return cursor;
+        }
+        return new MeteredEventCursor(this, query, cursor, this.startQuery());
+    }
+
+    /**
+     * @return Start of an events query, to pass to endQuery
+     */
+    long startQuery() {
+        if (this.registry == null) {
+            return 0;
+        }
+        this.activeQueries.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * @param query Events request
+     * @param startedAt Result of startQuery
+     * @param rows Events returned
+     * @param success False if the query failed
+     */
+    void endQuery(EventQuery query, long startedAt, long rows, boolean success) {
+        if (this.registry == null) {
+            return;
+        }
+        this.activeQueries.decrementAndGet();
+        ShapeMeters meters = this.getShapeMeters(query);
+        (success ? meters.querySuccess : meters.queryError).record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        meters.rows.record(rows);
+    }
+
+    /**
+     * @return Time the request of a SPARQL page was sent, to pass to readPage or abortPage
+     */
+    long startPage() {
+        if (this.registry == null) {
+            return 0;
+        }
+        this.activePages.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * The request of a SPARQL page failed, no reader was opened.
+     */
+    void abortPage() {
+        if (this.registry != null) {
+            this.activePages.decrementAndGet();
+        }
+    }
+
+    /**
+     * Open a reader on a SPARQL page, measuring the time spent waiting for
+     * the body and the time spent parsing it until the reader is closed.
+     *
+     * @param query Events request
+     * @param sentAt Result of startPage
+     * @param body Response body, the headers were just received
+     * @param factory Opens the reader
+     * @return SparqlResultsReader, to be closed by the caller
+     * @throws LDESException
+     */
+    SparqlResultsReader readPage(EventQuery query, long sentAt, InputStream body, ReaderFactory factory) throws LDESException {
+        if (this.registry == null) {
+            return factory.open(body);
+        }
+        try {
+            return new MeteredResultsReader(this, query, sentAt, body, factory);
+        } catch (LDESException | RuntimeException e) {
+            this.activePages.decrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * @param query Events request
+     * @param waitNanos Time spent waiting for the endpoint
+     * @param parseNanos Time spent parsing
+     * @param bytes Bytes received
+     */
+    void endPage(EventQuery query, long waitNanos, long parseNanos, long bytes) {
+        this.activePages.decrementAndGet();
+        ShapeMeters meters = this.getShapeMeters(query);
+        meters.wait.record(waitNanos, TimeUnit.NANOSECONDS);
+        meters.parse.record(parseNanos, TimeUnit.NANOSECONDS);
+        meters.received.record(bytes);
+    }
+
+    /**
+     * @param query Events request (or slice)
+     * @param pages Pages requested to answer it
+     */
+    void recordPages(EventQuery query, int pages) {
+        if (this.registry != null) {
+            this.getShapeMeters(query).pages.record(pages);
+        }
+    }
+
+    /**
+     * Count the hits and misses of a cache as ldes.cache.gets.
+     *
+     * @param cache Name of the cache
+     * @param state The cache, only weakly referenced
+     * @param hits Requests answered by the cache
+     * @param misses Requests that needed a load
+     */
+    public <T> void bindCache(String cache, T state, ToDoubleFunction<T> hits, ToDoubleFunction<T> misses) {
+        if (this.registry == null) {
+            return;
+        }
+        FunctionCounter.builder("ldes.cache.gets", state, hits)
+                .description("Cache requests")
+                .tags("cache", cache, "result", "hit")
+                .register(this.registry);
+        FunctionCounter.builder("ldes.cache.gets", state, misses)
+                .description("Cache requests")
+                .tags("cache", cache, "result", "miss")
+                .register(this.registry);
+    }
+
+    /**
+     * Expose a monotonic count kept by a component.
+     *
+     * @param name Meter name
+     * @param description Description
+     * @param baseUnit Base unit, null if none
+     * @param state The component, only weakly referenced
+     * @param count Count
+     */
+    public <T> void bindCounter(String name, String description, String baseUnit, T state, ToDoubleFunction<T> count) {
+        if (this.registry != null) {
+            FunctionCounter.builder(name, state, count)
+                    .description(description)
+                    .baseUnit(baseUnit)
+                    .register(this.registry);
+        }
+    }
+
+    /**
+     * Expose a current value of a component.
+     *
+     * @param name Meter name
+     * @param description Description
+     * @param baseUnit Base unit, null if none
+     * @param state The component, only weakly referenced
+     * @param value Value, must not block
+     */
+    public <T> void bindGauge(String name, String description, String baseUnit, T state, ToDoubleFunction<T> value) {
+        if (this.registry != null) {
+            Gauge.builder(name, state, value)
+                    .description(description)
+                    .baseUnit(baseUnit)
+                    .register(this.registry);
+        }
+    }
+
+    private ShapeMeters getShapeMeters(EventQuery query) {
+        return this.shapes.computeIfAbsent(LdesMetrics.getShape(query), this::createShapeMeters);
+    }
+
+    private ShapeMeters createShapeMeters(String shape) {
+        return new ShapeMeters(
+                this.createQueryTimer(shape, SUCCESS),
+                this.createQueryTimer(shape, ERROR),
+                DistributionSummary.builder("ldes.events.rows")
+                        .description("Events returned per events query")
+                        .tags("shape", shape, "backend", this.backend)
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(1.0)
+                        .maximumExpectedValue(10_000_000.0)
+                        .register(this.registry),
+                DistributionSummary.builder("ldes.sparql.pages")
+                        .description("Pages requested per SPARQL query")
+                        .tags("shape", shape)
+                        .register(this.registry),
+                Timer.builder("ldes.sparql.wait")
+                        .description("Time per SPARQL page spent waiting for the endpoint, until the headers and while reading the body")
+                        .tags("shape", shape)
+                        .register(this.registry),
+                Timer.builder("ldes.sparql.parse")
+                        .description("Time per SPARQL page spent parsing the results")
+                        .tags("shape", shape)
+                        .register(this.registry),
+                DistributionSummary.builder("ldes.sparql.received")
+                        .description("Response body size per SPARQL page")
+                        .baseUnit("bytes")
+                        .tags("shape", shape)
+                        .register(this.registry));
+    }
+
+    private Timer createQueryTimer(String shape, String outcome) {
+        return Timer.builder("ldes.events.query")
+                .description("Events queries, from opening the cursor until the last event or close")
+                .tags("shape", shape, "backend", this.backend, "outcome", outcome)
+                .publishPercentileHistogram()
+                .register(this.registry);
+    }
+
+    /**
+     * Meters of one query shape.
+     */
+    private static class ShapeMeters {
+
+        private final Timer querySuccess;
+        private final Timer queryError;
+        private final DistributionSummary rows;
+        private final DistributionSummary pages;
+        private final Timer wait;
+        private final Timer parse;
+        private final DistributionSummary received;
+
+        private ShapeMeters(Timer querySuccess, Timer queryError, DistributionSummary rows, DistributionSummary pages,
+                Timer wait, Timer parse, DistributionSummary received) {
+            this.querySuccess = querySuccess;
+            this.queryError = queryError;
+            this.rows = rows;
+            this.pages = pages;
+            this.wait = wait;
+            this.parse = parse;
+            this.received = received;
+        }
+    }
+}
@@ -0,0 +1,378 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesStoreBackend             *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.io.File;
+import java.time.format.DateTimeParseException;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Resource;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.eclipse.rdf4j.query.MalformedQueryException;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryException;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.Sail;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+import org.eclipse.rdf4j.sail.nativerdf.NativeStore;
+
+/**
+ * Answers events requests from a local RDF4J store holding a replica of the
+ * LDES members, so a request costs index lookups instead of a traversal. The
+ * replica is kept in memory, or in a native store on disk (STORE_DIRECTORY)
+ * that survives restarts.
+ * <p>
+ * The replica is synced incrementally before a request, at most once per
+ * STORE_SYNC_INTERVAL: the LDES fragments are traversed from the watermark
+ * (the newest member timestamp in the store) on, so fragments before it are
+ * pruned and closed fragments come from the document cache. The live edge
+ * (OBSERVATION_CACHE_LIVE_EDGE) before the watermark is read again, for
+ * members that arrive late; members are keyed by their IRI so reading them
+ * again changes nothing. Requests are answered with the same SPARQL as the
+ * SPARQL backend, in one page.
+ * <p>
+ * Only timestamp, value, source and tags of the members are replicated, in
+ * the data shape of the settings.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class LdesStoreBackend implements EventBackend {
+
+    private static final Logger LOGGER = Logger.getLogger(LdesStoreBackend.class.getName());
+
+    // Subjects of blank node members, which have no stable id of their own
+    private static final String BLANK_MEMBER_BASE = "urn:ldes:member:";
+    // Members written per transaction while syncing
+    private static final int BATCH = 10_000;
+    // Triple indexes of the native store, subject first and predicate first (the timestamp predicate)
+    private static final String NATIVE_INDEXES = "spoc,posc";
+
+    private final LdesFragmentBackend source;
+    private final SparqlQueryBuilder queryBuilder;
+    private final Repository repository;
+    private final IRI timestampPredicate;
+    private final IRI valuePredicate;
+    private final IRI sourcePredicate;
+    private final IRI tagsPredicate;
+    private final long syncInterval;
+    private final long liveEdge;
+
+    // Held while syncing, requests that need a sync wait for the running one
+    private final Object syncLock = new Object();
+    // Newest member timestamp in the store, null while empty
+    private volatile Long watermark;
+    // Earliest time of the next sync
+    private volatile long nextSync = Long.MIN_VALUE;
+    private final AtomicLong membersSynced = new AtomicLong();
+
+    /**
+     * Open (or create) the store.
+     *
+     * @param source Reads the LDES members
+     * @param queryBuilder Translates the requests into SPARQL
+     * @param settings Data shape of the events and the store settings
+     * @throws LDESException If the store can't be opened
+     */
+    LdesStoreBackend(LdesFragmentBackend source, SparqlQueryBuilder queryBuilder, LdesSettings settings) throws LDESException {
+        this.source = source;
+        this.queryBuilder = queryBuilder;
+        this.syncInterval = settings.getStoreSyncInterval().toMillis();
+        this.liveEdge = settings.getObservationCacheLiveEdge().toMillis();
+        Sail sail = (settings.getStoreDirectory() != null)
+                ? new NativeStore(new File(settings.getStoreDirectory()), NATIVE_INDEXES)
+                : new MemoryStore();
+        this.repository = new SailRepository(sail);
+        try {
+            this.repository.init();
+        } catch (RepositoryException e) {
+            throw new LDESException("Could not open the event store " + Objects.toString(settings.getStoreDirectory(), "in memory"), e);
+        }
+        ValueFactory values = this.repository.getValueFactory();
+        this.timestampPredicate = values.createIRI(settings.getTimestampPredicate());
+        this.valuePredicate = values.createIRI(settings.getValuePredicate());
+        this.sourcePredicate = (settings.getSourcePredicate() != null) ? values.createIRI(settings.getSourcePredicate()) : null;
+        this.tagsPredicate = (settings.getTagsPredicate() != null) ? values.createIRI(settings.getTagsPredicate()) : null;
+        this.watermark = this.readWatermark();
+        if (this.watermark != null) {
+            LOGGER.log(Level.INFO, "Event store opened, members up to {0}", XsdDateTime.format(this.watermark, TimestampPrecision.MILLISECONDS));
+        }
+    }
+
+    /**
+     * @return Total number of LDES members written to the store (including members read again)
+     */
+    long getMembersSynced() {
+        return this.membersSynced.get();
+    }
+
+    @Override
+    public EventCursor openEvents(EventQuery query) throws LDESException {
+        this.sync();
+        String sparql = this.queryBuilder.build(query, 0, query.getLimit());
+        RepositoryConnection connection = this.repository.getConnection();
+        try {
+            TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, sparql).evaluate();
+            return new StoreCursor(connection, result, query.getPrecision());
+        } catch (RepositoryException | MalformedQueryException | QueryEvaluationException e) {
+            connection.close();
+            throw new LDESException("Could not query the event store", e);
+        }
+    }
+
+    /**
+     * Bring the store up to date with the LDES, unless synced less than the
+     * sync interval ago. When the LDES can't be read, requests are answered
+     * from the replica as it is, if it has any members, and the next request
+     * tries again.
+     *
+     * @throws LDESException If the LDES can't be read and the store is empty
+     */
+    private void sync() throws LDESException {
+        if (System.currentTimeMillis() < this.nextSync) {
+            return;
+        }
+        synchronized (this.syncLock) {
+            long now = System.currentTimeMillis();
+            if (now < this.nextSync) {
+                // Synced while waiting
+                return;
+            }
+            Long from = (this.watermark != null) ? this.watermark - this.liveEdge : null;
+            int members;
+            try (LdesFragmentBackend.Traversal traversal = this.source.readMembers(from)) {
+                members = this.write(traversal);
+            } catch (LDESException e) {
+                if (this.watermark == null) {
+                    throw e;
+                }
+                LOGGER.log(Level.WARNING, "Could not sync the event store, answering from the replica", e);
+                return;
+            }
+            this.nextSync = now + this.syncInterval;
+            if (LOGGER.isLoggable(Level.FINE)) {
+                LOGGER.log(Level.FINE, "Event store synced from {0}: {1} members in {2} ms",
+                        new Object[] {from, members, System.currentTimeMillis() - now});
+            }
+        }
+    }
+
+    /**
+     * Write the members of a traversal to the store as they are read, in
+     * transactions of BATCH members, moving the watermark past every
+     * transaction committed. When reading fails, the members committed so
+     * far are kept and the next sync goes on from there.
+     *
+     * @param members Traversal, in timestamp order
+     * @return Number of members written
+     * @throws LDESException If the LDES can't be read or the store can't be written
+     */
+    private int write(LdesFragmentBackend.Traversal members) throws LDESException {
+        ValueFactory values = this.repository.getValueFactory();
+        Long newest = this.watermark;
+        int written = 0;
+        try (RepositoryConnection connection = this.repository.getConnection()) {
+            connection.begin();
+            int pending = 0;
+            LdesFragment.Member member;
+            try {
+                member = members.next();
+            } catch (LDESException e) {
+                connection.rollback();
+                throw e;
+            }
+            while (member != null) {
+                this.add(connection, values, member);
+                if (newest == null || member.timestamp > newest) {
+                    newest = member.timestamp;
+                }
+                if (++pending == BATCH) {
+                    this.commit(connection, pending, newest);
+                    written += pending;
+                    pending = 0;
+                    connection.begin();
+                }
+                try {
+                    member = members.next();
+                } catch (LDESException e) {
+                    connection.rollback();
+                    throw e;
+                }
+            }
+            this.commit(connection, pending, newest);
+            written += pending;
+        } catch (RepositoryException e) {
+            throw new LDESException("Could not write to the event store", e);
+        }
+        return written;
+    }
+
+    private void add(RepositoryConnection connection, ValueFactory values, LdesFragment.Member member) {
+        Resource subject = this.getSubject(values, member);
+        // Milliseconds unless the member has a finer timestamp, the literal of a member synced again stays the same
+        String timestamp = (Math.floorMod(member.micros, 1000) == 0) ? XsdDateTime.format(member.timestamp, TimestampPrecision.MILLISECONDS)
+                : XsdDateTime.format(member.micros, TimestampPrecision.MICROSECONDS);
+        connection.add(subject, this.timestampPredicate, values.createLiteral(timestamp, XSD.DATETIME));
+        connection.add(subject, this.valuePredicate, values.createLiteral(member.value));
+        if (this.sourcePredicate != null && member.source != null) {
+            connection.add(subject, this.sourcePredicate, values.createLiteral(member.source));
+        }
+        if (this.tagsPredicate != null) {
+            for (String tag : member.tags) {
+                connection.add(subject, this.tagsPredicate, values.createLiteral(tag));
+            }
+        }
+    }
+
+    /**
+     * Commit a transaction and move the watermark past its members.
+     */
+    private void commit(RepositoryConnection connection, int members, Long newest) {
+        connection.commit();
+        this.membersSynced.addAndGet(members);
+        this.watermark = newest;
+    }
+
+    /**
+     * @return The member IRI, or an IRI derived from the content of a blank node member
+     */
+    private Resource getSubject(ValueFactory values, LdesFragment.Member member) {
+        if (!member.id.startsWith("_:")) {
+            return values.createIRI(member.id);
+        }
+        int hash = Objects.hash(member.value, member.source, member.tags);
+        return values.createIRI(BLANK_MEMBER_BASE + member.timestamp + ":" + Integer.toHexString(hash));
+    }
+
+    /**
+     * @return Newest member timestamp in the store, null if empty
+     * @throws LDESException
+     */
+    private Long readWatermark() throws LDESException {
+        String sparql = "SELECT ?" + EventField.TIMESTAMP.label + " WHERE { ?event " + SparqlTemplate.iriReference(this.timestampPredicate.stringValue())
+                + " ?" + EventField.TIMESTAMP.label + " } ORDER BY DESC(?" + EventField.TIMESTAMP.label + ") LIMIT 1";
+        try (RepositoryConnection connection = this.repository.getConnection();
+                TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, sparql).evaluate()) {
+            if (!result.hasNext()) {
+                return null;
+            }
+            return XsdDateTime.parseMillis(result.next().getValue(EventField.TIMESTAMP.label).stringValue());
+        } catch (RepositoryException | QueryEvaluationException | DateTimeParseException e) {
+            throw new LDESException("Could not read the event store", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.repository.shutDown();
+    }
+
+    /**
+     * Cursor over the bindings of a local query, holding its connection.
+     */
+    private static class StoreCursor implements EventCursor {
+
+        private final RepositoryConnection connection;
+        private final TupleQueryResult result;
+        // Precision of the query, timestamps are parsed to its unit
+        private final TimestampPrecision precision;
+        private boolean closed = false;
+
+        private BindingSet current;
+        // Timestamp in the unit of the precision, and in milliseconds
+        private long preciseTimestamp;
+        private long timestamp;
+        private double value;
+
+        private StoreCursor(RepositoryConnection connection, TupleQueryResult result, TimestampPrecision precision) {
+            this.connection = connection;
+            this.result = result;
+            this.precision = (precision != null) ? precision : TimestampPrecision.MILLISECONDS;
+        }
+
+        @Override
+        public boolean next() throws LDESException {
+            try {
+                while (!this.closed && this.result.hasNext()) {
+                    BindingSet bindings = this.result.next();
+                    Value timestampValue = bindings.getValue(EventField.TIMESTAMP.label);
+                    Value valueValue = bindings.getValue(EventField.VALUE.label);
+                    // Skip bindings that can't be an event
+                    if (timestampValue == null || valueValue == null) {
+                        continue;
+                    }
+                    this.preciseTimestamp = XsdDateTime.parse(timestampValue.stringValue(), this.precision);
+                    this.timestamp = (this.precision == TimestampPrecision.MILLISECONDS) ? this.preciseTimestamp
+                            : XsdDateTime.convert(this.preciseTimestamp, this.precision, TimestampPrecision.MILLISECONDS);
+                    this.value = Double.parseDouble(valueValue.stringValue());
+                    this.current = bindings;
+                    return true;
+                }
+            } catch (QueryEvaluationException e) {
+                this.close();
+                throw new LDESException("Could not query the event store", e);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                this.close();
+                throw new LDESException("Invalid event in the event store", e);
+            }
+            this.close();
+            return false;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return this.timestamp;
+        }
+
+        @Override
+        public long getTimestamp(TimestampPrecision precision) {
+            return XsdDateTime.convert(this.preciseTimestamp, this.precision, precision);
+        }
+
+        @Override
+        public double getValue() {
+            return this.value;
+        }
+
+        @Override
+        public String get(EventField field) {
+            Value fieldValue = (this.current != null) ? this.current.getValue(field.label) : null;
+            return (fieldValue != null) ? fieldValue.stringValue() : null;
+        }
+
+        @Override
+        public void close() throws LDESException {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            this.current = null;
+            try {
+                this.result.close();
+            } catch (QueryEvaluationException e) {
+                throw new LDESException("Could not close the event store query", e);
+            } finally {
+                this.connection.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesStreamHandler            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.launchdarkly.eventsource.EventHandler;
+import com.launchdarkly.eventsource.MessageEvent;
+
+import java.io.IOException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Server-sent events handler for the result stream of the aggregator. Every
+ * message holds one event as JSON, e.g.
+ * {"metric": "...", "source": "...", "timestamp": "2023-03-06T12:54:01.915Z", "value": 21.5},
+ * the timestamp may also be a UTC millisecond number. Messages are decoded
+ * with a streaming parser, without building a JSON tree, and passed to the
+ * listener. The id of the last message is kept to resume the stream.
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class LdesStreamHandler implements EventHandler {
+
+    private static final Logger LOGGER = Logger.getLogger(LdesStreamHandler.class.getName());
+
+    // Thread safe, creating parsers from a shared factory reuses its buffers
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final String streamId;
+    private final StreamListener listener;
+    private volatile String lastEventId;
+
+    /**
+     * @param streamId Stream id, for logging
+     * @param listener Receives the decoded events
+     * @param lastEventId Id of the last event received before, may be null
+     */
+    LdesStreamHandler(String streamId, StreamListener listener, String lastEventId) {
+        this.streamId = streamId;
+        this.listener = listener;
+        this.lastEventId = lastEventId;
+    }
+
+    /**
+     * @return Id of the last event received, null if none
+     */
+    String getLastEventId() {
+        return this.lastEventId;
+    }
+
+    @Override
+    public void onOpen() {
+        LOGGER.log(Level.INFO, "Stream {0} opened, resuming after {1}", new Object[] {this.streamId, this.lastEventId});
+    }
+
+    @Override
+    public void onClosed() {
+        LOGGER.log(Level.INFO, "Stream {0} closed", this.streamId);
+    }
+
+    @Override
+    public void onMessage(String event, MessageEvent messageEvent) {
+        if (messageEvent.getLastEventId() != null) {
+            this.lastEventId = messageEvent.getLastEventId();
+        }
+        try {
+            this.decode(messageEvent.getData());
+        } catch (IOException | RuntimeException e) {
+            // Skip the message, the stream itself is fine
+            LOGGER.log(Level.WARNING, "Stream {0}: invalid event skipped: {1}", new Object[] {this.streamId, e.toString()});
+        }
+    }
+
+    @Override
+    public void onComment(String comment) {
+        // Keep-alive
+    }
+
+    @Override
+    public void onError(Throwable error) {
+        LOGGER.log(Level.WARNING, "Stream {0} failed, reconnecting: {1}", new Object[] {this.streamId, error.toString()});
+        this.listener.onError(error);
+    }
+
+    /**
+     * Decode one event and pass it to the listener.
+     * 
+     * @param data JSON event
+     * @throws IOException If not a valid event
+     */
+    private void decode(String data) throws IOException {
+        String metric = null;
+        String source = null;
+        Long timestamp = null;
+        Double value = null;
+        try (JsonParser parser = JSON_FACTORY.createParser(data)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+            String field;
+            while ((field = parser.nextFieldName()) != null) {
+                JsonToken token = parser.nextToken();
+                switch (field) {
+                    case "metric":
+                        metric = parser.getValueAsString();
+                        break;
+                    case "source":
+                        source = parser.getValueAsString();
+                        break;
+                    case "timestamp":
+                        timestamp = token == JsonToken.VALUE_NUMBER_INT ? parser.getLongValue() : XsdDateTime.parseMillis(parser.getText());
+                        break;
+                    case "value":
+                        value = token.isNumeric() ? parser.getDoubleValue() : Double.parseDouble(parser.getText());
+                        break;
+                    default:
+                        parser.skipChildren();
+                        break;
+                }
+            }
+        }
+        if (metric == null || timestamp == null || value == null) {
+            throw new IOException("Event without metric, timestamp or value");
+        }
+        this.listener.onEvent(metric, source, timestamp, value);
+    }
+}
@@ -0,0 +1,89 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.MeteredEventCursor           *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+/**
+ * EventCursor recording the latency and the number of events of a query
+ * once its cursor is exhausted, fails or is closed.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class MeteredEventCursor implements EventCursor {
+
+    private final LdesMetrics metrics;
+    private final EventQuery query;
+    private final EventCursor cursor;
+    private final long startedAt;
+
+    private long rows = 0;
+    private boolean recorded = false;
+
+    MeteredEventCursor(LdesMetrics metrics, EventQuery query, EventCursor cursor, long startedAt) {
+        this.metrics = metrics;
+        this.query = query;
+        this.cursor = cursor;
+        this.startedAt = startedAt;
+    }
+
+    @Override
+    public boolean next() throws LDESException {
+        boolean next;
+        try {
+            next = this.cursor.next();
+        } catch (LDESException | RuntimeException e) {
+            this.record(false);
+            throw e;
+        }
+        if (next) {
+            this.rows++;
+        }
+        else {
+            this.record(true);
+        }
+        return next;
+    }
+
+    private void record(boolean success) {
+        if (!this.recorded) {
+            this.recorded = true;
+            this.metrics.endQuery(this.query, this.startedAt, this.rows, success);
+        }
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.cursor.getTimestamp();
+    }
+
+    @Override
+    public long getTimestamp(TimestampPrecision precision) {
+        return this.cursor.getTimestamp(precision);
+    }
+
+    @Override
+    public double getValue() {
+        return this.cursor.getValue();
+    }
+
+    @Override
+    public String get(EventField field) {
+        return this.cursor.get(field);
+    }
+
+    @Override
+    public void close() throws LDESException {
+        try {
+            this.cursor.close();
+        } finally {
+            this.record(true);
+        }
+    }
+}
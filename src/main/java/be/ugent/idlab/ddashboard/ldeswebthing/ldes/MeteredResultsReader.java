@@ -0,0 +1,109 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.MeteredResultsReader         *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * SparqlResultsReader splitting the time to read a SPARQL page in waiting
+ * and parsing: the time until the headers and the time blocked reading the
+ * body are waiting, the rest of the time spent in the reader is parsing.
+ * The caller's own work between two bindings is not counted. Recorded when
+ * the reader is closed.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class MeteredResultsReader implements SparqlResultsReader {
+
+    private final LdesMetrics metrics;
+    private final EventQuery query;
+    private final CountingStream stream;
+    private final SparqlResultsReader reader;
+
+    // Waiting for the headers
+    private final long headerNanos;
+    private long parseNanos = 0;
+    private boolean closed = false;
+
+    MeteredResultsReader(LdesMetrics metrics, EventQuery query, long sentAt, InputStream body, LdesMetrics.ReaderFactory factory) throws LDESException {
+        long startedAt = System.nanoTime();
+        this.metrics = metrics;
+        this.query = query;
+        this.headerNanos = startedAt - sentAt;
+        this.stream = new CountingStream(body);
+        // Opening reads the head of the results
+        this.reader = factory.open(this.stream);
+        this.parseNanos = System.nanoTime() - startedAt - this.stream.waitNanos;
+    }
+
+    @Override
+    public boolean next() throws LDESException {
+        long startedAt = System.nanoTime();
+        long waited = this.stream.waitNanos;
+        try {
+            return this.reader.next();
+        } finally {
+            this.parseNanos += System.nanoTime() - startedAt - (this.stream.waitNanos - waited);
+        }
+    }
+
+    @Override
+    public String get(String variable) {
+        return this.reader.get(variable);
+    }
+
+    @Override
+    public void close() throws LDESException {
+        try {
+            this.reader.close();
+        } finally {
+            if (!this.closed) {
+                this.closed = true;
+                this.metrics.endPage(this.query, this.headerNanos + this.stream.waitNanos, this.parseNanos, this.stream.bytes);
+            }
+        }
+    }
+
+    /**
+     * Counts the bytes read and the time spent in the reads.
+     */
+    private static class CountingStream extends FilterInputStream {
+
+        private long bytes = 0;
+        private long waitNanos = 0;
+
+        private CountingStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long startedAt = System.nanoTime();
+            int read = super.read();
+            this.waitNanos += System.nanoTime() - startedAt;
+            if (read >= 0) {
+                this.bytes++;
+            }
+            return read;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long startedAt = System.nanoTime();
+            int read = super.read(buffer, offset, length);
+            this.waitNanos += System.nanoTime() - startedAt;
+            if (read > 0) {
+                this.bytes += read;
+            }
+            return read;
+        }
+    }
+}
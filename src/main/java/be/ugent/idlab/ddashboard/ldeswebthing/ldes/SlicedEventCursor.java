@@ -0,0 +1,256 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SlicedEventCursor            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * EventCursor over a large window, split in time slices that are queried
+ * concurrently. The slices are merged back in the requested order: as they
+ * are disjoint in time and the results are ordered by timestamp first, the
+ * k-way merge reduces to reading the slices one after the other.
+ * <p>
+ * At most parallelism slices are fetched (and buffered) ahead of the reader,
+ * the next one is only started when the reader moves on. Once the limit is
+ * reached the slices still running are cancelled.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SlicedEventCursor implements EventCursor {
+
+    private static final Logger LOGGER = Logger.getLogger(SlicedEventCursor.class.getName());
+
+    /**
+     * Opens the cursor of one slice.
+     */
+    @FunctionalInterface
+    interface Opener {
+        EventCursor open(EventQuery query) throws LDESException;
+    }
+
+    private final EventQuery query;
+    private final Opener opener;
+    private final Executor executor;
+    private final int parallelism;
+    // Unit of the buffered timestamps
+    private final TimestampPrecision precision;
+    // Slice queries, in output order
+    private final List<EventQuery> slices;
+    // Raw fields kept, by ordinal, -1 if not requested
+    private final int[] fieldIndex = new int[EventField.values().length];
+    private final EventField[] fields;
+
+    private final ArrayDeque<Slice> running = new ArrayDeque<>();
+    private int nextSlice = 0;
+    private Slice current = null;
+    private int position = -1;
+    // Events returned so far
+    private int count = 0;
+    private boolean closed = false;
+
+    /**
+     * @param query Query with both bounds, ordered by timestamp first
+     * @param sliceWidth Width of a slice in ms
+     * @param parallelism Maximum number of slices fetched at the same time
+     * @param opener Opens the cursor of one slice
+     * @param executor Runs the slices
+     */
+    SlicedEventCursor(EventQuery query, long sliceWidth, int parallelism, Opener opener, Executor executor) {
+        this.query = query;
+        this.opener = opener;
+        this.executor = executor;
+        this.parallelism = Math.max(1, parallelism);
+        this.precision = (query.getPrecision() != null) ? query.getPrecision() : TimestampPrecision.MILLISECONDS;
+        this.slices = SlicedEventCursor.split(query, sliceWidth);
+
+        List<EventField> kept = new ArrayList<>();
+        Arrays.fill(this.fieldIndex, -1);
+        for (EventField field : EventField.values()) {
+            boolean requested = (query.getFields() != null) ? query.getFields().contains(field)
+                    : (field == EventField.METRIC || field == EventField.SOURCE || field == EventField.VALUE);
+            if (requested || field == EventField.TIMESTAMP) {
+                this.fieldIndex[field.ordinal()] = kept.size();
+                kept.add(field);
+            }
+        }
+        this.fields = kept.toArray(new EventField[0]);
+    }
+
+    /**
+     * @param query Query with both bounds
+     * @param sliceWidth Width of a slice in ms
+     * @return Slice queries in the order of the output
+     */
+    private static List<EventQuery> split(EventQuery query, long sliceWidth) {
+        List<EventQuery> slices = new ArrayList<>();
+        long to = query.getToTimestamp();
+        for (long from = query.getFromTimestamp(); from < to; from += sliceWidth) {
+            slices.add(new EventQuery(query.getDatasets(), query.getMetrics(), from, Math.min(to, from + sliceWidth), query.getFields(),
+                    query.getPrecision(), query.getOrderByFields(), query.getOrderByOrdering(), query.getFilter(), query.getLimit(),
+                    query.getLimitByFields(), query.getLimitByLimit()));
+        }
+        if (query.getOrderByOrdering() == EventOrdering.DESCENDING) {
+            Collections.reverse(slices);
+        }
+        return slices;
+    }
+
+    @Override
+    public boolean next() throws LDESException {
+        if (this.closed) {
+            return false;
+        }
+        if (this.query.getLimit() != null && this.count >= this.query.getLimit()) {
+            // Limit reached, the slices still running are no longer needed
+            this.close();
+            return false;
+        }
+        while (this.current == null || this.position + 1 >= this.current.size) {
+            this.current = null;
+            this.fill();
+            Slice slice = this.running.poll();
+            if (slice == null) {
+                return false;
+            }
+            this.fill();
+            try {
+                slice.done.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.close();
+                throw new LDESException("Interrupted while getting events", e);
+            } catch (ExecutionException e) {
+                this.close();
+                throw new LDESException("Could not get events", e.getCause());
+            }
+            if (slice.error != null) {
+                this.close();
+                throw slice.error;
+            }
+            this.current = slice;
+            this.position = -1;
+        }
+        this.position++;
+        this.count++;
+        return true;
+    }
+
+    /**
+     * Start slices until parallelism slices are running (or buffered).
+     */
+    private void fill() {
+        while (this.running.size() < this.parallelism && this.nextSlice < this.slices.size()) {
+            Slice slice = new Slice(this.slices.get(this.nextSlice++));
+            this.running.add(slice);
+            CompletableFuture.runAsync(slice, this.executor).whenComplete((result, error) -> {
+                if (error != null) {
+                    slice.done.completeExceptionally(error);
+                }
+            });
+        }
+    }
+
+    @Override
+    public long getTimestamp() {
+        return XsdDateTime.convert(this.current.timestamps[this.position], this.precision, TimestampPrecision.MILLISECONDS);
+    }
+
+    @Override
+    public long getTimestamp(TimestampPrecision precision) {
+        return XsdDateTime.convert(this.current.timestamps[this.position], this.precision, precision);
+    }
+
+    @Override
+    public double getValue() {
+        return this.current.values[this.position];
+    }
+
+    @Override
+    public String get(EventField field) {
+        int index = this.fieldIndex[field.ordinal()];
+        return (index < 0) ? null : this.current.raw[this.position][index];
+    }
+
+    @Override
+    public void close() {
+        this.closed = true;
+        this.current = null;
+        for (Slice slice : this.running) {
+            slice.cancelled = true;
+        }
+        if (!this.running.isEmpty()) {
+            LOGGER.log(Level.FINE, "{0} event slices cancelled", this.running.size());
+        }
+        this.running.clear();
+    }
+
+    /**
+     * The events of one slice, read into memory by a worker.
+     */
+    private class Slice implements Runnable {
+
+        private final EventQuery query;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private volatile boolean cancelled = false;
+
+        private long[] timestamps = new long[64];
+        private double[] values = new double[64];
+        private String[][] raw = new String[64][];
+        private int size = 0;
+        private LDESException error = null;
+
+        private Slice(EventQuery query) {
+            this.query = query;
+        }
+
+        @Override
+        public void run() {
+            if (this.cancelled) {
+                this.done.complete(null);
+                return;
+            }
+            try (EventCursor cursor = SlicedEventCursor.this.opener.open(this.query)) {
+                while (!this.cancelled && cursor.next()) {
+                    this.add(cursor);
+                }
+            } catch (LDESException e) {
+                this.error = e;
+            }
+            this.done.complete(null);
+        }
+
+        private void add(EventCursor cursor) {
+            if (this.size == this.timestamps.length) {
+                this.timestamps = Arrays.copyOf(this.timestamps, this.size * 2);
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+                this.raw = Arrays.copyOf(this.raw, this.size * 2);
+            }
+            String[] row = new String[SlicedEventCursor.this.fields.length];
+            for (int i = 0; i < row.length; i++) {
+                row[i] = cursor.get(SlicedEventCursor.this.fields[i]);
+            }
+            this.timestamps[this.size] = cursor.getTimestamp(SlicedEventCursor.this.precision);
+            this.values[this.size] = cursor.getValue();
+            this.raw[this.size] = row;
+            this.size++;
+        }
+    }
+}
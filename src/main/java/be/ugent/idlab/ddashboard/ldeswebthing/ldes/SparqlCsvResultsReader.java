@@ -0,0 +1,84 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlCsvResultsReader       *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for text/csv results (RFC 4180 quoting). Fields are the
+ * lexical values of the terms already, an empty field is taken as unbound
+ * (CSV does not tell it from an empty string). Blank nodes keep their
+ * "_:" prefix, CSV does not tell them from literals either.
+ * <p>
+ * SPARQL 1.1 Query Results CSV and TSV Formats: https://www.w3.org/TR/sparql11-results-csv-tsv/
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class SparqlCsvResultsReader extends SparqlTextResultsReader {
+
+    /**
+     * Open a reader and read the variables.
+     *
+     * @param stream SPARQL CSV results, closed together with the reader
+     * @throws LDESException
+     */
+    public SparqlCsvResultsReader(InputStream stream) throws LDESException {
+        super(stream, "CSV");
+    }
+
+    @Override
+    int readField() throws IOException {
+        this.fieldLength = 0;
+        int b = this.read();
+        if (b == '"') {
+            // Quoted field, may contain separators and line breaks, "" is a quote
+            while (true) {
+                b = this.read();
+                if (b == -1) {
+                    // A truncated response, not the end of the results
+                    throw new IOException("Unterminated quoted field");
+                }
+                if (b == '"') {
+                    b = this.read();
+                    if (b != '"') {
+                        break;
+                    }
+                }
+                this.append(b);
+            }
+        }
+        // Unquoted field, or the rest after the closing quote; lines end with CRLF (or LF)
+        while (true) {
+            if (b == ',') {
+                return SEPARATOR;
+            }
+            if (b == '\n') {
+                return LINE;
+            }
+            if (b == -1) {
+                return END;
+            }
+            if (b != '\r') {
+                this.append(b);
+            }
+            b = this.read();
+        }
+    }
+
+    @Override
+    String decodeVariable() {
+        return new String(this.field, 0, this.fieldLength, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    String decodeValue() {
+        return (this.fieldLength == 0) ? null : new String(this.field, 0, this.fieldLength, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,92 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlEventBackend           *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Events from the SPARQL (Comunica link traversal) endpoint, see SPARQL_ENDPOINT.
+ * Windows larger than the slice width are split in slices that are queried
+ * concurrently, see SPARQL_SLICE_WIDTH.
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SparqlEventBackend implements EventBackend {
+
+    private final LdesConsumer consumer;
+    private final long sliceWidth;
+    private final int parallelism;
+    // Runs the slices of all queries, null if slicing is disabled
+    private final ExecutorService sliceExecutor;
+
+    SparqlEventBackend(LdesConsumer consumer) {
+        this.consumer = consumer;
+        this.sliceWidth = consumer.getSettings().getQuerySliceWidth().toMillis();
+        this.parallelism = consumer.getSettings().getQueryParallelism();
+        if (this.sliceWidth > 0 && this.parallelism > 1) {
+            AtomicInteger count = new AtomicInteger();
+            this.sliceExecutor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+                Thread thread = new Thread(runnable, "ldes-slice-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        else {
+            this.sliceExecutor = null;
+        }
+    }
+
+    @Override
+    public EventCursor openEvents(EventQuery query) {
+        if (this.isSliced(query)) {
+            return new SlicedEventCursor(query, this.sliceWidth, this.parallelism,
+                    slice -> new SparqlEventCursor(this.consumer, slice), this.sliceExecutor);
+        }
+        return new SparqlEventCursor(this.consumer, query);
+    }
+
+    @Override
+    public CompletableFuture<Integer> getEventsAsync(EventQuery query, EventSink sink, Executor executor) {
+        if (this.isSliced(query)) {
+            // The slices block their own worker threads, only the merge runs on the executor
+            return EventBackend.super.getEventsAsync(query, sink, executor);
+        }
+        return new SparqlEventCursor(this.consumer, query).drainAsync(sink, executor);
+    }
+
+    /**
+     * Slices can only be merged back if they are disjoint in the order of the
+     * result: ordered by timestamp first, and no per group limit.
+     * 
+     * @param query Query
+     * @return True if the query is split in slices
+     */
+    private boolean isSliced(EventQuery query) {
+        if (this.sliceExecutor == null || query.getFromTimestamp() == null || query.getToTimestamp() == null
+                || query.getToTimestamp() - query.getFromTimestamp() <= this.sliceWidth) {
+            return false;
+        }
+        if (query.getLimitByFields() != null && query.getLimitByLimit() != null) {
+            return false;
+        }
+        return query.getOrderByFields() == null || query.getOrderByFields().isEmpty()
+                || query.getOrderByFields().iterator().next() == EventField.TIMESTAMP;
+    }
+
+    @Override
+    public void close() {
+        if (this.sliceExecutor != null) {
+            this.sliceExecutor.shutdownNow();
+        }
+    }
+}
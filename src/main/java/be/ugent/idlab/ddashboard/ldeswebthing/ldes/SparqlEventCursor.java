@@ -0,0 +1,267 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlEventCursor            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * EventCursor over the SPARQL endpoint, reading one page at a time straight
+ * from the response stream.
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SparqlEventCursor implements EventCursor {
+
+    private static final Logger LOGGER = Logger.getLogger(SparqlEventCursor.class.getName());
+
+    private final LdesConsumer consumer;
+    private final EventQuery query;
+
+    // Reader over the current page, null when no page is open
+    private SparqlResultsReader reader = null;
+    // No more pages to get
+    private boolean exhausted = false;
+    // Events returned so far
+    private int count = 0;
+    // Rows read in previous pages, the OFFSET of the next page
+    private long offset = 0;
+    // Rows read and requested in the current page
+    private int pageRows = 0;
+    private Integer pageLimit = null;
+    // Pages requested so far, recorded once the cursor is done
+    private int pages = 0;
+    private boolean recorded = false;
+    // Set by the cancelled future of drainAsync, with the body of the page being read
+    private volatile boolean cancelled = false;
+    private volatile InputStream body = null;
+
+    // Precision of the query, timestamps are parsed to its unit
+    private final TimestampPrecision precision;
+    // Timestamp in the unit of the precision, and in milliseconds
+    private long preciseTimestamp;
+    private long timestamp;
+    private double value;
+
+    SparqlEventCursor(LdesConsumer consumer, EventQuery query) {
+        this.consumer = consumer;
+        this.query = query;
+        this.precision = (query.getPrecision() != null) ? query.getPrecision() : TimestampPrecision.MILLISECONDS;
+    }
+
+    @Override
+    public boolean next() throws LDESException {
+        while (true) {
+            if (this.reader == null) {
+                if (this.exhausted || this.isLimitReached()) {
+                    return false;
+                }
+                this.pageLimit = this.getPageLimit();
+                this.pageRows = 0;
+                this.pages++;
+                this.reader = this.consumer.openPage(this.query, this.offset, this.pageLimit);
+            }
+            if (this.nextInPage()) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Push all events into a sink without blocking a thread while waiting for
+     * the response headers: a page is streamed and read on the executor once
+     * its response arrives (with blocking reads), and the next page is only
+     * requested once the previous one has been read. The cursor is closed
+     * when done, also when it fails. Cancelling the returned future closes
+     * the body being read, which ends a blocked read.
+     *
+     * @param sink Receives the events, no further pages are requested once it stops
+     * @param executor Reads the pages
+     * @return Future number of events passed to the sink
+     */
+    CompletableFuture<Integer> drainAsync(EventSink sink, Executor executor) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        result.whenComplete((count, error) -> {
+            if (result.isCancelled()) {
+                this.cancel();
+            }
+        });
+        this.drainPages(sink, executor).whenComplete((count, error) -> {
+            try {
+                this.close();
+            } catch (LDESException e) {
+                if (error != null) {
+                    error.addSuppressed(e);
+                }
+            }
+            if (error != null) {
+                result.completeExceptionally(error);
+            }
+            else {
+                result.complete(count);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Stop draining, from any thread: no further pages are requested and the
+     * body of the page being read is closed. Only the body is closed here,
+     * the reader is closed by the draining thread.
+     */
+    private void cancel() {
+        this.cancelled = true;
+        InputStream current = this.body;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.FINE, "Could not close cancelled response", e);
+            }
+        }
+    }
+
+    private CompletableFuture<Integer> drainPages(EventSink sink, Executor executor) {
+        if (this.cancelled || this.exhausted || this.isLimitReached()) {
+            return CompletableFuture.completedFuture(this.count);
+        }
+        this.pageLimit = this.getPageLimit();
+        this.pageRows = 0;
+        this.pages++;
+        return this.consumer.openPageAsync(this.query, this.offset, this.pageLimit, executor, opened -> {
+            this.body = opened;
+            // Cancelled while the headers were on their way
+            if (this.cancelled) {
+                this.cancel();
+            }
+        }).thenCompose(page -> {
+            this.reader = page;
+            try {
+                while (this.nextInPage()) {
+                    if (!sink.accept(this.timestamp, this.value)) {
+                        return CompletableFuture.completedFuture(this.count);
+                    }
+                }
+            } catch (LDESException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            return this.drainPages(sink, executor);
+        });
+    }
+
+    /**
+     * Advance to the next event in the open page.
+     *
+     * @return False when the page is done (and closed)
+     * @throws LDESException
+     */
+    private boolean nextInPage() throws LDESException {
+        while (true) {
+            if (this.isLimitReached()) {
+                // Limit reached, don't read (or transfer) the rest
+                this.close();
+                return false;
+            }
+            if (this.reader.next()) {
+                this.pageRows++;
+                String timestampString = this.reader.get(EventField.TIMESTAMP.label);
+                String valueString = this.reader.get(EventField.VALUE.label);
+                // Skip bindings that can't be an event
+                if (timestampString == null || valueString == null) {
+                    continue;
+                }
+                try {
+                    // 2023-03-06T12:54:01.915Z
+                    this.preciseTimestamp = XsdDateTime.parse(timestampString, this.precision);
+                    this.timestamp = (this.precision == TimestampPrecision.MILLISECONDS) ? this.preciseTimestamp
+                            : XsdDateTime.convert(this.preciseTimestamp, this.precision, TimestampPrecision.MILLISECONDS);
+                    this.value = Double.parseDouble(valueString);
+                } catch (DateTimeParseException | NumberFormatException e) {
+                    this.close();
+                    throw new LDESException("Invalid event in SPARQL results", e);
+                }
+                this.count++;
+                return true;
+            }
+            // Page done, a page that is not full was the last one
+            this.reader.close();
+            this.reader = null;
+            this.offset += this.pageRows;
+            this.exhausted = this.pageLimit == null || this.pageRows < this.pageLimit;
+            if (this.exhausted) {
+                this.recordPages();
+            }
+            return false;
+        }
+    }
+
+    private boolean isLimitReached() {
+        return this.query.getLimit() != null && this.count >= this.query.getLimit();
+    }
+
+    /**
+     * The number of rows to request in the next page, based on the page size
+     * and the events still needed to reach the limit.
+     * 
+     * @return Page limit, null for the complete (remaining) result
+     */
+    private Integer getPageLimit() {
+        int pageSize = this.consumer.getSettings().getPageSize();
+        Integer remaining = (this.query.getLimit() != null) ? this.query.getLimit() - this.count : null;
+        if (pageSize > 0) {
+            return (remaining != null) ? Math.min(pageSize, remaining) : pageSize;
+        }
+        return remaining;
+    }
+
+    @Override
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    @Override
+    public long getTimestamp(TimestampPrecision precision) {
+        return XsdDateTime.convert(this.preciseTimestamp, this.precision, precision);
+    }
+
+    @Override
+    public double getValue() {
+        return this.value;
+    }
+
+    @Override
+    public String get(EventField field) {
+        return (this.reader != null) ? this.reader.get(field.label) : null;
+    }
+
+    private void recordPages() {
+        if (!this.recorded) {
+            this.recorded = true;
+            this.consumer.getMetrics().recordPages(this.query, this.pages);
+        }
+    }
+
+    @Override
+    public void close() throws LDESException {
+        this.exhausted = true;
+        this.recordPages();
+        if (this.reader != null) {
+            SparqlResultsReader current = this.reader;
+            this.reader = null;
+            current.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlJsonResultsReader      *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming reader for application/sparql-results+json.
+ * Walks results.bindings incrementally from the response stream, without
+ * building a JSON tree of the result.
+ * <p>
+ * SPARQL 1.1 Query Results JSON Format: https://www.w3.org/TR/sparql11-results-json/
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class SparqlJsonResultsReader implements SparqlResultsReader {
+
+    // Thread safe, creating parsers from a shared factory reuses its buffers
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final JsonParser parser;
+    // Current binding, reused for every row
+    private final Map<String, String> binding = new HashMap<>();
+    private boolean finished = false;
+
+    /**
+     * Open a reader and position it at the first binding.
+     * 
+     * @param stream SPARQL JSON results, closed together with the reader
+     * @throws LDESException
+     */
+    public SparqlJsonResultsReader(InputStream stream) throws LDESException {
+        try {
+            this.parser = JSON_FACTORY.createParser(stream);
+        } catch (IOException e) {
+            throw new LDESException("Could not read SPARQL results", e);
+        }
+        try {
+            this.finished = !this.seekBindings();
+        } catch (IOException e) {
+            this.close();
+            throw new LDESException("Invalid SPARQL JSON results", e);
+        }
+    }
+
+    /**
+     * Move the parser to the start of results.bindings, skipping head (and anything else).
+     * 
+     * @return False when the result contains no bindings array
+     * @throws IOException
+     */
+    private boolean seekBindings() throws IOException {
+        if (this.parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new IOException("Expected a JSON object");
+        }
+        String field;
+        while ((field = this.parser.nextFieldName()) != null) {
+            JsonToken token = this.parser.nextToken();
+            if ("results".equals(field) && token == JsonToken.START_OBJECT) {
+                String resultsField;
+                while ((resultsField = this.parser.nextFieldName()) != null) {
+                    JsonToken resultsToken = this.parser.nextToken();
+                    if ("bindings".equals(resultsField) && resultsToken == JsonToken.START_ARRAY) {
+                        return true;
+                    }
+                    this.parser.skipChildren();
+                }
+            }
+            else {
+                this.parser.skipChildren();
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean next() throws LDESException {
+        if (this.finished) {
+            return false;
+        }
+        this.binding.clear();
+        try {
+            JsonToken token = this.parser.nextToken();
+            if (token != JsonToken.START_OBJECT) {
+                // End of the bindings array (or a truncated result)
+                this.finished = true;
+                return false;
+            }
+            String variable;
+            while ((variable = this.parser.nextFieldName()) != null) {
+                if (this.parser.nextToken() != JsonToken.START_OBJECT) {
+                    this.parser.skipChildren();
+                    continue;
+                }
+                // RDF term: { "type": ..., "value": ..., "datatype"/"xml:lang": ... }
+                String term;
+                while ((term = this.parser.nextFieldName()) != null) {
+                    this.parser.nextToken();
+                    if ("value".equals(term)) {
+                        this.binding.put(variable, this.parser.getText());
+                    }
+                    else {
+                        this.parser.skipChildren();
+                    }
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            this.finished = true;
+            throw new LDESException("Invalid SPARQL JSON results", e);
+        }
+    }
+
+    @Override
+    public String get(String variable) {
+        return this.binding.get(variable);
+    }
+
+    @Override
+    public void close() throws LDESException {
+        this.finished = true;
+        try {
+            this.parser.close();
+        } catch (IOException e) {
+            throw new LDESException(e);
+        }
+    }
+}
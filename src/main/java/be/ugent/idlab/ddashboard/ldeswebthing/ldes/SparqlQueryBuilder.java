@@ -0,0 +1,435 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlQueryBuilder            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Translates the arguments of a historical events request into a SPARQL
+ * SELECT query, so the endpoint only returns the rows that are needed:
+ * projected fields, time bounds, filter expression, ordering and LIMIT/OFFSET
+ * (used to emulate cursor paging).
+ * <p>
+ * Every distinct query shape is compiled once into a SparqlTemplate, requests
+ * of the same shape only bind their values (bounds, limits, filter operands).
+ * The graph pattern (timestamp, value, source and tags predicates) comes from
+ * the settings and is validated when the builder is created.
+ * <p>
+ * Filter expressions follow the (Obelisk) filter format built in Consumer:
+ * _and, _or, _not, {field: {_eq|_neq|_gt|_gte|_lt|_lte: value}} and
+ * _withTag "key=value". Expressions that can't be mapped onto the data (e.g.
+ * a source filter without a configured source predicate) are left out, as
+ * they were before: leaving out a conjunct only widens the result. A _not or
+ * _or of which any part is left out is left out as a whole, as it would
+ * narrow the result instead.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class SparqlQueryBuilder {
+
+    private static final Logger LOGGER = Logger.getLogger(SparqlQueryBuilder.class.getName());
+
+    // Separator of the concatenated tags of an event
+    public static final String TAGS_SEPARATOR = ",";
+
+    private static final String EVENT_VARIABLE = "?event";
+    // Upper bound on cached shapes, shapes only differ in structure so this is never reached in practice
+    private static final int MAX_TEMPLATES = 256;
+
+    private final LdesSettings settings;
+    // Graph pattern shared by all queries
+    private final String graphPattern;
+    // Compiled templates by shape
+    private final Map<String, SparqlTemplate> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Create a builder for the data shape in the settings.
+     *
+     * @param settings Settings holding the predicates of the data shape
+     * @throws IllegalArgumentException If a configured predicate is not a valid IRI
+     */
+    public SparqlQueryBuilder(LdesSettings settings) {
+        this.settings = settings;
+
+        StringBuilder pattern = new StringBuilder()
+                .append(EVENT_VARIABLE).append(" ").append(SparqlTemplate.iriReference(settings.getTimestampPredicate())).append(" ?").append(EventField.TIMESTAMP.label).append(" . ")
+                .append(EVENT_VARIABLE).append(" ").append(SparqlTemplate.iriReference(settings.getValuePredicate())).append(" ?").append(EventField.VALUE.label).append(" . ");
+        if (settings.getSourcePredicate() != null) {
+            pattern.append(EVENT_VARIABLE).append(" ").append(SparqlTemplate.iriReference(settings.getSourcePredicate())).append(" ?").append(EventField.SOURCE.label).append(" . ");
+        }
+        if (settings.getTagsPredicate() != null) {
+            // Validate now, the tags pattern is only added when tags are needed
+            SparqlTemplate.iriReference(settings.getTagsPredicate());
+        }
+        this.graphPattern = pattern.toString();
+
+        // Compile the shape of the plain window query up front, any problem shows at startup
+        this.build(new EventQuery(null, null, 0L, 1L, null, null, null, null, null, null, null, null), 0, null);
+    }
+
+    /**
+     * Build the query for one page of the result.
+     *
+     * @param query The events request
+     * @param offset Number of rows already read (previous pages)
+     * @param pageLimit Maximum number of rows in this page, null for no limit
+     * @return SPARQL query
+     */
+    public String build(EventQuery query, long offset, Integer pageLimit) {
+        SparqlTemplate.Bindings bindings = new SparqlTemplate.Bindings();
+
+        // The filter is translated with parameters for its operands, it is part of the shape
+        String filter = null;
+        if (query.getFilter() != null) {
+            filter = this.translateFilter(query.getFilter(), bindings, new int[1], new boolean[] {true});
+        }
+        LinkedHashSet<EventField> projectedFields = this.getProjectedFields(query);
+        LinkedHashSet<EventField> orderByFields = this.getOrderByFields(query);
+        boolean descending = query.getOrderByOrdering() == EventOrdering.DESCENDING;
+
+        StringBuilder shape = new StringBuilder(64)
+                .append(query.getFromTimestamp() != null ? 'F' : '-')
+                .append(query.getToTimestamp() != null ? 'T' : '-')
+                .append(pageLimit != null ? 'L' : '-')
+                .append(offset > 0 ? 'O' : '-')
+                .append(descending ? 'D' : 'A')
+                .append(projectedFields)
+                .append(orderByFields)
+                .append(filter);
+        String key = shape.toString();
+        SparqlTemplate template = this.templates.get(key);
+        if (template == null) {
+            template = this.compile(query.getFromTimestamp() != null, query.getToTimestamp() != null, pageLimit != null, offset > 0,
+                    descending, projectedFields, orderByFields, filter);
+            if (this.templates.size() < MAX_TEMPLATES) {
+                this.templates.put(key, template);
+            }
+        }
+
+        if (query.getFromTimestamp() != null) {
+            bindings.dateTime("from", query.getFromTimestamp());
+        }
+        if (query.getToTimestamp() != null) {
+            bindings.dateTime("to", query.getToTimestamp());
+        }
+        if (pageLimit != null) {
+            bindings.integer("limit", pageLimit);
+        }
+        if (offset > 0) {
+            bindings.integer("offset", offset);
+        }
+        return template.toQuery(bindings);
+    }
+
+    /**
+     * @return Number of cached query shapes
+     */
+    int getTemplateCount() {
+        return this.templates.size();
+    }
+
+    /**
+     * Compile the template for a query shape.
+     *
+     * @return SparqlTemplate
+     */
+    private SparqlTemplate compile(boolean from, boolean to, boolean limit, boolean offset, boolean descending,
+            LinkedHashSet<EventField> projectedFields, LinkedHashSet<EventField> orderByFields, String filter) {
+        StringBuilder sparql = new StringBuilder(512);
+
+        // Projection, tags are multi valued and get concatenated per event
+        LinkedHashSet<EventField> plainFields = new LinkedHashSet<>(projectedFields);
+        boolean groupTags = plainFields.remove(EventField.TAGS);
+        sparql.append("SELECT ").append(EVENT_VARIABLE);
+        for (EventField field : plainFields) {
+            sparql.append(" ?").append(field.label);
+        }
+        if (groupTags) {
+            sparql.append(" (GROUP_CONCAT(?tag; separator=\"").append(TAGS_SEPARATOR).append("\") AS ?").append(EventField.TAGS.label).append(")");
+        }
+
+        // Graph pattern
+        sparql.append(" WHERE { ").append(this.graphPattern);
+        if (groupTags) {
+            sparql.append("OPTIONAL { ").append(EVENT_VARIABLE).append(" ").append(SparqlTemplate.iriReference(this.settings.getTagsPredicate())).append(" ?tag } ");
+        }
+
+        // Filters
+        List<String> filters = new ArrayList<>();
+        if (from) {
+            filters.add("?" + EventField.TIMESTAMP.label + " >= ${from}");
+        }
+        if (to) {
+            filters.add("?" + EventField.TIMESTAMP.label + " < ${to}");
+        }
+        if (filter != null) {
+            filters.add(filter);
+        }
+        if (!filters.isEmpty()) {
+            sparql.append("FILTER (").append(String.join(" && ", filters)).append(") ");
+        }
+        sparql.append("} ");
+        if (groupTags) {
+            sparql.append("GROUP BY ").append(EVENT_VARIABLE);
+            for (EventField field : plainFields) {
+                sparql.append(" ?").append(field.label);
+            }
+            sparql.append(" ");
+        }
+
+        // Ordering, paging needs a total order so the event is added as tie breaker
+        String direction = descending ? "DESC" : "ASC";
+        sparql.append("ORDER BY");
+        for (EventField field : orderByFields) {
+            sparql.append(" ").append(direction).append("(?").append(field.label).append(")");
+        }
+        if (this.settings.getPageSize() > 0) {
+            sparql.append(" ").append(EVENT_VARIABLE);
+        }
+
+        // Paging
+        if (limit) {
+            sparql.append(" LIMIT ${limit}");
+        }
+        if (offset) {
+            sparql.append(" OFFSET ${offset}");
+        }
+        return new SparqlTemplate(sparql.toString());
+    }
+
+    /**
+     * The fields returned for every event, timestamp and value are always needed.
+     * Fields without a mapping onto the data are left out.
+     *
+     * @param query The events request
+     * @return Projected fields
+     */
+    private LinkedHashSet<EventField> getProjectedFields(EventQuery query) {
+        LinkedHashSet<EventField> fields = new LinkedHashSet<>();
+        fields.add(EventField.TIMESTAMP);
+        fields.add(EventField.VALUE);
+        if (this.settings.getSourcePredicate() != null) {
+            fields.add(EventField.SOURCE);
+        }
+        if (query.getFields() != null && query.getFields().contains(EventField.TAGS) && this.settings.getTagsPredicate() != null) {
+            fields.add(EventField.TAGS);
+        }
+        return fields;
+    }
+
+    /**
+     * The fields to order by, defaults to timestamp.
+     *
+     * @param query The events request
+     * @return Order by fields
+     */
+    private LinkedHashSet<EventField> getOrderByFields(EventQuery query) {
+        LinkedHashSet<EventField> fields = new LinkedHashSet<>();
+        if (query.getOrderByFields() != null) {
+            for (EventField field : query.getOrderByFields()) {
+                if (this.isQueryable(field)) {
+                    fields.add(field);
+                }
+                else {
+                    LOGGER.log(Level.FINE, "Can not order by {0}, ignored", field.label);
+                }
+            }
+        }
+        if (fields.isEmpty()) {
+            fields.add(EventField.TIMESTAMP);
+        }
+        return fields;
+    }
+
+    /**
+     * Check if a field is bound to a variable in the generated query.
+     *
+     * @param field Event field
+     * @return True if the field can be used in filters and ordering
+     */
+    private boolean isQueryable(EventField field) {
+        switch (field) {
+            case TIMESTAMP:
+            case VALUE:
+                return true;
+            case SOURCE:
+                return this.settings.getSourcePredicate() != null;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Translate a filter expression into a SPARQL expression, with a ${pN}
+     * parameter for every operand.
+     *
+     * @param filter Filter expression
+     * @param bindings Receives the operand values
+     * @param counter Number of operands so far
+     * @param exact Set to false if a part of the expression is left out
+     * @return SPARQL expression, null if it can't be translated (no filtering)
+     */
+    private String translateFilter(JSONObject filter, SparqlTemplate.Bindings bindings, int[] counter, boolean[] exact) {
+        List<String> expressions = new ArrayList<>();
+        for (String key : filter.keySet()) {
+            String expression;
+            switch (key) {
+                case "_and":
+                case "_or":
+                    expression = this.translateJunction(filter.getJSONArray(key), "_and".equals(key), bindings, counter, exact);
+                    break;
+                case "_not":
+                    // Negating a widened expression narrows the result, only an exact translation can be negated
+                    boolean[] negatedExact = {true};
+                    String negated = this.translateFilter(filter.getJSONObject(key), bindings, counter, negatedExact);
+                    expression = (negated != null && negatedExact[0]) ? "!(" + negated + ")" : null;
+                    break;
+                case "_withTag":
+                    expression = this.translateTag(filter.getString(key), bindings, counter);
+                    break;
+                default:
+                    expression = this.translateField(key, filter.getJSONObject(key), bindings, counter, exact);
+                    break;
+            }
+            if (expression != null) {
+                expressions.add(expression);
+            }
+            else {
+                exact[0] = false;
+            }
+        }
+        return expressions.isEmpty() ? null : "(" + String.join(" && ", expressions) + ")";
+    }
+
+    /**
+     * Translate _and/_or.
+     * An _or with a member that is not translated exactly can't be pushed
+     * down as a whole.
+     *
+     * @param members Filter expressions
+     * @param and True for _and, false for _or
+     * @param bindings Receives the operand values
+     * @param counter Number of operands so far
+     * @param exact Set to false if a part of the expression is left out
+     * @return SPARQL expression, null if it can't be translated
+     */
+    private String translateJunction(JSONArray members, boolean and, SparqlTemplate.Bindings bindings, int[] counter, boolean[] exact) {
+        List<String> expressions = new ArrayList<>();
+        for (int i = 0; i < members.length(); i++) {
+            boolean[] memberExact = {true};
+            String expression = this.translateFilter(members.getJSONObject(i), bindings, counter, memberExact);
+            if (!and && (expression == null || !memberExact[0])) {
+                return null;
+            }
+            if (expression != null) {
+                expressions.add(expression);
+            }
+            exact[0] &= memberExact[0];
+        }
+        return expressions.isEmpty() ? null : "(" + String.join(and ? " && " : " || ", expressions) + ")";
+    }
+
+    /**
+     * Translate _withTag "key=value".
+     *
+     * @param tag Tag
+     * @param bindings Receives the operand value
+     * @param counter Number of operands so far
+     * @return SPARQL expression, null if tags are not available
+     */
+    private String translateTag(String tag, SparqlTemplate.Bindings bindings, int[] counter) {
+        if (this.settings.getTagsPredicate() == null) {
+            LOGGER.log(Level.FINE, "No tags predicate configured, _withTag {0} ignored", tag);
+            return null;
+        }
+        String parameter = "p" + counter[0]++;
+        bindings.string(parameter, tag);
+        return "EXISTS { " + EVENT_VARIABLE + " " + SparqlTemplate.iriReference(this.settings.getTagsPredicate()) + " ${" + parameter + "} }";
+    }
+
+    /**
+     * Translate a field comparison, e.g. {"source": {"_eq": "aggregation"}}.
+     *
+     * @param label Field label
+     * @param comparison Comparison operators with their operand
+     * @param bindings Receives the operand values
+     * @param counter Number of operands so far
+     * @param exact Set to false if an operator is left out
+     * @return SPARQL expression, null if it can't be translated
+     */
+    private String translateField(String label, JSONObject comparison, SparqlTemplate.Bindings bindings, int[] counter, boolean[] exact) {
+        EventField field = null;
+        for (EventField candidate : EventField.values()) {
+            if (candidate.label.equals(label)) {
+                field = candidate;
+            }
+        }
+        if (field == null || !this.isQueryable(field)) {
+            LOGGER.log(Level.FINE, "Can not filter on {0}, ignored", label);
+            return null;
+        }
+        List<String> expressions = new ArrayList<>();
+        for (String operator : comparison.keySet()) {
+            String sparqlOperator = SparqlQueryBuilder.comparisonOperator(operator);
+            if (sparqlOperator == null) {
+                LOGGER.log(Level.FINE, "Unsupported filter operator {0}, ignored", operator);
+                exact[0] = false;
+                continue;
+            }
+            Object operand = comparison.get(operator);
+            String parameter = "p" + counter[0]++;
+            switch (field) {
+                case TIMESTAMP:
+                    bindings.dateTime(parameter, ((Number) operand).longValue());
+                    expressions.add("?" + field.label + " " + sparqlOperator + " ${" + parameter + "}");
+                    break;
+                case VALUE:
+                    bindings.decimal(parameter, ((Number) operand).doubleValue());
+                    expressions.add("?" + field.label + " " + sparqlOperator + " ${" + parameter + "}");
+                    break;
+                default:
+                    // Sources may be IRIs or literals, compare on their string form
+                    bindings.string(parameter, operand.toString());
+                    expressions.add("STR(?" + field.label + ") " + sparqlOperator + " ${" + parameter + "}");
+                    break;
+            }
+        }
+        return expressions.isEmpty() ? null : "(" + String.join(" && ", expressions) + ")";
+    }
+
+    private static String comparisonOperator(String operator) {
+        switch (operator) {
+            case "_eq":
+                return "=";
+            case "_neq":
+                return "!=";
+            case "_gt":
+                return ">";
+            case "_gte":
+                return ">=";
+            case "_lt":
+                return "<";
+            case "_lte":
+                return "<=";
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlResultsReader          *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+/**
+ * Pull reader over a SPARQL SELECT result, one binding at a time.
+ * Only the current binding is held in memory, closing the reader discards the
+ * remainder of the result (and the underlying stream).
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public interface SparqlResultsReader extends AutoCloseable {
+
+    /**
+     * Advance to the next binding.
+     * 
+     * @return False when there are no more bindings
+     * @throws LDESException
+     */
+    boolean next() throws LDESException;
+
+    /**
+     * Get the lexical value bound to a variable in the current binding.
+     * 
+     * @param variable Variable name without '?'
+     * @return Value, null if unbound
+     */
+    String get(String variable);
+
+    @Override
+    void close() throws LDESException;
+}
@@ -0,0 +1,241 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlTemplate                *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * A SPARQL query with ${name} parameters, parsed and validated once and bound
+ * many times. Parameters are bound with typed values (xsd:dateTime, integers,
+ * doubles, strings, IRIs) that are rendered as SPARQL terms, so bound values
+ * can never change the structure of the query.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class SparqlTemplate {
+
+    public static final String XSD_DATE_TIME = "http://www.w3.org/2001/XMLSchema#dateTime";
+
+    private static final Pattern PARAMETER_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_]*");
+    // Characters not allowed in an IRIREF
+    private static final Pattern INVALID_IRI = Pattern.compile("[\\x00-\\x20<>\"{}|^`\\\\]");
+
+    private final String text;
+    // Query text between the parameters, one more than the parameters
+    private final String[] segments;
+    private final String[] parameters;
+    private final int fixedLength;
+
+    /**
+     * Parse and validate a template.
+     *
+     * @param text SPARQL query with ${name} parameters
+     * @throws IllegalArgumentException If the template is invalid
+     */
+    public SparqlTemplate(String text) {
+        this.text = text;
+        List<String> segmentList = new ArrayList<>();
+        List<String> parameterList = new ArrayList<>();
+        int start = 0;
+        int index;
+        while ((index = text.indexOf("${", start)) >= 0) {
+            int end = text.indexOf('}', index);
+            if (end < 0) {
+                throw new IllegalArgumentException("Unterminated parameter at " + index + " in: " + text);
+            }
+            String name = text.substring(index + 2, end);
+            if (!PARAMETER_NAME.matcher(name).matches()) {
+                throw new IllegalArgumentException("Invalid parameter name '" + name + "' in: " + text);
+            }
+            segmentList.add(text.substring(start, index));
+            parameterList.add(name);
+            start = end + 1;
+        }
+        segmentList.add(text.substring(start));
+        this.segments = segmentList.toArray(new String[0]);
+        this.parameters = parameterList.toArray(new String[0]);
+        this.fixedLength = segmentList.stream().mapToInt(String::length).sum();
+        SparqlTemplate.validateStructure(String.join(" ", segmentList));
+    }
+
+    /**
+     * Check that braces and brackets are balanced outside of literals and IRIs.
+     *
+     * @param query Query text without parameters
+     */
+    private static void validateStructure(String query) {
+        int braces = 0;
+        int parentheses = 0;
+        char quote = 0;
+        boolean iri = false;
+        for (int i = 0; i < query.length(); i++) {
+            char c = query.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                }
+                else if (c == quote) {
+                    quote = 0;
+                }
+            }
+            else if (iri) {
+                iri = c != '>';
+            }
+            else if (c == '"' || c == '\'') {
+                quote = c;
+            }
+            else if (c == '<' && i + 1 < query.length() && !Character.isWhitespace(query.charAt(i + 1)) && query.charAt(i + 1) != '=') {
+                iri = true;
+            }
+            else if (c == '{') {
+                braces++;
+            }
+            else if (c == '}') {
+                braces--;
+            }
+            else if (c == '(') {
+                parentheses++;
+            }
+            else if (c == ')') {
+                parentheses--;
+            }
+            if (braces < 0 || parentheses < 0) {
+                break;
+            }
+        }
+        if (quote != 0 || iri || braces != 0 || parentheses != 0) {
+            throw new IllegalArgumentException("Unbalanced SPARQL template: " + query);
+        }
+    }
+
+    /**
+     * @return Names of the parameters of this template
+     */
+    public Set<String> getParameters() {
+        return new LinkedHashSet<>(Arrays.asList(this.parameters));
+    }
+
+    /**
+     * @return The template text
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Replace the parameters by their bound values.
+     *
+     * @param bindings Values for (at least) all parameters of this template
+     * @return The query
+     * @throws IllegalArgumentException If a parameter is not bound
+     */
+    public String toQuery(Bindings bindings) {
+        StringBuilder query = new StringBuilder(this.fixedLength + 64 * this.parameters.length);
+        for (int i = 0; i < this.parameters.length; i++) {
+            String term = bindings.values.get(this.parameters[i]);
+            if (term == null) {
+                throw new IllegalArgumentException("Parameter not bound: " + this.parameters[i]);
+            }
+            query.append(this.segments[i]).append(term);
+        }
+        return query.append(this.segments[this.parameters.length]).toString();
+    }
+
+    /**
+     * @param timestamp UTC millisecond timestamp
+     * @return xsd:dateTime literal
+     */
+    public static String dateTimeLiteral(long timestamp) {
+        StringBuilder literal = new StringBuilder(64).append('"');
+        return XsdDateTime.appendTo(literal, timestamp, TimestampPrecision.MILLISECONDS).append("\"^^<").append(XSD_DATE_TIME).append('>').toString();
+    }
+
+    /**
+     * @param value String
+     * @return Escaped SPARQL string literal
+     */
+    public static String stringLiteral(String value) {
+        StringBuilder literal = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    literal.append("\\\"");
+                    break;
+                case '\\':
+                    literal.append("\\\\");
+                    break;
+                case '\n':
+                    literal.append("\\n");
+                    break;
+                case '\r':
+                    literal.append("\\r");
+                    break;
+                default:
+                    literal.append(c);
+                    break;
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    /**
+     * @param iri Absolute IRI
+     * @return SPARQL IRI reference
+     * @throws IllegalArgumentException If not a valid IRI
+     */
+    public static String iriReference(String iri) {
+        if (iri == null || iri.isEmpty() || INVALID_IRI.matcher(iri).find() || iri.indexOf(':') < 1) {
+            throw new IllegalArgumentException("Invalid IRI: " + iri);
+        }
+        return "<" + iri + ">";
+    }
+
+    /**
+     * Typed values for the parameters of a template.
+     */
+    public static class Bindings {
+
+        private final Map<String, String> values = new HashMap<>();
+
+        public Bindings dateTime(String name, long timestamp) {
+            return this.term(name, SparqlTemplate.dateTimeLiteral(timestamp));
+        }
+
+        public Bindings integer(String name, long value) {
+            return this.term(name, Long.toString(value));
+        }
+
+        public Bindings decimal(String name, double value) {
+            if (Double.isNaN(value) || Double.isInfinite(value)) {
+                throw new IllegalArgumentException("Invalid numeric value for " + name + ": " + value);
+            }
+            return this.term(name, Double.toString(value));
+        }
+
+        public Bindings string(String name, String value) {
+            return this.term(name, SparqlTemplate.stringLiteral(value));
+        }
+
+        public Bindings iri(String name, String iri) {
+            return this.term(name, SparqlTemplate.iriReference(iri));
+        }
+
+        private Bindings term(String name, String term) {
+            this.values.put(name, term);
+            return this;
+        }
+    }
+}
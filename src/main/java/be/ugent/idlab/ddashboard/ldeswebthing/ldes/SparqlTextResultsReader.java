@@ -0,0 +1,186 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlTextResultsReader      *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Base of the streaming readers for the line based SPARQL results formats
+ * (TSV and CSV): a header line with the variables, then a line per binding
+ * with a field per variable. The response is read in blocks straight from
+ * the stream, a subclass splits it in fields and decodes them.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+abstract class SparqlTextResultsReader implements SparqlResultsReader {
+
+    // A field was ended by a separator, a line end or the end of the stream
+    static final int SEPARATOR = 0;
+    static final int LINE = 1;
+    static final int END = 2;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final InputStream stream;
+    private final String format;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+    private int limit = 0;
+
+    // Bytes of the current field, as read by readField
+    byte[] field = new byte[256];
+    int fieldLength = 0;
+
+    // Column of every variable
+    private final Map<String, Integer> columns = new HashMap<>();
+    // Current binding, reused for every row
+    private String[] values;
+    private boolean finished = false;
+
+    /**
+     * Open a reader and read the header line.
+     *
+     * @param stream Results, closed together with the reader
+     * @param format Name of the format, for error messages
+     * @throws LDESException
+     */
+    SparqlTextResultsReader(InputStream stream, String format) throws LDESException {
+        this.stream = stream;
+        this.format = format;
+        List<String> variables = new ArrayList<>();
+        try {
+            if (this.isAtEnd()) {
+                this.finished = true;
+            }
+            else {
+                int terminator;
+                do {
+                    terminator = this.readField();
+                    variables.add(this.decodeVariable());
+                } while (terminator == SEPARATOR);
+            }
+        } catch (IOException | RuntimeException e) {
+            this.close();
+            throw new LDESException("Invalid SPARQL " + format + " results", e);
+        }
+        for (int i = 0; i < variables.size(); i++) {
+            this.columns.putIfAbsent(variables.get(i), i);
+        }
+        this.values = new String[variables.size()];
+    }
+
+    /**
+     * Read the next field into field and fieldLength, without its quoting.
+     *
+     * @return SEPARATOR, LINE or END, whatever ended the field
+     * @throws IOException
+     */
+    abstract int readField() throws IOException;
+
+    /**
+     * @return Variable name of the current (header) field, without '?'
+     */
+    abstract String decodeVariable();
+
+    /**
+     * @return Lexical value of the current field, null if unbound
+     */
+    abstract String decodeValue();
+
+    /**
+     * @return Next byte of the stream, -1 at its end
+     * @throws IOException
+     */
+    final int read() throws IOException {
+        if (this.position == this.limit && !this.fill()) {
+            return -1;
+        }
+        return this.buffer[this.position++] & 0xff;
+    }
+
+    /**
+     * Append a byte to the current field.
+     *
+     * @param b Byte
+     */
+    final void append(int b) {
+        if (this.fieldLength == this.field.length) {
+            this.field = Arrays.copyOf(this.field, this.field.length * 2);
+        }
+        this.field[this.fieldLength++] = (byte) b;
+    }
+
+    private boolean isAtEnd() throws IOException {
+        return this.position == this.limit && !this.fill();
+    }
+
+    private boolean fill() throws IOException {
+        int count;
+        do {
+            count = this.stream.read(this.buffer, 0, this.buffer.length);
+        } while (count == 0);
+        this.position = 0;
+        this.limit = Math.max(0, count);
+        return count > 0;
+    }
+
+    @Override
+    public boolean next() throws LDESException {
+        if (this.finished) {
+            return false;
+        }
+        try {
+            // The last line may or may not be ended
+            if (this.isAtEnd()) {
+                this.finished = true;
+                return false;
+            }
+            int terminator = SEPARATOR;
+            for (int i = 0; i < this.values.length; i++) {
+                if (terminator == SEPARATOR) {
+                    terminator = this.readField();
+                    this.values[i] = this.decodeValue();
+                }
+                else {
+                    // Short line, the remaining variables are unbound
+                    this.values[i] = null;
+                }
+            }
+            // Skip fields of unknown variables
+            while (terminator == SEPARATOR) {
+                terminator = this.readField();
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            this.finished = true;
+            throw new LDESException("Invalid SPARQL " + this.format + " results", e);
+        }
+    }
+
+    @Override
+    public String get(String variable) {
+        Integer column = this.columns.get(variable);
+        return (column == null) ? null : this.values[column];
+    }
+
+    @Override
+    public void close() throws LDESException {
+        this.finished = true;
+        try {
+            this.stream.close();
+        } catch (IOException e) {
+            throw new LDESException(e);
+        }
+    }
+}
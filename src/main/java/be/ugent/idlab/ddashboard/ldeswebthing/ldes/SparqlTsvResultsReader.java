@@ -0,0 +1,149 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlTsvResultsReader       *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for text/tab-separated-values results. Fields are RDF
+ * terms in Turtle syntax and are reduced to their lexical value, like the
+ * value of a term in the JSON format: the string of a literal (without
+ * language or datatype), the IRI without brackets, the label of a blank
+ * node. Numbers and booleans in their short form are taken as they are.
+ * <p>
+ * SPARQL 1.1 Query Results CSV and TSV Formats: https://www.w3.org/TR/sparql11-results-csv-tsv/
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class SparqlTsvResultsReader extends SparqlTextResultsReader {
+
+    /**
+     * Open a reader and read the variables.
+     *
+     * @param stream SPARQL TSV results, closed together with the reader
+     * @throws LDESException
+     */
+    public SparqlTsvResultsReader(InputStream stream) throws LDESException {
+        super(stream, "TSV");
+    }
+
+    @Override
+    int readField() throws IOException {
+        // Tabs and line breaks in terms are escaped, fields are never quoted
+        this.fieldLength = 0;
+        while (true) {
+            int b = this.read();
+            if (b == '\t') {
+                return SEPARATOR;
+            }
+            if (b == '\n' || b == -1) {
+                if (this.fieldLength > 0 && this.field[this.fieldLength - 1] == '\r') {
+                    this.fieldLength--;
+                }
+                return (b == -1) ? END : LINE;
+            }
+            this.append(b);
+        }
+    }
+
+    @Override
+    String decodeVariable() {
+        String variable = new String(this.field, 0, this.fieldLength, StandardCharsets.UTF_8);
+        return (variable.startsWith("?") || variable.startsWith("$")) ? variable.substring(1) : variable;
+    }
+
+    @Override
+    String decodeValue() {
+        int length = this.fieldLength;
+        if (length == 0) {
+            return null;
+        }
+        byte first = this.field[0];
+        if (first == '"' || first == '\'') {
+            return this.decodeLiteral(first);
+        }
+        if (first == '<' && this.field[length - 1] == '>') {
+            return new String(this.field, 1, length - 2, StandardCharsets.UTF_8);
+        }
+        if (first == '_' && length > 1 && this.field[1] == ':') {
+            return new String(this.field, 2, length - 2, StandardCharsets.UTF_8);
+        }
+        // Numbers and booleans
+        return new String(this.field, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @param quote Quote of the literal, " or '
+     * @return String of the quoted literal in the current field, without language tag or datatype
+     */
+    private String decodeLiteral(byte quote) {
+        boolean escaped = false;
+        int end = 1;
+        while (end < this.fieldLength && this.field[end] != quote) {
+            if (this.field[end] == '\\') {
+                escaped = true;
+                end++;
+            }
+            end++;
+        }
+        if (end >= this.fieldLength) {
+            throw new IllegalArgumentException("Unterminated literal");
+        }
+        String string = new String(this.field, 1, end - 1, StandardCharsets.UTF_8);
+        return escaped ? SparqlTsvResultsReader.unescape(string) : string;
+    }
+
+    /**
+     * Resolve the escape sequences of a Turtle string (ECHAR and UCHAR).
+     *
+     * @param string String with escape sequences
+     * @return String
+     */
+    private static String unescape(String string) {
+        StringBuilder builder = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            char c = string.charAt(i);
+            if (c != '\\' || i + 1 == string.length()) {
+                builder.append(c);
+                continue;
+            }
+            char escape = string.charAt(++i);
+            switch (escape) {
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case 'u':
+                    builder.append((char) Integer.parseInt(string.substring(i + 1, i + 5), 16));
+                    i += 4;
+                    break;
+                case 'U':
+                    builder.appendCodePoint(Integer.parseInt(string.substring(i + 1, i + 9), 16));
+                    i += 8;
+                    break;
+                default:
+                    // \" \' \\
+                    builder.append(escape);
+            }
+        }
+        return builder.toString();
+    }
+}
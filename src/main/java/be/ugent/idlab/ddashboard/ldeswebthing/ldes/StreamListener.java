@@ -0,0 +1,33 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.StreamListener               *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+/**
+ * Receives the events of a realtime LDES stream as they arrive.
+ * 
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+@FunctionalInterface
+public interface StreamListener {
+
+    /**
+     * Accept an event.
+     * 
+     * @param metric Metric (property) of the event
+     * @param source Source (thing) of the event, may be null
+     * @param timestamp UTC timestamp of the event (in milliseconds)
+     * @param value Numeric value of the event
+     */
+    void onEvent(String metric, String source, long timestamp, double value);
+
+    /**
+     * The stream failed, it reconnects by itself.
+     * 
+     * @param error Cause
+     */
+    default void onError(Throwable error) {
+    }
+}
@@ -0,0 +1,321 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.XsdDateTime                  *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Codec between xsd:dateTime lexical values and epoch timestamps in the unit
+ * of a TimestampPrecision (seconds, milliseconds or microseconds). Parses
+ * straight from the characters, without the intermediate objects of
+ * Instant.parse, and formats into a StringBuilder.
+ * <p>
+ * Accepts [-]yyyy-MM-ddTHH:mm:ss[.fraction][Z|(+|-)hh:mm], a missing time
+ * zone is taken as UTC. Fraction digits beyond the precision are truncated
+ * (towards the past), so a timestamp always falls in the unit it was parsed
+ * to. A null precision defaults to milliseconds.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public final class XsdDateTime {
+
+    private static final long SECONDS_PER_DAY = 86_400;
+    // Days from 0000-03-01 to 1970-01-01
+    private static final long DAYS_0000_TO_1970 = 719_468;
+    private static final long DAYS_PER_ERA = 146_097;
+
+    private XsdDateTime() {
+    }
+
+    /**
+     * @param text xsd:dateTime lexical value
+     * @return UTC millisecond timestamp
+     * @throws DateTimeParseException If not a valid xsd:dateTime
+     */
+    public static long parseMillis(CharSequence text) {
+        return XsdDateTime.parse(text, TimestampPrecision.MILLISECONDS);
+    }
+
+    /**
+     * @param text xsd:dateTime lexical value
+     * @param precision Unit of the result, null for milliseconds
+     * @return UTC timestamp in the unit of the precision
+     * @throws DateTimeParseException If not a valid xsd:dateTime
+     */
+    public static long parse(CharSequence text, TimestampPrecision precision) {
+        int length = text.length();
+        int i = 0;
+        boolean negativeYear = length > 0 && text.charAt(0) == '-';
+        if (negativeYear) {
+            i++;
+        }
+        // At least 4 year digits, no leading zeros beyond that
+        int yearStart = i;
+        long year = 0;
+        while (i < length && XsdDateTime.isDigit(text.charAt(i))) {
+            if (i - yearStart >= 12) {
+                throw XsdDateTime.invalid(text, i);
+            }
+            year = year * 10 + (text.charAt(i) - '0');
+            i++;
+        }
+        if (i - yearStart < 4 || (i - yearStart > 4 && text.charAt(yearStart) == '0')) {
+            throw XsdDateTime.invalid(text, yearStart);
+        }
+        if (negativeYear) {
+            year = -year;
+        }
+        i = XsdDateTime.expect(text, i, '-');
+        int month = XsdDateTime.twoDigits(text, i);
+        i = XsdDateTime.expect(text, i + 2, '-');
+        int day = XsdDateTime.twoDigits(text, i);
+        i = XsdDateTime.expect(text, i + 2, 'T');
+        int hour = XsdDateTime.twoDigits(text, i);
+        i = XsdDateTime.expect(text, i + 2, ':');
+        int minute = XsdDateTime.twoDigits(text, i);
+        i = XsdDateTime.expect(text, i + 2, ':');
+        int second = XsdDateTime.twoDigits(text, i);
+        i += 2;
+
+        // Fraction, truncated to the digits of the precision
+        int digits = XsdDateTime.getFractionDigits(precision);
+        long fraction = 0;
+        boolean fractionZero = true;
+        if (i < length && text.charAt(i) == '.') {
+            i++;
+            int fractionStart = i;
+            while (i < length && XsdDateTime.isDigit(text.charAt(i))) {
+                int digit = text.charAt(i) - '0';
+                if (i - fractionStart < digits) {
+                    fraction = fraction * 10 + digit;
+                }
+                fractionZero &= digit == 0;
+                i++;
+            }
+            if (i == fractionStart) {
+                throw XsdDateTime.invalid(text, i);
+            }
+            for (int d = i - fractionStart; d < digits; d++) {
+                fraction *= 10;
+            }
+        }
+
+        // Time zone offset in seconds, none is UTC
+        long offset = 0;
+        if (i < length) {
+            char c = text.charAt(i);
+            if (c == 'Z') {
+                i++;
+            }
+            else if (c == '+' || c == '-') {
+                int offsetHours = XsdDateTime.twoDigits(text, i + 1);
+                i = XsdDateTime.expect(text, i + 3, ':');
+                int offsetMinutes = XsdDateTime.twoDigits(text, i);
+                if (offsetHours > 14 || offsetMinutes > 59 || (offsetHours == 14 && offsetMinutes > 0)) {
+                    throw XsdDateTime.invalid(text, i - 3);
+                }
+                offset = (offsetHours * 60L + offsetMinutes) * 60;
+                if (c == '-') {
+                    offset = -offset;
+                }
+                i += 2;
+            }
+        }
+        if (i != length) {
+            throw XsdDateTime.invalid(text, i);
+        }
+
+        if (month < 1 || month > 12 || day < 1 || day > XsdDateTime.lengthOfMonth(year, month)) {
+            throw XsdDateTime.invalid(text, yearStart);
+        }
+        // 24:00:00 is the first instant of the next day
+        if (minute > 59 || second > 59 || hour > 24 || (hour == 24 && (minute != 0 || second != 0 || !fractionZero))) {
+            throw XsdDateTime.invalid(text, yearStart);
+        }
+        long seconds = XsdDateTime.toEpochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600L + minute * 60L + second - offset;
+        return seconds * XsdDateTime.getUnitsPerSecond(precision) + fraction;
+    }
+
+    /**
+     * @param timestamp UTC timestamp in the unit of the precision
+     * @param precision Unit of the timestamp, null for milliseconds
+     * @return xsd:dateTime lexical value in UTC, with the fraction digits of the precision
+     */
+    public static String format(long timestamp, TimestampPrecision precision) {
+        return XsdDateTime.appendTo(new StringBuilder(32), timestamp, precision).toString();
+    }
+
+    /**
+     * Append the xsd:dateTime lexical value of a timestamp.
+     *
+     * @param builder Receives the lexical value
+     * @param timestamp UTC timestamp in the unit of the precision
+     * @param precision Unit of the timestamp, null for milliseconds
+     * @return The builder
+     */
+    public static StringBuilder appendTo(StringBuilder builder, long timestamp, TimestampPrecision precision) {
+        long unitsPerSecond = XsdDateTime.getUnitsPerSecond(precision);
+        long seconds = Math.floorDiv(timestamp, unitsPerSecond);
+        long fraction = Math.floorMod(timestamp, unitsPerSecond);
+        long epochDay = Math.floorDiv(seconds, SECONDS_PER_DAY);
+        int secondOfDay = (int) Math.floorMod(seconds, SECONDS_PER_DAY);
+
+        // Civil date of the epoch day (proleptic Gregorian, eras of 400 years starting on March 1st)
+        long days = epochDay + DAYS_0000_TO_1970;
+        long era = Math.floorDiv(days, DAYS_PER_ERA);
+        long dayOfEra = days - era * DAYS_PER_ERA;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long monthIndex = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+        int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        if (year < 0) {
+            builder.append('-');
+            year = -year;
+        }
+        XsdDateTime.appendPadded(builder, year, 4);
+        builder.append('-');
+        XsdDateTime.appendPadded(builder, month, 2);
+        builder.append('-');
+        XsdDateTime.appendPadded(builder, day, 2);
+        builder.append('T');
+        XsdDateTime.appendPadded(builder, secondOfDay / 3600, 2);
+        builder.append(':');
+        XsdDateTime.appendPadded(builder, (secondOfDay / 60) % 60, 2);
+        builder.append(':');
+        XsdDateTime.appendPadded(builder, secondOfDay % 60, 2);
+        int digits = XsdDateTime.getFractionDigits(precision);
+        if (digits > 0) {
+            builder.append('.');
+            XsdDateTime.appendPadded(builder, fraction, digits);
+        }
+        return builder.append('Z');
+    }
+
+    /**
+     * Convert a timestamp to another precision, truncating towards the past.
+     *
+     * @param timestamp UTC timestamp in the unit of from
+     * @param from Unit of the timestamp, null for milliseconds
+     * @param to Unit of the result, null for milliseconds
+     * @return UTC timestamp in the unit of to
+     */
+    public static long convert(long timestamp, TimestampPrecision from, TimestampPrecision to) {
+        long fromUnits = XsdDateTime.getUnitsPerSecond(from);
+        long toUnits = XsdDateTime.getUnitsPerSecond(to);
+        if (fromUnits == toUnits) {
+            return timestamp;
+        }
+        return (fromUnits > toUnits) ? Math.floorDiv(timestamp, fromUnits / toUnits) : timestamp * (toUnits / fromUnits);
+    }
+
+    /**
+     * @param timestamp UTC timestamp in the unit of the precision
+     * @param precision Unit of the timestamp, null for milliseconds
+     * @return Instant
+     */
+    public static Instant toInstant(long timestamp, TimestampPrecision precision) {
+        long unitsPerSecond = XsdDateTime.getUnitsPerSecond(precision);
+        return Instant.ofEpochSecond(Math.floorDiv(timestamp, unitsPerSecond), Math.floorMod(timestamp, unitsPerSecond) * (1_000_000_000 / unitsPerSecond));
+    }
+
+    /**
+     * @param precision Timestamp precision, null for milliseconds
+     * @return Number of units in a second
+     */
+    public static long getUnitsPerSecond(TimestampPrecision precision) {
+        if (precision == null) {
+            return 1_000;
+        }
+        switch (precision) {
+            case SECONDS:
+                return 1;
+            case MICROSECONDS:
+                return 1_000_000;
+            case MILLISECONDS:
+            default:
+                return 1_000;
+        }
+    }
+
+    private static int getFractionDigits(TimestampPrecision precision) {
+        if (precision == null) {
+            return 3;
+        }
+        switch (precision) {
+            case SECONDS:
+                return 0;
+            case MICROSECONDS:
+                return 6;
+            case MILLISECONDS:
+            default:
+                return 3;
+        }
+    }
+
+    /**
+     * @return Days since 1970-01-01 of a proleptic Gregorian date
+     */
+    private static long toEpochDay(long year, int month, int day) {
+        // Years starting on March 1st, so the leap day is the last day of the year
+        long y = (month <= 2) ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_ERA + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    private static int lengthOfMonth(long year, int month) {
+        switch (month) {
+            case 2:
+                return ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static void appendPadded(StringBuilder builder, long value, int width) {
+        for (long limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) {
+                builder.append('0');
+            }
+        }
+        builder.append(value);
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int twoDigits(CharSequence text, int i) {
+        if (i + 2 > text.length() || !XsdDateTime.isDigit(text.charAt(i)) || !XsdDateTime.isDigit(text.charAt(i + 1))) {
+            throw XsdDateTime.invalid(text, i);
+        }
+        return (text.charAt(i) - '0') * 10 + (text.charAt(i + 1) - '0');
+    }
+
+    private static int expect(CharSequence text, int i, char c) {
+        if (i >= text.length() || text.charAt(i) != c) {
+            throw XsdDateTime.invalid(text, i);
+        }
+        return i + 1;
+    }
+
+    private static DateTimeParseException invalid(CharSequence text, int index) {
+        return new DateTimeParseException("Invalid xsd:dateTime", text, index);
+    }
+}
@@ -0,0 +1,20 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.DownsampleMode        *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes.models;
+
+/**
+ * How long historical windows are reduced before they are returned.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public enum DownsampleMode {
+    // Minimum and maximum of every bucket, keeps peaks and dips
+    MINMAX,
+    // Mean of every bucket, at the start of the bucket
+    AVERAGE,
+    // Largest-Triangle-Three-Buckets, one point per bucket that keeps the visual shape
+    LTTB
+}
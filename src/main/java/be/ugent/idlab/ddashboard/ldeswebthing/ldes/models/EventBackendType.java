@@ -0,0 +1,20 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventBackendType      *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes.models;
+
+/**
+ * Where LdesConsumer gets historical events from.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public enum EventBackendType {
+    // SPARQL (Comunica link traversal) endpoint
+    SPARQL,
+    // In-process traversal of the LDES fragments, starting from the LDES endpoint
+    LDES,
+    // Local RDF4J store, replicated incrementally from the LDES fragments
+    STORE
+}
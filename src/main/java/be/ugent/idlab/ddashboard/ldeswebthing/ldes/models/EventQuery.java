@@ -0,0 +1,97 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes.models;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.json.JSONObject;
+
+/**
+ * The arguments of a historical events request, as passed to LdesConsumer.getEvents.
+ * See LdesConsumer.getEvents for the meaning (and defaults) of each argument.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class EventQuery {
+
+    private final Set<String> datasets;
+    private final Set<String> metrics;
+    private final Long fromTimestamp;
+    private final Long toTimestamp;
+    private final Set<EventField> fields;
+    private final TimestampPrecision precision;
+    private final LinkedHashSet<EventField> orderByFields;
+    private final EventOrdering orderByOrdering;
+    private final JSONObject filter;
+    private final Integer limit;
+    private final Set<EventField> limitByFields;
+    private final Integer limitByLimit;
+
+    public EventQuery(Set<String> datasets, Set<String> metrics, Long fromTimestamp, Long toTimestamp, Set<EventField> fields, TimestampPrecision precision,
+            LinkedHashSet<EventField> orderByFields, EventOrdering orderByOrdering, JSONObject filter, Integer limit, Set<EventField> limitByFields, Integer limitByLimit) {
+        this.datasets = datasets;
+        this.metrics = metrics;
+        this.fromTimestamp = fromTimestamp;
+        this.toTimestamp = toTimestamp;
+        this.fields = fields;
+        this.precision = precision;
+        this.orderByFields = orderByFields;
+        this.orderByOrdering = orderByOrdering;
+        this.filter = filter;
+        this.limit = limit;
+        this.limitByFields = limitByFields;
+        this.limitByLimit = limitByLimit;
+    }
+
+    public Set<String> getDatasets() {
+        return this.datasets;
+    }
+
+    public Set<String> getMetrics() {
+        return this.metrics;
+    }
+
+    public Long getFromTimestamp() {
+        return this.fromTimestamp;
+    }
+
+    public Long getToTimestamp() {
+        return this.toTimestamp;
+    }
+
+    public Set<EventField> getFields() {
+        return this.fields;
+    }
+
+    public TimestampPrecision getPrecision() {
+        return this.precision;
+    }
+
+    public LinkedHashSet<EventField> getOrderByFields() {
+        return this.orderByFields;
+    }
+
+    public EventOrdering getOrderByOrdering() {
+        return this.orderByOrdering;
+    }
+
+    public JSONObject getFilter() {
+        return this.filter;
+    }
+
+    public Integer getLimit() {
+        return this.limit;
+    }
+
+    public Set<EventField> getLimitByFields() {
+        return this.limitByFields;
+    }
+
+    public Integer getLimitByLimit() {
+        return this.limitByLimit;
+    }
+}
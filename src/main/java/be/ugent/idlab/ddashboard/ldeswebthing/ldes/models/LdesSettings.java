@@ -0,0 +1,520 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings          *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes.models;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Tunable settings for the LDES client and the caches on top of it, filled in
+ * from app.properties (or env) by Main.
+ * Every setting has a sensible default, so new LdesSettings() can be used as is.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class LdesSettings {
+
+    // Time allowed to set up a (TLS) connection
+    private Duration connectTimeout = Duration.ofSeconds(5);
+    // Time allowed for a single request, traversal queries may take a while
+    private Duration requestTimeout = Duration.ofSeconds(60);
+    // Threads handling the asynchronous http work, shared by all requests
+    private int httpThreads = 4;
+    // Preferred http version, HTTP_2 falls back to HTTP/1.1 when the endpoint does not offer it
+    private HttpClient.Version httpVersion = HttpClient.Version.HTTP_2;
+    // Ask the endpoints for gzip / deflate compressed responses
+    private boolean httpCompression = true;
+    // Run blocking work of the async API on virtual threads when the runtime supports them
+    private boolean virtualThreads = true;
+    // Platform threads running that blocking work otherwise, further work waits for a free one
+    private int blockingThreads = 16;
+    // Directory of the disk cache of LDES documents, null disables the cache
+    private String httpCacheDirectory = null;
+    // Maximum total size in bytes of the cached documents
+    private long httpCacheSize = 256L * 1024 * 1024;
+    // Where historical events come from: the SPARQL endpoint or the LDES fragments themselves
+    private EventBackendType eventBackend = EventBackendType.SPARQL;
+    // LDES in SOLID: a fragment with only GreaterThanOrEqualTo relations ends where the next one starts
+    private boolean fragmentSiblingBounds = true;
+    // Directory of the on-disk (native) store of the STORE backend, null keeps the replica in memory
+    private String storeDirectory = null;
+    // Minimum interval between incremental syncs of the STORE backend with the LDES
+    private Duration storeSyncInterval = Duration.ofSeconds(5);
+    // SPARQL endpoint answering the events queries (e.g. Comunica link traversal)
+    private String sparqlEndpoint = "http://localhost:8081/sparql";
+    // Send queries as POST body (application/sparql-query), or as GET url parameter
+    private boolean sparqlPost = true;
+    // Preferred results format, CSV is the smallest and holds every value the events queries need
+    private SparqlResultsFormat sparqlResultsFormat = SparqlResultsFormat.CSV;
+    // Data shape of the events
+    private String timestampPredicate = "https://saref.etsi.org/core/hasTimestamp";
+    private String valuePredicate = "https://saref.etsi.org/core/hasValue";
+    // Rows per SPARQL page (LIMIT/OFFSET), 0 gets the result in one page
+    // Every page is a new query, for link traversal this means a new traversal
+    private int pageSize = 0;
+    // Windows larger than this are split in slices that are queried concurrently, zero disables slicing
+    // Every slice is a separate query, for link traversal this means a separate traversal
+    private Duration querySliceWidth = Duration.ZERO;
+    // Maximum number of slices queried at the same time
+    private int queryParallelism = 4;
+    // Predicate linking an event to its source (thing), null if not available in the data
+    private String sourcePredicate = null;
+    // Predicate linking an event to its "key=value" tags, null if not available in the data
+    private String tagsPredicate = null;
+    // Maximum observations kept by the window cache over all (thing, property) pairs, 0 disables the cache
+    private long observationCacheSize = 1_000_000;
+    // Observations older than this are not cached
+    private Duration observationCacheRetention = Duration.ofDays(7);
+    // The most recent part of a window that is always fetched again, as observations may still arrive for it
+    private Duration observationCacheLiveEdge = Duration.ofSeconds(30);
+    // Directory of the on-disk observation replica, null disables the replica
+    private String replicaDirectory = null;
+    // Replica segments older than this are deleted, zero keeps everything
+    private Duration replicaRetention = Duration.ZERO;
+    // Identical concurrent observation requests share one load
+    private boolean queryCoalescing = true;
+    // Interval between background refreshes of the latest values, 0 disables the latest value cache
+    private Duration latestValueRefresh = Duration.ofSeconds(10);
+    // Minimum interval between incremental loads of the updateable event index, 0 disables the index
+    private Duration updateableIndexRefresh = Duration.ofSeconds(5);
+    // Interval between full rebuilds of the updateable event index, zero never rebuilds
+    private Duration updateableIndexResync = Duration.ofHours(1);
+    // Server-sent events result stream of the aggregator, null disables the stream
+    private String streamEndpoint = null;
+    // Delay before reconnecting a failed stream, doubled on every failure up to the maximum
+    private Duration streamReconnectTime = Duration.ofSeconds(1);
+    private Duration streamMaxReconnectTime = Duration.ofSeconds(30);
+    // Downsampling of historical windows
+    private DownsampleMode downsampleMode = DownsampleMode.MINMAX;
+    // Maximum number of observations returned for a window, 0 disables downsampling
+    private int downsamplePoints = 0;
+    // Fixed bucket width, zero derives it from the window and the number of points
+    private Duration downsampleBucketWidth = Duration.ZERO;
+    // How long minute rollups are kept, zero disables the rollups
+    private Duration rollupMinuteRetention = Duration.ofDays(2);
+    // How long hour rollups are kept, day rollups are kept forever
+    private Duration rollupHourRetention = Duration.ofDays(90);
+    // Record Micrometer metrics of the read path, scraped through the Actuator prometheus endpoint
+    private boolean metrics = true;
+
+    public Duration getConnectTimeout() {
+        return this.connectTimeout;
+    }
+
+    public LdesSettings setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+        return this;
+    }
+
+    public Duration getRequestTimeout() {
+        return this.requestTimeout;
+    }
+
+    public LdesSettings setRequestTimeout(Duration requestTimeout) {
+        this.requestTimeout = requestTimeout;
+        return this;
+    }
+
+    public int getHttpThreads() {
+        return this.httpThreads;
+    }
+
+    public LdesSettings setHttpThreads(int httpThreads) {
+        if (httpThreads < 1) {
+            throw new IllegalArgumentException("At least one http thread is required");
+        }
+        this.httpThreads = httpThreads;
+        return this;
+    }
+
+    public HttpClient.Version getHttpVersion() {
+        return this.httpVersion;
+    }
+
+    public LdesSettings setHttpVersion(HttpClient.Version httpVersion) {
+        this.httpVersion = httpVersion;
+        return this;
+    }
+
+    public boolean isHttpCompression() {
+        return this.httpCompression;
+    }
+
+    public LdesSettings setHttpCompression(boolean httpCompression) {
+        this.httpCompression = httpCompression;
+        return this;
+    }
+
+    public boolean isVirtualThreads() {
+        return this.virtualThreads;
+    }
+
+    public LdesSettings setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+        return this;
+    }
+
+    public int getBlockingThreads() {
+        return this.blockingThreads;
+    }
+
+    public LdesSettings setBlockingThreads(int blockingThreads) {
+        if (blockingThreads < 1) {
+            throw new IllegalArgumentException("At least one blocking thread is required");
+        }
+        this.blockingThreads = blockingThreads;
+        return this;
+    }
+
+    public String getHttpCacheDirectory() {
+        return this.httpCacheDirectory;
+    }
+
+    public LdesSettings setHttpCacheDirectory(String httpCacheDirectory) {
+        this.httpCacheDirectory = (httpCacheDirectory == null || httpCacheDirectory.isBlank()) ? null : httpCacheDirectory;
+        return this;
+    }
+
+    public long getHttpCacheSize() {
+        return this.httpCacheSize;
+    }
+
+    public LdesSettings setHttpCacheSize(long httpCacheSize) {
+        this.httpCacheSize = httpCacheSize;
+        return this;
+    }
+
+    public EventBackendType getEventBackend() {
+        return this.eventBackend;
+    }
+
+    public LdesSettings setEventBackend(EventBackendType eventBackend) {
+        this.eventBackend = eventBackend;
+        return this;
+    }
+
+    public boolean isFragmentSiblingBounds() {
+        return this.fragmentSiblingBounds;
+    }
+
+    public LdesSettings setFragmentSiblingBounds(boolean fragmentSiblingBounds) {
+        this.fragmentSiblingBounds = fragmentSiblingBounds;
+        return this;
+    }
+
+    public String getStoreDirectory() {
+        return this.storeDirectory;
+    }
+
+    public LdesSettings setStoreDirectory(String storeDirectory) {
+        this.storeDirectory = (storeDirectory == null || storeDirectory.isBlank()) ? null : storeDirectory;
+        return this;
+    }
+
+    public Duration getStoreSyncInterval() {
+        return this.storeSyncInterval;
+    }
+
+    public LdesSettings setStoreSyncInterval(Duration storeSyncInterval) {
+        if (storeSyncInterval.isNegative()) {
+            throw new IllegalArgumentException("The store sync interval can not be negative");
+        }
+        this.storeSyncInterval = storeSyncInterval;
+        return this;
+    }
+
+    public String getSparqlEndpoint() {
+        return this.sparqlEndpoint;
+    }
+
+    public LdesSettings setSparqlEndpoint(String sparqlEndpoint) {
+        this.sparqlEndpoint = sparqlEndpoint;
+        return this;
+    }
+
+    public boolean isSparqlPost() {
+        return this.sparqlPost;
+    }
+
+    public LdesSettings setSparqlPost(boolean sparqlPost) {
+        this.sparqlPost = sparqlPost;
+        return this;
+    }
+
+    public SparqlResultsFormat getSparqlResultsFormat() {
+        return this.sparqlResultsFormat;
+    }
+
+    public LdesSettings setSparqlResultsFormat(SparqlResultsFormat sparqlResultsFormat) {
+        this.sparqlResultsFormat = sparqlResultsFormat;
+        return this;
+    }
+
+    public String getTimestampPredicate() {
+        return this.timestampPredicate;
+    }
+
+    public LdesSettings setTimestampPredicate(String timestampPredicate) {
+        this.timestampPredicate = timestampPredicate;
+        return this;
+    }
+
+    public String getValuePredicate() {
+        return this.valuePredicate;
+    }
+
+    public LdesSettings setValuePredicate(String valuePredicate) {
+        this.valuePredicate = valuePredicate;
+        return this;
+    }
+
+    public int getPageSize() {
+        return this.pageSize;
+    }
+
+    public LdesSettings setPageSize(int pageSize) {
+        if (pageSize < 0) {
+            throw new IllegalArgumentException("The page size can not be negative");
+        }
+        this.pageSize = pageSize;
+        return this;
+    }
+
+    public Duration getQuerySliceWidth() {
+        return this.querySliceWidth;
+    }
+
+    public LdesSettings setQuerySliceWidth(Duration querySliceWidth) {
+        if (querySliceWidth.isNegative()) {
+            throw new IllegalArgumentException("The query slice width can not be negative");
+        }
+        this.querySliceWidth = querySliceWidth;
+        return this;
+    }
+
+    public int getQueryParallelism() {
+        return this.queryParallelism;
+    }
+
+    public LdesSettings setQueryParallelism(int queryParallelism) {
+        if (queryParallelism < 1) {
+            throw new IllegalArgumentException("The query parallelism must be at least 1");
+        }
+        this.queryParallelism = queryParallelism;
+        return this;
+    }
+
+    public String getSourcePredicate() {
+        return this.sourcePredicate;
+    }
+
+    public LdesSettings setSourcePredicate(String sourcePredicate) {
+        this.sourcePredicate = (sourcePredicate == null || sourcePredicate.isBlank()) ? null : sourcePredicate;
+        return this;
+    }
+
+    public String getTagsPredicate() {
+        return this.tagsPredicate;
+    }
+
+    public LdesSettings setTagsPredicate(String tagsPredicate) {
+        this.tagsPredicate = (tagsPredicate == null || tagsPredicate.isBlank()) ? null : tagsPredicate;
+        return this;
+    }
+
+    public long getObservationCacheSize() {
+        return this.observationCacheSize;
+    }
+
+    public LdesSettings setObservationCacheSize(long observationCacheSize) {
+        this.observationCacheSize = observationCacheSize;
+        return this;
+    }
+
+    public Duration getObservationCacheRetention() {
+        return this.observationCacheRetention;
+    }
+
+    public LdesSettings setObservationCacheRetention(Duration observationCacheRetention) {
+        this.observationCacheRetention = observationCacheRetention;
+        return this;
+    }
+
+    public Duration getObservationCacheLiveEdge() {
+        return this.observationCacheLiveEdge;
+    }
+
+    public LdesSettings setObservationCacheLiveEdge(Duration observationCacheLiveEdge) {
+        this.observationCacheLiveEdge = observationCacheLiveEdge;
+        return this;
+    }
+
+    public String getReplicaDirectory() {
+        return this.replicaDirectory;
+    }
+
+    public LdesSettings setReplicaDirectory(String replicaDirectory) {
+        this.replicaDirectory = (replicaDirectory == null || replicaDirectory.isBlank()) ? null : replicaDirectory;
+        return this;
+    }
+
+    public Duration getReplicaRetention() {
+        return this.replicaRetention;
+    }
+
+    public LdesSettings setReplicaRetention(Duration replicaRetention) {
+        if (replicaRetention.isNegative()) {
+            throw new IllegalArgumentException("The replica retention can not be negative");
+        }
+        this.replicaRetention = replicaRetention;
+        return this;
+    }
+
+    public boolean isQueryCoalescing() {
+        return this.queryCoalescing;
+    }
+
+    public LdesSettings setQueryCoalescing(boolean queryCoalescing) {
+        this.queryCoalescing = queryCoalescing;
+        return this;
+    }
+
+    public Duration getLatestValueRefresh() {
+        return this.latestValueRefresh;
+    }
+
+    public LdesSettings setLatestValueRefresh(Duration latestValueRefresh) {
+        if (latestValueRefresh.isNegative()) {
+            throw new IllegalArgumentException("The latest value refresh interval can not be negative");
+        }
+        this.latestValueRefresh = latestValueRefresh;
+        return this;
+    }
+
+    public Duration getUpdateableIndexRefresh() {
+        return this.updateableIndexRefresh;
+    }
+
+    public LdesSettings setUpdateableIndexRefresh(Duration updateableIndexRefresh) {
+        if (updateableIndexRefresh.isNegative()) {
+            throw new IllegalArgumentException("The updateable index refresh interval can not be negative");
+        }
+        this.updateableIndexRefresh = updateableIndexRefresh;
+        return this;
+    }
+
+    public Duration getUpdateableIndexResync() {
+        return this.updateableIndexResync;
+    }
+
+    public LdesSettings setUpdateableIndexResync(Duration updateableIndexResync) {
+        if (updateableIndexResync.isNegative()) {
+            throw new IllegalArgumentException("The updateable index resync interval can not be negative");
+        }
+        this.updateableIndexResync = updateableIndexResync;
+        return this;
+    }
+
+    public String getStreamEndpoint() {
+        return this.streamEndpoint;
+    }
+
+    public LdesSettings setStreamEndpoint(String streamEndpoint) {
+        this.streamEndpoint = (streamEndpoint == null || streamEndpoint.isBlank()) ? null : streamEndpoint;
+        return this;
+    }
+
+    public Duration getStreamReconnectTime() {
+        return this.streamReconnectTime;
+    }
+
+    public LdesSettings setStreamReconnectTime(Duration streamReconnectTime) {
+        this.streamReconnectTime = streamReconnectTime;
+        return this;
+    }
+
+    public Duration getStreamMaxReconnectTime() {
+        return this.streamMaxReconnectTime;
+    }
+
+    public LdesSettings setStreamMaxReconnectTime(Duration streamMaxReconnectTime) {
+        this.streamMaxReconnectTime = streamMaxReconnectTime;
+        return this;
+    }
+
+    public DownsampleMode getDownsampleMode() {
+        return this.downsampleMode;
+    }
+
+    public LdesSettings setDownsampleMode(DownsampleMode downsampleMode) {
+        this.downsampleMode = downsampleMode;
+        return this;
+    }
+
+    public int getDownsamplePoints() {
+        return this.downsamplePoints;
+    }
+
+    public LdesSettings setDownsamplePoints(int downsamplePoints) {
+        if (downsamplePoints < 0) {
+            throw new IllegalArgumentException("The number of downsampled points can not be negative");
+        }
+        this.downsamplePoints = downsamplePoints;
+        return this;
+    }
+
+    public Duration getDownsampleBucketWidth() {
+        return this.downsampleBucketWidth;
+    }
+
+    public LdesSettings setDownsampleBucketWidth(Duration downsampleBucketWidth) {
+        if (downsampleBucketWidth.isNegative()) {
+            throw new IllegalArgumentException("The downsample bucket width can not be negative");
+        }
+        this.downsampleBucketWidth = downsampleBucketWidth;
+        return this;
+    }
+
+    /**
+     * @return True if historical windows are downsampled
+     */
+    public boolean isDownsampling() {
+        return this.downsamplePoints > 0 || !this.downsampleBucketWidth.isZero();
+    }
+
+    public Duration getRollupMinuteRetention() {
+        return this.rollupMinuteRetention;
+    }
+
+    public LdesSettings setRollupMinuteRetention(Duration rollupMinuteRetention) {
+        if (rollupMinuteRetention.isNegative()) {
+            throw new IllegalArgumentException("The minute rollup retention can not be negative");
+        }
+        this.rollupMinuteRetention = rollupMinuteRetention;
+        return this;
+    }
+
+    public Duration getRollupHourRetention() {
+        return this.rollupHourRetention;
+    }
+
+    public LdesSettings setRollupHourRetention(Duration rollupHourRetention) {
+        if (rollupHourRetention.isNegative()) {
+            throw new IllegalArgumentException("The hour rollup retention can not be negative");
+        }
+        this.rollupHourRetention = rollupHourRetention;
+        return this;
+    }
+
+    public boolean isMetrics() {
+        return this.metrics;
+    }
+
+    public LdesSettings setMetrics(boolean metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+}
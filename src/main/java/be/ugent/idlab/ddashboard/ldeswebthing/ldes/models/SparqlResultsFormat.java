@@ -0,0 +1,62 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat   *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes.models;
+
+import java.util.Locale;
+
+/**
+ * Format of the SPARQL results LdesConsumer asks the endpoint for. Every
+ * format but JSON is requested with the other text format and JSON as the
+ * fallbacks, the response is decoded according to its Content-Type.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public enum SparqlResultsFormat {
+    // SPARQL 1.1 Query Results JSON, supported by every endpoint
+    JSON("application/sparql-results+json"),
+    // SPARQL 1.1 Query Results TSV, RDF terms in Turtle syntax
+    TSV("text/tab-separated-values"),
+    // SPARQL 1.1 Query Results CSV, lexical values only (no datatypes or term types)
+    CSV("text/csv");
+
+    public final String mediaType;
+
+    private SparqlResultsFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * @return Accept header preferring this format, JSON only accepts JSON
+     */
+    public String getAccept() {
+        if (this == JSON) {
+            return this.mediaType;
+        }
+        StringBuilder accept = new StringBuilder(this.mediaType);
+        for (SparqlResultsFormat format : SparqlResultsFormat.values()) {
+            if (format != this) {
+                accept.append(", ").append(format.mediaType).append((format == JSON) ? ";q=0.8" : ";q=0.9");
+            }
+        }
+        return accept.toString();
+    }
+
+    /**
+     * @param contentType Content-Type header of a response, can be null
+     * @return Format of the response, JSON if missing or unknown
+     */
+    public static SparqlResultsFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            String mediaType = contentType.split(";")[0].trim().toLowerCase(Locale.ROOT);
+            for (SparqlResultsFormat format : SparqlResultsFormat.values()) {
+                if (format.mediaType.equals(mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,144 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.Aggregate                  *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+/**
+ * Count, sum, minimum, maximum and last value of a set of observations,
+ * with the timestamps of the minimum, maximum and last observation. Can be
+ * updated one observation at a time or combined with another aggregate.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class Aggregate {
+
+    private long count = 0;
+    private double sum = 0;
+    private long minTimestamp;
+    private double min = Double.NaN;
+    private long maxTimestamp;
+    private double max = Double.NaN;
+    private long lastTimestamp;
+    private double last = Double.NaN;
+
+    /**
+     * Add an observation.
+     *
+     * @param timestamp UTC millisecond timestamp
+     * @param value Value
+     */
+    public void add(long timestamp, double value) {
+        if (this.count == 0) {
+            this.minTimestamp = timestamp;
+            this.min = value;
+            this.maxTimestamp = timestamp;
+            this.max = value;
+            this.lastTimestamp = timestamp;
+            this.last = value;
+        }
+        else {
+            if (value < this.min) {
+                this.minTimestamp = timestamp;
+                this.min = value;
+            }
+            if (value > this.max) {
+                this.maxTimestamp = timestamp;
+                this.max = value;
+            }
+            if (timestamp >= this.lastTimestamp) {
+                this.lastTimestamp = timestamp;
+                this.last = value;
+            }
+        }
+        this.count++;
+        this.sum += value;
+    }
+
+    /**
+     * Add all observations of another aggregate.
+     *
+     * @param other Aggregate
+     */
+    public void combine(Aggregate other) {
+        if (other.count == 0) {
+            return;
+        }
+        if (this.count == 0) {
+            this.minTimestamp = other.minTimestamp;
+            this.min = other.min;
+            this.maxTimestamp = other.maxTimestamp;
+            this.max = other.max;
+            this.lastTimestamp = other.lastTimestamp;
+            this.last = other.last;
+        }
+        else {
+            if (other.min < this.min) {
+                this.minTimestamp = other.minTimestamp;
+                this.min = other.min;
+            }
+            if (other.max > this.max) {
+                this.maxTimestamp = other.maxTimestamp;
+                this.max = other.max;
+            }
+            if (other.lastTimestamp >= this.lastTimestamp) {
+                this.lastTimestamp = other.lastTimestamp;
+                this.last = other.last;
+            }
+        }
+        this.count += other.count;
+        this.sum += other.sum;
+    }
+
+    public void clear() {
+        this.count = 0;
+        this.sum = 0;
+        this.min = Double.NaN;
+        this.max = Double.NaN;
+        this.last = Double.NaN;
+    }
+
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    public long getCount() {
+        return this.count;
+    }
+
+    public double getSum() {
+        return this.sum;
+    }
+
+    /**
+     * @return Mean value, NaN if empty
+     */
+    public double getMean() {
+        return (this.count > 0) ? this.sum / this.count : Double.NaN;
+    }
+
+    public long getMinTimestamp() {
+        return this.minTimestamp;
+    }
+
+    public double getMin() {
+        return this.min;
+    }
+
+    public long getMaxTimestamp() {
+        return this.maxTimestamp;
+    }
+
+    public double getMax() {
+        return this.max;
+    }
+
+    public long getLastTimestamp() {
+        return this.lastTimestamp;
+    }
+
+    public double getLast() {
+        return this.last;
+    }
+}
@@ -0,0 +1,333 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.Downsampler                *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.DownsampleMode;
+
+import java.util.Arrays;
+
+/**
+ * Streaming downsampler for observations in ascending timestamp order. The
+ * window is split into buckets of a fixed width and every bucket is reduced
+ * to a few representative points, which are passed on to the output sink.
+ * One pass over the input, the output has at most (a small multiple of) the
+ * number of buckets.
+ * <p>
+ * Call finish() after the last observation to flush the last buckets.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public abstract class Downsampler implements EventSink {
+
+    protected final long fromTimestamp;
+    protected final long bucketWidth;
+    protected final EventSink output;
+    // Output stopped accepting
+    protected boolean stopped = false;
+
+    protected Downsampler(long fromTimestamp, long bucketWidth, EventSink output) {
+        if (bucketWidth <= 0) {
+            throw new IllegalArgumentException("The bucket width must be positive");
+        }
+        this.fromTimestamp = fromTimestamp;
+        this.bucketWidth = bucketWidth;
+        this.output = output;
+    }
+
+    /**
+     * Create a downsampler for a window.
+     *
+     * @param mode Downsampling mode
+     * @param fromTimestamp Start of the window (inclusive)
+     * @param toTimestamp End of the window (exclusive)
+     * @param targetPoints Maximum number of points to output, used if bucketWidth is 0
+     * @param bucketWidth Bucket width in ms, 0 to derive it from targetPoints
+     * @param output Receives the downsampled observations
+     * @return Downsampler
+     */
+    public static Downsampler create(DownsampleMode mode, long fromTimestamp, long toTimestamp, int targetPoints, long bucketWidth, EventSink output) {
+        bucketWidth = Downsampler.getBucketWidth(mode, fromTimestamp, toTimestamp, targetPoints, bucketWidth);
+        switch (mode) {
+            case LTTB:
+                return new Lttb(fromTimestamp, bucketWidth, output);
+            case AVERAGE:
+            case MINMAX:
+            default:
+                return new Reducer(mode, fromTimestamp, bucketWidth, output);
+        }
+    }
+
+    /**
+     * @param mode Downsampling mode
+     * @param fromTimestamp Start of the window (inclusive)
+     * @param toTimestamp End of the window (exclusive)
+     * @param targetPoints Maximum number of points to output, used if bucketWidth is 0
+     * @param bucketWidth Bucket width in ms, 0 to derive it from targetPoints
+     * @return Bucket width in ms
+     */
+    public static long getBucketWidth(DownsampleMode mode, long fromTimestamp, long toTimestamp, int targetPoints, long bucketWidth) {
+        if (bucketWidth > 0) {
+            return bucketWidth;
+        }
+        // Min/max outputs two points per bucket, LTTB one plus the first and last, average one
+        long buckets;
+        switch (mode) {
+            case MINMAX:
+                buckets = targetPoints / 2;
+                break;
+            case LTTB:
+                buckets = targetPoints - 2;
+                break;
+            default:
+                buckets = targetPoints;
+                break;
+        }
+        buckets = Math.max(1, buckets);
+        return Math.max(1, (toTimestamp - fromTimestamp + buckets - 1) / buckets);
+    }
+
+    /**
+     * Output the representative points of a bucket, for the modes that only
+     * need an aggregate of the bucket (MINMAX and AVERAGE).
+     *
+     * @param mode Downsampling mode
+     * @param bucketStart Start of the bucket, the timestamp of its average
+     * @param bucket Aggregate of the bucket, not empty
+     * @param output Receives the points
+     * @return False if the output stopped accepting
+     */
+    static boolean emit(DownsampleMode mode, long bucketStart, Aggregate bucket, EventSink output) {
+        if (mode == DownsampleMode.AVERAGE) {
+            return output.accept(bucketStart, bucket.getMean());
+        }
+        if (bucket.getMinTimestamp() == bucket.getMaxTimestamp()) {
+            return output.accept(bucket.getMinTimestamp(), bucket.getMin());
+        }
+        if (bucket.getMinTimestamp() < bucket.getMaxTimestamp()) {
+            return output.accept(bucket.getMinTimestamp(), bucket.getMin())
+                    && output.accept(bucket.getMaxTimestamp(), bucket.getMax());
+        }
+        return output.accept(bucket.getMaxTimestamp(), bucket.getMax())
+                && output.accept(bucket.getMinTimestamp(), bucket.getMin());
+    }
+
+    /**
+     * Flush the buffered buckets to the output.
+     */
+    public abstract void finish();
+
+    protected long bucketOf(long timestamp) {
+        return Math.floorDiv(timestamp - this.fromTimestamp, this.bucketWidth);
+    }
+
+    protected void emit(long timestamp, double value) {
+        if (!this.stopped && !this.output.accept(timestamp, value)) {
+            this.stopped = true;
+        }
+    }
+
+    /**
+     * Keeps the minimum and maximum (MINMAX) or the mean (AVERAGE) of every
+     * bucket. Needs constant memory.
+     */
+    private static class Reducer extends Downsampler {
+
+        private final DownsampleMode mode;
+        private final Aggregate aggregate = new Aggregate();
+        private long bucket = Long.MIN_VALUE;
+
+        private Reducer(DownsampleMode mode, long fromTimestamp, long bucketWidth, EventSink output) {
+            super(fromTimestamp, bucketWidth, output);
+            this.mode = mode;
+        }
+
+        @Override
+        public boolean accept(long timestamp, double value) {
+            long index = this.bucketOf(timestamp);
+            if (index != this.bucket) {
+                this.flush();
+                this.bucket = index;
+            }
+            this.aggregate.add(timestamp, value);
+            return !this.stopped;
+        }
+
+        @Override
+        public void finish() {
+            this.flush();
+        }
+
+        private void flush() {
+            if (this.aggregate.isEmpty()) {
+                return;
+            }
+            if (!this.stopped && !Downsampler.emit(this.mode, this.fromTimestamp + this.bucket * this.bucketWidth, this.aggregate, this.output)) {
+                this.stopped = true;
+            }
+            this.aggregate.clear();
+        }
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets (Steinarsson, 2013) over time buckets:
+     * keeps the first and last observation, and from every bucket the one
+     * forming the largest triangle with the point kept before it and the
+     * average of the next bucket. Only the bucket being decided and the
+     * bucket after it are buffered.
+     */
+    private static class Lttb extends Downsampler {
+
+        // Last point kept
+        private boolean started = false;
+        private long keptTimestamp;
+        private double keptValue;
+        // Bucket to decide, waiting for the average of the next one
+        private Bucket pending = new Bucket();
+        // Bucket being filled
+        private Bucket current = new Bucket();
+        private long currentIndex = Long.MIN_VALUE;
+        // Last observation
+        private long lastTimestamp;
+        private double lastValue;
+
+        private Lttb(long fromTimestamp, long bucketWidth, EventSink output) {
+            super(fromTimestamp, bucketWidth, output);
+        }
+
+        @Override
+        public boolean accept(long timestamp, double value) {
+            this.lastTimestamp = timestamp;
+            this.lastValue = value;
+            if (!this.started) {
+                // The first observation is always kept
+                this.started = true;
+                this.keep(timestamp, value);
+                this.currentIndex = this.bucketOf(timestamp);
+                return !this.stopped;
+            }
+            long index = this.bucketOf(timestamp);
+            if (index != this.currentIndex) {
+                if (this.current.size > 0) {
+                    if (this.pending.size > 0) {
+                        this.decide(this.current.averageTimestamp(), this.current.averageValue());
+                    }
+                    Bucket swap = this.pending;
+                    this.pending = this.current;
+                    this.current = swap;
+                    this.current.clear();
+                }
+                this.currentIndex = index;
+            }
+            this.current.add(timestamp, value);
+            return !this.stopped;
+        }
+
+        @Override
+        public void finish() {
+            if (!this.started) {
+                return;
+            }
+            // The last observation is always kept, it closes the last bucket
+            boolean lastBuffered = this.current.size > 0;
+            if (lastBuffered) {
+                this.current.removeLast();
+            }
+            if (this.pending.size > 0) {
+                if (this.current.size > 0) {
+                    this.decide(this.current.averageTimestamp(), this.current.averageValue());
+                }
+                else {
+                    this.decide(this.lastTimestamp, this.lastValue);
+                }
+            }
+            if (this.current.size > 0) {
+                Bucket swap = this.pending;
+                this.pending = this.current;
+                this.current = swap;
+                this.current.clear();
+                this.decide(this.lastTimestamp, this.lastValue);
+            }
+            if (lastBuffered) {
+                this.keep(this.lastTimestamp, this.lastValue);
+            }
+            this.pending.clear();
+            this.current.clear();
+        }
+
+        /**
+         * Keep the point of the pending bucket forming the largest triangle.
+         *
+         * @param nextTimestamp Timestamp of the third point
+         * @param nextValue Value of the third point
+         */
+        private void decide(double nextTimestamp, double nextValue) {
+            Bucket bucket = this.pending;
+            int best = 0;
+            double bestArea = -1;
+            for (int i = 0; i < bucket.size; i++) {
+                double area = Math.abs((this.keptTimestamp - nextTimestamp) * (bucket.values[i] - this.keptValue)
+                        - (this.keptTimestamp - bucket.timestamps[i]) * (nextValue - this.keptValue));
+                if (area > bestArea) {
+                    bestArea = area;
+                    best = i;
+                }
+            }
+            this.keep(bucket.timestamps[best], bucket.values[best]);
+            bucket.clear();
+        }
+
+        private void keep(long timestamp, double value) {
+            this.keptTimestamp = timestamp;
+            this.keptValue = value;
+            this.emit(timestamp, value);
+        }
+    }
+
+    /**
+     * Reusable buffer of the observations of one bucket.
+     */
+    private static class Bucket {
+
+        private long[] timestamps = new long[16];
+        private double[] values = new double[16];
+        private int size = 0;
+        private double timestampSum = 0;
+        private double valueSum = 0;
+
+        private void add(long timestamp, double value) {
+            if (this.size == this.timestamps.length) {
+                this.timestamps = Arrays.copyOf(this.timestamps, this.size * 2);
+                this.values = Arrays.copyOf(this.values, this.size * 2);
+            }
+            this.timestamps[this.size] = timestamp;
+            this.values[this.size] = value;
+            this.size++;
+            this.timestampSum += timestamp;
+            this.valueSum += value;
+        }
+
+        private void removeLast() {
+            this.size--;
+            this.timestampSum -= this.timestamps[this.size];
+            this.valueSum -= this.values[this.size];
+        }
+
+        private double averageTimestamp() {
+            return this.timestampSum / this.size;
+        }
+
+        private double averageValue() {
+            return this.valueSum / this.size;
+        }
+
+        private void clear() {
+            this.size = 0;
+            this.timestampSum = 0;
+            this.valueSum = 0;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.EventSeries                *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import java.util.Arrays;
+
+/**
+ * Growable columnar series of (timestamp, value) pairs, kept in two primitive
+ * arrays instead of one object per observation. Timestamps are UTC
+ * milliseconds, or in the unit of the precision the series was created with
+ * (e.g. microseconds, which still fit a long). The caches, rollups and
+ * downsamplers work on millisecond series.
+ * <p>
+ * Appending keeps track of whether the series is still in ascending
+ * timestamp order, the range operations require it (see {@link #sort()}).
+ * Not thread safe.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class EventSeries implements EventSink {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private long[] timestamps;
+    private double[] values;
+    private int size = 0;
+    private boolean sorted = true;
+    private final TimestampPrecision precision;
+
+    public EventSeries() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity Initial number of observations that fit without growing
+     */
+    public EventSeries(int capacity) {
+        this(capacity, TimestampPrecision.MILLISECONDS);
+    }
+
+    /**
+     * @param capacity Initial number of observations that fit without growing
+     * @param precision Unit of the timestamps, null for milliseconds
+     */
+    public EventSeries(int capacity, TimestampPrecision precision) {
+        this.timestamps = new long[Math.max(capacity, 1)];
+        this.values = new double[Math.max(capacity, 1)];
+        this.precision = (precision != null) ? precision : TimestampPrecision.MILLISECONDS;
+    }
+
+    /**
+     * Append an observation.
+     *
+     * @param timestamp UTC timestamp in the unit of the series
+     * @param value Value
+     */
+    public void add(long timestamp, double value) {
+        if (this.size == this.timestamps.length) {
+            this.grow(this.size + 1);
+        }
+        if (this.size > 0 && timestamp < this.timestamps[this.size - 1]) {
+            this.sorted = false;
+        }
+        this.timestamps[this.size] = timestamp;
+        this.values[this.size] = value;
+        this.size++;
+    }
+
+    /**
+     * Append an observation, so a series can be filled straight from an
+     * {@link be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventCursor} (in
+     * the unit of the series, see its drainTo).
+     *
+     * @return Always true
+     */
+    @Override
+    public boolean accept(long timestamp, double value) {
+        this.add(timestamp, value);
+        return true;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public boolean isSorted() {
+        return this.sorted;
+    }
+
+    /**
+     * @return Unit of the timestamps
+     */
+    public TimestampPrecision getPrecision() {
+        return this.precision;
+    }
+
+    public long getTimestamp(int index) {
+        this.checkIndex(index);
+        return this.timestamps[index];
+    }
+
+    public double getValue(int index) {
+        this.checkIndex(index);
+        return this.values[index];
+    }
+
+    /**
+     * Sort by ascending timestamp, observations with the same timestamp keep
+     * their order.
+     */
+    public void sort() {
+        if (this.sorted) {
+            return;
+        }
+        // Stable merge sort of both columns at once
+        long[] timestampBuffer = new long[this.size];
+        double[] valueBuffer = new double[this.size];
+        for (int width = 1; width < this.size; width *= 2) {
+            for (int start = 0; start < this.size; start += 2 * width) {
+                int middle = Math.min(start + width, this.size);
+                int end = Math.min(start + 2 * width, this.size);
+                int left = start;
+                int right = middle;
+                for (int i = start; i < end; i++) {
+                    if (left < middle && (right >= end || this.timestamps[left] <= this.timestamps[right])) {
+                        timestampBuffer[i] = this.timestamps[left];
+                        valueBuffer[i] = this.values[left++];
+                    }
+                    else {
+                        timestampBuffer[i] = this.timestamps[right];
+                        valueBuffer[i] = this.values[right++];
+                    }
+                }
+            }
+            System.arraycopy(timestampBuffer, 0, this.timestamps, 0, this.size);
+            System.arraycopy(valueBuffer, 0, this.values, 0, this.size);
+        }
+        this.sorted = true;
+    }
+
+    /**
+     * @param timestamp UTC timestamp in the unit of the series
+     * @return Index of the first observation at or after the timestamp, size() if none
+     */
+    public int lowerBound(long timestamp) {
+        this.checkSorted();
+        int low = 0;
+        int high = this.size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (this.timestamps[middle] < timestamp) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Emit the observations of [fromTimestamp, toTimestamp) in ascending order.
+     *
+     * @param fromTimestamp Inclusive
+     * @param toTimestamp Exclusive
+     * @param sink Receives the observations, may stop early
+     * @return Number of observations accepted by the sink
+     */
+    public int emit(long fromTimestamp, long toTimestamp, EventSink sink) {
+        int end = this.lowerBound(toTimestamp);
+        int count = 0;
+        for (int i = this.lowerBound(fromTimestamp); i < end; i++) {
+            if (!sink.accept(this.timestamps[i], this.values[i])) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Emit all observations in their current order.
+     *
+     * @param sink Receives the observations, may stop early
+     * @return Number of observations accepted by the sink
+     */
+    public int emit(EventSink sink) {
+        for (int i = 0; i < this.size; i++) {
+            if (!sink.accept(this.timestamps[i], this.values[i])) {
+                return i;
+            }
+        }
+        return this.size;
+    }
+
+    /**
+     * Merge another sorted series into this sorted series. Observations of the
+     * other series replace observations with the same timestamp.
+     *
+     * @param other Sorted series with the same precision
+     */
+    public void merge(EventSeries other) {
+        this.checkSorted();
+        other.checkSorted();
+        if (other.precision != this.precision) {
+            throw new IllegalArgumentException("Cannot merge a series in " + other.precision.label + " into one in " + this.precision.label);
+        }
+        if (other.size == 0) {
+            return;
+        }
+        if (this.size == 0 || other.timestamps[0] > this.timestamps[this.size - 1]) {
+            // Common case, newer observations are appended
+            this.grow(this.size + other.size);
+            System.arraycopy(other.timestamps, 0, this.timestamps, this.size, other.size);
+            System.arraycopy(other.values, 0, this.values, this.size, other.size);
+            this.size += other.size;
+            return;
+        }
+        long[] mergedTimestamps = new long[Math.max(this.timestamps.length, this.size + other.size)];
+        double[] mergedValues = new double[mergedTimestamps.length];
+        int left = 0;
+        int right = 0;
+        int merged = 0;
+        while (left < this.size || right < other.size) {
+            if (right >= other.size || (left < this.size && this.timestamps[left] < other.timestamps[right])) {
+                mergedTimestamps[merged] = this.timestamps[left];
+                mergedValues[merged++] = this.values[left++];
+            }
+            else {
+                long timestamp = other.timestamps[right];
+                // Skip the observations being replaced
+                while (left < this.size && this.timestamps[left] == timestamp) {
+                    left++;
+                }
+                while (right < other.size && other.timestamps[right] == timestamp) {
+                    mergedTimestamps[merged] = timestamp;
+                    mergedValues[merged++] = other.values[right++];
+                }
+            }
+        }
+        this.timestamps = mergedTimestamps;
+        this.values = mergedValues;
+        this.size = merged;
+    }
+
+    /**
+     * Remove the observations before a timestamp.
+     *
+     * @param timestamp UTC timestamp in the unit of the series, exclusive
+     * @return Number of observations removed
+     */
+    public int removeBefore(long timestamp) {
+        int removed = this.lowerBound(timestamp);
+        if (removed > 0) {
+            System.arraycopy(this.timestamps, removed, this.timestamps, 0, this.size - removed);
+            System.arraycopy(this.values, removed, this.values, 0, this.size - removed);
+            this.size -= removed;
+        }
+        return removed;
+    }
+
+    /**
+     * Remove all observations, releasing the memory of large series.
+     */
+    public void clear() {
+        this.size = 0;
+        this.sorted = true;
+        if (this.timestamps.length > DEFAULT_CAPACITY) {
+            this.timestamps = new long[DEFAULT_CAPACITY];
+            this.values = new double[DEFAULT_CAPACITY];
+        }
+    }
+
+    /**
+     * @return Copy of the timestamp column
+     */
+    public long[] timestamps() {
+        return Arrays.copyOf(this.timestamps, this.size);
+    }
+
+    /**
+     * @return Copy of the value column
+     */
+    public double[] values() {
+        return Arrays.copyOf(this.values, this.size);
+    }
+
+    private void grow(int capacity) {
+        if (capacity <= this.timestamps.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, this.timestamps.length + (this.timestamps.length >> 1));
+        this.timestamps = Arrays.copyOf(this.timestamps, newCapacity);
+        this.values = Arrays.copyOf(this.values, newCapacity);
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + this.size);
+        }
+    }
+
+    private void checkSorted() {
+        if (!this.sorted) {
+            throw new IllegalStateException("Series is not sorted by timestamp");
+        }
+    }
+}
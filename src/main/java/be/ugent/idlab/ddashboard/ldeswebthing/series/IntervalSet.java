@@ -0,0 +1,115 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.IntervalSet                *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Set of disjoint, half open [start, end) time intervals, adjacent or
+ * overlapping intervals are merged. Not thread safe.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class IntervalSet {
+
+    // Interval start -> end
+    private final TreeMap<Long, Long> intervals = new TreeMap<>();
+
+    /**
+     * Add an interval, merging it with the intervals it touches.
+     *
+     * @param start Inclusive
+     * @param end Exclusive
+     */
+    public void add(long start, long end) {
+        if (start >= end) {
+            return;
+        }
+        Map.Entry<Long, Long> floor = this.intervals.floorEntry(start);
+        if (floor != null && floor.getValue() >= start) {
+            start = floor.getKey();
+            end = Math.max(end, floor.getValue());
+        }
+        // Swallow all intervals starting within the new one
+        Map.Entry<Long, Long> next;
+        while ((next = this.intervals.ceilingEntry(start)) != null && next.getKey() <= end) {
+            end = Math.max(end, next.getValue());
+            this.intervals.remove(next.getKey());
+        }
+        this.intervals.put(start, end);
+    }
+
+    /**
+     * @param start Inclusive
+     * @param end Exclusive
+     * @return True if [start, end) is completely covered
+     */
+    public boolean covers(long start, long end) {
+        if (start >= end) {
+            return true;
+        }
+        Map.Entry<Long, Long> floor = this.intervals.floorEntry(start);
+        return floor != null && floor.getValue() >= end;
+    }
+
+    /**
+     * The parts of [start, end) that are not covered.
+     *
+     * @param start Inclusive
+     * @param end Exclusive
+     * @return Gaps as {start, end} pairs, in ascending order
+     */
+    public List<long[]> gaps(long start, long end) {
+        List<long[]> gaps = new ArrayList<>();
+        long position = start;
+        Map.Entry<Long, Long> floor = this.intervals.floorEntry(start);
+        if (floor != null && floor.getValue() > position) {
+            position = floor.getValue();
+        }
+        for (Map.Entry<Long, Long> interval : this.intervals.subMap(start, false, end, false).entrySet()) {
+            if (interval.getKey() > position) {
+                gaps.add(new long[] {position, interval.getKey()});
+            }
+            position = Math.max(position, interval.getValue());
+        }
+        if (position < end) {
+            gaps.add(new long[] {position, end});
+        }
+        return gaps;
+    }
+
+    /**
+     * Forget everything before a timestamp.
+     *
+     * @param timestamp Exclusive end of the removed range
+     */
+    public void removeBefore(long timestamp) {
+        Iterator<Map.Entry<Long, Long>> iterator = this.intervals.headMap(timestamp, false).entrySet().iterator();
+        Long truncatedEnd = null;
+        while (iterator.hasNext()) {
+            Map.Entry<Long, Long> interval = iterator.next();
+            if (interval.getValue() > timestamp) {
+                truncatedEnd = interval.getValue();
+            }
+            iterator.remove();
+        }
+        if (truncatedEnd != null) {
+            this.intervals.put(timestamp, truncatedEnd);
+        }
+    }
+
+    public void clear() {
+        this.intervals.clear();
+    }
+
+    public boolean isEmpty() {
+        return this.intervals.isEmpty();
+    }
+}
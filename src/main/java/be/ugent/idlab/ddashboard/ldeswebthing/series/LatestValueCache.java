@@ -0,0 +1,323 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.LatestValueCache           *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache of the latest observation per key (e.g. thing and property). The
+ * first request for a key loads it, after which it is refreshed in the
+ * background on a fixed interval, so "latest" requests are answered from
+ * memory. Change notifications can push newer observations in between
+ * refreshes.
+ * <p>
+ * Keys that are not requested for a number of refresh intervals are dropped.
+ * An entry whose background refresh keeps failing is loaded again on request
+ * once it gets too stale.
+ * <p>
+ * The refreshes run on the given executor, each key on its own, and a key
+ * that is still loading (on request or by the previous refresh) is skipped.
+ * Notifications never wait for a load.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class LatestValueCache implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(LatestValueCache.class.getName());
+
+    // Entries not requested during this many intervals are dropped
+    private static final int IDLE_INTERVALS = 10;
+    // Entries not refreshed during this many intervals are loaded on request
+    private static final int STALE_INTERVALS = 3;
+
+    /**
+     * Loads the latest observation, by passing it to the sink (or nothing if there is none).
+     */
+    @FunctionalInterface
+    public interface Loader {
+        void load(EventSink sink) throws LDESException;
+    }
+
+    /**
+     * Latest observation of a key, with the time it was last confirmed.
+     */
+    public static class LatestValue {
+
+        private final boolean present;
+        private final long timestamp;
+        private final double value;
+        private final long refreshedAt;
+
+        private LatestValue(boolean present, long timestamp, double value, long refreshedAt) {
+            this.present = present;
+            this.timestamp = timestamp;
+            this.value = value;
+            this.refreshedAt = refreshedAt;
+        }
+
+        /**
+         * @return False if there are no observations for the key
+         */
+        public boolean isPresent() {
+            return this.present;
+        }
+
+        /**
+         * @return UTC millisecond timestamp of the observation
+         */
+        public long getTimestamp() {
+            return this.timestamp;
+        }
+
+        public double getValue() {
+            return this.value;
+        }
+
+        /**
+         * @return UTC millisecond time at which this was last loaded or notified
+         */
+        public long getRefreshedAt() {
+            return this.refreshedAt;
+        }
+
+        /**
+         * @return Milliseconds since this was last loaded or notified
+         */
+        public long getStaleness() {
+            return System.currentTimeMillis() - this.refreshedAt;
+        }
+    }
+
+    private final long refreshInterval;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param refreshInterval Interval in ms between background refreshes
+     * @param executor Runs the (blocking) background refreshes
+     */
+    public LatestValueCache(long refreshInterval, Executor executor) {
+        this.refreshInterval = refreshInterval;
+        this.executor = executor;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "latest-value-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::refreshAll, refreshInterval, refreshInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Get the latest observation of a key, loading it if it is not cached (or too stale).
+     *
+     * @param key Cache key
+     * @param loader Loads the latest observation, kept for the background refreshes
+     * @return Latest value, check isPresent()
+     * @throws LDESException
+     */
+    public LatestValue get(String key, Loader loader) throws LDESException {
+        Entry entry = this.entries.computeIfAbsent(key, k -> new Entry(loader));
+        entry.requestedAt = System.currentTimeMillis();
+        LatestValue latest = entry.latest.get();
+        if (latest == null || latest.getStaleness() > STALE_INTERVALS * this.refreshInterval) {
+            entry.loadLock.lock();
+            try {
+                // Another request may have loaded it meanwhile
+                latest = entry.latest.get();
+                if (latest == null || latest.getStaleness() > STALE_INTERVALS * this.refreshInterval) {
+                    this.misses.incrementAndGet();
+                    return entry.load();
+                }
+            } finally {
+                entry.loadLock.unlock();
+            }
+        }
+        this.hits.incrementAndGet();
+        return latest;
+    }
+
+    /**
+     * Change notification: take an observation if it is newer than the cached one.
+     * Keys that were never requested are ignored.
+     *
+     * @param key Cache key
+     * @param timestamp UTC millisecond timestamp
+     * @param value Value
+     */
+    public void update(String key, long timestamp, double value) {
+        Entry entry = this.entries.get(key);
+        if (entry != null) {
+            entry.offer(new LatestValue(true, timestamp, value, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Forget a key, e.g. when its latest observation was deleted.
+     *
+     * @param key Cache key
+     */
+    public void invalidate(String key) {
+        this.entries.remove(key);
+    }
+
+    /**
+     * @return Number of cached keys
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return Milliseconds since the stalest cached value was loaded or notified, 0 if none
+     */
+    public long getMaxStaleness() {
+        long now = System.currentTimeMillis();
+        long max = 0;
+        for (Entry entry : this.entries.values()) {
+            LatestValue latest = entry.latest.get();
+            if (latest != null) {
+                max = Math.max(max, now - latest.getRefreshedAt());
+            }
+        }
+        return max;
+    }
+
+    /**
+     * @return Requests answered from the cache
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return Requests that loaded (part of) their result
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    @Override
+    public void close() {
+        this.scheduler.shutdownNow();
+        this.entries.clear();
+    }
+
+    private void refreshAll() {
+        long idleBefore = System.currentTimeMillis() - IDLE_INTERVALS * this.refreshInterval;
+        for (Map.Entry<String, Entry> mapEntry : this.entries.entrySet()) {
+            Entry entry = mapEntry.getValue();
+            if (entry.requestedAt < idleBefore) {
+                this.entries.remove(mapEntry.getKey(), entry);
+                continue;
+            }
+            // The previous refresh is still queued or running
+            if (!entry.refreshing.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                this.executor.execute(() -> this.refresh(mapEntry.getKey(), entry));
+            } catch (RejectedExecutionException e) {
+                entry.refreshing.set(false);
+                LOGGER.log(Level.FINE, "Refreshing latest values stopped: {0}", e.toString());
+                return;
+            }
+        }
+    }
+
+    private void refresh(String key, Entry entry) {
+        try {
+            // Skip a key that is being loaded on request, it is fresh when that is done
+            if (entry.loadLock.tryLock()) {
+                try {
+                    entry.load();
+                } finally {
+                    entry.loadLock.unlock();
+                }
+            }
+        } catch (LDESException | RuntimeException e) {
+            // Keep serving the previous value, it shows as stale
+            LOGGER.log(Level.WARNING, "Refreshing latest value of {0} failed: {1}", new Object[] {key, e.toString()});
+        } finally {
+            entry.refreshing.set(false);
+        }
+    }
+
+    /**
+     * Cached latest value of one key.
+     */
+    private static class Entry {
+
+        private final Loader loader;
+        // Held during a load, one load at a time
+        private final ReentrantLock loadLock = new ReentrantLock();
+        // A background refresh is queued or running
+        private final AtomicBoolean refreshing = new AtomicBoolean(false);
+        private final AtomicReference<LatestValue> latest = new AtomicReference<>();
+        private volatile long requestedAt = System.currentTimeMillis();
+
+        private Entry(Loader loader) {
+            this.loader = loader;
+        }
+
+        /**
+         * Load the latest observation, called while holding the load lock.
+         */
+        private LatestValue load() throws LDESException {
+            long startedAt = System.currentTimeMillis();
+            long[] timestamp = new long[1];
+            double[] value = new double[1];
+            boolean[] present = new boolean[1];
+            this.loader.load((eventTimestamp, eventValue) -> {
+                timestamp[0] = eventTimestamp;
+                value[0] = eventValue;
+                present[0] = true;
+                return false;
+            });
+            LatestValue loaded = new LatestValue(present[0], timestamp[0], value[0], startedAt);
+            while (true) {
+                LatestValue current = this.latest.get();
+                // A notification received during the load may be newer
+                if (current != null && current.isPresent() && current.getRefreshedAt() >= startedAt
+                        && (!loaded.isPresent() || current.getTimestamp() > loaded.getTimestamp())) {
+                    return current;
+                }
+                if (this.latest.compareAndSet(current, loaded)) {
+                    return loaded;
+                }
+            }
+        }
+
+        private void offer(LatestValue notified) {
+            while (true) {
+                LatestValue current = this.latest.get();
+                if (current != null && current.isPresent() && notified.getTimestamp() < current.getTimestamp()) {
+                    return;
+                }
+                if (this.latest.compareAndSet(current, notified)) {
+                    return;
+                }
+            }
+        }
+    }
+}
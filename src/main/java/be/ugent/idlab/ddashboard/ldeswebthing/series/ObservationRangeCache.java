@@ -0,0 +1,219 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.ObservationRangeCache      *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * In-memory cache of observations per (thing, property), keeping the
+ * observations sorted by timestamp together with the time intervals the
+ * cache fully covers. A window request only loads the sub-intervals that are
+ * missing and splices them in, so sliding-window refreshes turn into a cache
+ * hit plus a small delta fetch.
+ * <p>
+ * The newest part of a window (the live edge) is never marked as covered, as
+ * new observations may still arrive for it. Observations older than the
+ * retention are dropped, and the least recently used series are evicted when
+ * the total number of cached observations exceeds the maximum.
+ * <p>
+ * Gaps are loaded without holding the series, only splicing them in and
+ * emitting the window lock it. Two requests missing the same gap both load
+ * it, the merge keeps one copy. Eviction never waits for a series either:
+ * it is dropped from the cache, requests still using it finish with it.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class ObservationRangeCache {
+
+    private static final Logger LOGGER = Logger.getLogger(ObservationRangeCache.class.getName());
+
+    /**
+     * Loads the observations of a time interval, in any order.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        void load(long fromTimestamp, long toTimestamp, EventSink sink) throws LDESException;
+    }
+
+    private final long maxObservations;
+    private final long retention;
+    private final long liveEdge;
+
+    // Series by key, in access order for LRU eviction
+    private final LinkedHashMap<String, Series> series = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalObservations = 0;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param maxObservations Maximum number of cached observations over all series
+     * @param retention Age in ms after which observations are dropped
+     * @param liveEdge Age in ms below which a window is not considered complete
+     */
+    public ObservationRangeCache(long maxObservations, long retention, long liveEdge) {
+        this.maxObservations = maxObservations;
+        this.retention = retention;
+        this.liveEdge = liveEdge;
+    }
+
+    /**
+     * Get the observations of [fromTimestamp, toTimestamp) in ascending order,
+     * loading only what is not cached yet.
+     *
+     * @param thingId Thing, may be null
+     * @param propertyId Property
+     * @param fromTimestamp Inclusive
+     * @param toTimestamp Exclusive
+     * @param loader Loads missing intervals from the LDES
+     * @param sink Receives the observations, may stop early
+     * @throws LDESException
+     */
+    public void get(String thingId, String propertyId, long fromTimestamp, long toTimestamp, Loader loader, EventSink sink) throws LDESException {
+        long now = System.currentTimeMillis();
+        long retainedFrom = now - this.retention;
+        if (fromTimestamp < retainedFrom) {
+            // Outside of the retention, don't cache
+            this.misses.incrementAndGet();
+            EventSeries loaded = new EventSeries();
+            loader.load(fromTimestamp, toTimestamp, loaded);
+            loaded.sort();
+            loaded.emit(sink);
+            return;
+        }
+
+        Series entry = this.getSeries(thingId + "|" + propertyId);
+        int added = 0;
+        try {
+            List<long[]> gaps;
+            synchronized (entry) {
+                int before = entry.observations.size();
+                entry.expire(retainedFrom);
+                added = entry.observations.size() - before;
+                gaps = entry.coverage.gaps(fromTimestamp, toTimestamp);
+                if (gaps.isEmpty()) {
+                    this.hits.incrementAndGet();
+                    entry.observations.emit(fromTimestamp, toTimestamp, sink);
+                    return;
+                }
+            }
+            this.misses.incrementAndGet();
+            EventSeries[] loaded = new EventSeries[gaps.size()];
+            for (int i = 0; i < loaded.length; i++) {
+                loaded[i] = new EventSeries();
+                loader.load(gaps.get(i)[0], gaps.get(i)[1], loaded[i]);
+                loaded[i].sort();
+                loaded[i].removeBefore(retainedFrom);
+            }
+            synchronized (entry) {
+                int before = entry.observations.size();
+                for (int i = 0; i < loaded.length; i++) {
+                    long[] gap = gaps.get(i);
+                    entry.observations.merge(loaded[i]);
+                    // The live edge may still change, load it again next time
+                    entry.coverage.add(gap[0], Math.min(gap[1], now - this.liveEdge));
+                }
+                added += entry.observations.size() - before;
+                if (LOGGER.isLoggable(Level.FINE)) {
+                    LOGGER.log(Level.FINE, "Observation cache {0}: {1} gaps loaded, {2} observations added", new Object[] {entry.key, gaps.size(), added});
+                }
+                entry.observations.emit(fromTimestamp, toTimestamp, sink);
+            }
+        } finally {
+            this.account(entry, added);
+        }
+    }
+
+    /**
+     * Forget everything cached.
+     */
+    public synchronized void clear() {
+        for (Series entry : this.series.values()) {
+            entry.evicted = true;
+        }
+        this.series.clear();
+        this.totalObservations = 0;
+    }
+
+    /**
+     * @return Windows answered from the cache only
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return Windows that loaded at least one gap
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    private synchronized Series getSeries(String key) {
+        return this.series.computeIfAbsent(key, Series::new);
+    }
+
+    /**
+     * Update the number of cached observations and evict least recently used series if needed.
+     *
+     * @param used The series that was just used, only evicted if it alone exceeds the maximum
+     * @param added Observations added to it (negative when removed)
+     */
+    private synchronized void account(Series used, int added) {
+        if (used.evicted) {
+            // Evicted while in use, no longer counted
+            return;
+        }
+        used.counted += added;
+        this.totalObservations += added;
+        Iterator<Series> iterator = this.series.values().iterator();
+        while (this.totalObservations > this.maxObservations && iterator.hasNext()) {
+            Series candidate = iterator.next();
+            if (candidate == used && this.series.size() > 1) {
+                continue;
+            }
+            // Not cleared here, it may be in use: it is dropped once nothing uses it anymore
+            this.totalObservations -= candidate.counted;
+            candidate.evicted = true;
+            iterator.remove();
+            LOGGER.log(Level.FINE, "Observation cache {0} evicted", candidate.key);
+        }
+    }
+
+    /**
+     * Cached observations and coverage of one (thing, property).
+     */
+    private static class Series {
+
+        private final String key;
+        private final EventSeries observations = new EventSeries();
+        private final IntervalSet coverage = new IntervalSet();
+        // Guarded by the cache
+        private long counted = 0;
+        private boolean evicted = false;
+
+        private Series(String key) {
+            this.key = key;
+        }
+
+        /**
+         * Drop everything older than the retention.
+         *
+         * @param retainedFrom Oldest timestamp to keep
+         */
+        private void expire(long retainedFrom) {
+            this.observations.removeBefore(retainedFrom);
+            this.coverage.removeBefore(retainedFrom);
+        }
+    }
+}
@@ -0,0 +1,721 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.ObservationReplica         *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * On-disk replica of the observations per (thing, property), so windows
+ * loaded before a restart don't have to be loaded from the LDES again. It
+ * sits below the in-memory caches: a window request loads only the parts
+ * the replica does not cover yet, and appends them. The gaps are loaded
+ * without holding the lock of the series, so a slow load doesn't hold up
+ * windows the replica covers; only what no other request stored meanwhile
+ * is appended.
+ * <p>
+ * Every series is a directory of segment files. A segment covers a time
+ * interval completely and holds the observations of that interval as
+ * fixed-width (timestamp, value) records in ascending order, after a header
+ * with the record count and the covered interval. The intervals of the
+ * segments of a series are disjoint. Segments are memory-mapped and read in
+ * place, a sparse index (the timestamp of every INDEX_STRIDE-th record)
+ * finds the start of a window. A load that starts where a segment ends is
+ * appended to it while it has room, otherwise it gets a segment of its own.
+ * <p>
+ * Records are written before the header, and on open only the records
+ * within the covered interval are used, so a crash never leaves observations
+ * outside of the coverage. As in ObservationRangeCache the live edge is not
+ * stored. Series with many segments are compacted by merging small segments
+ * that touch, and segments older than the retention are deleted.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class ObservationReplica {
+
+    private static final Logger LOGGER = Logger.getLogger(ObservationReplica.class.getName());
+
+    // "LDSR"
+    private static final int MAGIC = 0x4C445352;
+    private static final int VERSION = 1;
+    // Magic, version, record count, covered from (inclusive), covered to (exclusive)
+    private static final int HEADER = 32;
+    private static final int COUNT_OFFSET = 8;
+    private static final int FROM_OFFSET = 16;
+    private static final int TO_OFFSET = 24;
+    // Timestamp and value
+    private static final int RECORD = 16;
+    // Room of a new segment, larger loads get a segment of their own size
+    private static final int SEGMENT_RECORDS = 65_536;
+    // Largest segment, 256 MiB
+    private static final int MAX_SEGMENT_RECORDS = 1 << 24;
+    // Records per sparse index entry
+    private static final int INDEX_STRIDE = 256;
+    // Segments of a series above which it is compacted
+    private static final int COMPACT_SEGMENTS = 32;
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String TEMPORARY_SUFFIX = ".tmp";
+
+    private final Path directory;
+    private final long retention;
+    private final long liveEdge;
+
+    private final Map<String, Series> series = new HashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param directory Directory of the replica, created if needed
+     * @param retention Age in ms after which segments are deleted, 0 keeps everything
+     * @param liveEdge Age in ms below which observations are not stored
+     * @throws LDESException If the directory can't be created
+     */
+    public ObservationReplica(Path directory, long retention, long liveEdge) throws LDESException {
+        this.directory = directory;
+        this.retention = retention;
+        this.liveEdge = liveEdge;
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new LDESException("Could not create the observation replica " + directory, e);
+        }
+    }
+
+    /**
+     * Get the observations of [fromTimestamp, toTimestamp) in ascending order,
+     * loading (and storing) only what the replica does not cover yet.
+     *
+     * @param thingId Thing, may be null
+     * @param propertyId Property
+     * @param fromTimestamp Inclusive
+     * @param toTimestamp Exclusive
+     * @param loader Loads missing intervals from the LDES
+     * @param sink Receives the observations, may stop early
+     * @throws LDESException
+     */
+    public void get(String thingId, String propertyId, long fromTimestamp, long toTimestamp,
+            ObservationRangeCache.Loader loader, EventSink sink) throws LDESException {
+        long now = System.currentTimeMillis();
+        Series entry = this.getSeries(thingId + "|" + propertyId);
+        // Plan the window under the lock: the covered parts (with the records written so far) and the gaps
+        List<Part> plan = new ArrayList<>();
+        synchronized (entry) {
+            this.open(entry);
+            this.expire(entry, now);
+            long position = fromTimestamp;
+            while (position < toTimestamp) {
+                Map.Entry<Long, Segment> floor = entry.segments.floorEntry(position);
+                if (floor != null && floor.getValue().coveredTo > position) {
+                    Segment segment = floor.getValue();
+                    long end = Math.min(toTimestamp, segment.coveredTo);
+                    plan.add(new Part(position, end, segment));
+                    position = end;
+                    continue;
+                }
+                // Gap up to the next segment
+                Long next = entry.segments.higherKey(position);
+                long end = (next != null) ? Math.min(toTimestamp, next) : toTimestamp;
+                plan.add(new Part(position, end, null));
+                position = end;
+            }
+        }
+        // Covered parts are read from their mapping and gaps are loaded without the lock
+        StopSink target = new StopSink(sink);
+        boolean missed = false;
+        for (Part part : plan) {
+            if (target.stopped) {
+                break;
+            }
+            if (part.segment != null) {
+                part.segment.emit(part.start, part.end, part.count, part.index, target);
+                continue;
+            }
+            missed = true;
+            EventSeries loaded = new EventSeries();
+            loader.load(part.start, part.end, loaded);
+            loaded.sort();
+            // The live edge may still change, and what is past the retention would be deleted again
+            long storedFrom = (this.retention > 0) ? Math.max(part.start, now - this.retention) : part.start;
+            long storedTo = Math.min(part.end, now - this.liveEdge);
+            if (storedTo > storedFrom) {
+                synchronized (entry) {
+                    this.store(entry, loaded, storedFrom, storedTo);
+                }
+            }
+            loaded.emit(part.start, part.end, target);
+        }
+        (missed ? this.misses : this.hits).incrementAndGet();
+        if (missed) {
+            synchronized (entry) {
+                if (entry.segments.size() >= entry.compactAt) {
+                    this.compact(entry);
+                    entry.compactAt = entry.segments.size() + COMPACT_SEGMENTS;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Windows answered from the replica only
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return Windows that loaded at least one gap
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    private synchronized Series getSeries(String key) {
+        return this.series.computeIfAbsent(key, k -> new Series(this.directory.resolve(ObservationReplica.directoryName(k))));
+    }
+
+    /**
+     * Map the segments of a series the first time it is used.
+     */
+    private void open(Series entry) throws LDESException {
+        if (entry.opened) {
+            return;
+        }
+        try {
+            Files.createDirectories(entry.directory);
+            List<Segment> segments = new ArrayList<>();
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(entry.directory)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(TEMPORARY_SUFFIX)) {
+                        // Left by an interrupted compaction
+                        Files.deleteIfExists(file);
+                    }
+                    else if (name.endsWith(SEGMENT_SUFFIX)) {
+                        Segment segment = Segment.open(file);
+                        if (segment != null) {
+                            segments.add(segment);
+                        }
+                        else {
+                            LOGGER.log(Level.WARNING, "Invalid observation replica segment {0}, deleted", file);
+                            Files.deleteIfExists(file);
+                        }
+                    }
+                }
+            }
+            // Widest first, so a merged segment wins over the parts an interrupted compaction left behind
+            segments.sort(Comparator.comparingLong((Segment segment) -> segment.coveredTo - segment.coveredFrom).reversed());
+            for (Segment segment : segments) {
+                this.addSegment(entry, segment);
+            }
+        } catch (IOException e) {
+            throw new LDESException("Could not open the observation replica " + entry.directory, e);
+        }
+        entry.opened = true;
+        if (LOGGER.isLoggable(Level.FINE)) {
+            long records = entry.segments.values().stream().mapToLong(segment -> segment.count).sum();
+            LOGGER.log(Level.FINE, "Observation replica {0}: {1} segments, {2} observations",
+                    new Object[] {entry.directory, entry.segments.size(), records});
+        }
+    }
+
+    private void addSegment(Series entry, Segment segment) throws IOException {
+        Map.Entry<Long, Segment> floor = entry.segments.floorEntry(segment.coveredTo - 1);
+        Long next = entry.segments.higherKey(segment.coveredFrom);
+        if ((floor != null && floor.getValue().coveredTo > segment.coveredFrom) || (next != null && next < segment.coveredTo)) {
+            // Only left by an interrupted compaction
+            LOGGER.log(Level.FINE, "Overlapping observation replica segment {0}, deleted", segment.file);
+            Files.deleteIfExists(segment.file);
+            return;
+        }
+        entry.segments.put(segment.coveredFrom, segment);
+    }
+
+    /**
+     * Delete the segments that ended before the retention.
+     */
+    private void expire(Series entry, long now) throws LDESException {
+        if (this.retention <= 0) {
+            return;
+        }
+        Iterator<Segment> iterator = entry.segments.values().iterator();
+        while (iterator.hasNext()) {
+            Segment segment = iterator.next();
+            if (segment.coveredTo > now - this.retention) {
+                break;
+            }
+            iterator.remove();
+            this.delete(segment);
+        }
+    }
+
+    /**
+     * Store the parts of a loaded interval that are not covered yet: another
+     * request may have stored some of it while it was loading.
+     *
+     * @param entry Series, locked
+     * @param loaded Sorted observations
+     * @param fromTimestamp Start of the loaded interval
+     * @param toTimestamp End of the loaded interval
+     */
+    private void store(Series entry, EventSeries loaded, long fromTimestamp, long toTimestamp) throws LDESException {
+        long position = fromTimestamp;
+        while (position < toTimestamp) {
+            Map.Entry<Long, Segment> floor = entry.segments.floorEntry(position);
+            if (floor != null && floor.getValue().coveredTo > position) {
+                position = floor.getValue().coveredTo;
+                continue;
+            }
+            Long next = entry.segments.higherKey(position);
+            long end = (next != null) ? Math.min(toTimestamp, next) : toTimestamp;
+            this.append(entry, loaded, position, end);
+            position = end;
+        }
+    }
+
+    /**
+     * Store the observations of a completely loaded interval.
+     *
+     * @param entry Series
+     * @param loaded Sorted observations
+     * @param fromTimestamp Start of the interval, where the gap starts
+     * @param toTimestamp End of the interval
+     */
+    private void append(Series entry, EventSeries loaded, long fromTimestamp, long toTimestamp) throws LDESException {
+        int start = loaded.lowerBound(fromTimestamp);
+        int end = loaded.lowerBound(toTimestamp);
+        try {
+            // Extend the segment ending where the interval starts
+            Map.Entry<Long, Segment> previous = entry.segments.floorEntry(fromTimestamp - 1);
+            if (previous != null && previous.getValue().coveredTo == fromTimestamp
+                    && previous.getValue().count + (end - start) <= previous.getValue().capacity) {
+                previous.getValue().append(loaded, start, end, toTimestamp);
+                return;
+            }
+            long segmentFrom = fromTimestamp;
+            do {
+                int chunkEnd = ObservationReplica.chunkEnd(loaded, start, end);
+                long segmentTo = (chunkEnd < end) ? loaded.getTimestamp(chunkEnd) : toTimestamp;
+                int capacity = Math.max(SEGMENT_RECORDS, ObservationReplica.roundUp(chunkEnd - start));
+                Segment segment = Segment.create(entry.directory.resolve(ObservationReplica.segmentName(segmentFrom)),
+                        Math.min(capacity, MAX_SEGMENT_RECORDS), segmentFrom);
+                segment.append(loaded, start, chunkEnd, segmentTo);
+                entry.segments.put(segmentFrom, segment);
+                segmentFrom = segmentTo;
+                start = chunkEnd;
+            } while (start < end);
+        } catch (IOException e) {
+            // The replica only speeds up loading, the observations were loaded
+            LOGGER.log(Level.WARNING, "Could not write the observation replica " + entry.directory, e);
+        }
+    }
+
+    /**
+     * @return End of the records that go in one segment, observations with
+     *         the same timestamp are never split over two segments
+     */
+    private static int chunkEnd(EventSeries loaded, int start, int end) {
+        if (end - start <= MAX_SEGMENT_RECORDS) {
+            return end;
+        }
+        int chunkEnd = start + MAX_SEGMENT_RECORDS;
+        long timestamp = loaded.getTimestamp(chunkEnd);
+        while (chunkEnd > start && loaded.getTimestamp(chunkEnd - 1) == timestamp) {
+            chunkEnd--;
+        }
+        return (chunkEnd > start) ? chunkEnd : loaded.lowerBound(timestamp + 1);
+    }
+
+    private static int roundUp(int records) {
+        long rounded = ((long) records + SEGMENT_RECORDS - 1) / SEGMENT_RECORDS * SEGMENT_RECORDS;
+        return (int) Math.min(rounded, MAX_SEGMENT_RECORDS);
+    }
+
+    /**
+     * Merge chains of small segments that touch (one ends where the next
+     * starts) into one segment. The merged segment is written next to them
+     * and moved over the first one, then the others are deleted.
+     */
+    private void compact(Series entry) throws LDESException {
+        List<Segment> chain = new ArrayList<>();
+        long records = 0;
+        int merged = 0;
+        for (Segment segment : new ArrayList<>(entry.segments.values())) {
+            boolean small = segment.count < SEGMENT_RECORDS;
+            boolean touching = !chain.isEmpty() && chain.get(chain.size() - 1).coveredTo == segment.coveredFrom;
+            if (small && touching && records + segment.count <= MAX_SEGMENT_RECORDS) {
+                chain.add(segment);
+                records += segment.count;
+                continue;
+            }
+            merged += this.merge(entry, chain, records);
+            chain.clear();
+            records = 0;
+            if (small) {
+                chain.add(segment);
+                records = segment.count;
+            }
+        }
+        merged += this.merge(entry, chain, records);
+        LOGGER.log(Level.FINE, "Observation replica {0} compacted, {1} segments merged", new Object[] {entry.directory, merged});
+    }
+
+    /**
+     * @return Number of segments merged away
+     */
+    private int merge(Series entry, List<Segment> chain, long records) throws LDESException {
+        if (chain.size() < 2) {
+            return 0;
+        }
+        Segment first = chain.get(0);
+        Segment last = chain.get(chain.size() - 1);
+        Path temporary = entry.directory.resolve(ObservationReplica.segmentName(first.coveredFrom) + TEMPORARY_SUFFIX);
+        try {
+            Segment segment = Segment.create(temporary, Math.max(SEGMENT_RECORDS, ObservationReplica.roundUp((int) records)), first.coveredFrom);
+            for (Segment part : chain) {
+                segment.copy(part);
+            }
+            segment.cover(last.coveredTo);
+            try {
+                Files.move(temporary, first.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporary, first.file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            segment.file = first.file;
+            for (Segment part : chain) {
+                entry.segments.remove(part.coveredFrom);
+            }
+            entry.segments.put(segment.coveredFrom, segment);
+            for (Segment part : chain.subList(1, chain.size())) {
+                this.delete(part);
+            }
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, "Could not compact the observation replica " + entry.directory, e);
+            try {
+                Files.deleteIfExists(temporary);
+            } catch (IOException ignored) {
+                // Removed when the series is opened again
+            }
+            return 0;
+        }
+        return chain.size() - 1;
+    }
+
+    private void delete(Segment segment) throws LDESException {
+        try {
+            // The mapping stays valid until it is garbage collected
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            throw new LDESException("Could not delete observation replica segment " + segment.file, e);
+        }
+    }
+
+    /**
+     * @param key Series key
+     * @return Directory name of the series
+     */
+    private static String directoryName(String key) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder name = new StringBuilder(hash.length * 2);
+            for (byte b : hash) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return name.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @return File name of the segment covering from a timestamp, distinct as segments are disjoint
+     */
+    private static String segmentName(long coveredFrom) {
+        return coveredFrom + SEGMENT_SUFFIX;
+    }
+
+    /**
+     * Segments of one (thing, property), guarded by the series itself.
+     */
+    private static class Series {
+
+        private final Path directory;
+        // Segments by the start of their interval
+        private final TreeMap<Long, Segment> segments = new TreeMap<>();
+        private boolean opened = false;
+        // Number of segments at which the series is compacted next
+        private int compactAt = COMPACT_SEGMENTS;
+
+        private Series(Path directory) {
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * One memory-mapped segment file.
+     */
+    private static class Segment {
+
+        private Path file;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        private final long coveredFrom;
+        private long coveredTo;
+        private int count;
+        // Timestamp of every INDEX_STRIDE-th record
+        private long[] index;
+
+        private Segment(Path file, MappedByteBuffer buffer, int capacity, long coveredFrom, long coveredTo, int count) {
+            this.file = file;
+            this.buffer = buffer;
+            this.capacity = capacity;
+            this.coveredFrom = coveredFrom;
+            this.coveredTo = coveredTo;
+            this.count = count;
+            this.index = new long[Math.max(16, (count + INDEX_STRIDE - 1) / INDEX_STRIDE)];
+            for (int i = 0; i < count; i += INDEX_STRIDE) {
+                this.index[i / INDEX_STRIDE] = this.timestamp(i);
+            }
+        }
+
+        /**
+         * Create an empty segment.
+         *
+         * @param file Segment file, must not exist
+         * @param capacity Maximum number of records
+         * @param coveredFrom Start of the covered interval
+         * @return Segment
+         * @throws IOException
+         */
+        private static Segment create(Path file, int capacity, long coveredFrom) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // Mapping beyond the end grows the (sparse) file
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER + (long) capacity * RECORD);
+            }
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putLong(COUNT_OFFSET, 0);
+            buffer.putLong(FROM_OFFSET, coveredFrom);
+            buffer.putLong(TO_OFFSET, coveredFrom);
+            return new Segment(file, buffer, capacity, coveredFrom, coveredFrom, 0);
+        }
+
+        /**
+         * Map an existing segment.
+         *
+         * @param file Segment file
+         * @return Segment, null if the file is no valid segment
+         * @throws IOException
+         */
+        private static Segment open(Path file) throws IOException {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (size < HEADER || (size - HEADER) % RECORD != 0 || (size - HEADER) / RECORD > MAX_SEGMENT_RECORDS) {
+                    return null;
+                }
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            }
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+                return null;
+            }
+            int capacity = (buffer.capacity() - HEADER) / RECORD;
+            long count = buffer.getLong(COUNT_OFFSET);
+            long coveredFrom = buffer.getLong(FROM_OFFSET);
+            long coveredTo = buffer.getLong(TO_OFFSET);
+            // A segment that never got its coverage written holds nothing
+            if (count < 0 || count > capacity || coveredTo <= coveredFrom) {
+                return null;
+            }
+            Segment segment = new Segment(file, buffer, capacity, coveredFrom, coveredTo, (int) count);
+            // Records appended after the coverage was last written are not covered
+            segment.count = segment.lowerBound(coveredTo);
+            return segment;
+        }
+
+        private long timestamp(int record) {
+            return this.buffer.getLong(HEADER + record * RECORD);
+        }
+
+        private double value(int record) {
+            return this.buffer.getDouble(HEADER + record * RECORD + 8);
+        }
+
+        /**
+         * Append sorted observations after the last record and extend the coverage.
+         *
+         * @param series Observations, all at or after the coverage
+         * @param start First observation (inclusive)
+         * @param end Last observation (exclusive)
+         * @param coveredTo New end of the coverage
+         */
+        private void append(EventSeries series, int start, int end, long coveredTo) {
+            for (int i = start; i < end; i++) {
+                this.put(series.getTimestamp(i), series.getValue(i));
+            }
+            this.cover(coveredTo);
+        }
+
+        /**
+         * Append all records of another segment, which starts where this one ends.
+         */
+        private void copy(Segment other) {
+            for (int i = 0; i < other.count; i++) {
+                this.put(other.timestamp(i), other.value(i));
+            }
+        }
+
+        private void put(long timestamp, double value) {
+            int position = HEADER + this.count * RECORD;
+            this.buffer.putLong(position, timestamp);
+            this.buffer.putDouble(position + 8, value);
+            if (this.count % INDEX_STRIDE == 0) {
+                int entry = this.count / INDEX_STRIDE;
+                if (entry == this.index.length) {
+                    this.index = Arrays.copyOf(this.index, this.index.length * 2);
+                }
+                this.index[entry] = timestamp;
+            }
+            this.count++;
+        }
+
+        /**
+         * Write the count and the new coverage, after the records.
+         */
+        private void cover(long coveredTo) {
+            this.coveredTo = coveredTo;
+            this.buffer.force();
+            this.buffer.putLong(COUNT_OFFSET, this.count);
+            this.buffer.putLong(TO_OFFSET, coveredTo);
+            this.buffer.force();
+        }
+
+        /**
+         * @param timestamp UTC millisecond timestamp
+         * @return Index of the first record at or after the timestamp, count if none
+         */
+        private int lowerBound(long timestamp) {
+            return this.lowerBound(timestamp, this.count, this.index);
+        }
+
+        /**
+         * @param timestamp UTC millisecond timestamp
+         * @param count Number of records written when the index was taken
+         * @param index Sparse index of those records
+         * @return Index of the first record at or after the timestamp, count if none
+         */
+        private int lowerBound(long timestamp, int count, long[] index) {
+            // Last index entry before the timestamp, the record is in its stride
+            int low = 0;
+            int high = (count + INDEX_STRIDE - 1) / INDEX_STRIDE;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (index[middle] < timestamp) {
+                    low = middle + 1;
+                }
+                else {
+                    high = middle;
+                }
+            }
+            if (low == 0) {
+                return 0;
+            }
+            int record = (low - 1) * INDEX_STRIDE;
+            int end = Math.min(count, low * INDEX_STRIDE);
+            while (record < end && this.timestamp(record) < timestamp) {
+                record++;
+            }
+            return record;
+        }
+
+        /**
+         * Emit the records of [fromTimestamp, toTimestamp) straight from the
+         * mapping. Runs without the lock of the series: only the records
+         * written when the count and index were taken (under the lock) are
+         * read, appends only write after them or into a new index array. The
+         * mapping stays valid if the file is deleted or replaced meanwhile.
+         *
+         * @param count Number of records written when the index was taken
+         * @param index Sparse index of those records
+         */
+        private void emit(long fromTimestamp, long toTimestamp, int count, long[] index, EventSink sink) {
+            for (int i = this.lowerBound(fromTimestamp, count, index); i < count; i++) {
+                long timestamp = this.timestamp(i);
+                if (timestamp >= toTimestamp || !sink.accept(timestamp, this.value(i))) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Part of a window: covered by a segment, or a gap to load if the
+     * segment is null.
+     */
+    private static class Part {
+
+        private final long start;
+        private final long end;
+        private final Segment segment;
+        // Records of the segment and their index when the window was planned
+        private final int count;
+        private final long[] index;
+
+        private Part(long start, long end, Segment segment) {
+            this.start = start;
+            this.end = end;
+            this.segment = segment;
+            this.count = (segment != null) ? segment.count : 0;
+            this.index = (segment != null) ? segment.index : null;
+        }
+    }
+
+    /**
+     * Passes observations on and remembers whether the sink stopped.
+     */
+    private static class StopSink implements EventSink {
+
+        private final EventSink sink;
+        private boolean stopped = false;
+
+        private StopSink(EventSink sink) {
+            this.sink = sink;
+        }
+
+        @Override
+        public boolean accept(long timestamp, double value) {
+            if (this.stopped || !this.sink.accept(timestamp, value)) {
+                this.stopped = true;
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.RollupStore                *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.DownsampleMode;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Pre-aggregated observations per (thing, property): count, sum, minimum,
+ * maximum and last value per UTC minute, hour and day. The rollups are
+ * maintained incrementally from the raw observations loaded for coarse
+ * windows and from the realtime stream, every minute is added exactly once.
+ * <p>
+ * A coarse window is answered from the largest complete buckets that fit in
+ * its output buckets. Only the parts not covered by complete buckets (the
+ * live edge, or a window start that is not minute aligned) are loaded raw,
+ * and recorded for the next time. The rollups of a key are only locked to
+ * plan the window and to record a raw load, not during the load, so the
+ * realtime stream is never held up by a historical request.
+ * <p>
+ * Minute buckets are kept for the minute retention, hour buckets for the hour
+ * retention and day buckets forever.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class RollupStore {
+
+    private static final Logger LOGGER = Logger.getLogger(RollupStore.class.getName());
+
+    public static final long MINUTE = 60_000L;
+    public static final long HOUR = 60 * MINUTE;
+    public static final long DAY = 24 * HOUR;
+
+    private static final Aggregate EMPTY = new Aggregate();
+
+    private final long minuteRetention;
+    private final long hourRetention;
+    private final long liveEdge;
+
+    private final Map<String, Rollups> rollups = new ConcurrentHashMap<>();
+    // Minutes starting before this are not complete in the realtime stream
+    private volatile long streamSince = Long.MAX_VALUE;
+    private final AtomicLong rawLoads = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param minuteRetention Age in ms after which minute buckets are dropped
+     * @param hourRetention Age in ms after which hour buckets are dropped
+     * @param liveEdge Age in ms below which observations may still arrive
+     */
+    public RollupStore(long minuteRetention, long hourRetention, long liveEdge) {
+        this.minuteRetention = minuteRetention;
+        this.hourRetention = hourRetention;
+        this.liveEdge = liveEdge;
+    }
+
+    /**
+     * Downsample [fromTimestamp, toTimestamp) from the rollups, loading only
+     * what they don't cover.
+     *
+     * @param key (thing, property) key
+     * @param fromTimestamp Inclusive
+     * @param toTimestamp Exclusive
+     * @param bucketWidth Width of the output buckets in ms, at least a minute, rounded up to whole minutes, hours or days
+     * @param mode MINMAX or AVERAGE
+     * @param loader Loads raw observations of an interval
+     * @param sink Receives the downsampled observations in ascending order, may stop early
+     * @throws LDESException
+     */
+    public void query(String key, long fromTimestamp, long toTimestamp, long bucketWidth, DownsampleMode mode,
+            ObservationRangeCache.Loader loader, EventSink sink) throws LDESException {
+        if (mode == DownsampleMode.LTTB) {
+            throw new IllegalArgumentException("LTTB can not be computed from rollups");
+        }
+        long now = System.currentTimeMillis();
+        Rollups entry = this.rollups.computeIfAbsent(key, k -> new Rollups());
+        // Align the output buckets to the rollups, so they consist of complete buckets
+        long unit = (bucketWidth >= DAY) ? DAY : (bucketWidth >= HOUR) ? HOUR : MINUTE;
+        long width = Math.floorDiv(bucketWidth + unit - 1, unit) * unit;
+        Output output = new Output(mode, Math.floorDiv(fromTimestamp, unit) * unit, width, fromTimestamp, sink);
+        // Plan the window under the lock: complete buckets (copied) and the raw intervals in between
+        List<Segment> plan = new ArrayList<>();
+        synchronized (entry) {
+            entry.expire(now - this.minuteRetention, now - this.hourRetention);
+            long timestamp = fromTimestamp;
+            while (timestamp < toTimestamp) {
+                // Largest complete bucket starting here that fits in the output bucket
+                long end = Math.min(toTimestamp, output.bucketEnd(timestamp));
+                Aggregate complete = null;
+                for (long size : new long[] {DAY, HOUR, MINUTE}) {
+                    if (Math.floorMod(timestamp, size) == 0 && timestamp + size <= end) {
+                        complete = entry.getComplete(size, timestamp, now - this.minuteRetention, now - this.hourRetention);
+                        if (complete != null) {
+                            Aggregate copy = new Aggregate();
+                            copy.combine(complete);
+                            plan.add(new Segment(timestamp, timestamp + size, copy));
+                            timestamp += size;
+                            break;
+                        }
+                    }
+                }
+                if (complete != null) {
+                    continue;
+                }
+                // Load up to the next complete minute
+                long rawEnd = Math.min(toTimestamp, Math.floorDiv(timestamp, MINUTE) * MINUTE + MINUTE);
+                while (rawEnd < toTimestamp && entry.getComplete(MINUTE, rawEnd, now - this.minuteRetention, now - this.hourRetention) == null) {
+                    rawEnd = Math.min(toTimestamp, rawEnd + MINUTE);
+                }
+                plan.add(new Segment(timestamp, rawEnd, null));
+                timestamp = rawEnd;
+            }
+        }
+        int buckets = 0;
+        int loads = 0;
+        for (Segment segment : plan) {
+            if (output.stopped) {
+                break;
+            }
+            if (segment.complete != null) {
+                output.add(segment.start, segment.complete);
+                buckets++;
+                continue;
+            }
+            EventSeries raw = new EventSeries();
+            loader.load(segment.start, segment.end, raw);
+            raw.sort();
+            raw.emit(output);
+            synchronized (entry) {
+                // Only the minutes not added meanwhile (by another request or the stream) are recorded
+                entry.record(segment.start, Math.min(segment.end, now - this.liveEdge), raw, now - this.minuteRetention, now - this.hourRetention);
+            }
+            loads++;
+        }
+        output.finish();
+        this.rawLoads.addAndGet(loads);
+        ((loads == 0) ? this.hits : this.misses).incrementAndGet();
+        if (LOGGER.isLoggable(Level.FINE)) {
+            LOGGER.log(Level.FINE, "Rollups {0}: {1} buckets used, {2} raw loads", new Object[] {key, buckets, loads});
+        }
+    }
+
+    /**
+     * Add an observation of the realtime stream. Minutes are added once no
+     * more observations are expected for them (the live edge after their end),
+     * if the stream was connected for the whole minute.
+     *
+     * @param key (thing, property) key
+     * @param timestamp UTC millisecond timestamp
+     * @param value Value
+     */
+    public void add(String key, long timestamp, double value) {
+        long minute = Math.floorDiv(timestamp, MINUTE) * MINUTE;
+        if (minute < this.streamSince) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Rollups entry = this.rollups.computeIfAbsent(key, k -> new Rollups());
+        synchronized (entry) {
+            if (!entry.coverage.covers(minute, minute + MINUTE)) {
+                entry.pending.computeIfAbsent(minute, m -> new Aggregate()).add(timestamp, value);
+            }
+            Iterator<Map.Entry<Long, Aggregate>> iterator = entry.pending.entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<Long, Aggregate> pending = iterator.next();
+                if (pending.getKey() + MINUTE + this.liveEdge > timestamp) {
+                    break;
+                }
+                iterator.remove();
+                if (pending.getKey() >= this.streamSince) {
+                    entry.commit(pending.getKey(), pending.getValue(), now - this.minuteRetention, now - this.hourRetention);
+                }
+            }
+        }
+    }
+
+    /**
+     * The realtime stream (re)connected, observations may have been missed
+     * before now.
+     */
+    public void resetStream() {
+        this.streamSince = Math.floorDiv(System.currentTimeMillis(), MINUTE) * MINUTE + MINUTE;
+    }
+
+    /**
+     * @return Number of raw loads done for windows not covered by the rollups
+     */
+    public long getRawLoads() {
+        return this.rawLoads.get();
+    }
+
+    /**
+     * @return Windows answered from the rollups only
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * @return Windows that needed raw loads
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Forget everything.
+     */
+    public void clear() {
+        this.rollups.clear();
+    }
+
+    /**
+     * Combines the output buckets.
+     */
+    private static class Output implements EventSink {
+
+        private final DownsampleMode mode;
+        // Start of the first bucket
+        private final long anchor;
+        private final long bucketWidth;
+        // Start of the window, no observations are output before it
+        private final long fromTimestamp;
+        private final EventSink sink;
+        private final Aggregate aggregate = new Aggregate();
+        private long bucket = Long.MIN_VALUE;
+        private boolean stopped = false;
+
+        private Output(DownsampleMode mode, long anchor, long bucketWidth, long fromTimestamp, EventSink sink) {
+            this.mode = mode;
+            this.anchor = anchor;
+            this.bucketWidth = bucketWidth;
+            this.fromTimestamp = fromTimestamp;
+            this.sink = sink;
+        }
+
+        /**
+         * @return Exclusive end of the output bucket of a timestamp
+         */
+        private long bucketEnd(long timestamp) {
+            return this.anchor + (Math.floorDiv(timestamp - this.anchor, this.bucketWidth) + 1) * this.bucketWidth;
+        }
+
+        private void add(long timestamp, Aggregate aggregate) {
+            this.moveTo(timestamp);
+            this.aggregate.combine(aggregate);
+        }
+
+        @Override
+        public boolean accept(long timestamp, double value) {
+            this.moveTo(timestamp);
+            this.aggregate.add(timestamp, value);
+            return !this.stopped;
+        }
+
+        private void moveTo(long timestamp) {
+            long index = Math.floorDiv(timestamp - this.anchor, this.bucketWidth);
+            if (index != this.bucket) {
+                this.finish();
+                this.bucket = index;
+            }
+        }
+
+        private void finish() {
+            if (!this.aggregate.isEmpty() && !this.stopped
+                    && !Downsampler.emit(this.mode, Math.max(this.fromTimestamp, this.anchor + this.bucket * this.bucketWidth), this.aggregate, this.sink)) {
+                this.stopped = true;
+            }
+            this.aggregate.clear();
+        }
+    }
+
+    /**
+     * Part of a planned window: a complete bucket, or an interval to load raw.
+     */
+    private static class Segment {
+
+        private final long start;
+        private final long end;
+        // Null if the interval is loaded raw
+        private final Aggregate complete;
+
+        private Segment(long start, long end, Aggregate complete) {
+            this.start = start;
+            this.end = end;
+            this.complete = complete;
+        }
+    }
+
+    /**
+     * Day or hour bucket, with the number of minutes added to it.
+     */
+    private static class Bucket extends Aggregate {
+        private long minutes = 0;
+    }
+
+    /**
+     * The rollups of one (thing, property).
+     */
+    private static class Rollups {
+
+        // Minutes added to the rollups, minute aligned
+        private final IntervalSet coverage = new IntervalSet();
+        // Non-empty minutes
+        private final TreeMap<Long, Aggregate> minutes = new TreeMap<>();
+        private final TreeMap<Long, Bucket> hours = new TreeMap<>();
+        private final TreeMap<Long, Bucket> days = new TreeMap<>();
+        // Minutes of the realtime stream that may still get observations
+        private final TreeMap<Long, Aggregate> pending = new TreeMap<>();
+
+        private void expire(long minutesFrom, long hoursFrom) {
+            this.minutes.headMap(minutesFrom).clear();
+            this.hours.headMap(hoursFrom).clear();
+        }
+
+        /**
+         * @param width MINUTE, HOUR or DAY
+         * @param start Bucket start, aligned to the width
+         * @return Aggregate of the bucket, null if not complete or no longer kept
+         */
+        private Aggregate getComplete(long width, long start, long minutesFrom, long hoursFrom) {
+            if (width == MINUTE) {
+                if (start < minutesFrom || !this.coverage.covers(start, start + MINUTE)) {
+                    return null;
+                }
+                return this.minutes.getOrDefault(start, EMPTY);
+            }
+            if (width == HOUR && start < hoursFrom) {
+                return null;
+            }
+            Bucket bucket = (width == HOUR ? this.hours : this.days).get(start);
+            return (bucket != null && bucket.minutes == width / MINUTE) ? bucket : null;
+        }
+
+        /**
+         * Add the minutes in [fromTimestamp, toTimestamp) that were not added yet.
+         *
+         * @param observations All observations of the interval, sorted
+         */
+        private void record(long fromTimestamp, long toTimestamp, EventSeries observations, long minutesFrom, long hoursFrom) {
+            long start = Math.floorDiv(fromTimestamp + MINUTE - 1, MINUTE) * MINUTE;
+            long end = Math.floorDiv(toTimestamp, MINUTE) * MINUTE;
+            if (start >= end) {
+                return;
+            }
+            List<long[]> gaps = this.coverage.gaps(start, end);
+            for (long[] gap : gaps) {
+                for (int i = observations.lowerBound(gap[0]); i < observations.size() && observations.getTimestamp(i) < gap[1]; i++) {
+                    long timestamp = observations.getTimestamp(i);
+                    double value = observations.getValue(i);
+                    long minute = Math.floorDiv(timestamp, MINUTE) * MINUTE;
+                    if (minute >= minutesFrom) {
+                        this.minutes.computeIfAbsent(minute, m -> new Aggregate()).add(timestamp, value);
+                    }
+                    long hour = Math.floorDiv(timestamp, HOUR) * HOUR;
+                    if (hour >= hoursFrom) {
+                        this.hours.computeIfAbsent(hour, h -> new Bucket()).add(timestamp, value);
+                    }
+                    this.days.computeIfAbsent(Math.floorDiv(timestamp, DAY) * DAY, d -> new Bucket()).add(timestamp, value);
+                }
+                this.cover(gap[0], gap[1], hoursFrom);
+            }
+        }
+
+        /**
+         * Add a complete minute of the realtime stream.
+         */
+        private void commit(long minute, Aggregate aggregate, long minutesFrom, long hoursFrom) {
+            if (this.coverage.covers(minute, minute + MINUTE)) {
+                return;
+            }
+            this.expire(minutesFrom, hoursFrom);
+            if (minute >= minutesFrom) {
+                this.minutes.put(minute, aggregate);
+            }
+            long hour = Math.floorDiv(minute, HOUR) * HOUR;
+            if (hour >= hoursFrom) {
+                this.hours.computeIfAbsent(hour, h -> new Bucket()).combine(aggregate);
+            }
+            this.days.computeIfAbsent(Math.floorDiv(minute, DAY) * DAY, d -> new Bucket()).combine(aggregate);
+            this.cover(minute, minute + MINUTE, hoursFrom);
+        }
+
+        /**
+         * Mark the minutes of [start, end) as added, both aligned to minutes.
+         */
+        private void cover(long start, long end, long hoursFrom) {
+            for (long hour = Math.floorDiv(Math.max(start, hoursFrom), HOUR) * HOUR; hour < end; hour += HOUR) {
+                this.hours.computeIfAbsent(hour, h -> new Bucket()).minutes += (Math.min(end, hour + HOUR) - Math.max(start, hour)) / MINUTE;
+            }
+            for (long day = Math.floorDiv(start, DAY) * DAY; day < end; day += DAY) {
+                this.days.computeIfAbsent(day, d -> new Bucket()).minutes += (Math.min(end, day + DAY) - Math.max(start, day)) / MINUTE;
+            }
+            this.coverage.add(start, end);
+        }
+    }
+}
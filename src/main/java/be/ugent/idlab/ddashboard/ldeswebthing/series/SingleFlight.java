@@ -0,0 +1,104 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.SingleFlight               *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent requests: the first caller for a key loads
+ * the result, callers arriving while that load is in flight wait for it and
+ * get the same result (or exception). Nothing is cached once the load is
+ * done, so the result must not be modified by the callers.
+ *
+ * @param <K> Key, a normalised form of the request
+ * @param <V> Result
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong loads = new AtomicLong();
+
+    /**
+     * Get the result for a key, sharing the load with concurrent callers.
+     *
+     * @param key Request key
+     * @param loader Loads the result, only run if no load for the key is in flight
+     * @return Result
+     * @throws RuntimeException Thrown by the loader, rethrown for every waiting caller
+     */
+    public V run(K key, Supplier<V> loader) {
+        this.requests.incrementAndGet();
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = this.inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return SingleFlight.join(existing);
+        }
+        this.loads.incrementAndGet();
+        try {
+            V result = loader.get();
+            created.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, created);
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a coalesced request", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return Number of requests
+     */
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    /**
+     * @return Number of loads, the requests that were not coalesced
+     */
+    public long getLoads() {
+        return this.loads.get();
+    }
+
+    /**
+     * @return Number of requests per load, 1 if nothing was coalesced
+     */
+    public double getCoalescingRatio() {
+        long loads = this.loads.get();
+        return (loads > 0) ? (double) this.requests.get() / loads : 1;
+    }
+
+    /**
+     * @return Number of loads in flight
+     */
+    public int getInFlight() {
+        return this.inFlight.size();
+    }
+}
@@ -0,0 +1,296 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.UpdateableEventIndex       *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Current state of updateable events: every LDES member is a version of an
+ * event identified by its id tag, the version with the highest update tag
+ * wins and a deleted tag tombstones the event. The index keeps the winning
+ * version per id, and the live (not deleted) versions ordered by timestamp,
+ * so a time range is read in O(log n + result).
+ * <p>
+ * The index is filled by a full load on first use and then kept up to date
+ * incrementally: a refresh only loads the members with a timestamp at or
+ * after the high-water mark of the previous load (minus the live edge, for
+ * late members). Applying a member twice has no effect, so the overlap is
+ * harmless. Tags are parsed once per member, when it is applied.
+ * <p>
+ * Updates keep the timestamp of the event they update, so a member updating
+ * an event older than the high-water mark is only seen by a full resync,
+ * which is done every resync interval.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class UpdateableEventIndex {
+
+    private static final Logger LOGGER = Logger.getLogger(UpdateableEventIndex.class.getName());
+
+    /**
+     * Separator of the key and value of a tag.
+     */
+    public static final char TAG_SEPARATOR = '=';
+
+    /**
+     * Receives the members loaded from the LDES.
+     */
+    @FunctionalInterface
+    public interface MemberSink {
+
+        /**
+         * @param timestamp UTC millisecond timestamp
+         * @param value Value
+         * @param tags Tags as key=value, null if none
+         */
+        void accept(long timestamp, double value, Iterable<String> tags);
+    }
+
+    /**
+     * Loads the members from the LDES, in any order.
+     */
+    @FunctionalInterface
+    public interface Loader {
+
+        /**
+         * @param fromTimestamp Load the members with a timestamp at or after this UTC millisecond timestamp, null for all members
+         * @param sink Receives the members
+         * @throws LDESException
+         */
+        void load(Long fromTimestamp, MemberSink sink) throws LDESException;
+    }
+
+    private final long refreshInterval;
+    private final long resyncInterval;
+    private final long liveEdge;
+
+    // Winning version by id, including tombstones
+    private Map<String, Version> versions = new HashMap<>();
+    // Live versions by timestamp
+    private NavigableSet<Version> live = new TreeSet<>();
+    // Highest member timestamp seen
+    private long highWater = Long.MIN_VALUE;
+    private long lastRefresh = Long.MIN_VALUE;
+    private long lastResync = Long.MIN_VALUE;
+    private long members = 0;
+
+    /**
+     * @param refreshInterval Minimum time in ms between two incremental loads
+     * @param resyncInterval Time in ms after which the index is rebuilt with a full load, 0 never
+     * @param liveEdge Members may arrive this many ms after their timestamp
+     */
+    public UpdateableEventIndex(long refreshInterval, long resyncInterval, long liveEdge) {
+        this.refreshInterval = refreshInterval;
+        this.resyncInterval = resyncInterval;
+        this.liveEdge = liveEdge;
+    }
+
+    /**
+     * Stream the live events in a time range, in ascending timestamp order.
+     *
+     * @param fromTimestamp UTC millisecond timestamp (inclusive), null for no limit
+     * @param toTimestamp UTC millisecond timestamp (exclusive), null for no limit
+     * @param loader Loads the members not in the index yet
+     * @param sink Receives the events, may stop early
+     * @throws LDESException
+     */
+    public synchronized void query(Long fromTimestamp, Long toTimestamp, Loader loader, EventSink sink) throws LDESException {
+        this.refresh(loader);
+        long from = (fromTimestamp != null) ? fromTimestamp : Long.MIN_VALUE;
+        long to = (toTimestamp != null) ? toTimestamp : Long.MAX_VALUE;
+        if (from >= to) {
+            return;
+        }
+        for (Version version : this.live.subSet(Version.bound(from), true, Version.bound(to), false)) {
+            if (!sink.accept(version.timestamp, version.value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stream the latest live events before a timestamp, in descending timestamp order.
+     *
+     * @param timestamp UTC millisecond timestamp (exclusive), null for the latest events
+     * @param limit Maximum number of events
+     * @param loader Loads the members not in the index yet
+     * @param sink Receives the events, may stop early
+     * @throws LDESException
+     */
+    public synchronized void previous(Long timestamp, int limit, Loader loader, EventSink sink) throws LDESException {
+        this.refresh(loader);
+        NavigableSet<Version> before = (timestamp != null)
+                ? this.live.headSet(Version.bound(timestamp), false) : this.live;
+        Iterator<Version> iterator = before.descendingIterator();
+        for (int i = 0; i < limit && iterator.hasNext(); i++) {
+            Version version = iterator.next();
+            if (!sink.accept(version.timestamp, version.value)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Load the members arrived since the previous load, or rebuild the index
+     * if it is empty or the resync interval passed.
+     *
+     * @param loader Loads the members
+     * @throws LDESException
+     */
+    private void refresh(Loader loader) throws LDESException {
+        long now = System.currentTimeMillis();
+        if (this.lastResync == Long.MIN_VALUE || (this.resyncInterval > 0 && now - this.lastResync >= this.resyncInterval)) {
+            this.resync(loader, now);
+        }
+        else if (now - this.lastRefresh >= this.refreshInterval) {
+            long from = (this.highWater == Long.MIN_VALUE) ? Long.MIN_VALUE : this.highWater - this.liveEdge;
+            long before = this.members;
+            loader.load((from == Long.MIN_VALUE) ? null : from, this::apply);
+            this.lastRefresh = now;
+            LOGGER.log(Level.FINE, "Updateable event index refreshed, {0} members loaded", this.members - before);
+        }
+    }
+
+    /**
+     * Rebuild the index from all members. The current index stays in use if
+     * the load fails.
+     */
+    private void resync(Loader loader, long now) throws LDESException {
+        Map<String, Version> versions = this.versions;
+        NavigableSet<Version> live = this.live;
+        long highWater = this.highWater;
+        long members = this.members;
+        this.versions = new HashMap<>();
+        this.live = new TreeSet<>();
+        this.highWater = Long.MIN_VALUE;
+        this.members = 0;
+        try {
+            loader.load(null, this::apply);
+        } catch (LDESException | RuntimeException e) {
+            this.versions = versions;
+            this.live = live;
+            this.highWater = highWater;
+            this.members = members;
+            throw e;
+        }
+        this.lastResync = now;
+        this.lastRefresh = now;
+        LOGGER.log(Level.FINE, "Updateable event index rebuilt, {0} members, {1} live events",
+                new Object[] {this.members, this.live.size()});
+    }
+
+    /**
+     * Apply a member: replaces the version of its id if the update counter
+     * is higher. Members without id tag are skipped.
+     *
+     * @param timestamp UTC millisecond timestamp
+     * @param value Value
+     * @param tags Tags as key=value, null if none
+     */
+    public synchronized void apply(long timestamp, double value, Iterable<String> tags) {
+        this.members++;
+        this.highWater = Math.max(this.highWater, timestamp);
+        String id = null;
+        int update = 0;
+        boolean deleted = false;
+        if (tags != null) {
+            for (String tag : tags) {
+                int separator = tag.indexOf(TAG_SEPARATOR);
+                if (separator < 0) {
+                    continue;
+                }
+                String key = tag.substring(0, separator);
+                if ("id".equals(key)) {
+                    id = tag.substring(separator + 1);
+                }
+                else if ("update".equals(key)) {
+                    update = Integer.parseInt(tag.substring(separator + 1));
+                }
+                else if ("deleted".equals(key)) {
+                    deleted = Boolean.parseBoolean(tag.substring(separator + 1));
+                }
+            }
+        }
+        // Skip invalid events (without id tag)
+        if (id == null) {
+            return;
+        }
+        Version current = this.versions.get(id);
+        if (current != null && current.update >= update) {
+            return;
+        }
+        if (current != null && !current.deleted) {
+            this.live.remove(current);
+        }
+        Version version = new Version(id, update, deleted, timestamp, value);
+        this.versions.put(id, version);
+        if (!deleted) {
+            this.live.add(version);
+        }
+    }
+
+    /**
+     * @return Number of live events
+     */
+    public synchronized int size() {
+        return this.live.size();
+    }
+
+    /**
+     * @return Number of members applied since the last full load
+     */
+    public synchronized long getMembers() {
+        return this.members;
+    }
+
+    /**
+     * Winning version of an event, ordered by timestamp and id.
+     */
+    private static class Version implements Comparable<Version> {
+
+        private final String id;
+        private final int update;
+        private final boolean deleted;
+        private final long timestamp;
+        private final double value;
+
+        private Version(String id, int update, boolean deleted, long timestamp, double value) {
+            this.id = id;
+            this.update = update;
+            this.deleted = deleted;
+            this.timestamp = timestamp;
+            this.value = value;
+        }
+
+        /**
+         * @return Version before all versions with the timestamp, to bound subsets
+         */
+        private static Version bound(long timestamp) {
+            return new Version(null, 0, false, timestamp, Double.NaN);
+        }
+
+        @Override
+        public int compareTo(Version other) {
+            int compare = Long.compare(this.timestamp, other.timestamp);
+            if (compare != 0) {
+                return compare;
+            }
+            if (this.id == null) {
+                return (other.id == null) ? 0 : -1;
+            }
+            return (other.id == null) ? 1 : this.id.compareTo(other.id);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.HttpCompressionTest          *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpHeaders;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * HttpCompression decoding bodies encoded with the JDK encoders, as the
+ * complete body and as a stream.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class HttpCompressionTest {
+
+    // Large enough to span several buffers of the decoder
+    private static final byte[] BODY = "?event saref:hasValue \"1.0\" .\n".repeat(10_000).getBytes(StandardCharsets.UTF_8);
+
+    private static HttpHeaders headers(String encoding) {
+        return HttpHeaders.of(Map.of("Content-Encoding", List.of(encoding)), (name, value) -> true);
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (OutputStream stream = new GZIPOutputStream(output)) {
+            stream.write(body);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] body, boolean raw) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+        try (OutputStream stream = new DeflaterOutputStream(output, deflater)) {
+            stream.write(body);
+        } finally {
+            deflater.end();
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] decodeStream(HttpHeaders headers, byte[] body) throws IOException {
+        try (InputStream stream = HttpCompression.decode(headers, new ByteArrayInputStream(body))) {
+            return stream.readAllBytes();
+        }
+    }
+
+    @Test
+    void decodesGzip() throws IOException {
+        byte[] encoded = gzip(BODY);
+        assertTrue(encoded.length < BODY.length);
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), new String(HttpCompression.decode(headers("gzip"), encoded), StandardCharsets.UTF_8));
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), new String(decodeStream(headers(" X-GZIP "), encoded), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decodesZlibDeflate() throws IOException {
+        byte[] encoded = deflate(BODY, false);
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), new String(HttpCompression.decode(headers("deflate"), encoded), StandardCharsets.UTF_8));
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), new String(decodeStream(headers("Deflate"), encoded), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void decodesRawDeflate() throws IOException {
+        // Sent by servers that skip the zlib wrapper
+        byte[] encoded = deflate(BODY, true);
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), new String(HttpCompression.decode(headers("deflate"), encoded), StandardCharsets.UTF_8));
+        assertEquals(new String(BODY, StandardCharsets.UTF_8), new String(decodeStream(headers("deflate"), encoded), StandardCharsets.UTF_8));
+        // A body of a single byte
+        byte[] small = "x".getBytes(StandardCharsets.UTF_8);
+        assertEquals("x", new String(HttpCompression.decode(headers("deflate"), deflate(small, true)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void passesOnBodiesWithoutEncoding() throws IOException {
+        assertSame(BODY, HttpCompression.decode(HttpHeaders.of(Map.of(), (name, value) -> true), BODY));
+        assertSame(BODY, HttpCompression.decode(headers("identity"), BODY));
+    }
+
+    @Test
+    void rejectsUnsupportedEncodings() {
+        AtomicBoolean closed = new AtomicBoolean();
+        InputStream body = new ByteArrayInputStream(BODY) {
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        assertThrows(IOException.class, () -> HttpCompression.decode(headers("br"), body));
+        // The body is not left open
+        assertTrue(closed.get());
+        assertThrows(IOException.class, () -> HttpCompression.decode(headers("br"), BODY));
+    }
+
+    @Test
+    void rejectsBodiesNotEncodedLikeTheySay() {
+        assertThrows(IOException.class, () -> HttpCompression.decode(headers("gzip"), BODY));
+        assertThrows(IOException.class, () -> HttpCompression.decode(headers("gzip"), deflate(BODY, false)));
+    }
+}
@@ -0,0 +1,200 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.HttpDocumentCacheTest        *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * HttpDocumentCache against an embedded server that answers conditional
+ * requests with 304 when the ETag matches.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class HttpDocumentCacheTest {
+
+    private static final String ACCEPT = "text/turtle";
+
+    private HttpServer server;
+    private HttpClient httpClient;
+    private Path directory;
+    // Path, Cache-Control of the documents
+    private final Map<String, String> cacheControl = new ConcurrentHashMap<>();
+    // Path and If-None-Match of every request, "-" without
+    private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("http-cache");
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", (HttpExchange exchange) -> {
+            String path = exchange.getRequestURI().getPath();
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            this.requests.add(path + " " + (ifNoneMatch != null ? ifNoneMatch : "-"));
+            String etag = "\"" + path + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", this.cacheControl.getOrDefault(path, "max-age=0"));
+            if (etag.equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            // Bodies of 10 bytes
+            byte[] body = String.format("%-10s", path).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/turtle; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        this.server.start();
+        this.httpClient = HttpClient.newHttpClient();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        this.server.stop(0);
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private HttpDocumentCache createCache(long maxBytes) throws LDESException {
+        return new HttpDocumentCache(this.directory, maxBytes, this.httpClient, Duration.ofSeconds(10), false);
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + this.server.getAddress().getPort() + path);
+    }
+
+    private String get(HttpDocumentCache cache, String path) {
+        HttpDocumentCache.Document document = cache.get(this.uri(path), ACCEPT).join();
+        assertEquals("text/turtle", document.getContentType());
+        return new String(document.getBody(), StandardCharsets.UTF_8).trim();
+    }
+
+    @Test
+    void revalidatesStaleDocuments() throws LDESException {
+        HttpDocumentCache cache = this.createCache(1024);
+        assertEquals("/a", this.get(cache, "/a"));
+        assertEquals("/a", this.get(cache, "/a"));
+        assertEquals(List.of("/a -", "/a \"/a\""), this.requests);
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getRevalidations());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void servesFreshDocumentsWithoutRequest() throws LDESException {
+        this.cacheControl.put("/fresh", "max-age=3600");
+        HttpDocumentCache cache = this.createCache(1024);
+        this.get(cache, "/fresh");
+        this.get(cache, "/fresh");
+        assertEquals(1, this.requests.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void revalidatesServerImmutableDocumentsOnceStale() throws LDESException {
+        // RFC 8246: immutable only holds while fresh
+        this.cacheControl.put("/immutable", "max-age=0, immutable");
+        HttpDocumentCache cache = this.createCache(1024);
+        this.get(cache, "/immutable");
+        this.get(cache, "/immutable");
+        assertEquals(2, this.requests.size());
+        assertEquals(1, cache.getRevalidations());
+
+        // Marked immutable by the client, e.g. an LDES member: never requested again
+        cache.markImmutable(this.uri("/immutable"));
+        this.get(cache, "/immutable");
+        assertEquals(2, this.requests.size());
+        assertEquals(1, cache.getHits());
+    }
+
+    @Test
+    void refetchesWhenTheBodyIsGone() throws IOException, LDESException {
+        HttpDocumentCache cache = this.createCache(1024);
+        this.get(cache, "/a");
+        try (DirectoryStream<Path> bodies = Files.newDirectoryStream(this.directory, "*.body")) {
+            for (Path body : bodies) {
+                Files.delete(body);
+            }
+        }
+        // The revalidation succeeds, but there is no body to serve: fetched again without validators
+        assertEquals("/a", this.get(cache, "/a"));
+        assertEquals(List.of("/a -", "/a \"/a\"", "/a -"), this.requests);
+        assertEquals(2, cache.getMisses());
+        // Cached again
+        assertEquals("/a", this.get(cache, "/a"));
+        assertEquals(1, cache.getRevalidations());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsed() throws LDESException {
+        this.cacheControl.put("/a", "max-age=3600");
+        this.cacheControl.put("/b", "max-age=3600");
+        this.cacheControl.put("/c", "max-age=3600");
+        // Room for two documents
+        HttpDocumentCache cache = this.createCache(25);
+        this.get(cache, "/a");
+        this.get(cache, "/b");
+        // Used after /b
+        this.get(cache, "/a");
+        this.get(cache, "/c");
+        assertEquals(20, cache.getSize());
+        this.requests.clear();
+        this.get(cache, "/a");
+        this.get(cache, "/c");
+        assertEquals(0, this.requests.size());
+        this.get(cache, "/b");
+        assertEquals(List.of("/b -"), this.requests);
+    }
+
+    @Test
+    void reloadsTheCacheOnStart() throws LDESException {
+        this.cacheControl.put("/fresh", "max-age=3600");
+        HttpDocumentCache cache = this.createCache(1024);
+        this.get(cache, "/fresh");
+        this.get(cache, "/stale");
+        this.get(cache, "/member");
+        cache.markImmutable(this.uri("/member"));
+        this.requests.clear();
+
+        HttpDocumentCache reloaded = this.createCache(1024);
+        assertEquals(30, reloaded.getSize());
+        assertEquals("/fresh", this.get(reloaded, "/fresh"));
+        assertEquals("/member", this.get(reloaded, "/member"));
+        assertEquals(0, this.requests.size());
+        // The validators survive as well
+        assertEquals("/stale", this.get(reloaded, "/stale"));
+        assertEquals(List.of("/stale \"/stale\""), this.requests);
+        assertEquals(1, reloaded.getRevalidations());
+    }
+}
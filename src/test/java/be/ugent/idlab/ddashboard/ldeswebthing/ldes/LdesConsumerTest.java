@@ -0,0 +1,266 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesConsumerTest             *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.EventSeries;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LdesConsumer end to end against Rdf4jSparqlEndpoint.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class LdesConsumerTest {
+
+    private static final long START = 1_660_000_000_000L;
+    private static final long STEP = 1_000;
+    private static final Set<String> DATASETS = Collections.singleton("test");
+    private static final Set<EventField> FIELDS = EnumSet.of(EventField.TIMESTAMP, EventField.VALUE);
+
+    private Rdf4jSparqlEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.endpoint = new Rdf4jSparqlEndpoint(2);
+        this.endpoint.seedObservations("thing-a", START, 250, STEP);
+        this.endpoint.seedObservations("thing-b", START, 50, STEP);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.endpoint.close();
+    }
+
+    private static JSONObject source(String source) {
+        return new JSONObject().put("source", new JSONObject().put("_eq", source));
+    }
+
+    private EventSeries getWindow(LdesSettings settings) throws LDESException {
+        LdesConsumer consumer = new LdesConsumer(null, null, null, settings);
+        try {
+            EventSeries output = new EventSeries();
+            consumer.getEvents(DATASETS, null, START + 10 * STEP, START + 210 * STEP, FIELDS, null,
+                    null, null, LdesConsumerTest.source("thing-a"), null, null, null, output);
+            return output;
+        } finally {
+            consumer.close();
+        }
+    }
+
+    private static void assertWindow(EventSeries output) {
+        assertEquals(200, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(START + (10 + i) * STEP, output.getTimestamp(i));
+            assertEquals(Rdf4jSparqlEndpoint.getValue(10 + i), output.getValue(i), 1e-9);
+        }
+    }
+
+    @Test
+    void readsAWindowInEveryResultsFormat() throws LDESException {
+        for (SparqlResultsFormat format : SparqlResultsFormat.values()) {
+            // Pages smaller than the window
+            LdesSettings settings = this.endpoint.createSettings().setSparqlResultsFormat(format).setPageSize(64);
+            LdesConsumerTest.assertWindow(this.getWindow(settings));
+        }
+    }
+
+    @Test
+    void postsTheQuery() throws LDESException {
+        LdesConsumerTest.assertWindow(this.getWindow(this.endpoint.createSettings().setSparqlPost(true)));
+    }
+
+    @Test
+    void readsTheLatestEventsDescending() throws LDESException {
+        LdesConsumer consumer = new LdesConsumer(null, null, null, this.endpoint.createSettings());
+        try {
+            EventSeries output = new EventSeries();
+            consumer.getEvents(DATASETS, null, null, START + 100 * STEP, FIELDS, null,
+                    null, EventOrdering.DESCENDING, LdesConsumerTest.source("thing-b"), 5, null, null, output);
+            assertEquals(5, output.size());
+            for (int i = 0; i < 5; i++) {
+                assertEquals(START + (49 - i) * STEP, output.getTimestamp(i));
+            }
+        } finally {
+            consumer.close();
+        }
+    }
+
+    @Test
+    void readsTheTagsOfEvents() throws LDESException {
+        this.endpoint.seedEvents("annotations", START, 3, 1, STEP);
+        LdesConsumer consumer = new LdesConsumer(null, null, null, this.endpoint.createSettings());
+        try {
+            List<JSONObject> events = consumer.getEvents(DATASETS, null, null, null,
+                    EnumSet.of(EventField.TIMESTAMP, EventField.VALUE, EventField.TAGS), null,
+                    null, null, LdesConsumerTest.source("annotations"), null, null, null);
+            // Every event is created and updated once, the first one is deleted in its update
+            assertEquals(6, events.size());
+            int deleted = 0;
+            for (JSONObject event : events) {
+                JSONArray tags = event.getJSONArray("tags");
+                assertTrue(tags.toList().stream().anyMatch(tag -> tag.toString().startsWith("id=e")));
+                if (tags.toList().contains("deleted=true")) {
+                    deleted++;
+                }
+            }
+            assertEquals(1, deleted);
+        } finally {
+            consumer.close();
+        }
+    }
+
+    @Test
+    void pagesWithACursor() throws LDESException {
+        LdesConsumer consumer = new LdesConsumer(null, null, null, this.endpoint.createSettings().setPageSize(20));
+        try {
+            int rows = 0;
+            int pages = 0;
+            String cursor = null;
+            do {
+                JSONObject page = consumer.getEvents(DATASETS, null, null, null, FIELDS, null,
+                        null, null, LdesConsumerTest.source("thing-b"), null, null, null, cursor);
+                rows += page.getJSONObject("results").getJSONArray("bindings").length();
+                pages++;
+                cursor = page.optString("cursor", null);
+            } while (cursor != null);
+            assertEquals(50, rows);
+            assertEquals(3, pages);
+        } finally {
+            consumer.close();
+        }
+    }
+
+    @Test
+    void failsOnAnErrorStatus() throws IOException, LDESException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/sparql", (HttpExchange exchange) -> {
+            byte[] body = "Query timed out".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(503, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        LdesConsumer consumer = new LdesConsumer(null, null, null, new LdesSettings()
+                .setSparqlEndpoint("http://localhost:" + server.getAddress().getPort() + "/sparql"));
+        try {
+            LDESException exception = assertThrows(LDESException.class, () -> consumer.getEvents(DATASETS, null, null, null, FIELDS, null,
+                    null, null, null, 10, null, null, (String) null));
+            assertTrue(exception.getMessage().contains("503"));
+        } finally {
+            consumer.close();
+            server.stop(0);
+        }
+    }
+
+    @Test
+    void keepsTheInterruptOfACursorRequest() throws LDESException {
+        LdesConsumer consumer = new LdesConsumer(null, null, null, this.endpoint.createSettings());
+        try {
+            Thread.currentThread().interrupt();
+            assertThrows(LDESException.class, () -> consumer.getEvents(DATASETS, null, null, null, FIELDS, null,
+                    null, null, null, 10, null, null, (String) null));
+            assertTrue(Thread.interrupted());
+        } finally {
+            Thread.interrupted();
+            consumer.close();
+        }
+    }
+
+    @Test
+    void cancellingAbortsTheResponseBeingRead() throws IOException, InterruptedException, ExecutionException, TimeoutException, LDESException {
+        // The first response stalls after one row, the next ones are complete
+        String header = "timestamp,value\r\n";
+        String row = "2023-03-06T12:54:01.915Z,1.5\r\n";
+        AtomicInteger requests = new AtomicInteger();
+        CountDownLatch stopped = new CountDownLatch(1);
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/sparql", (HttpExchange exchange) -> {
+            try (InputStream request = exchange.getRequestBody()) {
+                request.readAllBytes();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "text/csv");
+            if (requests.incrementAndGet() > 1) {
+                byte[] body = (header + row).getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+                exchange.close();
+                return;
+            }
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            body.write((header + row).getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            try {
+                stopped.await(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        // A single platform thread reads the responses
+        LdesConsumer consumer = new LdesConsumer(null, null, null, new LdesSettings()
+                .setSparqlEndpoint("http://localhost:" + server.getAddress().getPort() + "/sparql")
+                .setSparqlResultsFormat(SparqlResultsFormat.CSV)
+                .setVirtualThreads(false)
+                .setBlockingThreads(1));
+        try {
+            EventQuery query = new EventQuery(DATASETS, null, null, null, FIELDS, null, null, null,
+                    LdesConsumerTest.source("thing-a"), null, null, null);
+            CountDownLatch firstRow = new CountDownLatch(1);
+            CompletableFuture<Integer> stalled = consumer.getEventsAsync(query, (timestamp, value) -> {
+                firstRow.countDown();
+                return true;
+            });
+            assertTrue(firstRow.await(10, TimeUnit.SECONDS));
+            stalled.cancel(true);
+            // The thread blocked in the stalled body is free again
+            EventSeries output = new EventSeries();
+            assertEquals(Integer.valueOf(1), consumer.getEventsAsync(query, output).get(10, TimeUnit.SECONDS));
+            assertEquals(1_678_107_241_915L, output.getTimestamp(0));
+        } finally {
+            consumer.close();
+            stopped.countDown();
+            server.stop(0);
+        }
+    }
+}
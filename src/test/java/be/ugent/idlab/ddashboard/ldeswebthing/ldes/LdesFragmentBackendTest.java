@@ -0,0 +1,239 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesFragmentBackendTest      *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.EventSeries;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LdesFragmentBackend over local copies of LDES fragments (file: URIs): a
+ * chain of fragments with explicit bounds, and an LDES in SOLID style tree
+ * of containers that only have lower bounds.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class LdesFragmentBackendTest {
+
+    private static final String PREFIXES = "@prefix tree: <https://w3id.org/tree#> .\n"
+            + "@prefix saref: <https://saref.etsi.org/core/> .\n"
+            + "@prefix ldp: <http://www.w3.org/ns/ldp#> .\n"
+            + "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n";
+    private static final String PATH = "tree:path saref:hasTimestamp";
+    private static final long DAY = 86_400_000L;
+    // 2022-08-09T00:00:00Z
+    private static final long T0 = XsdDateTime.parseMillis("2022-08-09T00:00:00Z");
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("ldes-fragments");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(this.directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private void write(String file, String turtle) throws IOException {
+        Path path = this.directory.resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.write(path, (PREFIXES + turtle).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String member(String iri, long timestamp, double value) {
+        return iri + " saref:hasTimestamp \"" + XsdDateTime.format(timestamp, null) + "\"^^xsd:dateTime ; saref:hasValue " + value + " .\n";
+    }
+
+    private static String relation(String type, String node, String value) {
+        return "<> tree:relation [ a tree:" + type + " ; tree:node <" + node + "> ; " + PATH + " ; tree:value \"" + value + "\"^^xsd:dateTime ] .\n";
+    }
+
+    /**
+     * Root index.ttl with three day fragments, bounded on both sides. The
+     * bound between the first two days has no time zone, and the second and
+     * third day overlap: a member of both is in both documents.
+     */
+    private void writeChain() throws IOException {
+        this.write("index.ttl",
+                relation("GreaterThanOrEqualToRelation", "day1.ttl", XsdDateTime.format(T0, null))
+                + relation("LessThanRelation", "day1.ttl", "2022-08-10T00:00:00")
+                + relation("GreaterThanOrEqualToRelation", "day2.ttl", XsdDateTime.format(T0 + DAY, null))
+                + relation("LessThanRelation", "day2.ttl", XsdDateTime.format(T0 + 2 * DAY + DAY / 2, null))
+                + relation("GreaterThanOrEqualToRelation", "day3.ttl", XsdDateTime.format(T0 + 2 * DAY, null)));
+        StringBuilder[] days = {new StringBuilder(), new StringBuilder(), new StringBuilder()};
+        for (int day = 0; day < 3; day++) {
+            for (int hour = 0; hour < 24; hour += 6) {
+                days[day].append(member("<#h" + hour + ">", T0 + day * DAY + hour * 3_600_000L, day * 100 + hour));
+            }
+        }
+        // In the overlap of day 2 and day 3
+        String shared = member("<http://example.org/member/shared>", T0 + 2 * DAY + 3 * 3_600_000L, -1);
+        days[1].append(shared);
+        days[2].append(shared);
+        this.write("day1.ttl", days[0].toString());
+        this.write("day2.ttl", days[1].toString());
+        this.write("day3.ttl", days[2].toString());
+    }
+
+    /**
+     * LDES in SOLID: containers with only lower bounds, the members are the
+     * resources they contain.
+     */
+    private void writeContainers() throws IOException {
+        StringBuilder root = new StringBuilder();
+        for (int day = 0; day < 3; day++) {
+            root.append(relation("GreaterThanOrEqualToRelation", "c" + day + "/", XsdDateTime.format(T0 + day * DAY, null)));
+            StringBuilder container = new StringBuilder();
+            for (int hour = 0; hour < 24; hour += 12) {
+                container.append("<> ldp:contains <m").append(hour).append(".ttl> .\n");
+                this.write("c" + day + "/m" + hour + ".ttl", member("<#event>", T0 + day * DAY + hour * 3_600_000L, day * 100 + hour));
+            }
+            this.write("c" + day + "/index.ttl", container.toString());
+        }
+        this.write("index.ttl", root.toString());
+    }
+
+    private LdesFragmentBackend createBackend(boolean siblingBounds) {
+        return new LdesFragmentBackend(this.directory.toUri(), null, new LdesSettings().setFragmentSiblingBounds(siblingBounds));
+    }
+
+    private static EventSeries read(LdesFragmentBackend backend, Long from, Long to, EventOrdering ordering, Integer limit) throws LDESException {
+        EventQuery query = new EventQuery(Collections.singleton("test"), null, from, to, EnumSet.of(EventField.TIMESTAMP, EventField.VALUE),
+                null, null, ordering, null, limit, null, null);
+        EventSeries output = new EventSeries();
+        try (EventCursor cursor = backend.openEvents(query)) {
+            cursor.drainTo(output);
+        }
+        return output;
+    }
+
+    @Test
+    void readsAllMembersInOrderOnce() throws IOException, LDESException {
+        this.writeChain();
+        EventSeries output = LdesFragmentBackendTest.read(this.createBackend(true), null, null, null, null);
+        // 3 days of 4 members, and the shared member once
+        assertEquals(13, output.size());
+        for (int i = 1; i < output.size(); i++) {
+            assertTrue(output.getTimestamp(i - 1) <= output.getTimestamp(i));
+        }
+        assertEquals(T0, output.getTimestamp(0));
+        assertEquals(T0 + 2 * DAY + 18 * 3_600_000L, output.getTimestamp(12));
+    }
+
+    @Test
+    void prunesFragmentsOutsideOfTheWindow() throws IOException, LDESException {
+        this.writeChain();
+        LdesFragmentBackend backend = this.createBackend(true);
+        EventSeries output = LdesFragmentBackendTest.read(backend, T0 + DAY, T0 + DAY + 12 * 3_600_000L, null, null);
+        assertEquals(2, output.size());
+        assertEquals(100.0, output.getValue(0), 0);
+        assertEquals(106.0, output.getValue(1), 0);
+        // The root and day 2: day 1 ends before the window (bound without time zone), day 3 starts after it
+        assertEquals(2, backend.getDocumentsRead());
+    }
+
+    @Test
+    void stopsAtTheLimitDescending() throws IOException, LDESException {
+        this.writeChain();
+        LdesFragmentBackend backend = this.createBackend(true);
+        EventSeries output = LdesFragmentBackendTest.read(backend, null, null, EventOrdering.DESCENDING, 2);
+        assertEquals(2, output.size());
+        assertEquals(218.0, output.getValue(0), 0);
+        assertEquals(212.0, output.getValue(1), 0);
+        // The root and day 3: day 2 ends before the second member of day 3
+        assertEquals(2, backend.getDocumentsRead());
+    }
+
+    @Test
+    void stopsAtTheLimitAscending() throws IOException, LDESException {
+        this.writeChain();
+        LdesFragmentBackend backend = this.createBackend(true);
+        EventSeries output = LdesFragmentBackendTest.read(backend, T0 + 6 * 3_600_000L, null, null, 1);
+        assertEquals(1, output.size());
+        assertEquals(6.0, output.getValue(0), 0);
+        assertEquals(2, backend.getDocumentsRead());
+    }
+
+    @Test
+    void readsTheMembersLazily() throws IOException, LDESException {
+        this.writeChain();
+        LdesFragmentBackend backend = this.createBackend(true);
+        try (LdesFragmentBackend.Traversal traversal = backend.readMembers(null)) {
+            assertEquals(T0, traversal.next().timestamp);
+            // Only the root and the first day are read so far
+            assertEquals(2, backend.getDocumentsRead());
+            int count = 1;
+            while (traversal.next() != null) {
+                count++;
+            }
+            assertEquals(13, count);
+            assertEquals(4, backend.getDocumentsRead());
+            assertNull(traversal.next());
+        }
+    }
+
+    @Test
+    void keepsMicrosecondTimestamps() throws IOException, LDESException {
+        // Two members within the same millisecond, published in reverse order
+        this.write("index.ttl", "<#b> saref:hasTimestamp \"2022-08-09T00:00:00.000250Z\"^^xsd:dateTime ; saref:hasValue 2 .\n"
+                + "<#a> saref:hasTimestamp \"2022-08-09T00:00:00.000125Z\"^^xsd:dateTime ; saref:hasValue 1 .\n");
+        EventQuery query = new EventQuery(Collections.singleton("test"), null, null, null, EnumSet.of(EventField.TIMESTAMP, EventField.VALUE),
+                TimestampPrecision.MICROSECONDS, null, null, null, null, null, null);
+        EventSeries output = new EventSeries(2, TimestampPrecision.MICROSECONDS);
+        try (EventCursor cursor = this.createBackend(true).openEvents(query)) {
+            assertTrue(cursor.next());
+            assertEquals(T0, cursor.getTimestamp());
+            assertEquals("2022-08-09T00:00:00.000125Z", cursor.get(EventField.TIMESTAMP));
+            output.add(cursor.getTimestamp(TimestampPrecision.MICROSECONDS), cursor.getValue());
+            cursor.drainTo(output, output.getPrecision());
+        }
+        assertEquals(2, output.size());
+        assertEquals(T0 * 1000 + 125, output.getTimestamp(0));
+        assertEquals(T0 * 1000 + 250, output.getTimestamp(1));
+    }
+
+    @Test
+    void usesSiblingBoundsOfContainers() throws IOException, LDESException {
+        this.writeContainers();
+        LdesFragmentBackend backend = this.createBackend(true);
+        EventSeries output = LdesFragmentBackendTest.read(backend, T0 + DAY, T0 + 2 * DAY, null, null);
+        assertEquals(2, output.size());
+        assertEquals(100.0, output.getValue(0), 0);
+        assertEquals(112.0, output.getValue(1), 0);
+        // The root, the second container and its two members
+        assertEquals(4, backend.getDocumentsRead());
+
+        // Without sibling bounds the first container may hold members of the window as well
+        LdesFragmentBackend unbounded = this.createBackend(false);
+        assertEquals(2, LdesFragmentBackendTest.read(unbounded, T0 + DAY, T0 + 2 * DAY, null, null).size());
+        assertEquals(7, unbounded.getDocumentsRead());
+    }
+}
@@ -0,0 +1,178 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesStoreBackendTest         *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.EventSeries;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LdesStoreBackend syncing a replica of a local LDES root (index.ttl that
+ * holds the members itself), rewritten between requests.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class LdesStoreBackendTest {
+
+    private static final String PREFIXES = "@prefix saref: <https://saref.etsi.org/core/> .\n"
+            + "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n";
+    private static final long START = XsdDateTime.parseMillis("2022-08-09T00:00:00Z");
+    private static final long MINUTE = 60_000L;
+
+    private Path ldes;
+    private Path store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.ldes = Files.createTempDirectory("ldes-root");
+        this.store = Files.createTempDirectory("ldes-store");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        for (Path directory : new Path[] {this.ldes, this.store}) {
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static String member(String subject, long timestamp, double value) {
+        return subject + " saref:hasTimestamp \"" + XsdDateTime.format(timestamp, null) + "\"^^xsd:dateTime ; saref:hasValue " + value + " .\n";
+    }
+
+    private void writeRoot(String members) throws IOException {
+        Files.write(this.ldes.resolve("index.ttl"), (PREFIXES + members).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private LdesStoreBackend open(LdesSettings settings) throws LDESException {
+        LdesFragmentBackend source = new LdesFragmentBackend(this.ldes.toUri(), null, settings);
+        return new LdesStoreBackend(source, new SparqlQueryBuilder(settings), settings);
+    }
+
+    private static LdesSettings createSettings(Duration syncInterval) {
+        return new LdesSettings()
+                .setStoreSyncInterval(syncInterval)
+                .setObservationCacheLiveEdge(Duration.ofMinutes(5));
+    }
+
+    private static EventSeries read(LdesStoreBackend backend) throws LDESException {
+        EventQuery query = new EventQuery(Collections.singleton("test"), null, null, null, EnumSet.of(EventField.TIMESTAMP, EventField.VALUE),
+                null, null, null, null, null, null, null);
+        EventSeries output = new EventSeries();
+        try (EventCursor cursor = backend.openEvents(query)) {
+            cursor.drainTo(output);
+        }
+        return output;
+    }
+
+    @Test
+    void readsTheLiveEdgeAgain() throws IOException, LDESException {
+        StringBuilder members = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            members.append(member("<#m" + i + ">", START + i * MINUTE, i));
+        }
+        this.writeRoot(members.toString());
+        LdesStoreBackend backend = this.open(LdesStoreBackendTest.createSettings(Duration.ZERO));
+        try {
+            assertEquals(10, LdesStoreBackendTest.read(backend).size());
+            assertEquals(10, backend.getMembersSynced());
+
+            // A late member within the live edge of the watermark, one before it, and a new one
+            members.append(member("<#late>", START + 7 * MINUTE + 30_000, 7.5));
+            members.append(member("<#too-late>", START + 2 * MINUTE + 30_000, 2.5));
+            members.append(member("<#m10>", START + 10 * MINUTE, 10));
+            this.writeRoot(members.toString());
+            EventSeries output = LdesStoreBackendTest.read(backend);
+            assertEquals(12, output.size());
+            assertEquals(7.5, output.getValue(8), 0);
+            assertEquals(START + 10 * MINUTE, output.getTimestamp(11));
+            // The live edge is read from the watermark (minute 9) minus 5 minutes: minutes 4 to 9, the late and the new member
+            assertEquals(10 + 6 + 2, backend.getMembersSynced());
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    void keepsBlankNodeMembersOnce() throws IOException, LDESException {
+        this.writeRoot(member("[]", START, 1)
+                + member("[]", START + MINUTE, 2)
+                // Same timestamp, other value: another member
+                + member("[]", START + MINUTE, 3));
+        LdesStoreBackend backend = this.open(LdesStoreBackendTest.createSettings(Duration.ZERO));
+        try {
+            assertEquals(3, LdesStoreBackendTest.read(backend).size());
+            // Read again within the live edge, the blank nodes get new ids but the same subjects
+            assertEquals(3, LdesStoreBackendTest.read(backend).size());
+            assertEquals(6, backend.getMembersSynced());
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    void keepsMicrosecondTimestamps() throws IOException, LDESException {
+        this.writeRoot("<#m0> saref:hasTimestamp \"2022-08-09T00:00:00.000125Z\"^^xsd:dateTime ; saref:hasValue 1 .\n");
+        LdesStoreBackend backend = this.open(LdesStoreBackendTest.createSettings(Duration.ZERO));
+        EventQuery query = new EventQuery(Collections.singleton("test"), null, null, null, EnumSet.of(EventField.TIMESTAMP, EventField.VALUE),
+                TimestampPrecision.MICROSECONDS, null, null, null, null, null, null);
+        try (EventCursor cursor = backend.openEvents(query)) {
+            assertTrue(cursor.next());
+            assertEquals(START * 1000 + 125, cursor.getTimestamp(TimestampPrecision.MICROSECONDS));
+            assertEquals(START, cursor.getTimestamp());
+        } finally {
+            backend.close();
+        }
+    }
+
+    @Test
+    void retriesAFailedSync() throws IOException, LDESException {
+        this.writeRoot(member("<#m0>", START, 0));
+        LdesSettings settings = LdesStoreBackendTest.createSettings(Duration.ofHours(1)).setStoreDirectory(this.store.toString());
+        LdesStoreBackend backend = this.open(settings);
+        try {
+            assertEquals(1, LdesStoreBackendTest.read(backend).size());
+        } finally {
+            backend.close();
+        }
+
+        // Reopened while the LDES can't be read: answered from the replica
+        Files.delete(this.ldes.resolve("index.ttl"));
+        backend = this.open(settings);
+        try {
+            assertEquals(1, LdesStoreBackendTest.read(backend).size());
+            // Readable again, the next request syncs despite the interval
+            this.writeRoot(member("<#m0>", START, 0) + member("<#m1>", START + MINUTE, 1));
+            assertEquals(2, LdesStoreBackendTest.read(backend).size());
+            // Synced now, the interval applies
+            this.writeRoot(member("<#m0>", START, 0) + member("<#m1>", START + MINUTE, 1) + member("<#m2>", START + 2 * MINUTE, 2));
+            assertEquals(2, LdesStoreBackendTest.read(backend).size());
+        } finally {
+            backend.close();
+        }
+    }
+}
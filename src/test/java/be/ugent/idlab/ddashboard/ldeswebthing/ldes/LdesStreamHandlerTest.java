@@ -0,0 +1,180 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.LdesStreamHandlerTest        *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+
+import com.launchdarkly.eventsource.MessageEvent;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * LdesStreamHandler decoding, and resuming a reopened stream of LdesConsumer
+ * against an embedded server-sent events server.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class LdesStreamHandlerTest {
+
+    private static final URI ORIGIN = URI.create("http://localhost/stream");
+
+    /**
+     * Keeps the events, one string per event.
+     */
+    private static class RecordingListener implements StreamListener {
+
+        private final BlockingQueue<String> events = new LinkedBlockingQueue<>();
+        private final List<Throwable> errors = new ArrayList<>();
+
+        @Override
+        public void onEvent(String metric, String source, long timestamp, double value) {
+            this.events.add(metric + "|" + source + "|" + timestamp + "|" + value);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            this.errors.add(error);
+        }
+    }
+
+    private static void send(LdesStreamHandler handler, String data, String id) {
+        handler.onMessage("message", new MessageEvent(data, id, ORIGIN));
+    }
+
+    @Test
+    void decodesIsoAndMillisecondTimestamps() {
+        RecordingListener listener = new RecordingListener();
+        LdesStreamHandler handler = new LdesStreamHandler("test", listener, null);
+        LdesStreamHandlerTest.send(handler, "{\"metric\": \"temp\", \"source\": \"thing-a\", "
+                + "\"timestamp\": \"2023-03-06T12:54:01.915Z\", \"value\": 21.5}", "1");
+        LdesStreamHandlerTest.send(handler, "{\"value\": 3, \"timestamp\": 1678107241915, \"metric\": \"temp\"}", "2");
+        assertEquals("temp|thing-a|1678107241915|21.5", listener.events.poll());
+        // Without source, fields in any order
+        assertEquals("temp|null|1678107241915|3.0", listener.events.poll());
+        assertNull(listener.events.poll());
+    }
+
+    @Test
+    void decodesStringValuesAndSkipsUnknownFields() {
+        RecordingListener listener = new RecordingListener();
+        LdesStreamHandler handler = new LdesStreamHandler("test", listener, null);
+        LdesStreamHandlerTest.send(handler, "{\"metric\": \"temp\", \"unit\": {\"code\": \"Cel\", \"metric\": \"nested\"}, "
+                + "\"tags\": [\"a\", {\"value\": 1}], \"timestamp\": 1000, \"value\": \"-4.25\"}", null);
+        assertEquals("temp|null|1000|-4.25", listener.events.poll());
+        assertNull(listener.events.poll());
+    }
+
+    @Test
+    void skipsInvalidEvents() {
+        RecordingListener listener = new RecordingListener();
+        LdesStreamHandler handler = new LdesStreamHandler("test", listener, null);
+        LdesStreamHandlerTest.send(handler, "{\"metric\": \"temp\", \"timestamp\": 1000}", "1");
+        LdesStreamHandlerTest.send(handler, "{\"metric\": \"temp\", \"timestamp\": \"yesterday\", \"value\": 1}", "2");
+        LdesStreamHandlerTest.send(handler, "{\"metric\": \"temp\", \"timestamp\": 1000, \"value\": \"warm\"}", "3");
+        LdesStreamHandlerTest.send(handler, "[1, 2]", "4");
+        LdesStreamHandlerTest.send(handler, "not json", "5");
+        // The stream goes on
+        LdesStreamHandlerTest.send(handler, "{\"metric\": \"temp\", \"timestamp\": 1000, \"value\": 1}", "6");
+        assertEquals("temp|null|1000|1.0", listener.events.poll());
+        assertNull(listener.events.poll());
+        assertEquals("6", handler.getLastEventId());
+        assertEquals(0, listener.errors.size());
+    }
+
+    @Test
+    void keepsTheLastEventId() {
+        RecordingListener listener = new RecordingListener();
+        LdesStreamHandler handler = new LdesStreamHandler("test", listener, "41");
+        assertEquals("41", handler.getLastEventId());
+        LdesStreamHandlerTest.send(handler, "{\"metric\": \"temp\", \"timestamp\": 1000, \"value\": 1}", "42");
+        assertEquals("42", handler.getLastEventId());
+        // A message without id does not reset it
+        LdesStreamHandlerTest.send(handler, "{\"metric\": \"temp\", \"timestamp\": 2000, \"value\": 2}", null);
+        assertEquals("42", handler.getLastEventId());
+    }
+
+    @Test
+    void forwardsErrors() {
+        RecordingListener listener = new RecordingListener();
+        LdesStreamHandler handler = new LdesStreamHandler("test", listener, null);
+        IOException error = new IOException("connection reset");
+        handler.onError(error);
+        assertEquals(1, listener.errors.size());
+        assertSame(error, listener.errors.get(0));
+    }
+
+    @Test
+    void resumesAReopenedStream() throws IOException, InterruptedException, LDESException {
+        // Every connection gets one event, numbered by connection, and stays open
+        BlockingQueue<Optional<String>> lastEventIds = new LinkedBlockingQueue<>();
+        CountDownLatch stopped = new CountDownLatch(1);
+        int[] connections = {0};
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/stream", (HttpExchange exchange) -> {
+            int connection;
+            synchronized (connections) {
+                connection = ++connections[0];
+            }
+            lastEventIds.add(Optional.ofNullable(exchange.getRequestHeaders().getFirst("Last-Event-ID")));
+            exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            body.write(("id: e" + connection + "\ndata: {\"metric\": \"temp\", \"timestamp\": " + connection
+                    + ", \"value\": " + connection + "}\n\n").getBytes(StandardCharsets.UTF_8));
+            body.flush();
+            try {
+                stopped.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.close();
+        });
+        server.start();
+        URI streamUrl = URI.create("http://localhost:" + server.getAddress().getPort() + "/stream");
+        LdesConsumer consumer = new LdesConsumer(null, null, null,
+                new LdesSettings().setStreamReconnectTime(Duration.ofMillis(100)));
+        try {
+            RecordingListener listener = new RecordingListener();
+            consumer.openStream("test", streamUrl, listener);
+            assertEquals(Optional.empty(), lastEventIds.poll(10, TimeUnit.SECONDS));
+            assertEquals("temp|null|1|1.0", listener.events.poll(10, TimeUnit.SECONDS));
+            consumer.closeStream("test");
+            consumer.openStream("test", streamUrl, listener);
+            Optional<String> resumed = lastEventIds.poll(10, TimeUnit.SECONDS);
+            assertNotNull(resumed);
+            assertEquals(Optional.of("e1"), resumed);
+            assertEquals("temp|null|2|2.0", listener.events.poll(10, TimeUnit.SECONDS));
+        } finally {
+            consumer.close();
+            stopped.countDown();
+            server.stop(0);
+        }
+    }
+}
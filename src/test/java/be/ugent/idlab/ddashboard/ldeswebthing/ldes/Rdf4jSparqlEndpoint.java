@@ -0,0 +1,326 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.Rdf4jSparqlEndpoint          *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.SparqlResultsFormat;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.vocabulary.XSD;
+import org.eclipse.rdf4j.query.MalformedQueryException;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQuery;
+import org.eclipse.rdf4j.query.TupleQueryResultHandler;
+import org.eclipse.rdf4j.query.resultio.sparqljson.SPARQLResultsJSONWriter;
+import org.eclipse.rdf4j.query.resultio.text.csv.SPARQLResultsCSVWriter;
+import org.eclipse.rdf4j.query.resultio.text.tsv.SPARQLResultsTSVWriter;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stand-in for the SPARQL endpoint of the aggregator (Comunica over the
+ * Solid pod), for end-to-end tests without pod, aggregator or Comunica: an
+ * embedded HTTP server evaluating the queries of LdesConsumer against an
+ * in-memory RDF4J repository. The repository is seeded with synthetic SAREF
+ * observations (hasTimestamp / hasValue, with a source) and updateable
+ * events (with key=value tags), at any scale.
+ * <p>
+ * Every query is really evaluated, so the cost of filters, ordering and
+ * paging shows, like on a real endpoint (if faster). Results are written in
+ * the first format of the Accept header that is a SparqlResultsFormat (JSON,
+ * TSV or CSV). The load generator of the benchmarks module uses it through
+ * the test jar.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+public class Rdf4jSparqlEndpoint implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(Rdf4jSparqlEndpoint.class.getName());
+
+    public static final String TIMESTAMP_PREDICATE = "https://saref.etsi.org/core/hasTimestamp";
+    public static final String VALUE_PREDICATE = "https://saref.etsi.org/core/hasValue";
+    public static final String SOURCE_PREDICATE = "https://saref.etsi.org/core/isMeasuredByDevice";
+    public static final String TAGS_PREDICATE = "https://example.org/tags";
+    private static final String MEMBER_BASE = "https://example.org/members/";
+
+    // Statements added per transaction while seeding
+    private static final int BATCH = 50_000;
+
+    private final Repository repository;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong statements = new AtomicLong();
+
+    /**
+     * Start an endpoint with an empty repository on a free local port.
+     *
+     * @param threads Number of queries evaluated at the same time
+     * @throws IOException
+     */
+    public Rdf4jSparqlEndpoint(int threads) throws IOException {
+        this.repository = new SailRepository(new MemoryStore());
+        this.repository.init();
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 256);
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "rdf4j-sparql");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server.setExecutor(this.executor);
+        this.server.createContext("/sparql", this::handle);
+        this.server.start();
+    }
+
+    /**
+     * Add the observations of a source: one every step from the first
+     * timestamp, with the values of getValue.
+     *
+     * @param source Source (thing) of the observations
+     * @param fromTimestamp UTC millisecond timestamp of the first observation
+     * @param count Number of observations
+     * @param step Milliseconds between two observations
+     */
+    public void seedObservations(String source, long fromTimestamp, long count, long step) {
+        ValueFactory values = this.repository.getValueFactory();
+        IRI timestamp = values.createIRI(TIMESTAMP_PREDICATE);
+        IRI value = values.createIRI(VALUE_PREDICATE);
+        IRI sourcePredicate = values.createIRI(SOURCE_PREDICATE);
+        try (RepositoryConnection connection = this.repository.getConnection()) {
+            connection.begin();
+            for (long i = 0; i < count; i++) {
+                IRI member = values.createIRI(MEMBER_BASE + source + "/" + i);
+                connection.add(member, timestamp, values.createLiteral(
+                        XsdDateTime.format(fromTimestamp + i * step, TimestampPrecision.MILLISECONDS), XSD.DATETIME));
+                connection.add(member, value, values.createLiteral(Rdf4jSparqlEndpoint.getValue(i)));
+                connection.add(member, sourcePredicate, values.createLiteral(source));
+                if ((i + 1) % (BATCH / 3) == 0) {
+                    connection.commit();
+                    connection.begin();
+                }
+            }
+            connection.commit();
+        }
+        this.statements.addAndGet(3 * count);
+        LOGGER.log(Level.FINE, "Seeded {0} observations of {1}", new Object[] {count, source});
+    }
+
+    /**
+     * Add updateable events of a source: every event is created once and
+     * updated a number of times, each version is a member with the id and
+     * update tags and the timestamp of the event. Every tenth event is
+     * deleted in its last update.
+     *
+     * @param source Source (thing) of the events
+     * @param fromTimestamp UTC millisecond timestamp of the first event
+     * @param events Number of events
+     * @param updates Number of updates of every event
+     * @param step Milliseconds between two events
+     */
+    public void seedEvents(String source, long fromTimestamp, int events, int updates, long step) {
+        ValueFactory values = this.repository.getValueFactory();
+        IRI timestamp = values.createIRI(TIMESTAMP_PREDICATE);
+        IRI value = values.createIRI(VALUE_PREDICATE);
+        IRI sourcePredicate = values.createIRI(SOURCE_PREDICATE);
+        IRI tags = values.createIRI(TAGS_PREDICATE);
+        long added = 0;
+        try (RepositoryConnection connection = this.repository.getConnection()) {
+            connection.begin();
+            for (int update = 0; update <= updates; update++) {
+                for (int event = 0; event < events; event++) {
+                    IRI member = values.createIRI(MEMBER_BASE + source + "/e" + event + "/" + update);
+                    connection.add(member, timestamp, values.createLiteral(
+                            XsdDateTime.format(fromTimestamp + event * step, TimestampPrecision.MILLISECONDS), XSD.DATETIME));
+                    connection.add(member, value, values.createLiteral(Rdf4jSparqlEndpoint.getValue(event) + update));
+                    connection.add(member, sourcePredicate, values.createLiteral(source));
+                    connection.add(member, tags, values.createLiteral("id=e" + event));
+                    connection.add(member, tags, values.createLiteral("update=" + update));
+                    added += 5;
+                    if (update == updates && updates > 0 && event % 10 == 0) {
+                        connection.add(member, tags, values.createLiteral("deleted=true"));
+                        added++;
+                    }
+                    if ((event + 1) % (BATCH / 6) == 0) {
+                        connection.commit();
+                        connection.begin();
+                    }
+                }
+            }
+            connection.commit();
+        }
+        this.statements.addAndGet(added);
+        LOGGER.log(Level.FINE, "Seeded {0} events of {1} with {2} updates", new Object[] {events, source, updates});
+    }
+
+    /**
+     * @param index Index of the observation (or event) of a source
+     * @return Value seeded at the index
+     */
+    public static double getValue(long index) {
+        return 20 + 5 * Math.sin(index / 600.0) + (index % 7) * 0.125;
+    }
+
+    /**
+     * @return URL of the endpoint, for LdesSettings.setSparqlEndpoint
+     */
+    public String getUrl() {
+        return "http://" + this.server.getAddress().getHostString() + ":" + this.server.getAddress().getPort() + "/sparql";
+    }
+
+    /**
+     * Settings querying this endpoint with the data shape of the seeded
+     * members, everything else at its default.
+     *
+     * @return LdesSettings
+     */
+    public LdesSettings createSettings() {
+        return new LdesSettings()
+                .setSparqlEndpoint(this.getUrl())
+                .setTimestampPredicate(TIMESTAMP_PREDICATE)
+                .setValuePredicate(VALUE_PREDICATE)
+                .setSourcePredicate(SOURCE_PREDICATE)
+                .setTagsPredicate(TAGS_PREDICATE);
+    }
+
+    public long getRequests() {
+        return this.requests.get();
+    }
+
+    /**
+     * @return Number of statements seeded
+     */
+    public long getStatements() {
+        return this.statements.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        this.requests.incrementAndGet();
+        try {
+            String query = Rdf4jSparqlEndpoint.readQuery(exchange);
+            if (query == null) {
+                Rdf4jSparqlEndpoint.sendError(exchange, 400, "Missing query");
+                return;
+            }
+            try (RepositoryConnection connection = this.repository.getConnection()) {
+                TupleQuery tupleQuery;
+                try {
+                    tupleQuery = connection.prepareTupleQuery(QueryLanguage.SPARQL, query);
+                } catch (MalformedQueryException e) {
+                    Rdf4jSparqlEndpoint.sendError(exchange, 400, e.getMessage());
+                    return;
+                }
+                SparqlResultsFormat format = Rdf4jSparqlEndpoint.negotiate(exchange);
+                exchange.getResponseHeaders().set("Content-Type", format.mediaType);
+                exchange.sendResponseHeaders(200, 0);
+                try (OutputStream output = exchange.getResponseBody()) {
+                    tupleQuery.evaluate(Rdf4jSparqlEndpoint.createWriter(format, output));
+                } catch (QueryEvaluationException e) {
+                    // The status is sent already, the truncated body fails the client
+                    LOGGER.log(Level.WARNING, "Query evaluation failed", e);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Read the query of a SPARQL protocol request: the query parameter of a
+     * GET, the body of a POST, or its query parameter if form encoded.
+     */
+    private static String readQuery(HttpExchange exchange) throws IOException {
+        if ("POST".equals(exchange.getRequestMethod())) {
+            String body;
+            try (InputStream input = exchange.getRequestBody()) {
+                body = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+                return Rdf4jSparqlEndpoint.getParameter(body, "query");
+            }
+            return body;
+        }
+        return Rdf4jSparqlEndpoint.getParameter(exchange.getRequestURI().getRawQuery(), "query");
+    }
+
+    private static String getParameter(String parameters, String name) {
+        if (parameters == null) {
+            return null;
+        }
+        for (String parameter : parameters.split("&")) {
+            if (parameter.startsWith(name + "=")) {
+                return URLDecoder.decode(parameter.substring(name.length() + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pick the results format of a request: the first media type of the
+     * Accept header that is a SparqlResultsFormat (quality values are not
+     * weighed, LdesConsumer lists its preference first).
+     */
+    private static SparqlResultsFormat negotiate(HttpExchange exchange) {
+        String accept = exchange.getRequestHeaders().getFirst("Accept");
+        if (accept != null) {
+            for (String mediaType : accept.split(",")) {
+                SparqlResultsFormat format = SparqlResultsFormat.fromContentType(mediaType);
+                // fromContentType falls back to JSON, only take JSON if it was asked for
+                if (format != SparqlResultsFormat.JSON || mediaType.trim().startsWith(format.mediaType)) {
+                    return format;
+                }
+            }
+        }
+        return SparqlResultsFormat.JSON;
+    }
+
+    private static TupleQueryResultHandler createWriter(SparqlResultsFormat format, OutputStream output) {
+        switch (format) {
+            case TSV:
+                return new SPARQLResultsTSVWriter(output);
+            case CSV:
+                return new SPARQLResultsCSVWriter(output);
+            default:
+                return new SPARQLResultsJSONWriter(output);
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        byte[] body = String.valueOf(message).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(body);
+        }
+    }
+
+    @Override
+    public void close() {
+        this.server.stop(0);
+        this.executor.shutdownNow();
+        this.repository.shutDown();
+    }
+}
@@ -0,0 +1,211 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SlicedEventCursorTest        *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventOrdering;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+import be.ugent.idlab.ddashboard.ldeswebthing.series.EventSeries;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SlicedEventCursor over slices answered from memory: one event every STEP
+ * ms, in the order of the slice query.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SlicedEventCursorTest {
+
+    private static final long STEP = 10;
+    // Slices of 10 events
+    private static final long SLICE_WIDTH = 100;
+
+    private ExecutorService executor;
+    private final AtomicInteger opened = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        this.executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    private static EventQuery query(long from, long to, EventOrdering ordering, Integer limit) {
+        return new EventQuery(Collections.singleton("test"), null, from, to, EnumSet.of(EventField.TIMESTAMP, EventField.VALUE),
+                null, null, ordering, null, limit, null, null);
+    }
+
+    private SlicedEventCursor open(EventQuery query, int parallelism, SlicedEventCursor.Opener opener) {
+        return new SlicedEventCursor(query, SLICE_WIDTH, parallelism, slice -> {
+            this.opened.incrementAndGet();
+            return opener.open(slice);
+        }, this.executor);
+    }
+
+    private static EventSeries drain(EventCursor cursor) throws LDESException {
+        EventSeries output = new EventSeries();
+        try {
+            cursor.drainTo(output);
+        } finally {
+            cursor.close();
+        }
+        return output;
+    }
+
+    @Test
+    void mergesTheSlicesAscending() throws LDESException {
+        EventSeries output = drain(this.open(query(0, 1000, null, null), 3, SliceCursor::new));
+        assertEquals(100, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals(i * STEP, output.getTimestamp(i));
+            assertEquals(i, output.getValue(i), 0);
+        }
+        assertEquals(10, this.opened.get());
+    }
+
+    @Test
+    void mergesTheSlicesDescending() throws LDESException {
+        // The last slice is shorter than the others
+        EventSeries output = drain(this.open(query(0, 950, EventOrdering.DESCENDING, null), 3, SliceCursor::new));
+        assertEquals(95, output.size());
+        for (int i = 0; i < output.size(); i++) {
+            assertEquals((94 - i) * STEP, output.getTimestamp(i));
+        }
+    }
+
+    @Test
+    void stopsAtTheLimit() throws LDESException {
+        EventSeries output = drain(this.open(query(0, 1000, null, 15), 2, SliceCursor::new));
+        assertEquals(15, output.size());
+        assertEquals(14 * STEP, output.getTimestamp(14));
+        // The first two slices, and at most the two started ahead of the reader
+        assertTrue(this.opened.get() <= 4, "Opened " + this.opened.get() + " slices");
+    }
+
+    @Test
+    void cancelsTheRunningSlices() throws LDESException, InterruptedException {
+        // All slices but the first never end
+        AtomicInteger stopped = new AtomicInteger();
+        SlicedEventCursor cursor = this.open(query(0, 1000, null, 5), 2, slice -> (slice.getFromTimestamp() == 0) ? new SliceCursor(slice)
+                : new SliceCursor(slice) {
+                    @Override
+                    public boolean next() {
+                        try {
+                            Thread.sleep(1);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        this.timestamp += STEP;
+                        return true;
+                    }
+
+                    @Override
+                    public void close() {
+                        stopped.incrementAndGet();
+                    }
+                });
+        assertEquals(5, drain(cursor).size());
+        // The slices started ahead of the reader stop reading and close their cursors, or are never opened
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (stopped.get() < this.opened.get() - 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(this.opened.get() - 1, stopped.get());
+        assertTrue(this.opened.get() <= 3, "Opened " + this.opened.get() + " slices");
+    }
+
+    @Test
+    void passesOnTheErrorOfASlice() throws LDESException {
+        LDESException failure = new LDESException("Slice failed");
+        SlicedEventCursor cursor = this.open(query(0, 1000, null, null), 2, slice -> {
+            if (slice.getFromTimestamp() == 200) {
+                throw failure;
+            }
+            return new SliceCursor(slice);
+        });
+        EventSeries output = new EventSeries();
+        assertSame(failure, assertThrows(LDESException.class, () -> cursor.drainTo(output)));
+        // The slices before the failed one were passed on
+        assertEquals(20, output.size());
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void wrapsUnexpectedErrorsOfASlice() {
+        IllegalStateException failure = new IllegalStateException("Broken");
+        SlicedEventCursor cursor = this.open(query(0, 1000, null, null), 2, slice -> {
+            throw failure;
+        });
+        LDESException exception = assertThrows(LDESException.class, cursor::next);
+        assertSame(failure, exception.getCause());
+    }
+
+    /**
+     * The events of a slice query, one every STEP ms with the value
+     * timestamp / STEP.
+     */
+    private static class SliceCursor implements EventCursor {
+
+        private final EventQuery query;
+        private final boolean descending;
+        long timestamp;
+
+        SliceCursor(EventQuery query) {
+            this.query = query;
+            this.descending = query.getOrderByOrdering() == EventOrdering.DESCENDING;
+            this.timestamp = this.descending ? query.getToTimestamp() : query.getFromTimestamp() - STEP;
+        }
+
+        @Override
+        public boolean next() throws LDESException {
+            long next = this.descending ? this.timestamp - STEP : this.timestamp + STEP;
+            if (next < this.query.getFromTimestamp() || next >= this.query.getToTimestamp()) {
+                return false;
+            }
+            this.timestamp = next;
+            return true;
+        }
+
+        @Override
+        public long getTimestamp() {
+            return this.timestamp;
+        }
+
+        @Override
+        public double getValue() {
+            return this.timestamp / STEP;
+        }
+
+        @Override
+        public String get(EventField field) {
+            return (field == EventField.VALUE) ? Double.toString(this.getValue()) : null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlCsvResultsReaderTest   *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SparqlCsvResultsReaderTest {
+
+    private static SparqlCsvResultsReader open(String results) throws LDESException {
+        return new SparqlCsvResultsReader(new ByteArrayInputStream(results.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsRowsByVariable() throws LDESException {
+        SparqlCsvResultsReader reader = open("timestamp,value,source\r\n"
+                + "2023-03-06T12:54:01.915Z,21.5,https://example.org/a\r\n"
+                + "2023-03-06T12:55:01.915Z,-3,\r\n");
+        assertTrue(reader.next());
+        assertEquals("2023-03-06T12:54:01.915Z", reader.get("timestamp"));
+        assertEquals("21.5", reader.get("value"));
+        assertEquals("https://example.org/a", reader.get("source"));
+        assertTrue(reader.next());
+        assertEquals("-3", reader.get("value"));
+        // An empty field is unbound
+        assertNull(reader.get("source"));
+        assertNull(reader.get("unknown"));
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test
+    void readsQuotedFields() throws LDESException {
+        SparqlCsvResultsReader reader = open("value,tags\n\"a, \"\"b\"\"\",\"x=1\ny=2\"\nÿ€,\"\"");
+        assertTrue(reader.next());
+        assertEquals("a, \"b\"", reader.get("value"));
+        assertEquals("x=1\ny=2", reader.get("tags"));
+        assertTrue(reader.next());
+        assertEquals("ÿ€", reader.get("value"));
+        assertNull(reader.get("tags"));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void readsLargeResults() throws LDESException {
+        StringBuilder results = new StringBuilder("timestamp,value\n");
+        for (int i = 0; i < 100_000; i++) {
+            results.append(i).append(',').append(i * 0.5).append('\n');
+        }
+        SparqlCsvResultsReader reader = open(results.toString());
+        int rows = 0;
+        double sum = 0;
+        while (reader.next()) {
+            assertEquals(Integer.toString(rows), reader.get("timestamp"));
+            sum += Double.parseDouble(reader.get("value"));
+            rows++;
+        }
+        assertEquals(100_000, rows);
+        assertEquals(0.5 * 99_999 * 100_000 / 2, sum);
+    }
+
+    @Test
+    void emptyResultsHaveNoRows() throws LDESException {
+        assertFalse(open("").next());
+        assertFalse(open("timestamp,value\r\n").next());
+    }
+
+    @Test
+    void rejectsAnUnterminatedQuote() throws LDESException {
+        SparqlCsvResultsReader reader = open("value,tags\n1,\"x=1");
+        assertThrows(LDESException.class, reader::next);
+    }
+}
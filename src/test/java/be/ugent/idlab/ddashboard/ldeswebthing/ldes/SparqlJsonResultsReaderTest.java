@@ -0,0 +1,72 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlJsonResultsReaderTest  *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SparqlJsonResultsReaderTest {
+
+    private static SparqlJsonResultsReader open(String results) throws LDESException {
+        return new SparqlJsonResultsReader(new ByteArrayInputStream(results.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsTheValuesOfTheBindings() throws LDESException {
+        SparqlJsonResultsReader reader = open("{\"head\": {\"vars\": [\"timestamp\", \"value\", \"source\"], \"link\": []},"
+                + " \"results\": {\"bindings\": ["
+                + "{\"timestamp\": {\"type\": \"literal\", \"value\": \"2023-03-06T12:54:01.915Z\", \"datatype\": \"http://www.w3.org/2001/XMLSchema#dateTime\"},"
+                + " \"value\": {\"type\": \"literal\", \"value\": \"21.5\"}, \"source\": {\"type\": \"uri\", \"value\": \"https://example.org/a\"}},"
+                + "{\"value\": {\"type\": \"literal\", \"xml:lang\": \"en\", \"value\": \"x \\\"y\\\"\"}}"
+                + "]}}");
+        assertTrue(reader.next());
+        assertEquals("2023-03-06T12:54:01.915Z", reader.get("timestamp"));
+        assertEquals("21.5", reader.get("value"));
+        assertEquals("https://example.org/a", reader.get("source"));
+        assertTrue(reader.next());
+        // Unbound variables are null, the previous binding is not kept
+        assertNull(reader.get("timestamp"));
+        assertEquals("x \"y\"", reader.get("value"));
+        assertFalse(reader.next());
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test
+    void findsTheBindingsAfterOtherMembers() throws LDESException {
+        SparqlJsonResultsReader reader = open("{\"results\": {\"distinct\": false, \"ordered\": true, \"bindings\": [{\"value\": {\"type\": \"literal\", \"value\": \"1\"}}]},"
+                + " \"head\": {\"vars\": [\"value\"]}}");
+        assertTrue(reader.next());
+        assertEquals("1", reader.get("value"));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void emptyOrBooleanResultsHaveNoBindings() throws LDESException {
+        assertFalse(open("{\"head\": {\"vars\": [\"value\"]}, \"results\": {\"bindings\": []}}").next());
+        assertFalse(open("{\"head\": {}, \"boolean\": true}").next());
+    }
+
+    @Test
+    void rejectsInvalidResults() throws LDESException {
+        assertThrows(LDESException.class, () -> open("[]"));
+        SparqlJsonResultsReader truncated = open("{\"results\": {\"bindings\": [{\"value\": {\"type\": \"literal\", \"val");
+        assertThrows(LDESException.class, truncated::next);
+    }
+}
@@ -0,0 +1,117 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlQueryBuilderTest       *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventField;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.EventQuery;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LdesSettings;
+
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.TupleQueryResult;
+import org.eclipse.rdf4j.repository.Repository;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.sail.SailRepository;
+import org.eclipse.rdf4j.sail.memory.MemoryStore;
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * SparqlQueryBuilder queries evaluated against an in-memory RDF4J
+ * repository, so a value that breaks out of its literal shows as a parse
+ * error or a wrong result.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SparqlQueryBuilderTest {
+
+    private static final String SOURCE = "https://saref.etsi.org/core/isMeasuredByDevice";
+    // Closes the literal and the filter, then matches every event
+    private static final String INJECTION = "x\") || true || (\"";
+
+    private final LdesSettings settings = new LdesSettings().setSourcePredicate(SOURCE);
+    private Repository repository;
+
+    @BeforeEach
+    void setUp() {
+        this.repository = new SailRepository(new MemoryStore());
+        ValueFactory factory = this.repository.getValueFactory();
+        IRI timestamp = factory.createIRI(this.settings.getTimestampPredicate());
+        IRI value = factory.createIRI(this.settings.getValuePredicate());
+        IRI source = factory.createIRI(SOURCE);
+        try (RepositoryConnection connection = this.repository.getConnection()) {
+            String[] sources = {"a", "b", INJECTION};
+            for (int i = 0; i < sources.length; i++) {
+                IRI event = factory.createIRI("urn:event:" + i);
+                connection.add(event, timestamp, factory.createLiteral(XsdDateTime.format(i * 1_000L, null), factory.createIRI(SparqlTemplate.XSD_DATE_TIME)));
+                connection.add(event, value, factory.createLiteral(i));
+                connection.add(event, source, factory.createLiteral(sources[i]));
+            }
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.repository.shutDown();
+    }
+
+    private static EventQuery query(Long from, Long to, JSONObject filter) {
+        return new EventQuery(Collections.singleton("test"), null, from, to, EnumSet.of(EventField.TIMESTAMP, EventField.VALUE),
+                null, null, null, filter, null, null, null);
+    }
+
+    private static JSONObject sourceEquals(String source) {
+        return new JSONObject().put("source", new JSONObject().put("_eq", source));
+    }
+
+    private List<String> evaluate(String sparql) {
+        List<String> events = new ArrayList<>();
+        try (RepositoryConnection connection = this.repository.getConnection();
+                TupleQueryResult result = connection.prepareTupleQuery(QueryLanguage.SPARQL, sparql).evaluate()) {
+            while (result.hasNext()) {
+                events.add(result.next().getValue("event").stringValue());
+            }
+        }
+        return events;
+    }
+
+    @Test
+    void keepsFilterValuesInTheirLiteral() {
+        SparqlQueryBuilder builder = new SparqlQueryBuilder(this.settings);
+        assertEquals(List.of("urn:event:1"), this.evaluate(builder.build(query(null, null, sourceEquals("b")), 0, null)));
+        // Only the event with that odd source, not all of them
+        assertEquals(List.of("urn:event:2"), this.evaluate(builder.build(query(null, null, sourceEquals(INJECTION)), 0, null)));
+    }
+
+    @Test
+    void reusesTheTemplateOfAShape() {
+        SparqlQueryBuilder builder = new SparqlQueryBuilder(this.settings);
+        // The plain window query is compiled up front
+        assertEquals(1, builder.getTemplateCount());
+        assertEquals(List.of("urn:event:0", "urn:event:1"), this.evaluate(builder.build(query(0L, 2_000L, null), 0, null)));
+        assertEquals(List.of("urn:event:1", "urn:event:2"), this.evaluate(builder.build(query(1_000L, 3_000L, null), 0, null)));
+        assertEquals(1, builder.getTemplateCount());
+
+        // Other operand values, same shape
+        builder.build(query(null, null, sourceEquals("a")), 0, null);
+        builder.build(query(null, null, sourceEquals("b")), 0, null);
+        assertEquals(2, builder.getTemplateCount());
+        // Paging and another operator are other shapes
+        assertEquals(List.of("urn:event:1"), this.evaluate(builder.build(query(null, null, null), 1, 1)));
+        builder.build(query(null, null, new JSONObject().put("source", new JSONObject().put("_neq", "a"))), 0, null);
+        assertEquals(4, builder.getTemplateCount());
+    }
+}
@@ -0,0 +1,88 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlTemplateTest           *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * SparqlTemplate validation, and the escaping of bound values so they can't
+ * change the structure of the query.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SparqlTemplateTest {
+
+    @Test
+    void bindsTheParameters() {
+        SparqlTemplate template = new SparqlTemplate("SELECT ?s WHERE { ?s ?p ?o FILTER (?o >= ${from} && ?o < ${to}) } LIMIT ${limit}");
+        assertEquals(Set.of("from", "to", "limit"), template.getParameters());
+        String query = template.toQuery(new SparqlTemplate.Bindings()
+                .dateTime("from", 0)
+                .dateTime("to", 1_000)
+                .integer("limit", 10));
+        assertEquals("SELECT ?s WHERE { ?s ?p ?o FILTER (?o >= \"1970-01-01T00:00:00.000Z\"^^<" + SparqlTemplate.XSD_DATE_TIME + ">"
+                + " && ?o < \"1970-01-01T00:00:01.000Z\"^^<" + SparqlTemplate.XSD_DATE_TIME + ">) } LIMIT 10", query);
+    }
+
+    @Test
+    void rejectsInvalidTemplates() {
+        for (String text : List.of(
+                "SELECT ?s WHERE { ?s ?p ${o",
+                "SELECT ?s WHERE { ?s ?p ${1o} }",
+                "SELECT ?s WHERE { ?s ?p ${} }",
+                "SELECT ?s WHERE { ?s ?p ?o ",
+                "SELECT ?s WHERE { ?s ?p ?o } }",
+                "SELECT ?s WHERE { ?s ?p ?o FILTER (?o > 1 }",
+                "SELECT ?s WHERE { ?s ?p \"o }",
+                "SELECT ?s WHERE { ?s <p ?o }")) {
+            assertThrows(IllegalArgumentException.class, () -> new SparqlTemplate(text), text);
+        }
+        // Braces and parentheses within literals and IRIs don't count
+        new SparqlTemplate("SELECT ?s WHERE { ?s <urn:p(> \"{ \\\" (\" }");
+    }
+
+    @Test
+    void requiresAllParametersBound() {
+        SparqlTemplate template = new SparqlTemplate("SELECT ?s WHERE { ?s ?p ${o} }");
+        assertThrows(IllegalArgumentException.class, () -> template.toQuery(new SparqlTemplate.Bindings().string("p", "x")));
+    }
+
+    @Test
+    void escapesStringLiterals() {
+        assertEquals("\"a\\\"b\\\\c\\nd\\re\"", SparqlTemplate.stringLiteral("a\"b\\c\nd\re"));
+
+        // A value trying to close the literal and the graph pattern stays one literal
+        SparqlTemplate template = new SparqlTemplate("SELECT ?s WHERE { ?s ?p ${o} }");
+        String query = template.toQuery(new SparqlTemplate.Bindings().string("o", "x\" } ; DROP ALL ; SELECT * { \\\""));
+        assertEquals("SELECT ?s WHERE { ?s ?p \"x\\\" } ; DROP ALL ; SELECT * { \\\\\\\"\" }", query);
+        // Still balanced: the value did not end the literal
+        new SparqlTemplate(query);
+    }
+
+    @Test
+    void acceptsOnlyAbsoluteIris() {
+        assertEquals("<https://saref.etsi.org/core/hasValue>", SparqlTemplate.iriReference("https://saref.etsi.org/core/hasValue"));
+        assertEquals("<urn:x>", SparqlTemplate.iriReference("urn:x"));
+        for (String iri : new String[] {null, "", "relative", ":x", "urn:a>b", "urn:a b", "urn:{a}", "urn:a\"b", "urn:a\\b", "urn:a\nb", "urn:a|b"}) {
+            assertThrows(IllegalArgumentException.class, () -> SparqlTemplate.iriReference(iri), String.valueOf(iri));
+        }
+        assertThrows(IllegalArgumentException.class, () -> new SparqlTemplate.Bindings().iri("p", "urn:a> ?x <urn:b"));
+    }
+
+    @Test
+    void rejectsNonFiniteNumbers() {
+        SparqlTemplate.Bindings bindings = new SparqlTemplate.Bindings();
+        assertThrows(IllegalArgumentException.class, () -> bindings.decimal("v", Double.NaN));
+        assertThrows(IllegalArgumentException.class, () -> bindings.decimal("v", Double.POSITIVE_INFINITY));
+        assertEquals("FILTER (?v > -1.5)", new SparqlTemplate("FILTER (?v > ${v})").toQuery(bindings.decimal("v", -1.5)));
+    }
+}
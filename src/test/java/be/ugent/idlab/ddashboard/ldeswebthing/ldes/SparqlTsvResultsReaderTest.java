@@ -0,0 +1,72 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.SparqlTsvResultsReaderTest   *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SparqlTsvResultsReaderTest {
+
+    private static SparqlTsvResultsReader open(String results) throws LDESException {
+        return new SparqlTsvResultsReader(new ByteArrayInputStream(results.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void readsTheLexicalValuesOfTheTerms() throws LDESException {
+        SparqlTsvResultsReader reader = open("?timestamp\t?value\t?source\t?tags\n"
+                + "\"2023-03-06T12:54:01.915Z\"^^<http://www.w3.org/2001/XMLSchema#dateTime>\t21.5\t<https://example.org/a>\t\"x=1\"@en\n"
+                + "\"2023-03-06T12:55:01.915Z\"^^<http://www.w3.org/2001/XMLSchema#dateTime>\t-3e0\t_:b0\t\r\n");
+        assertTrue(reader.next());
+        assertEquals("2023-03-06T12:54:01.915Z", reader.get("timestamp"));
+        assertEquals("21.5", reader.get("value"));
+        assertEquals("https://example.org/a", reader.get("source"));
+        assertEquals("x=1", reader.get("tags"));
+        assertTrue(reader.next());
+        assertEquals("-3e0", reader.get("value"));
+        assertEquals("b0", reader.get("source"));
+        // An empty field is unbound
+        assertNull(reader.get("tags"));
+        assertFalse(reader.next());
+        reader.close();
+    }
+
+    @Test
+    void resolvesEscapes() throws LDESException {
+        SparqlTsvResultsReader reader = open("?tags\n\"a\\tb\\n\\\"c\\\" \\u00e9\\U0001F600\"\n'single'\n");
+        assertTrue(reader.next());
+        assertEquals("a\tb\n\"c\" é😀", reader.get("tags"));
+        assertTrue(reader.next());
+        assertEquals("single", reader.get("tags"));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void acceptsVariablesWithoutMarker() throws LDESException {
+        SparqlTsvResultsReader reader = open("value\n1");
+        assertTrue(reader.next());
+        assertEquals("1", reader.get("value"));
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void rejectsAnUnterminatedLiteral() throws LDESException {
+        SparqlTsvResultsReader reader = open("?tags\n\"x=1\n");
+        assertThrows(LDESException.class, reader::next);
+    }
+}
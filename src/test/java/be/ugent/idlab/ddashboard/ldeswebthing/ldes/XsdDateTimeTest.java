@@ -0,0 +1,85 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.ldes.XsdDateTimeTest              *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.ldes;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class XsdDateTimeTest {
+
+    @Test
+    void parsesLikeInstant() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            // Between 1600 and 2400
+            long millis = -11_676_096_000_000L + (long) (random.nextDouble() * 25_245_000_000_000L);
+            String text = Instant.ofEpochMilli(millis).toString();
+            assertEquals(millis, XsdDateTime.parseMillis(text), text);
+            assertEquals(text.replace("Z", "").length() == 19 ? text.replace("Z", ".000Z") : text,
+                    XsdDateTime.format(millis, TimestampPrecision.MILLISECONDS));
+        }
+    }
+
+    @Test
+    void parsesTheTimeZoneOffset() {
+        assertEquals(OffsetDateTime.parse("2022-09-01T12:30:00+02:00").toInstant().toEpochMilli(),
+                XsdDateTime.parseMillis("2022-09-01T12:30:00+02:00"));
+        assertEquals(OffsetDateTime.parse("2022-09-01T12:30:00-05:30").toInstant().toEpochMilli(),
+                XsdDateTime.parseMillis("2022-09-01T12:30:00-05:30"));
+        // No time zone is UTC
+        assertEquals(Instant.parse("2022-09-01T12:30:00Z").toEpochMilli(), XsdDateTime.parseMillis("2022-09-01T12:30:00"));
+    }
+
+    @Test
+    void truncatesTheFractionToThePrecision() {
+        assertEquals(1_662_035_400_123L, XsdDateTime.parseMillis("2022-09-01T12:30:00.1239Z"));
+        assertEquals(1_662_035_400_123_900L, XsdDateTime.parse("2022-09-01T12:30:00.1239Z", TimestampPrecision.MICROSECONDS));
+        assertEquals(1_662_035_400L, XsdDateTime.parse("2022-09-01T12:30:00.999Z", TimestampPrecision.SECONDS));
+        assertEquals(1_662_035_400_100L, XsdDateTime.parse("2022-09-01T12:30:00.1Z", null));
+        // Towards the past, also before 1970
+        assertEquals(-1L, XsdDateTime.parse("1969-12-31T23:59:59.9Z", TimestampPrecision.SECONDS));
+        assertEquals(-1L, XsdDateTime.convert(-1, TimestampPrecision.MILLISECONDS, TimestampPrecision.SECONDS));
+        assertEquals(-1_000L, XsdDateTime.convert(-1, TimestampPrecision.SECONDS, TimestampPrecision.MILLISECONDS));
+    }
+
+    @Test
+    void formatsInThePrecision() {
+        assertEquals("2022-09-01T12:30:00Z", XsdDateTime.format(1_662_035_400L, TimestampPrecision.SECONDS));
+        assertEquals("2022-09-01T12:30:00.000123Z", XsdDateTime.format(1_662_035_400_000_123L, TimestampPrecision.MICROSECONDS));
+        assertEquals("1969-12-31T23:59:59.999Z", XsdDateTime.format(-1, null));
+        assertEquals("2000-02-29T00:00:00Z", XsdDateTime.format(951_782_400L, TimestampPrecision.SECONDS));
+        assertEquals(Instant.ofEpochSecond(1, 500_000), XsdDateTime.toInstant(1_000_500L, TimestampPrecision.MICROSECONDS));
+    }
+
+    @Test
+    void midnightOfTheNextDay() {
+        assertEquals(Instant.parse("2022-09-02T00:00:00Z").toEpochMilli(), XsdDateTime.parseMillis("2022-09-01T24:00:00Z"));
+    }
+
+    @Test
+    void rejectsInvalidValues() {
+        String[] invalid = {
+            "", "2022-09-01", "2022-09-01T12:30Z", "22-09-01T12:30:00Z", "02022-09-01T12:30:00Z",
+            "2022-13-01T12:30:00Z", "2022-02-29T12:30:00Z", "2022-09-01T12:60:00Z", "2022-09-01T24:00:01Z",
+            "2022-09-01T12:30:00.Z", "2022-09-01T12:30:00+15:00", "2022-09-01T12:30:00Zjunk", "2022-09-01 12:30:00Z"
+        };
+        for (String text : invalid) {
+            assertThrows(DateTimeParseException.class, () -> XsdDateTime.parseMillis(text), text);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.DownsamplerTest            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.DownsampleMode;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class DownsamplerTest {
+
+    private static EventSeries downsample(DownsampleMode mode, long bucketWidth, long[] timestamps, double[] values) {
+        EventSeries output = new EventSeries();
+        Downsampler downsampler = Downsampler.create(mode, 0, timestamps[timestamps.length - 1] + 1, 0, bucketWidth, output);
+        for (int i = 0; i < timestamps.length; i++) {
+            downsampler.accept(timestamps[i], values[i]);
+        }
+        downsampler.finish();
+        return output;
+    }
+
+    private static long[] range(int count) {
+        long[] timestamps = new long[count];
+        for (int i = 0; i < count; i++) {
+            timestamps[i] = i;
+        }
+        return timestamps;
+    }
+
+    @Test
+    void minMaxKeepsTheExtremesOfEveryBucketInTimeOrder() {
+        double[] values = {5, 9, 1, 5, 5, 5, 7, 3, 5, 5};
+        EventSeries output = downsample(DownsampleMode.MINMAX, 5, range(10), values);
+        assertArrayEquals(new long[] {1, 2, 6, 7}, output.timestamps());
+        assertArrayEquals(new double[] {9, 1, 7, 3}, output.values());
+    }
+
+    @Test
+    void minMaxKeepsASinglePointOnce() {
+        EventSeries output = downsample(DownsampleMode.MINMAX, 5, new long[] {0, 7}, new double[] {1, 2});
+        assertArrayEquals(new long[] {0, 7}, output.timestamps());
+    }
+
+    @Test
+    void averageOutputsTheMeanAtTheBucketStart() {
+        EventSeries output = downsample(DownsampleMode.AVERAGE, 4, new long[] {1, 2, 5, 6, 7, 13}, new double[] {1, 3, 2, 4, 6, 8});
+        assertArrayEquals(new long[] {0, 4, 12}, output.timestamps());
+        assertArrayEquals(new double[] {2, 4, 8}, output.values());
+    }
+
+    @Test
+    void lttbKeepsTheFirstLastAndOnePointPerBucket() {
+        int count = 1000;
+        double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = Math.sin(i / 50.0);
+        }
+        // A spike is the point forming the largest triangle in its bucket
+        values[555] = 10;
+        EventSeries output = downsample(DownsampleMode.LTTB, 100, range(count), values);
+        assertEquals(12, output.size());
+        assertEquals(0, output.getTimestamp(0));
+        assertEquals(count - 1, output.getTimestamp(output.size() - 1));
+        boolean spike = false;
+        for (int i = 0; i < output.size(); i++) {
+            if (i > 0) {
+                assertTrue(output.getTimestamp(i) > output.getTimestamp(i - 1));
+            }
+            spike |= output.getTimestamp(i) == 555 && output.getValue(i) == 10;
+        }
+        assertTrue(spike, "the spike is kept");
+    }
+
+    @Test
+    void lttbKeepsEverythingWhenThereAreFewerPointsThanBuckets() {
+        long[] timestamps = {0, 10, 20, 30};
+        EventSeries output = downsample(DownsampleMode.LTTB, 5, timestamps, new double[] {1, 2, 3, 4});
+        assertArrayEquals(timestamps, output.timestamps());
+        assertArrayEquals(new double[] {1, 2, 3, 4}, output.values());
+    }
+
+    @Test
+    void stopsWhenTheOutputStops() {
+        EventSeries kept = new EventSeries();
+        Downsampler downsampler = Downsampler.create(DownsampleMode.AVERAGE, 0, 100, 0, 10, (timestamp, value) -> {
+            kept.add(timestamp, value);
+            return kept.size() < 2;
+        });
+        boolean accepting = true;
+        for (long timestamp = 0; timestamp < 100 && accepting; timestamp++) {
+            accepting = downsampler.accept(timestamp, 1);
+        }
+        downsampler.finish();
+        assertEquals(2, kept.size());
+        assertTrue(!accepting);
+    }
+
+    @Test
+    void derivesTheBucketWidthFromTheTargetPoints() {
+        assertEquals(100, Downsampler.getBucketWidth(DownsampleMode.AVERAGE, 0, 1000, 10, 0));
+        // Two points per bucket
+        assertEquals(200, Downsampler.getBucketWidth(DownsampleMode.MINMAX, 0, 1000, 10, 0));
+        // The first and last point come on top of the buckets
+        assertEquals(125, Downsampler.getBucketWidth(DownsampleMode.LTTB, 0, 1000, 10, 0));
+        assertEquals(7, Downsampler.getBucketWidth(DownsampleMode.LTTB, 0, 1000, 10, 7));
+        // Never zero, also for an empty range or too few target points
+        assertEquals(1, Downsampler.getBucketWidth(DownsampleMode.AVERAGE, 0, 0, 10, 0));
+        assertEquals(1000, Downsampler.getBucketWidth(DownsampleMode.LTTB, 0, 1000, 2, 0));
+    }
+}
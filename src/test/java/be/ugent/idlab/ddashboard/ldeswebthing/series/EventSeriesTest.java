@@ -0,0 +1,89 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.EventSeriesTest            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.TimestampPrecision;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class EventSeriesTest {
+
+    private static EventSeries of(long... timestampValuePairs) {
+        EventSeries series = new EventSeries();
+        for (int i = 0; i < timestampValuePairs.length; i += 2) {
+            series.add(timestampValuePairs[i], timestampValuePairs[i + 1]);
+        }
+        return series;
+    }
+
+    @Test
+    void mergeAppendsNewerObservations() {
+        EventSeries series = of(1, 10, 2, 20);
+        series.merge(of(3, 30, 4, 40));
+        assertArrayEquals(new long[] {1, 2, 3, 4}, series.timestamps());
+        assertArrayEquals(new double[] {10, 20, 30, 40}, series.values());
+    }
+
+    @Test
+    void mergeInterleavesAndReplacesEqualTimestamps() {
+        EventSeries series = of(1, 10, 3, 30, 5, 50);
+        series.merge(of(2, 21, 3, 31, 6, 61));
+        assertArrayEquals(new long[] {1, 2, 3, 5, 6}, series.timestamps());
+        assertArrayEquals(new double[] {10, 21, 31, 50, 61}, series.values());
+
+        // Merging the same observations again changes nothing
+        series.merge(of(2, 21, 3, 31));
+        assertEquals(5, series.size());
+    }
+
+    @Test
+    void mergeRequiresSortedSeries() {
+        EventSeries unsorted = of(2, 20, 1, 10);
+        assertFalse(unsorted.isSorted());
+        assertThrows(IllegalStateException.class, () -> of(0, 0).merge(unsorted));
+        unsorted.sort();
+        assertTrue(unsorted.isSorted());
+    }
+
+    @Test
+    void mergeRequiresTheSamePrecision() {
+        EventSeries micros = new EventSeries(4, TimestampPrecision.MICROSECONDS);
+        micros.add(1_000_001, 1);
+        assertEquals(TimestampPrecision.MICROSECONDS, micros.getPrecision());
+        assertEquals(TimestampPrecision.MILLISECONDS, of(1, 1).getPrecision());
+        assertThrows(IllegalArgumentException.class, () -> of(0, 0).merge(micros));
+    }
+
+    @Test
+    void sortKeepsTheOrderOfEqualTimestamps() {
+        EventSeries series = of(3, 1, 1, 2, 3, 3, 2, 4, 1, 5);
+        series.sort();
+        assertArrayEquals(new long[] {1, 1, 2, 3, 3}, series.timestamps());
+        assertArrayEquals(new double[] {2, 5, 4, 1, 3}, series.values());
+    }
+
+    @Test
+    void emitsAHalfOpenRangeAndStopsWhenAsked() {
+        EventSeries series = of(1, 10, 2, 20, 3, 30, 4, 40);
+        EventSeries emitted = new EventSeries();
+        assertEquals(2, series.emit(2, 4, emitted));
+        assertArrayEquals(new long[] {2, 3}, emitted.timestamps());
+
+        int[] count = {0};
+        assertEquals(1, series.emit(0, 10, (t, v) -> ++count[0] < 2));
+        assertEquals(2, series.removeBefore(3));
+        assertArrayEquals(new long[] {3, 4}, series.timestamps());
+    }
+}
@@ -0,0 +1,78 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.IntervalSetTest            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class IntervalSetTest {
+
+    @Test
+    void mergesOverlappingAndAdjacentIntervals() {
+        IntervalSet set = new IntervalSet();
+        set.add(10, 20);
+        set.add(30, 40);
+        set.add(20, 25);
+        set.add(35, 50);
+        assertTrue(set.covers(10, 25));
+        assertTrue(set.covers(30, 50));
+        assertFalse(set.covers(10, 30));
+
+        set.add(5, 60);
+        assertTrue(set.covers(5, 60));
+        assertEquals(0, set.gaps(5, 60).size());
+    }
+
+    @Test
+    void ignoresEmptyIntervals() {
+        IntervalSet set = new IntervalSet();
+        set.add(10, 10);
+        set.add(20, 15);
+        assertTrue(set.isEmpty());
+        assertTrue(set.covers(7, 7));
+    }
+
+    @Test
+    void gapsAreTheUncoveredParts() {
+        IntervalSet set = new IntervalSet();
+        set.add(10, 20);
+        set.add(30, 40);
+        List<long[]> gaps = set.gaps(0, 50);
+        assertEquals(3, gaps.size());
+        assertArrayEquals(new long[] {0, 10}, gaps.get(0));
+        assertArrayEquals(new long[] {20, 30}, gaps.get(1));
+        assertArrayEquals(new long[] {40, 50}, gaps.get(2));
+
+        // Starting inside a covered interval
+        gaps = set.gaps(15, 35);
+        assertEquals(1, gaps.size());
+        assertArrayEquals(new long[] {20, 30}, gaps.get(0));
+
+        assertEquals(1, new IntervalSet().gaps(0, 5).size());
+    }
+
+    @Test
+    void removeBeforeTruncatesTheStraddlingInterval() {
+        IntervalSet set = new IntervalSet();
+        set.add(0, 10);
+        set.add(20, 40);
+        set.removeBefore(30);
+        assertFalse(set.covers(0, 10));
+        assertFalse(set.covers(20, 30));
+        assertTrue(set.covers(30, 40));
+        set.removeBefore(40);
+        assertTrue(set.isEmpty());
+    }
+}
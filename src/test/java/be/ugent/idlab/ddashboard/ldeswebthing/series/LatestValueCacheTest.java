@@ -0,0 +1,129 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.LatestValueCacheTest       *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * LatestValueCache with loaders answered from memory, the background
+ * refreshes run on the scheduler thread.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class LatestValueCacheTest {
+
+    private static final long HOUR = 3_600_000L;
+
+    private LatestValueCache cache;
+
+    @AfterEach
+    void tearDown() {
+        if (this.cache != null) {
+            this.cache.close();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    @Test
+    void servesTheLoadedValueUntilNotified() throws LDESException {
+        this.cache = new LatestValueCache(HOUR, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        LatestValueCache.Loader loader = sink -> {
+            loads.incrementAndGet();
+            sink.accept(1_000, 1);
+        };
+        assertEquals(1_000, this.cache.get("a", loader).getTimestamp());
+        assertEquals(1_000, this.cache.get("a", loader).getTimestamp());
+        assertEquals(1, loads.get());
+        assertEquals(1, this.cache.getHits());
+        assertEquals(1, this.cache.getMisses());
+
+        // Newer notifications replace the value, older ones are ignored
+        this.cache.update("a", 2_000, 2);
+        this.cache.update("a", 1_500, 1.5);
+        assertEquals(2.0, this.cache.get("a", loader).getValue(), 0);
+        // Keys that were never requested are not cached
+        this.cache.update("b", 2_000, 2);
+        assertEquals(1, this.cache.size());
+    }
+
+    @Test
+    void keepsANewerNotificationReceivedDuringTheLoad() throws LDESException {
+        this.cache = new LatestValueCache(HOUR, Runnable::run);
+        // The observation at 2000 is notified while the load still returns the one at 1000
+        LatestValueCache.LatestValue latest = this.cache.get("a", sink -> {
+            this.cache.update("a", 2_000, 2);
+            sink.accept(1_000, 1);
+        });
+        assertEquals(2_000, latest.getTimestamp());
+        assertEquals(2_000, this.cache.get("a", sink -> sink.accept(0, 0)).getTimestamp());
+    }
+
+    @Test
+    void keepsTheLoadOverAnOlderNotificationDuringTheLoad() throws LDESException {
+        this.cache = new LatestValueCache(HOUR, Runnable::run);
+        LatestValueCache.LatestValue latest = this.cache.get("a", sink -> {
+            this.cache.update("a", 500, 0.5);
+            sink.accept(1_000, 1);
+        });
+        assertEquals(1_000, latest.getTimestamp());
+        assertEquals(1.0, this.cache.get("a", sink -> sink.accept(0, 0)).getValue(), 0);
+    }
+
+    @Test
+    void takesANotificationForAKeyWithoutObservations() throws LDESException {
+        this.cache = new LatestValueCache(HOUR, Runnable::run);
+        assertFalse(this.cache.get("a", sink -> { }).isPresent());
+        this.cache.update("a", 1_000, 1);
+        assertTrue(this.cache.get("a", sink -> { }).isPresent());
+    }
+
+    @Test
+    void refreshesInTheBackgroundAndDropsIdleKeys() throws LDESException, InterruptedException {
+        // Idle after 10 intervals
+        this.cache = new LatestValueCache(20, Runnable::run);
+        AtomicInteger loads = new AtomicInteger();
+        this.cache.get("a", sink -> sink.accept(loads.incrementAndGet(), 0));
+        await(() -> loads.get() >= 3);
+        assertTrue(this.cache.get("a", sink -> { }).getTimestamp() >= 2);
+        // No more requests: dropped, and no longer refreshed
+        await(() -> this.cache.size() == 0);
+        int refreshed = loads.get();
+        Thread.sleep(100);
+        assertTrue(loads.get() <= refreshed + 1);
+    }
+
+    @Test
+    void reportsTheMaxStaleness() throws LDESException, InterruptedException {
+        this.cache = new LatestValueCache(HOUR, Runnable::run);
+        assertEquals(0, this.cache.getMaxStaleness());
+        this.cache.get("a", sink -> sink.accept(1_000, 1));
+        Thread.sleep(50);
+        this.cache.get("b", sink -> sink.accept(1_000, 1));
+        assertTrue(this.cache.getMaxStaleness() >= 50);
+        // A notification confirms the value again
+        this.cache.update("a", 2_000, 2);
+        assertTrue(this.cache.getMaxStaleness() < 50);
+    }
+}
@@ -0,0 +1,151 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.ObservationRangeCacheTest  *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class ObservationRangeCacheTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+    private static final long STEP = 60_000L;
+
+    // Window start, aligned on the step and well within the retention
+    private final long start = (System.currentTimeMillis() - 6 * HOUR) / STEP * STEP;
+
+    /**
+     * Loader of one observation per step, recording the requested intervals.
+     */
+    private static class StepLoader implements ObservationRangeCache.Loader {
+
+        private final List<long[]> loaded = new ArrayList<>();
+
+        @Override
+        public synchronized void load(long fromTimestamp, long toTimestamp, EventSink sink) {
+            this.loaded.add(new long[] {fromTimestamp, toTimestamp});
+            for (long timestamp = (fromTimestamp + STEP - 1) / STEP * STEP; timestamp < toTimestamp; timestamp += STEP) {
+                sink.accept(timestamp, timestamp / STEP);
+            }
+        }
+    }
+
+    private static EventSeries get(ObservationRangeCache cache, String propertyId, long from, long to, ObservationRangeCache.Loader loader) throws Exception {
+        EventSeries result = new EventSeries();
+        cache.get("thing", propertyId, from, to, loader, result);
+        return result;
+    }
+
+    @Test
+    void onlyLoadsTheMissingPartOfASlidingWindow() throws Exception {
+        ObservationRangeCache cache = new ObservationRangeCache(1_000_000, DAY, STEP);
+        StepLoader loader = new StepLoader();
+
+        EventSeries first = get(cache, "p", this.start, this.start + HOUR, loader);
+        assertEquals(60, first.size());
+        assertEquals(1, cache.getMisses());
+
+        EventSeries second = get(cache, "p", this.start + 10 * STEP, this.start + HOUR + 10 * STEP, loader);
+        assertEquals(60, second.size());
+        assertEquals(this.start + 10 * STEP, second.getTimestamp(0));
+        assertEquals(2, loader.loaded.size());
+        assertArrayEquals(new long[] {this.start + HOUR, this.start + HOUR + 10 * STEP}, loader.loaded.get(1));
+
+        get(cache, "p", this.start + STEP, this.start + HOUR, loader);
+        assertEquals(1, cache.getHits());
+        assertEquals(2, loader.loaded.size());
+    }
+
+    @Test
+    void reloadsTheLiveEdge() throws Exception {
+        ObservationRangeCache cache = new ObservationRangeCache(1_000_000, DAY, 2 * HOUR);
+        StepLoader loader = new StepLoader();
+        long now = System.currentTimeMillis();
+        get(cache, "p", now - 3 * HOUR, now, loader);
+        get(cache, "p", now - 3 * HOUR, now, loader);
+        assertEquals(2, loader.loaded.size());
+        // Only the last two hours are loaded again
+        assertTrue(loader.loaded.get(1)[0] >= now - 2 * HOUR);
+    }
+
+    @Test
+    void doesNotCacheBeyondTheRetention() throws Exception {
+        ObservationRangeCache cache = new ObservationRangeCache(1_000_000, HOUR, STEP);
+        StepLoader loader = new StepLoader();
+        get(cache, "p", this.start, this.start + HOUR, loader);
+        get(cache, "p", this.start, this.start + HOUR, loader);
+        assertEquals(2, loader.loaded.size());
+        assertEquals(0, cache.getHits());
+    }
+
+    @Test
+    void evictsTheLeastRecentlyUsedSeries() throws Exception {
+        ObservationRangeCache cache = new ObservationRangeCache(150, DAY, STEP);
+        StepLoader loader = new StepLoader();
+        get(cache, "a", this.start, this.start + HOUR, loader);
+        get(cache, "b", this.start, this.start + HOUR, loader);
+        // a is evicted to make room for c, b is still cached
+        get(cache, "c", this.start, this.start + HOUR, loader);
+        get(cache, "b", this.start, this.start + HOUR, loader);
+        assertEquals(1, cache.getHits());
+        get(cache, "a", this.start, this.start + HOUR, loader);
+        assertEquals(1, cache.getHits());
+        assertEquals(4, cache.getMisses());
+    }
+
+    @Test
+    void evictionDoesNotWaitForASeriesThatIsLoading() throws Exception {
+        ObservationRangeCache cache = new ObservationRangeCache(100, DAY, STEP);
+        StepLoader loader = new StepLoader();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object[] slow = new Object[2];
+        Thread thread = new Thread(() -> {
+            try {
+                slow[0] = get(cache, "slow", this.start, this.start + HOUR, (from, to, sink) -> {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    loader.load(from, to, sink);
+                });
+            } catch (Exception e) {
+                slow[1] = e;
+            }
+        });
+        thread.start();
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        // Other series keep being served, evicting the loading one
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            get(cache, "a", this.start, this.start + HOUR, loader);
+            get(cache, "b", this.start, this.start + HOUR, loader);
+        });
+
+        release.countDown();
+        thread.join(10_000);
+        assertNull(slow[1]);
+        assertEquals(60, ((EventSeries) slow[0]).size());
+    }
+}
@@ -0,0 +1,277 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.ObservationReplicaTest     *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class ObservationReplicaTest {
+
+    private static final long HOUR = 3_600_000L;
+    private static final long DAY = 24 * HOUR;
+    private static final long STEP = 60_000L;
+    // Segment header offsets
+    private static final int COUNT_OFFSET = 8;
+    private static final int FROM_OFFSET = 16;
+    private static final int TO_OFFSET = 24;
+    private static final int HEADER = 32;
+    private static final int RECORD = 16;
+
+    // Window start, aligned on the step and well within the retention
+    private final long start = (System.currentTimeMillis() - 6 * HOUR) / STEP * STEP;
+    private Path directory;
+
+    /**
+     * Loader of one observation per step, recording the requested intervals.
+     */
+    private static class StepLoader implements ObservationRangeCache.Loader {
+
+        private final List<long[]> loaded = new ArrayList<>();
+
+        @Override
+        public synchronized void load(long fromTimestamp, long toTimestamp, EventSink sink) {
+            this.loaded.add(new long[] {fromTimestamp, toTimestamp});
+            for (long timestamp = (fromTimestamp + STEP - 1) / STEP * STEP; timestamp < toTimestamp; timestamp += STEP) {
+                sink.accept(timestamp, timestamp / STEP);
+            }
+        }
+
+        private synchronized int loads() {
+            return this.loaded.size();
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws IOException {
+        this.directory = Files.createTempDirectory("replica");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).collect(Collectors.toList())) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static EventSeries get(ObservationReplica replica, long from, long to, ObservationRangeCache.Loader loader) throws Exception {
+        EventSeries result = new EventSeries();
+        replica.get("thing", "p", from, to, loader, result);
+        return result;
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.walk(this.directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).sorted().collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Check a result holds the observations of the StepLoader in [from, to).
+     */
+    private static void assertSteps(long from, long to, EventSeries result) {
+        assertEquals((to - from) / STEP, result.size());
+        for (int i = 0; i < result.size(); i++) {
+            assertEquals(from + i * STEP, result.getTimestamp(i));
+            assertEquals((from + i * STEP) / STEP, result.getValue(i));
+        }
+    }
+
+    @Test
+    void extendsTheSegmentALoadStartsAfter() throws Exception {
+        ObservationReplica replica = new ObservationReplica(this.directory, DAY, STEP);
+        StepLoader loader = new StepLoader();
+        assertSteps(this.start, this.start + HOUR, get(replica, this.start, this.start + HOUR, loader));
+        assertSteps(this.start + HOUR, this.start + 2 * HOUR, get(replica, this.start + HOUR, this.start + 2 * HOUR, loader));
+        assertArrayEquals(new long[] {this.start + HOUR, this.start + 2 * HOUR}, loader.loaded.get(1));
+        assertEquals(1, this.segments().size());
+
+        assertSteps(this.start + 10 * STEP, this.start + 110 * STEP, get(replica, this.start + 10 * STEP, this.start + 110 * STEP, loader));
+        assertEquals(2, loader.loads());
+        assertEquals(1, replica.getHits());
+        assertEquals(2, replica.getMisses());
+    }
+
+    @Test
+    void onlyLoadsTheGapsBetweenSegments() throws Exception {
+        ObservationReplica replica = new ObservationReplica(this.directory, DAY, STEP);
+        StepLoader loader = new StepLoader();
+        get(replica, this.start, this.start + HOUR, loader);
+        get(replica, this.start + 2 * HOUR, this.start + 3 * HOUR, loader);
+        assertSteps(this.start, this.start + 3 * HOUR, get(replica, this.start, this.start + 3 * HOUR, loader));
+        assertEquals(3, loader.loads());
+        assertArrayEquals(new long[] {this.start + HOUR, this.start + 2 * HOUR}, loader.loaded.get(2));
+    }
+
+    @Test
+    void reopensTheStoredWindows() throws Exception {
+        StepLoader loader = new StepLoader();
+        get(new ObservationReplica(this.directory, DAY, STEP), this.start, this.start + HOUR, loader);
+        ObservationReplica reopened = new ObservationReplica(this.directory, DAY, STEP);
+        assertSteps(this.start, this.start + HOUR, get(reopened, this.start, this.start + HOUR, loader));
+        assertEquals(1, loader.loads());
+        assertEquals(1, reopened.getHits());
+    }
+
+    @Test
+    void ignoresRecordsWrittenBeforeAnInterruptedHeaderUpdate() throws Exception {
+        StepLoader loader = new StepLoader();
+        get(new ObservationReplica(this.directory, DAY, STEP), this.start, this.start + HOUR, loader);
+        Path segment = this.segments().get(0);
+        // A record and the count were written, the write stopped before the coverage
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long count = ObservationReplicaTest.readLong(channel, COUNT_OFFSET);
+            long coveredTo = ObservationReplicaTest.readLong(channel, TO_OFFSET);
+            ByteBuffer record = ByteBuffer.allocate(RECORD).putLong(coveredTo + 1).putDouble(-1);
+            channel.write(record.flip(), HEADER + count * RECORD);
+            ObservationReplicaTest.writeLong(channel, COUNT_OFFSET, count + 1);
+        }
+
+        ObservationReplica reopened = new ObservationReplica(this.directory, DAY, STEP);
+        assertSteps(this.start, this.start + 2 * HOUR, get(reopened, this.start, this.start + 2 * HOUR, loader));
+        assertArrayEquals(new long[] {this.start + HOUR, this.start + 2 * HOUR}, loader.loaded.get(1));
+        // The extension overwrote the uncovered record
+        assertSteps(this.start, this.start + 2 * HOUR,
+                get(new ObservationReplica(this.directory, DAY, STEP), this.start, this.start + 2 * HOUR, loader));
+        assertEquals(2, loader.loads());
+    }
+
+    @Test
+    void dropsASegmentThatNeverGotItsCoverage() throws Exception {
+        StepLoader loader = new StepLoader();
+        get(new ObservationReplica(this.directory, DAY, STEP), this.start, this.start + HOUR, loader);
+        Path segment = this.segments().get(0);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ObservationReplicaTest.writeLong(channel, TO_OFFSET, ObservationReplicaTest.readLong(channel, FROM_OFFSET));
+        }
+
+        assertSteps(this.start, this.start + HOUR,
+                get(new ObservationReplica(this.directory, DAY, STEP), this.start, this.start + HOUR, loader));
+        assertEquals(2, loader.loads());
+        assertEquals(1, this.segments().size());
+    }
+
+    @Test
+    void compactsSmallSegmentsThatTouch() throws Exception {
+        ObservationReplica replica = new ObservationReplica(this.directory, DAY, STEP);
+        StepLoader loader = new StepLoader();
+        long width = 10 * STEP;
+        // Loading backwards gives every window a segment of its own
+        for (int i = 31; i >= 0; i--) {
+            get(replica, this.start + i * width, this.start + (i + 1) * width, loader);
+            if (i > 0) {
+                assertEquals(32 - i, this.segments().size());
+            }
+        }
+        assertEquals(1, this.segments().size());
+
+        long end = this.start + 32 * width;
+        assertSteps(this.start, end, get(replica, this.start, end, loader));
+        assertSteps(this.start, end, get(new ObservationReplica(this.directory, DAY, STEP), this.start, end, loader));
+        assertEquals(32, loader.loads());
+    }
+
+    @Test
+    void expiresSegmentsPastTheRetention() throws Exception {
+        StepLoader loader = new StepLoader();
+        long old = this.start - 3 * DAY;
+        // Without retention everything is kept
+        ObservationReplica keeping = new ObservationReplica(this.directory, 0, STEP);
+        get(keeping, old, old + HOUR, loader);
+        get(keeping, this.start, this.start + HOUR, loader);
+        assertEquals(2, this.segments().size());
+
+        ObservationReplica replica = new ObservationReplica(this.directory, DAY, STEP);
+        assertSteps(this.start, this.start + HOUR, get(replica, this.start, this.start + HOUR, loader));
+        assertEquals(1, this.segments().size());
+        assertEquals(2, loader.loads());
+        // Past the retention nothing is stored
+        assertSteps(old, old + HOUR, get(replica, old, old + HOUR, loader));
+        assertSteps(old, old + HOUR, get(replica, old, old + HOUR, loader));
+        assertEquals(4, loader.loads());
+        assertEquals(1, this.segments().size());
+    }
+
+    @Test
+    void servesCoveredWindowsWhileAGapLoads() throws Exception {
+        ObservationReplica replica = new ObservationReplica(this.directory, DAY, STEP);
+        StepLoader loader = new StepLoader();
+        get(replica, this.start, this.start + HOUR, loader);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Object[] slow = new Object[2];
+        Thread thread = new Thread(() -> {
+            try {
+                slow[0] = get(replica, this.start + HOUR, this.start + 2 * HOUR, (from, to, sink) -> {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    loader.load(from, to, sink);
+                });
+            } catch (Exception e) {
+                slow[1] = e;
+            }
+        });
+        thread.start();
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            assertSteps(this.start, this.start + HOUR, get(replica, this.start, this.start + HOUR, loader));
+            // The same gap, stored before the slow load finishes
+            assertSteps(this.start + HOUR, this.start + 2 * HOUR, get(replica, this.start + HOUR, this.start + 2 * HOUR, loader));
+        });
+
+        release.countDown();
+        thread.join(10_000);
+        assertNull(slow[1]);
+        assertSteps(this.start + HOUR, this.start + 2 * HOUR, (EventSeries) slow[0]);
+        // The slow load did not store its interval a second time
+        assertSteps(this.start, this.start + 2 * HOUR,
+                get(new ObservationReplica(this.directory, DAY, STEP), this.start, this.start + 2 * HOUR, loader));
+        assertEquals(1, this.segments().size());
+    }
+
+    private static long readLong(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        channel.read(buffer, position);
+        return buffer.flip().getLong();
+    }
+
+    private static void writeLong(FileChannel channel, long position, long value) throws IOException {
+        channel.write(ByteBuffer.allocate(8).putLong(value).flip(), position);
+    }
+}
@@ -0,0 +1,175 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.RollupStoreTest            *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.EventSink;
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.DownsampleMode;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class RollupStoreTest {
+
+    private static final long MINUTE = RollupStore.MINUTE;
+    private static final long HOUR = RollupStore.HOUR;
+    private static final long DAY = RollupStore.DAY;
+    // One observation every 10 seconds
+    private static final long STEP = 10_000L;
+
+    // Hour aligned, well within the retentions and before the live edge
+    private final long start = (System.currentTimeMillis() - 12 * HOUR) / HOUR * HOUR;
+
+    /**
+     * Loader of one observation per step, value 1, 2, 3 ... per minute, counting the loaded observations.
+     */
+    private static class StepLoader implements ObservationRangeCache.Loader {
+
+        private final AtomicInteger loads = new AtomicInteger();
+        private final AtomicInteger observations = new AtomicInteger();
+
+        @Override
+        public void load(long fromTimestamp, long toTimestamp, EventSink sink) {
+            this.loads.incrementAndGet();
+            for (long timestamp = (fromTimestamp + STEP - 1) / STEP * STEP; timestamp < toTimestamp; timestamp += STEP) {
+                this.observations.incrementAndGet();
+                sink.accept(timestamp, 1 + (timestamp % MINUTE) / STEP);
+            }
+        }
+    }
+
+    private static EventSeries query(RollupStore store, long from, long to, long bucketWidth, DownsampleMode mode, ObservationRangeCache.Loader loader) throws Exception {
+        EventSeries result = new EventSeries();
+        store.query("thing|p", from, to, bucketWidth, mode, loader, result);
+        return result;
+    }
+
+    @Test
+    void secondQueryIsAnsweredFromTheRollups() throws Exception {
+        RollupStore store = new RollupStore(DAY, 30 * DAY, MINUTE);
+        StepLoader loader = new StepLoader();
+        EventSeries first = query(store, this.start, this.start + 2 * HOUR, 10 * MINUTE, DownsampleMode.AVERAGE, loader);
+        assertEquals(12, first.size());
+        assertEquals(3.5, first.getValue(0));
+        assertEquals(1, store.getMisses());
+        int loaded = loader.observations.get();
+        assertEquals(2 * 360, loaded);
+
+        EventSeries second = query(store, this.start, this.start + 2 * HOUR, 10 * MINUTE, DownsampleMode.AVERAGE, loader);
+        assertArrayEquals(first.timestamps(), second.timestamps());
+        assertArrayEquals(first.values(), second.values());
+        assertEquals(1, store.getHits());
+        assertEquals(loaded, loader.observations.get());
+    }
+
+    @Test
+    void coarserBucketsCombineTheRecordedMinutes() throws Exception {
+        RollupStore store = new RollupStore(DAY, 30 * DAY, MINUTE);
+        StepLoader loader = new StepLoader();
+        query(store, this.start, this.start + 2 * HOUR, MINUTE, DownsampleMode.MINMAX, loader);
+        int loads = loader.loads.get();
+
+        EventSeries hourly = query(store, this.start, this.start + 2 * HOUR, HOUR, DownsampleMode.MINMAX, loader);
+        assertEquals(loads, loader.loads.get());
+        // Minimum and maximum of every hour
+        assertEquals(4, hourly.size());
+        assertEquals(this.start, hourly.getTimestamp(0));
+        assertEquals(1.0, hourly.getValue(0));
+        assertEquals(6.0, hourly.getValue(1));
+    }
+
+    @Test
+    void onlyLoadsWhatIsNotCovered() throws Exception {
+        RollupStore store = new RollupStore(DAY, 30 * DAY, MINUTE);
+        StepLoader loader = new StepLoader();
+        query(store, this.start, this.start + HOUR, MINUTE, DownsampleMode.AVERAGE, loader);
+        loader.observations.set(0);
+        query(store, this.start, this.start + 2 * HOUR, MINUTE, DownsampleMode.AVERAGE, loader);
+        // Only the second hour
+        assertEquals(360, loader.observations.get());
+        assertEquals(2, store.getRawLoads());
+    }
+
+    @Test
+    void reloadsTheLiveEdge() throws Exception {
+        RollupStore store = new RollupStore(DAY, 30 * DAY, HOUR);
+        StepLoader loader = new StepLoader();
+        long to = System.currentTimeMillis() / MINUTE * MINUTE;
+        query(store, to - 2 * HOUR, to, MINUTE, DownsampleMode.AVERAGE, loader);
+        loader.observations.set(0);
+        query(store, to - 2 * HOUR, to, MINUTE, DownsampleMode.AVERAGE, loader);
+        assertTrue(loader.observations.get() > 0 && loader.observations.get() <= 6 * 61, "only the last hour is loaded again");
+        assertEquals(0, store.getHits());
+    }
+
+    @Test
+    void streamedMinutesAreNotLoaded() throws Exception {
+        RollupStore store = new RollupStore(DAY, 30 * DAY, 0);
+        store.resetStream();
+        long minute = (System.currentTimeMillis() / MINUTE + 1) * MINUTE;
+        for (long timestamp = minute; timestamp < minute + MINUTE; timestamp += STEP) {
+            store.add("thing|p", timestamp, 2);
+        }
+        // An observation of the next minute completes the first one
+        store.add("thing|p", minute + MINUTE, 5);
+
+        EventSeries result = query(store, minute, minute + MINUTE, MINUTE, DownsampleMode.AVERAGE, (from, to, sink) -> {
+            throw new AssertionError("Streamed minute loaded");
+        });
+        assertEquals(1, result.size());
+        assertEquals(2.0, result.getValue(0));
+    }
+
+    @Test
+    void streamIsNotHeldUpByALoad() throws Exception {
+        RollupStore store = new RollupStore(DAY, 30 * DAY, 0);
+        store.resetStream();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        StepLoader loader = new StepLoader();
+        Thread thread = new Thread(() -> {
+            try {
+                query(store, this.start, this.start + HOUR, MINUTE, DownsampleMode.AVERAGE, (from, to, sink) -> {
+                    loading.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    loader.load(from, to, sink);
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        thread.start();
+        assertTrue(loading.await(10, TimeUnit.SECONDS));
+        long minute = (System.currentTimeMillis() / MINUTE + 1) * MINUTE;
+        assertTimeoutPreemptively(Duration.ofSeconds(10), () -> store.add("thing|p", minute, 1));
+        release.countDown();
+        thread.join(10_000);
+        assertEquals(360, loader.observations.get());
+    }
+
+    @Test
+    void lttbIsNotSupported() {
+        RollupStore store = new RollupStore(DAY, 30 * DAY, MINUTE);
+        assertThrows(IllegalArgumentException.class,
+                () -> query(store, this.start, this.start + HOUR, MINUTE, DownsampleMode.LTTB, new StepLoader()));
+    }
+}
@@ -0,0 +1,130 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.SingleFlightTest           *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SingleFlight with callers on separate threads, the load of the first one
+ * held until all of them have arrived.
+ *
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class SingleFlightTest {
+
+    private static final int CALLERS = 8;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        this.executor = Executors.newFixedThreadPool(CALLERS);
+    }
+
+    @AfterEach
+    void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Run CALLERS concurrent requests for a key, the loader only returns once
+     * every caller has made its request.
+     */
+    private List<Future<Object>> runConcurrently(SingleFlight<String, Object> flight, String key, CountDownLatch release,
+            Supplier<Object> loader) throws InterruptedException {
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(this.executor.submit(() -> flight.run(key, () -> {
+                try {
+                    assertTrue(release.await(10, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return loader.get();
+            })));
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (flight.getRequests() < CALLERS && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // Past the count, the last caller still has to find the load in flight
+        Thread.sleep(50);
+        release.countDown();
+        return results;
+    }
+
+    @Test
+    void coalescesConcurrentRequests() throws InterruptedException, ExecutionException, TimeoutException {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        Object result = new Object();
+        List<Future<Object>> results = this.runConcurrently(flight, "a", new CountDownLatch(1), () -> result);
+        for (Future<Object> future : results) {
+            assertSame(result, future.get(10, TimeUnit.SECONDS));
+        }
+        assertEquals(CALLERS, flight.getRequests());
+        assertEquals(1, flight.getLoads());
+        assertEquals(CALLERS, flight.getCoalescingRatio(), 0);
+        assertEquals(0, flight.getInFlight());
+
+        // Nothing is cached once the load is done
+        Object next = new Object();
+        assertSame(next, flight.run("a", () -> next));
+        assertEquals(2, flight.getLoads());
+    }
+
+    @Test
+    void keepsKeysApart() {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        // A request for another key, made while the load of the first one is running
+        Object inner = flight.run("a", () -> flight.run("b", () -> "b"));
+        assertEquals("b", inner);
+        assertEquals(2, flight.getLoads());
+    }
+
+    @Test
+    void passesTheExceptionToEveryCaller() throws InterruptedException, TimeoutException {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        IllegalStateException failure = new IllegalStateException("Load failed");
+        List<Future<Object>> results = this.runConcurrently(flight, "a", new CountDownLatch(1), () -> {
+            throw failure;
+        });
+        for (Future<Object> future : results) {
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> future.get(10, TimeUnit.SECONDS));
+            assertSame(failure, exception.getCause());
+        }
+        assertEquals(1, flight.getLoads());
+    }
+
+    @Test
+    void loadsAgainAfterAFailedLoad() {
+        SingleFlight<String, Object> flight = new SingleFlight<>();
+        assertThrows(IllegalStateException.class, () -> flight.run("a", () -> {
+            throw new IllegalStateException("Load failed");
+        }));
+        // The failed load is not kept for the key
+        assertEquals(0, flight.getInFlight());
+        assertEquals("loaded", flight.run("a", () -> "loaded"));
+        assertEquals(2, flight.getLoads());
+    }
+}
@@ -0,0 +1,168 @@
+/****************************************************************************
+ * be.ugent.idlab.ddashboard.ldeswebthing.series.UpdateableEventIndexTest   *
+ ****************************************************************************/
+package be.ugent.idlab.ddashboard.ldeswebthing.series;
+
+import be.ugent.idlab.ddashboard.ldeswebthing.ldes.models.LDESException;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * @author agent
+ * @date 2026-10-18
+ * @version 0.1.0
+ */
+class UpdateableEventIndexTest {
+
+    /**
+     * Members of a stand-in LDES, remembers the lower bound of every load.
+     */
+    private static class Members implements UpdateableEventIndex.Loader {
+
+        private final List<Object[]> members = new ArrayList<>();
+        private final List<Long> loads = new ArrayList<>();
+        private boolean failing = false;
+
+        private Members add(long timestamp, double value, String... tags) {
+            this.members.add(new Object[] {timestamp, value, (tags.length == 0) ? null : Arrays.asList(tags)});
+            return this;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void load(Long fromTimestamp, UpdateableEventIndex.MemberSink sink) throws LDESException {
+            this.loads.add(fromTimestamp);
+            if (this.failing) {
+                throw new LDESException("LDES unavailable");
+            }
+            for (Object[] member : this.members) {
+                if (fromTimestamp == null || (long) member[0] >= fromTimestamp) {
+                    sink.accept((long) member[0], (double) member[1], (Iterable<String>) member[2]);
+                }
+            }
+        }
+    }
+
+    private static EventSeries query(UpdateableEventIndex index, Long from, Long to, Members members) throws LDESException {
+        EventSeries output = new EventSeries();
+        index.query(from, to, members, output);
+        return output;
+    }
+
+    @Test
+    void theHighestUpdateWinsInAnyOrder() throws LDESException {
+        Members members = new Members()
+                .add(10, 3, "id=a", "update=2")
+                .add(10, 1, "id=a")
+                .add(10, 2, "id=a", "update=1")
+                .add(20, 5, "id=b", "update=1");
+        UpdateableEventIndex index = new UpdateableEventIndex(0, 0, 0);
+        EventSeries output = UpdateableEventIndexTest.query(index, null, null, members);
+        assertArrayEquals(new long[] {10, 20}, output.timestamps());
+        assertArrayEquals(new double[] {3, 5}, output.values());
+        assertEquals(4, index.getMembers());
+    }
+
+    @Test
+    void anUpdateMovesTheEvent() throws LDESException {
+        Members members = new Members()
+                .add(10, 1, "id=a")
+                .add(30, 2, "id=a", "update=1")
+                .add(20, 3, "id=b");
+        EventSeries output = UpdateableEventIndexTest.query(new UpdateableEventIndex(0, 0, 0), null, null, members);
+        assertArrayEquals(new long[] {20, 30}, output.timestamps());
+        assertArrayEquals(new double[] {3, 2}, output.values());
+    }
+
+    @Test
+    void aDeletedTagTombstonesTheEvent() throws LDESException {
+        Members members = new Members()
+                .add(10, 1, "id=a")
+                .add(10, 1, "id=a", "update=2", "deleted=true")
+                .add(10, 9, "id=a", "update=1")
+                .add(20, 2, "id=b");
+        UpdateableEventIndex index = new UpdateableEventIndex(0, 0, 0);
+        EventSeries output = UpdateableEventIndexTest.query(index, null, null, members);
+        assertArrayEquals(new long[] {20}, output.timestamps());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void membersWithoutIdAreSkipped() throws LDESException {
+        Members members = new Members()
+                .add(10, 1)
+                .add(20, 2, "update=1", "other")
+                .add(30, 3, "id=a");
+        EventSeries output = UpdateableEventIndexTest.query(new UpdateableEventIndex(0, 0, 0), null, null, members);
+        assertArrayEquals(new long[] {30}, output.timestamps());
+    }
+
+    @Test
+    void queriesATimeRangeAndThePreviousEvents() throws LDESException {
+        Members members = new Members();
+        for (int i = 0; i < 10; i++) {
+            members.add(i * 10, i, "id=" + i);
+        }
+        UpdateableEventIndex index = new UpdateableEventIndex(0, 0, 0);
+        assertArrayEquals(new long[] {20, 30, 40}, UpdateableEventIndexTest.query(index, 20L, 50L, members).timestamps());
+        assertEquals(0, UpdateableEventIndexTest.query(index, 50L, 50L, members).size());
+
+        EventSeries previous = new EventSeries();
+        index.previous(50L, 3, members, previous);
+        assertArrayEquals(new long[] {40, 30, 20}, previous.timestamps());
+        EventSeries latest = new EventSeries();
+        index.previous(null, 2, members, latest);
+        assertArrayEquals(new long[] {90, 80}, latest.timestamps());
+    }
+
+    @Test
+    void refreshesFromTheHighWaterMarkMinusTheLiveEdge() throws LDESException {
+        Members members = new Members().add(100, 1, "id=a");
+        UpdateableEventIndex index = new UpdateableEventIndex(0, 0, 30);
+        UpdateableEventIndexTest.query(index, null, null, members);
+        members.add(90, 2, "id=b").add(150, 3, "id=c");
+        EventSeries output = UpdateableEventIndexTest.query(index, null, null, members);
+        assertNull(members.loads.get(0));
+        assertEquals(Long.valueOf(70), members.loads.get(1));
+        assertArrayEquals(new long[] {90, 100, 150}, output.timestamps());
+        // The overlap is applied twice without effect
+        UpdateableEventIndexTest.query(index, null, null, members);
+        assertEquals(Long.valueOf(120), members.loads.get(2));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void doesNotLoadWithinTheRefreshInterval() throws LDESException {
+        Members members = new Members().add(100, 1, "id=a");
+        UpdateableEventIndex index = new UpdateableEventIndex(60_000, 0, 0);
+        UpdateableEventIndexTest.query(index, null, null, members);
+        UpdateableEventIndexTest.query(index, null, null, members);
+        assertEquals(1, members.loads.size());
+    }
+
+    @Test
+    void keepsTheIndexIfAResyncFails() throws LDESException {
+        Members members = new Members().add(100, 1, "id=a");
+        UpdateableEventIndex index = new UpdateableEventIndex(0, 1, 0);
+        UpdateableEventIndexTest.query(index, null, null, members);
+        members.failing = true;
+        try {
+            Thread.sleep(5);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        assertThrows(LDESException.class, () -> UpdateableEventIndexTest.query(index, null, null, members));
+        assertNull(members.loads.get(1));
+        assertEquals(1, index.size());
+        assertEquals(1, index.getMembers());
+    }
+}